@@ -0,0 +1,118 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import com.github.j3t.ssl.utils.EnvironmentHelper;
+import com.github.j3t.ssl.utils.SSLContextBuilder;
+import com.github.j3t.ssl.utils.types.SslProtocol;
+import org.openjdk.jmh.annotations.Setup;
+
+import javax.net.ssl.SSLContext;
+import java.util.Arrays;
+
+/**
+ * Base class of the benchmark states, which connect a client and a server {@link javax.net.ssl.SSLEngine} in memory
+ * (see {@link LoopbackConnection}). Both contexts are created by the {@link SSLContextBuilder}, the client trusts the
+ * server certificate, client authentication is not used.<br>
+ * <br>
+ * The parameters are declared by the subclasses, so each state only contains combinations, which can be negotiated
+ * (e.g. DSA certificates can only be used with TLSv1.2).
+ *
+ * @author j3t
+ */
+public abstract class AbstractLoopbackBenchmark {
+    protected SSLContext clientContext;
+    protected SSLContext serverContext;
+    private String enabledCipherSuite;
+
+    /**
+     * @return the protocol enabled on both sides (see {@link SslProtocol})
+     */
+    protected abstract String getProtocol();
+
+    /**
+     * @return the key type of the server certificate (RSA, EC or DSA)
+     */
+    protected abstract String getKeyType();
+
+    /**
+     * @return the cipher suite, default to use the default cipher suites of the runtime, a cipher (e.g. AES_128_GCM,
+     * AES_128_CBC or CHACHA20_POLY1305), which is combined with the protocol and the key type, or the name of a
+     * cipher suite (e.g. TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256)
+     */
+    protected abstract String getCipherSuite();
+
+    /**
+     * Configures the builders before the contexts are created, does nothing by default.
+     *
+     * @param clientBuilder the builder of the client context
+     * @param serverBuilder the builder of the server context
+     */
+    protected void configure(SSLContextBuilder clientBuilder, SSLContextBuilder serverBuilder) {
+    }
+
+    @Setup
+    public void setUpContexts() throws Exception {
+        String protocol = getProtocol();
+
+        if (!EnvironmentHelper.isProtocolSupported(protocol))
+            throw new IllegalStateException(protocol + " is not supported by this runtime!");
+
+        SSLContextBuilder clientBuilder = SSLContextBuilder.create()
+                .setProtocol(protocol)
+                .setTrustStore(BenchmarkFixtures.serverTrustStore());
+
+        SSLContextBuilder serverBuilder = SSLContextBuilder.create()
+                .setProtocol(protocol)
+                .setKeyStore(BenchmarkFixtures.serverKeyStore(getKeyType()))
+                .setKeyStorePassword(BenchmarkFixtures.SERVER_PASSWORD);
+
+        configure(clientBuilder, serverBuilder);
+
+        clientContext = clientBuilder.build();
+        serverContext = serverBuilder.build();
+        enabledCipherSuite = resolveCipherSuite(protocol, getKeyType(), getCipherSuite());
+
+        if (enabledCipherSuite != null && !Arrays.asList(clientContext.getSupportedSSLParameters().getCipherSuites())
+                .contains(enabledCipherSuite))
+            throw new IllegalStateException(enabledCipherSuite + " is not supported by this runtime!");
+    }
+
+    /**
+     * Creates a new connection between the client and the server context.
+     *
+     * @param resumable <code>true</code> if the session can be resumed by the next connection
+     * @return {@link LoopbackConnection}
+     */
+    protected LoopbackConnection connect(boolean resumable) {
+        return new LoopbackConnection(clientContext, serverContext, getProtocol(), enabledCipherSuite, resumable);
+    }
+
+    /**
+     * Returns the name of the cipher suite, which uses the given cipher with the protocol and the key type, e.g.
+     * TLS_AES_128_GCM_SHA256 for TLSv1.3 or TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256 for TLSv1.2 and EC.
+     *
+     * @param protocol    the protocol
+     * @param keyType     the key type of the server certificate
+     * @param cipherSuite default, a cipher or the name of a cipher suite
+     * @return the name of the cipher suite or <code>null</code> if cipherSuite is default
+     */
+    static String resolveCipherSuite(String protocol, String keyType, String cipherSuite) {
+        if ("default".equals(cipherSuite))
+            return null;
+
+        if (cipherSuite.startsWith("TLS_") || cipherSuite.startsWith("SSL_"))
+            return cipherSuite;
+
+        if (SslProtocol.TLSv13.equals(protocol))
+            return "TLS_" + cipherSuite + "_SHA256";
+
+        if ("RSA".equals(keyType))
+            return "TLS_ECDHE_RSA_WITH_" + cipherSuite + "_SHA256";
+        else if ("EC".equals(keyType))
+            return "TLS_ECDHE_ECDSA_WITH_" + cipherSuite + "_SHA256";
+        else if ("DSA".equals(keyType))
+            return "TLS_DHE_DSS_WITH_" + cipherSuite + "_SHA256";
+
+        throw new IllegalArgumentException("unknown key type: " + keyType);
+    }
+}
@@ -0,0 +1,157 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import com.github.j3t.ssl.utils.KeyStoreBuilder;
+import com.github.j3t.ssl.utils.types.KeyStoreType;
+
+import java.io.*;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.util.Locale;
+
+/**
+ * Key stores used by the benchmarks. The small stores are the fixtures of the ssl-utils tests (src/test/resources/certs),
+ * the large stores are generated by adding the fixture certificate under many aliases. The server key stores of the
+ * handshake benchmarks (src/main/resources/benchmark) contain self-signed RSA, EC and DSA certificates for localhost,
+ * which are valid for 100 years.
+ *
+ * @author j3t
+ */
+public final class BenchmarkFixtures {
+    /**
+     * Password of the client fixture and of all generated stores.
+     */
+    public static final String CLIENT_PASSWORD = "PtUPmi#o";
+
+    /**
+     * Password of the server key stores and of the server trust store.
+     */
+    public static final String SERVER_PASSWORD = "benchmark";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Returns the client key store fixture (one private key entry).
+     *
+     * @return {@link KeyStore}
+     */
+    public static KeyStore clientKeyStore() throws GeneralSecurityException, IOException, IllegalAccessException {
+        return KeyStoreBuilder.create()
+                .setType(KeyStoreType.JKS)
+                .setKey(resource("/certs/client.jks"))
+                .setPassword(CLIENT_PASSWORD)
+                .build();
+    }
+
+    /**
+     * Returns the client trust store fixture (one trusted certificate entry).
+     *
+     * @return {@link KeyStore}
+     */
+    public static KeyStore clientTrustStore() throws GeneralSecurityException, IOException, IllegalAccessException {
+        return KeyStoreBuilder.create()
+                .setType(KeyStoreType.JKS)
+                .setKey(resource("/certs/client-trust.jks"))
+                .build();
+    }
+
+    /**
+     * Returns the server key store with the given key type (alias server).
+     *
+     * @param keyType the key type (RSA, EC or DSA)
+     * @return {@link KeyStore}
+     */
+    public static KeyStore serverKeyStore(String keyType)
+            throws GeneralSecurityException, IOException, IllegalAccessException {
+        return KeyStoreBuilder.create()
+                .setType(KeyStoreType.JKS)
+                .setKey(resource("/benchmark/server-" + keyType.toLowerCase(Locale.ENGLISH) + ".jks"))
+                .setPassword(SERVER_PASSWORD)
+                .build();
+    }
+
+    /**
+     * Returns the trust store with the certificates of all server key stores.
+     *
+     * @return {@link KeyStore}
+     */
+    public static KeyStore serverTrustStore() throws GeneralSecurityException, IOException, IllegalAccessException {
+        return KeyStoreBuilder.create()
+                .setType(KeyStoreType.JKS)
+                .setKey(resource("/benchmark/trust.jks"))
+                .setPassword(SERVER_PASSWORD)
+                .build();
+    }
+
+    /**
+     * Creates an encoded key store of the given type. With size 1, the store contains the private key entry of the
+     * client fixture, otherwise it contains the given number of trusted certificate entries.
+     *
+     * @param type the key store type (e.g. JKS, PKCS12 or JCEKS)
+     * @param size the number of entries
+     * @return the encoded key store, protected by {@link #CLIENT_PASSWORD}
+     */
+    public static byte[] createKeyStore(String type, int size)
+            throws GeneralSecurityException, IOException, IllegalAccessException {
+        KeyStore client = clientKeyStore();
+        Key key = client.getKey("client", CLIENT_PASSWORD.toCharArray());
+        Certificate[] chain = client.getCertificateChain("client");
+
+        KeyStore keyStore = KeyStore.getInstance(type);
+        keyStore.load(null, null);
+
+        if (size == 1)
+            keyStore.setKeyEntry("client", key, CLIENT_PASSWORD.toCharArray(), chain);
+        else
+            for (int i = 0; i < size; i++)
+                keyStore.setCertificateEntry("cert-" + i, chain[0]);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        keyStore.store(out, CLIENT_PASSWORD.toCharArray());
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the given content to a temporary file, which is deleted on exit.
+     *
+     * @param content the content
+     * @return the absolute path of the file
+     */
+    public static String writeTempFile(byte[] content) throws IOException {
+        File file = File.createTempFile("ssl-utils-benchmark", ".ks");
+        file.deleteOnExit();
+
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+
+        return file.getAbsolutePath();
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        InputStream in = BenchmarkFixtures.class.getResourceAsStream(name);
+
+        if (in == null)
+            throw new FileNotFoundException(name);
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of the benchmark jar. Runs the JMH benchmarks with the GC profiler (allocation rates), unless another
+ * profiler is given.
+ *
+ * @author j3t
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<String>(Arrays.asList(args));
+
+        if (!arguments.contains("-prof") && !arguments.contains("-h") && !arguments.contains("-l")) {
+            arguments.add("-prof");
+            arguments.add("gc");
+        }
+
+        org.openjdk.jmh.Main.main(arguments.toArray(new String[arguments.size()]));
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import com.github.j3t.ssl.utils.KeyStoreBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link KeyStoreBuilder#build()} for different key store types, sizes and sources.
+ *
+ * @author j3t
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyStoreBuilderBenchmark {
+    @Param({"JKS", "PKCS12", "JCEKS"})
+    public String type;
+
+    /**
+     * 1 is the private key entry of the client fixture, otherwise the number of trusted certificate entries.
+     */
+    @Param({"1", "1000", "10000"})
+    public int size;
+
+    private byte[] key;
+    private String path;
+
+    @Setup
+    public void setUp() throws Exception {
+        key = BenchmarkFixtures.createKeyStore(type, size);
+        path = BenchmarkFixtures.writeTempFile(key);
+    }
+
+    @Benchmark
+    public KeyStore buildWithPath() throws Exception {
+        return KeyStoreBuilder.create()
+                .setType(type)
+                .setPath(path)
+                .setPassword(BenchmarkFixtures.CLIENT_PASSWORD)
+                .build();
+    }
+
+    @Benchmark
+    public KeyStore buildWithKey() throws Exception {
+        return KeyStoreBuilder.create()
+                .setType(type)
+                .setKey(key)
+                .setPassword(BenchmarkFixtures.CLIENT_PASSWORD)
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import com.github.j3t.ssl.utils.KeyStoreBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways to load large key store files (1 MB and more):
+ * <ul>
+ * <li>fileInputStream: the former path of {@link KeyStoreBuilder#build()}, an unbuffered {@link FileInputStream}
+ * (closed here, the former path leaked it)</li>
+ * <li>bulkRead: {@link KeyStoreBuilder#build()}, the file is read with one bulk read</li>
+ * <li>memoryMapped: {@link KeyStoreBuilder#build()} with {@link KeyStoreBuilder#setMemoryMapped(boolean)}</li>
+ * </ul>
+ *
+ * @author j3t
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyStoreFileBenchmark {
+    @Param({"JKS", "PKCS12"})
+    public String type;
+
+    /**
+     * The minimum size of the key store file in MB.
+     */
+    @Param({"1", "4"})
+    public int megabytes;
+
+    private String path;
+
+    @Setup
+    public void setUp() throws Exception {
+        Certificate certificate = BenchmarkFixtures.clientKeyStore().getCertificate("client");
+        int entries = megabytes * 1024 * 1024 / certificate.getEncoded().length + 1;
+
+        path = BenchmarkFixtures.writeTempFile(BenchmarkFixtures.createKeyStore(type, entries));
+    }
+
+    @Benchmark
+    public KeyStore fileInputStream() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance(type);
+        InputStream in = new FileInputStream(path);
+
+        try {
+            keyStore.load(in, BenchmarkFixtures.CLIENT_PASSWORD.toCharArray());
+        } finally {
+            in.close();
+        }
+
+        return keyStore;
+    }
+
+    @Benchmark
+    public KeyStore bulkRead() throws Exception {
+        return KeyStoreBuilder.create()
+                .setType(type)
+                .setPath(path)
+                .setPassword(BenchmarkFixtures.CLIENT_PASSWORD)
+                .build();
+    }
+
+    @Benchmark
+    public KeyStore memoryMapped() throws Exception {
+        return KeyStoreBuilder.create()
+                .setType(type)
+                .setPath(path)
+                .setPassword(BenchmarkFixtures.CLIENT_PASSWORD)
+                .setMemoryMapped(true)
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import com.github.j3t.ssl.utils.KeyStoreHelper;
+import com.github.j3t.ssl.utils.KeyStoreRenderer;
+import com.github.j3t.ssl.utils.types.KeyStoreType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link KeyStoreHelper#toString(KeyStore)}, which builds the whole representation as one {@link String},
+ * with the {@link KeyStoreRenderer} streaming the entries into a {@link Writer} (text and JSON lines). The writer
+ * discards the output, so the allocations per operation (GC profiler) are the costs of the rendering only.
+ *
+ * @author j3t
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyStoreRendererBenchmark {
+    private static final Writer NULL_WRITER = new Writer() {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public Writer append(CharSequence csq) {
+            return this;
+        }
+
+        @Override
+        public Writer append(char c) {
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * The number of private key entries.
+     */
+    @Param({"100", "1000"})
+    public int entries;
+
+    private KeyStore keyStore;
+    private KeyStoreRenderer text;
+    private KeyStoreRenderer jsonLines;
+
+    @Setup
+    public void setUp() throws Exception {
+        char[] password = BenchmarkFixtures.CLIENT_PASSWORD.toCharArray();
+        KeyStore client = BenchmarkFixtures.clientKeyStore();
+        Key key = client.getKey("client", password);
+        Certificate[] chain = client.getCertificateChain("client");
+
+        keyStore = KeyStore.getInstance(KeyStoreType.JKS);
+        keyStore.load(null, null);
+
+        for (int i = 0; i < entries; i++)
+            keyStore.setKeyEntry("tenant-" + i, key, password, chain);
+
+        text = KeyStoreRenderer.create();
+        jsonLines = KeyStoreRenderer.create().setFormat(KeyStoreRenderer.Format.JSON_LINES);
+    }
+
+    @Benchmark
+    public String helperToString() {
+        return KeyStoreHelper.toString(keyStore);
+    }
+
+    @Benchmark
+    public int rendererText() throws IOException {
+        return text.render(keyStore, NULL_WRITER);
+    }
+
+    @Benchmark
+    public int rendererJsonLines() throws IOException {
+        return jsonLines.render(keyStore, NULL_WRITER);
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import com.github.j3t.ssl.utils.CertificateHelper;
+import com.github.j3t.ssl.utils.KeyStoreHelper;
+import com.github.j3t.ssl.utils.types.KeyStoreType;
+import com.github.j3t.ssl.utils.types.KeyUsage;
+import com.github.j3t.ssl.utils.types.KeyUsageSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Enumeration;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the key usage checks of the enum-array API (a list and an array per certificate, one chain check per
+ * requested key usage) with the {@link KeyUsageSet} API (one mask per chain). The enum-array variants are the
+ * implementations of {@link CertificateHelper#getKeyUsages(Certificate)} and
+ * {@link KeyStoreHelper#getAliases(KeyStore, KeyUsage...)} before {@link KeyUsageSet} was introduced. Run with the GC
+ * profiler to see the allocations per operation.
+ *
+ * @author j3t
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyUsageBenchmark {
+    private static final KeyUsage[] REQUIRED = {KeyUsage.DIGITAL_SIGNATURE, KeyUsage.KEY_ENCIPHERMENT};
+
+    /**
+     * The number of private key entries.
+     */
+    @Param({"100"})
+    public int entries;
+
+    private KeyStore keyStore;
+    private Certificate[] chain;
+    private KeyUsageSet required;
+
+    @Setup
+    public void setUp() throws Exception {
+        char[] password = BenchmarkFixtures.CLIENT_PASSWORD.toCharArray();
+        KeyStore client = BenchmarkFixtures.clientKeyStore();
+        Key key = client.getKey("client", password);
+        chain = client.getCertificateChain("client");
+
+        keyStore = KeyStore.getInstance(KeyStoreType.JKS);
+        keyStore.load(null, null);
+
+        for (int i = 0; i < entries; i++)
+            keyStore.setKeyEntry("tenant-" + i, key, password, chain);
+
+        required = KeyUsageSet.of(REQUIRED);
+    }
+
+    @Benchmark
+    public boolean chainEnumArray() {
+        for (Certificate certificate : chain)
+            if (contains(getKeyUsages(certificate), REQUIRED))
+                return true;
+
+        return false;
+    }
+
+    @Benchmark
+    public boolean chainKeyUsageSet() {
+        return CertificateHelper.getKeyUsageSet(chain).containsAll(required);
+    }
+
+    @Benchmark
+    public String[] aliasesEnumArray() throws KeyStoreException {
+        List<String> aliases = new LinkedList<>();
+        Enumeration<String> en = keyStore.aliases();
+
+        while (en.hasMoreElements()) {
+            String alias = en.nextElement();
+            aliases.add(alias);
+            Certificate[] certChain = keyStore.getCertificateChain(alias);
+
+            for (KeyUsage keyUsage : REQUIRED)
+                if (!isKeyUsagePresent(certChain, keyUsage))
+                    aliases.remove(alias);
+        }
+
+        return aliases.toArray(new String[aliases.size()]);
+    }
+
+    @Benchmark
+    public String[] aliasesKeyUsageSet() {
+        return KeyStoreHelper.getAliases(keyStore, required);
+    }
+
+    private static KeyUsage[] getKeyUsages(Certificate certificate) {
+        List<KeyUsage> keyUsages = new LinkedList<>();
+
+        for (KeyUsage keyUsage : KeyUsage.values())
+            if (isKeyUsagePresent(certificate, keyUsage))
+                keyUsages.add(keyUsage);
+
+        return keyUsages.toArray(new KeyUsage[keyUsages.size()]);
+    }
+
+    private static boolean isKeyUsagePresent(Certificate[] certificateChain, KeyUsage keyUsage) {
+        for (Certificate certificate : certificateChain)
+            if (isKeyUsagePresent(certificate, keyUsage))
+                return true;
+
+        return false;
+    }
+
+    private static boolean isKeyUsagePresent(Certificate certificate, KeyUsage keyUsage) {
+        // getKeyUsage() returns a copy of the extension
+        boolean[] keyUsages = ((X509Certificate) certificate).getKeyUsage();
+
+        return keyUsages != null && keyUsages[keyUsage.ordinal()];
+    }
+
+    private static boolean contains(KeyUsage[] keyUsages, KeyUsage[] required) {
+        for (KeyUsage keyUsage : required) {
+            boolean found = false;
+
+            for (KeyUsage present : keyUsages)
+                found |= present == keyUsage;
+
+            if (!found)
+                return false;
+        }
+
+        return true;
+    }
+}
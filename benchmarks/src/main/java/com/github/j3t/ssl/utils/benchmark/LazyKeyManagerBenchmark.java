@@ -0,0 +1,86 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import com.github.j3t.ssl.utils.LazyKeyManager;
+import com.github.j3t.ssl.utils.SSLContextBuilder;
+import com.github.j3t.ssl.utils.types.KeyStoreType;
+import org.openjdk.jmh.annotations.*;
+
+import javax.net.ssl.SSLContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SSLContextBuilder#build()} with a PKCS #12 key store of many identities, either with the key managers
+ * of the KeyManagerFactory (all keys are recovered up front) or with a lazy key manager (the keys are recovered on
+ * first use), and the alias selection of the {@link LazyKeyManager}, which is done once per handshake.
+ *
+ * @author j3t
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LazyKeyManagerBenchmark {
+    /**
+     * The number of private key entries.
+     */
+    @Param({"10", "100"})
+    public int identities;
+
+    private KeyStore keyStore;
+    private LazyKeyManager keyManager;
+    private String keyType;
+
+    @Setup
+    public void setUp() throws Exception {
+        char[] password = BenchmarkFixtures.CLIENT_PASSWORD.toCharArray();
+        KeyStore client = BenchmarkFixtures.clientKeyStore();
+        Key key = client.getKey("client", password);
+        Certificate[] chain = client.getCertificateChain("client");
+
+        KeyStore store = KeyStore.getInstance(KeyStoreType.PKCS12);
+        store.load(null, null);
+
+        for (int i = 0; i < identities; i++)
+            store.setKeyEntry("tenant-" + i, key, password, chain);
+
+        // stored and loaded again, so the keys are encrypted like the ones of a PKCS #12 file
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        store.store(out, password);
+
+        keyStore = KeyStore.getInstance(KeyStoreType.PKCS12);
+        keyStore.load(new ByteArrayInputStream(out.toByteArray()), password);
+
+        keyManager = new LazyKeyManager(keyStore, password, 64);
+        keyType = chain[0].getPublicKey().getAlgorithm();
+    }
+
+    @Benchmark
+    public SSLContext keyManagerFactory() throws Exception {
+        return SSLContextBuilder.create()
+                .setKeyStore(keyStore)
+                .setKeyStorePassword(BenchmarkFixtures.CLIENT_PASSWORD)
+                .build();
+    }
+
+    @Benchmark
+    public SSLContext lazyKeyManager() throws Exception {
+        return SSLContextBuilder.create()
+                .setKeyStore(keyStore)
+                .setKeyStorePassword(BenchmarkFixtures.CLIENT_PASSWORD)
+                .setLazyKeyManager(64)
+                .build();
+    }
+
+    @Benchmark
+    public String chooseServerAlias() {
+        return keyManager.chooseServerAlias(keyType, null, null);
+    }
+}
@@ -0,0 +1,177 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import javax.net.ssl.*;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+/**
+ * A pair of client and server {@link SSLEngine}s, which are connected in memory (no sockets). The records produced by
+ * one engine are consumed by the other engine, delegated tasks are run on the calling thread.
+ *
+ * @author j3t
+ */
+public final class LoopbackConnection {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    private static final int MAX_ROUNDS = 32;
+
+    private final SSLEngine client;
+    private final SSLEngine server;
+    private final ByteBuffer clientToServer;
+    private final ByteBuffer serverToClient;
+    private final ByteBuffer clientApplication;
+    private final ByteBuffer serverApplication;
+
+    /**
+     * Creates a connection, the handshake is not started.
+     *
+     * @param clientContext the {@link SSLContext} of the client
+     * @param serverContext the {@link SSLContext} of the server
+     * @param protocol      the protocol enabled on both sides
+     * @param cipherSuite   the cipher suite enabled on both sides or <code>null</code> to use the default cipher
+     *                      suites
+     * @param resumable     <code>true</code> if the client engine is created with the peer host and port, which allows
+     *                      the session to be resumed by the next connection of the same client context
+     */
+    public LoopbackConnection(SSLContext clientContext, SSLContext serverContext, String protocol, String cipherSuite,
+                              boolean resumable) {
+        client = resumable ? clientContext.createSSLEngine("localhost", 443) : clientContext.createSSLEngine();
+        server = serverContext.createSSLEngine();
+
+        client.setUseClientMode(true);
+        server.setUseClientMode(false);
+
+        SSLParameters parameters = client.getSSLParameters();
+        parameters.setServerNames(Collections.<SNIServerName>singletonList(new SNIHostName("localhost")));
+        client.setSSLParameters(parameters);
+
+        for (SSLEngine engine : new SSLEngine[]{client, server}) {
+            engine.setEnabledProtocols(new String[]{protocol});
+
+            if (cipherSuite != null)
+                engine.setEnabledCipherSuites(new String[]{cipherSuite});
+        }
+
+        // a flight of handshake messages can consist of several records
+        int packetBufferSize = Math.max(client.getSession().getPacketBufferSize(),
+                server.getSession().getPacketBufferSize());
+        int applicationBufferSize = Math.max(client.getSession().getApplicationBufferSize(),
+                server.getSession().getApplicationBufferSize());
+
+        clientToServer = ByteBuffer.allocate(4 * packetBufferSize);
+        serverToClient = ByteBuffer.allocate(4 * packetBufferSize);
+        clientApplication = ByteBuffer.allocate(applicationBufferSize);
+        serverApplication = ByteBuffer.allocate(applicationBufferSize);
+    }
+
+    /**
+     * Performs the handshake, including post-handshake messages (e.g. the session ticket of TLSv1.3).
+     *
+     * @throws SSLException          if the handshake fails
+     * @throws IllegalStateException if the handshake doesn't finish
+     */
+    public void handshake() throws SSLException {
+        client.beginHandshake();
+        server.beginHandshake();
+
+        for (int i = 0; i < MAX_ROUNDS; i++) {
+            flush(client, clientToServer, server, serverApplication);
+            flush(server, serverToClient, client, clientApplication);
+
+            if (isHandshakeFinished())
+                return;
+        }
+
+        throw new IllegalStateException("handshake not finished after " + MAX_ROUNDS + " rounds!");
+    }
+
+    /**
+     * Sends the given application data from the client to the server. The received data is discarded.
+     *
+     * @param payload the application data, at most {@link SSLSession#getApplicationBufferSize()} bytes
+     * @return the number of bytes received by the server
+     * @throws SSLException if the data can't be wrapped or unwrapped
+     */
+    public int transfer(ByteBuffer payload) throws SSLException {
+        int received = 0;
+
+        payload.rewind();
+
+        while (payload.hasRemaining()) {
+            check(client.wrap(payload, clientToServer));
+            clientToServer.flip();
+
+            while (clientToServer.hasRemaining())
+                received += check(server.unwrap(clientToServer, serverApplication)).bytesProduced();
+
+            clientToServer.clear();
+            serverApplication.clear();
+        }
+
+        return received;
+    }
+
+    /**
+     * Returns the session of the client.
+     *
+     * @return {@link SSLSession}
+     */
+    public SSLSession getClientSession() {
+        return client.getSession();
+    }
+
+    /**
+     * Returns the session of the server.
+     *
+     * @return {@link SSLSession}
+     */
+    public SSLSession getServerSession() {
+        return server.getSession();
+    }
+
+    private boolean isHandshakeFinished() {
+        return client.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING
+                && server.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING
+                && clientToServer.position() == 0
+                && serverToClient.position() == 0;
+    }
+
+    private static void flush(SSLEngine source, ByteBuffer network, SSLEngine target, ByteBuffer application)
+            throws SSLException {
+        runDelegatedTasks(source);
+
+        while (source.getHandshakeStatus() == HandshakeStatus.NEED_WRAP) {
+            check(source.wrap(EMPTY, network));
+            runDelegatedTasks(source);
+        }
+
+        network.flip();
+
+        while (network.hasRemaining()) {
+            SSLEngineResult result = check(target.unwrap(network, application));
+            runDelegatedTasks(target);
+            application.clear();
+
+            if (result.bytesConsumed() == 0)
+                break;
+        }
+
+        network.compact();
+    }
+
+    private static void runDelegatedTasks(SSLEngine engine) {
+        Runnable task;
+
+        while ((task = engine.getDelegatedTask()) != null)
+            task.run();
+    }
+
+    private static SSLEngineResult check(SSLEngineResult result) throws SSLException {
+        if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW
+                || result.getStatus() == SSLEngineResult.Status.CLOSED)
+            throw new SSLException("unexpected result: " + result);
+
+        return result;
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import com.github.j3t.ssl.utils.KeyStoreBuilder;
+import com.github.j3t.ssl.utils.PemTrustStoreBuilder;
+import com.github.j3t.ssl.utils.types.KeyStoreType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways to create a trust store from PEM files. The files contain the certificates of the JDK cacerts,
+ * either as one bundle or as one file per certificate (like <code>/etc/ssl/certs</code>):
+ * <ul>
+ * <li>naiveSerial: the directory is listed, each file is read into a {@link String}, split on BEGIN and the blocks are
+ * decoded one after another with one {@link CertificateFactory}</li>
+ * <li>streamingParallel: {@link PemTrustStoreBuilder}, the files are scanned line by line and the blocks are decoded
+ * in parallel</li>
+ * </ul>
+ *
+ * @author j3t
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PemTrustStoreBenchmark {
+    private static final String BEGIN = "-----BEGIN CERTIFICATE-----";
+
+    @Param({"bundle", "directory"})
+    public String layout;
+
+    /**
+     * How many times the cacerts certificates are repeated.
+     */
+    @Param({"1", "8"})
+    public int copies;
+
+    private File directory;
+    private List<File> files;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyStore cacerts = KeyStoreBuilder.create()
+                .setType(KeyStoreType.JKS)
+                .setPath(System.getProperty("java.home") + "/lib/security/cacerts")
+                .build();
+
+        List<Certificate> certificates = new ArrayList<>();
+
+        for (int i = 0; i < copies; i++)
+            for (String alias : Collections.list(cacerts.aliases()))
+                certificates.add(cacerts.getCertificate(alias));
+
+        directory = File.createTempFile("ssl-utils-benchmark", ".d");
+
+        if (!directory.delete() || !directory.mkdir())
+            throw new IOException("directory can't be created: " + directory);
+
+        if ("bundle".equals(layout))
+            write(new File(directory, "ca-bundle.crt"), certificates);
+        else
+            for (int i = 0; i < certificates.size(); i++)
+                write(new File(directory, "cert-" + i + ".pem"), certificates.subList(i, i + 1));
+
+        File[] children = directory.listFiles();
+        Arrays.sort(children);
+        files = Arrays.asList(children);
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (File file : files)
+            file.delete();
+
+        directory.delete();
+    }
+
+    @Benchmark
+    public KeyStore naiveSerial() throws Exception {
+        CertificateFactory factory = CertificateFactory.getInstance("X.509");
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(null, null);
+        int count = 0;
+
+        File[] children = directory.listFiles();
+        Arrays.sort(children);
+
+        for (File file : children) {
+            if (!file.isFile())
+                continue;
+
+            String content = new String(read(file), StandardCharsets.US_ASCII);
+
+            for (String part : content.split(BEGIN))
+                if (part.contains("-----END CERTIFICATE-----")) {
+                    byte[] block = (BEGIN + part).getBytes(StandardCharsets.US_ASCII);
+                    keyStore.setCertificateEntry("cert-" + count++,
+                            factory.generateCertificate(new ByteArrayInputStream(block)));
+                }
+        }
+
+        return keyStore;
+    }
+
+    @Benchmark
+    public KeyStore streamingParallel() throws Exception {
+        return PemTrustStoreBuilder.create().addDirectory(directory.getPath()).build();
+    }
+
+    private static void write(File file, List<Certificate> certificates) throws Exception {
+        Base64.Encoder encoder = Base64.getMimeEncoder(64, new byte[]{'\n'});
+        OutputStream out = new FileOutputStream(file);
+
+        try {
+            for (Certificate certificate : certificates) {
+                out.write((BEGIN + "\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(encoder.encode(certificate.getEncoded()));
+                out.write("\n-----END CERTIFICATE-----\n".getBytes(StandardCharsets.US_ASCII));
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static byte[] read(File file) throws IOException {
+        byte[] content = new byte[(int) file.length()];
+
+        InputStream in = new FileInputStream(file);
+
+        try {
+            int offset = 0;
+
+            for (int n; offset < content.length && (n = in.read(content, offset, content.length - offset)) != -1; )
+                offset += n;
+        } finally {
+            in.close();
+        }
+
+        return content;
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import com.github.j3t.ssl.utils.SSLContextBuilder;
+import com.github.j3t.ssl.utils.strategy.KeyManagerStrategy;
+import com.github.j3t.ssl.utils.strategy.TrustManagerStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import javax.net.ssl.SSLContext;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SSLContextBuilder#build()} with and without key managers, trust managers and strategies.
+ *
+ * @author j3t
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SSLContextBuilderBenchmark {
+    private static final KeyManagerStrategy KEY_MANAGER_STRATEGY = new KeyManagerStrategy() {
+        @Override
+        public String chooseAlias() {
+            return "client";
+        }
+    };
+
+    private static final TrustManagerStrategy TRUST_MANAGER_STRATEGY = new TrustManagerStrategy() {
+        @Override
+        public boolean checkTrusted(X509Certificate[] chain, String authType) {
+            return true;
+        }
+    };
+
+    /**
+     * <ul>
+     * <li>default: neither key store nor trust store (the trust store of the JVM is used)</li>
+     * <li>keyManagers: key store only</li>
+     * <li>trustManagers: trust store only</li>
+     * <li>keyAndTrustManagers: key store and trust store</li>
+     * <li>strategies: key store and trust store with strategies</li>
+     * </ul>
+     */
+    @Param({"default", "keyManagers", "trustManagers", "keyAndTrustManagers", "strategies"})
+    public String configuration;
+
+    private SSLContextBuilder builder;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyStore keyStore = BenchmarkFixtures.clientKeyStore();
+        KeyStore trustStore = BenchmarkFixtures.clientTrustStore();
+
+        builder = SSLContextBuilder.create();
+
+        if (!"default".equals(configuration) && !"trustManagers".equals(configuration))
+            builder.setKeyStore(keyStore).setKeyStorePassword(BenchmarkFixtures.CLIENT_PASSWORD);
+
+        if (!"default".equals(configuration) && !"keyManagers".equals(configuration))
+            builder.setTrustStore(trustStore);
+
+        if ("strategies".equals(configuration))
+            builder.setKeyManagerStrategy(KEY_MANAGER_STRATEGY).setTrustManagerStrategy(TRUST_MANAGER_STRATEGY);
+    }
+
+    @Benchmark
+    public SSLContext build() throws Exception {
+        return builder.build();
+    }
+}
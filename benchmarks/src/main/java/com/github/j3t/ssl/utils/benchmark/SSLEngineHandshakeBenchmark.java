@@ -0,0 +1,156 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import com.github.j3t.ssl.utils.SSLContextBuilder;
+import com.github.j3t.ssl.utils.strategy.KeyManagerStrategy;
+import com.github.j3t.ssl.utils.strategy.TrustDecisionCache;
+import com.github.j3t.ssl.utils.strategy.TrustManagerStrategy;
+import com.github.j3t.ssl.utils.types.SslProtocol;
+import org.openjdk.jmh.annotations.*;
+
+import javax.net.ssl.SSLSession;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the handshakes per second of a client and a server {@link javax.net.ssl.SSLEngine} connected in memory.
+ * <ul>
+ * <li>fullHandshake: the client doesn't know the peer, so the session can't be resumed</li>
+ * <li>resumedHandshake: the client resumes the session of the previous connection to the same peer</li>
+ * </ul>
+ * The benchmarks with the suffix Dsa use a DSA server certificate, which can only be used with TLSv1.2.
+ *
+ * @author j3t
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SSLEngineHandshakeBenchmark {
+    private static final KeyManagerStrategy KEY_MANAGER_STRATEGY = new KeyManagerStrategy() {
+        @Override
+        public String chooseAlias() {
+            return "server";
+        }
+    };
+
+    private static final TrustManagerStrategy TRUST_MANAGER_STRATEGY = new TrustManagerStrategy() {
+        @Override
+        public boolean checkTrusted(X509Certificate[] chain, String authType) {
+            return true;
+        }
+    };
+
+    @State(Scope.Thread)
+    public abstract static class HandshakeState extends AbstractLoopbackBenchmark {
+        /**
+         * <ul>
+         * <li>default: key store and trust store only</li>
+         * <li>strategies: the server uses a {@link KeyManagerStrategy}, the client a {@link TrustManagerStrategy}</li>
+         * <li>trustDecisionCache: the client uses a {@link TrustDecisionCache}</li>
+         * <li>serverNameIndication: the server selects the alias by the requested host name</li>
+         * </ul>
+         */
+        @Param({"default", "strategies", "trustDecisionCache", "serverNameIndication"})
+        public String configuration;
+
+        @Override
+        protected void configure(SSLContextBuilder clientBuilder, SSLContextBuilder serverBuilder) {
+            if ("strategies".equals(configuration)) {
+                clientBuilder.setTrustManagerStrategy(TRUST_MANAGER_STRATEGY);
+                serverBuilder.setKeyManagerStrategy(KEY_MANAGER_STRATEGY);
+            } else if ("trustDecisionCache".equals(configuration)) {
+                clientBuilder.setTrustDecisionCache(new TrustDecisionCache(100, 1, TimeUnit.HOURS));
+            } else if ("serverNameIndication".equals(configuration)) {
+                serverBuilder.setServerNameIndication(true);
+            } else if (!"default".equals(configuration)) {
+                throw new IllegalArgumentException("unknown configuration: " + configuration);
+            }
+        }
+
+        @Setup
+        public void setUp() throws Exception {
+            // creates the session, which is resumed by the following connections
+            connect(true).handshake();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RsaAndEc extends HandshakeState {
+        @Param({SslProtocol.TLSv12, SslProtocol.TLSv13})
+        public String protocol;
+
+        @Param({"RSA", "EC"})
+        public String keyType;
+
+        /**
+         * CHACHA20_POLY1305 requires Java 12 or higher.
+         */
+        @Param({"default", "AES_128_GCM", "CHACHA20_POLY1305"})
+        public String cipherSuite;
+
+        @Override
+        protected String getProtocol() {
+            return protocol;
+        }
+
+        @Override
+        protected String getKeyType() {
+            return keyType;
+        }
+
+        @Override
+        protected String getCipherSuite() {
+            return cipherSuite;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Dsa extends HandshakeState {
+        @Param({"default", "AES_128_GCM", "AES_128_CBC"})
+        public String cipherSuite;
+
+        @Override
+        protected String getProtocol() {
+            return SslProtocol.TLSv12;
+        }
+
+        @Override
+        protected String getKeyType() {
+            return "DSA";
+        }
+
+        @Override
+        protected String getCipherSuite() {
+            return cipherSuite;
+        }
+    }
+
+    @Benchmark
+    public SSLSession fullHandshake(RsaAndEc state) throws Exception {
+        return handshake(state, false);
+    }
+
+    @Benchmark
+    public SSLSession resumedHandshake(RsaAndEc state) throws Exception {
+        return handshake(state, true);
+    }
+
+    @Benchmark
+    public SSLSession fullHandshakeDsa(Dsa state) throws Exception {
+        return handshake(state, false);
+    }
+
+    @Benchmark
+    public SSLSession resumedHandshakeDsa(Dsa state) throws Exception {
+        return handshake(state, true);
+    }
+
+    private static SSLSession handshake(HandshakeState state, boolean resumable) throws Exception {
+        LoopbackConnection connection = state.connect(resumable);
+        connection.handshake();
+
+        return connection.getClientSession();
+    }
+}
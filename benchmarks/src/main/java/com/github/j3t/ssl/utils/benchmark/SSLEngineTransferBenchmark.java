@@ -0,0 +1,112 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import com.github.j3t.ssl.utils.types.SslProtocol;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the bulk throughput of an established connection between a client and a server
+ * {@link javax.net.ssl.SSLEngine} connected in memory. Each operation wraps the payload on the client and unwraps it
+ * on the server, so the bytes per second are the operations per second times the payload size. The benchmark with
+ * the suffix Dsa uses a DSA server certificate, which can only be used with TLSv1.2.
+ *
+ * @author j3t
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SSLEngineTransferBenchmark {
+
+    @State(Scope.Thread)
+    public abstract static class TransferState extends AbstractLoopbackBenchmark {
+        /**
+         * The payload size in bytes, at most the size of one TLS record (16384).
+         */
+        @Param({"1024", "16384"})
+        public int payloadSize;
+
+        private LoopbackConnection connection;
+        private ByteBuffer payload;
+
+        @Setup
+        public void setUp() throws Exception {
+            connection = connect(false);
+            connection.handshake();
+
+            byte[] bytes = new byte[payloadSize];
+            new Random(42).nextBytes(bytes);
+            payload = ByteBuffer.wrap(bytes);
+        }
+
+        int transfer() throws Exception {
+            return connection.transfer(payload);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RsaAndEc extends TransferState {
+        @Param({SslProtocol.TLSv12, SslProtocol.TLSv13})
+        public String protocol;
+
+        @Param({"RSA", "EC"})
+        public String keyType;
+
+        /**
+         * CHACHA20_POLY1305 requires Java 12 or higher.
+         */
+        @Param({"default", "AES_128_GCM", "CHACHA20_POLY1305"})
+        public String cipherSuite;
+
+        @Override
+        protected String getProtocol() {
+            return protocol;
+        }
+
+        @Override
+        protected String getKeyType() {
+            return keyType;
+        }
+
+        @Override
+        protected String getCipherSuite() {
+            return cipherSuite;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Dsa extends TransferState {
+        @Param({"default", "AES_128_GCM", "AES_128_CBC"})
+        public String cipherSuite;
+
+        @Override
+        protected String getProtocol() {
+            return SslProtocol.TLSv12;
+        }
+
+        @Override
+        protected String getKeyType() {
+            return "DSA";
+        }
+
+        @Override
+        protected String getCipherSuite() {
+            return cipherSuite;
+        }
+    }
+
+    @Benchmark
+    public int wrapUnwrap(RsaAndEc state) throws Exception {
+        return state.transfer();
+    }
+
+    @Benchmark
+    public int wrapUnwrapDsa(Dsa state) throws Exception {
+        return state.transfer();
+    }
+}
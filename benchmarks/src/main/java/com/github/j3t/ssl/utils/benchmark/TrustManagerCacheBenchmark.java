@@ -0,0 +1,100 @@
+package com.github.j3t.ssl.utils.benchmark;
+
+
+import com.github.j3t.ssl.utils.KeyStoreBuilder;
+import com.github.j3t.ssl.utils.SSLContextBuilder;
+import com.github.j3t.ssl.utils.TrustManagerCache;
+import com.github.j3t.ssl.utils.types.KeyStoreType;
+import org.openjdk.jmh.annotations.*;
+
+import javax.net.ssl.SSLContext;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SSLContextBuilder#build()} with the JDK cacerts as trust store, either with trust managers created
+ * for each context (none) or shared via a {@link TrustManagerCache} (shared):
+ * <ul>
+ * <li>build: the time to build one context</li>
+ * <li>buildContexts: builds and holds 100 contexts, the heap retained by them is reported as retainedKilobytes</li>
+ * </ul>
+ *
+ * @author j3t
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrustManagerCacheBenchmark {
+    private static final int CONTEXTS = 100;
+
+    @Param({"none", "shared"})
+    public String cache;
+
+    private KeyStore trustStore;
+    private TrustManagerCache trustManagerCache;
+
+    @Setup
+    public void setUp() throws Exception {
+        trustStore = KeyStoreBuilder.create()
+                .setType(KeyStoreType.JKS)
+                .setPath(System.getProperty("java.home") + "/lib/security/cacerts")
+                .build();
+        trustManagerCache = new TrustManagerCache();
+    }
+
+    @Benchmark
+    public SSLContext build() throws Exception {
+        return createBuilder(trustManagerCache).build();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public List<SSLContext> buildContexts(Heap heap) throws Exception {
+        TrustManagerCache contextsCache = new TrustManagerCache();
+        long before = usedMemory();
+
+        List<SSLContext> contexts = new ArrayList<>(CONTEXTS);
+
+        for (int i = 0; i < CONTEXTS; i++)
+            contexts.add(createBuilder(contextsCache).build());
+
+        heap.retainedKilobytes = (usedMemory() - before) / 1024;
+
+        return contexts;
+    }
+
+    private SSLContextBuilder createBuilder(TrustManagerCache trustManagerCache) {
+        SSLContextBuilder builder = SSLContextBuilder.create().setTrustStore(trustStore);
+
+        if ("shared".equals(cache))
+            builder.setTrustManagerCache(trustManagerCache);
+
+        return builder;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++)
+            System.gc();
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The heap retained by the contexts of one {@link #buildContexts(Heap)} invocation.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        public long retainedKilobytes;
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.j3t.ssl.utils.jfr;
+
+
+import jdk.jfr.*;
+
+/**
+ * An alias was chosen by a strategy key manager.
+ *
+ * @author j3t
+ */
+@Name("com.github.j3t.ssl.utils.AliasChoice")
+@Label("Alias Choice")
+@Category({"ssl-utils", "Key Manager"})
+@StackTrace(false)
+class AliasChoiceEvent extends Event {
+    @Label("Alias")
+    String alias;
+
+    @Label("Client")
+    boolean client;
+
+    @Label("Chosen by Strategy")
+    boolean strategy;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
@@ -0,0 +1,33 @@
+package com.github.j3t.ssl.utils.jfr;
+
+
+import jdk.jfr.*;
+
+/**
+ * A certificate entered the warning period or expired (see
+ * {@link com.github.j3t.ssl.utils.expiry.ExpiryMonitor}).
+ *
+ * @author j3t
+ */
+@Name("com.github.j3t.ssl.utils.CertificateExpiry")
+@Label("Certificate Expiry")
+@Category({"ssl-utils", "Key Store"})
+@StackTrace(false)
+class CertificateExpiryEvent extends Event {
+    @Label("Key Store")
+    String keyStore;
+
+    @Label("Alias")
+    String alias;
+
+    @Label("Subject")
+    String subject;
+
+    @Label("Not After")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    long notAfter;
+
+    @Label("State")
+    @Description("expiring or expired")
+    String state;
+}
@@ -0,0 +1,26 @@
+package com.github.j3t.ssl.utils.jfr;
+
+
+import jdk.jfr.*;
+
+/**
+ * A phase of {@link com.github.j3t.ssl.utils.SSLContextBuilder#build()} is finished.
+ *
+ * @author j3t
+ */
+@Name("com.github.j3t.ssl.utils.ContextBuildPhase")
+@Label("SSL Context Build Phase")
+@Category({"ssl-utils", "SSL Context"})
+@StackTrace(false)
+class ContextBuildPhaseEvent extends Event {
+    @Label("Phase")
+    @Description("instance, keymanagers, trustmanagers, init or build (the whole build)")
+    String phase;
+
+    @Label("Protocol")
+    String protocol;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
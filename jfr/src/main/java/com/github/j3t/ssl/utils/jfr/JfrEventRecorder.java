@@ -0,0 +1,118 @@
+package com.github.j3t.ssl.utils.jfr;
+
+
+import com.github.j3t.ssl.utils.metrics.EventRecorder;
+import com.github.j3t.ssl.utils.metrics.Metrics;
+import jdk.jfr.EventType;
+
+/**
+ * Implementation of {@link EventRecorder} that commits JDK Flight Recorder events. The events are only created if
+ * their type is enabled in a running recording, otherwise the instrumented code doesn't even read the clock.
+ * <pre>
+ * JfrEventRecorder.register();
+ * </pre>
+ * The events can be enabled in a recording settings file, e.g. <code>com.github.j3t.ssl.utils.TrustCheck</code>.
+ *
+ * @author j3t
+ */
+public class JfrEventRecorder implements EventRecorder {
+    private static final EventType KEY_STORE_LOAD = EventType.getEventType(KeyStoreLoadEvent.class);
+    private static final EventType CONTEXT_BUILD_PHASE = EventType.getEventType(ContextBuildPhaseEvent.class);
+    private static final EventType TRUST_CHECK = EventType.getEventType(TrustCheckEvent.class);
+    private static final EventType ALIAS_CHOICE = EventType.getEventType(AliasChoiceEvent.class);
+    private static final EventType CERTIFICATE_EXPIRY = EventType.getEventType(CertificateExpiryEvent.class);
+
+    /**
+     * Creates a {@link JfrEventRecorder} and registers it (see {@link Metrics#setEventRecorder(EventRecorder)}).
+     *
+     * @return {@link JfrEventRecorder}
+     */
+    public static JfrEventRecorder register() {
+        JfrEventRecorder recorder = new JfrEventRecorder();
+        Metrics.setEventRecorder(recorder);
+
+        return recorder;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return KEY_STORE_LOAD.isEnabled()
+                || CONTEXT_BUILD_PHASE.isEnabled()
+                || TRUST_CHECK.isEnabled()
+                || ALIAS_CHOICE.isEnabled()
+                || CERTIFICATE_EXPIRY.isEnabled();
+    }
+
+    @Override
+    public void keyStoreLoaded(String type, String provider, int entries, long bytes, long nanos) {
+        if (!KEY_STORE_LOAD.isEnabled())
+            return;
+
+        KeyStoreLoadEvent event = new KeyStoreLoadEvent();
+        event.type = type;
+        event.provider = provider;
+        event.entries = entries;
+        event.bytes = bytes;
+        event.elapsed = nanos;
+        event.commit();
+    }
+
+    @Override
+    public void contextBuildPhase(String phase, String protocol, long nanos) {
+        if (!CONTEXT_BUILD_PHASE.isEnabled())
+            return;
+
+        ContextBuildPhaseEvent event = new ContextBuildPhaseEvent();
+        event.phase = lastSegment(phase);
+        event.protocol = protocol;
+        event.elapsed = nanos;
+        event.commit();
+    }
+
+    @Override
+    public void trustChecked(int chainLength, String authType, String outcome, long nanos) {
+        if (!TRUST_CHECK.isEnabled())
+            return;
+
+        TrustCheckEvent event = new TrustCheckEvent();
+        event.chainLength = chainLength;
+        event.authType = authType;
+        event.outcome = lastSegment(outcome);
+        event.elapsed = nanos;
+        event.commit();
+    }
+
+    @Override
+    public void aliasChosen(String alias, boolean client, boolean strategy, long nanos) {
+        if (!ALIAS_CHOICE.isEnabled())
+            return;
+
+        AliasChoiceEvent event = new AliasChoiceEvent();
+        event.alias = alias;
+        event.client = client;
+        event.strategy = strategy;
+        event.elapsed = nanos;
+        event.commit();
+    }
+
+    @Override
+    public void certificateExpiry(String keyStore, String alias, String subject, long notAfter, String state) {
+        if (!CERTIFICATE_EXPIRY.isEnabled())
+            return;
+
+        CertificateExpiryEvent event = new CertificateExpiryEvent();
+        event.keyStore = keyStore;
+        event.alias = alias;
+        event.subject = subject;
+        event.notAfter = notAfter;
+        event.state = lastSegment(state);
+        event.commit();
+    }
+
+    /**
+     * Returns the last segment of a metric name, e.g. rejected for sslutils.trust.check.rejected.
+     */
+    static String lastSegment(String name) {
+        return name != null ? name.substring(name.lastIndexOf('.') + 1) : null;
+    }
+}
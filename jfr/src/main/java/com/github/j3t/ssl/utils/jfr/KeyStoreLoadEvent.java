@@ -0,0 +1,33 @@
+package com.github.j3t.ssl.utils.jfr;
+
+
+import jdk.jfr.*;
+
+/**
+ * A key store was loaded by {@link com.github.j3t.ssl.utils.KeyStoreBuilder#build()}.
+ *
+ * @author j3t
+ */
+@Name("com.github.j3t.ssl.utils.KeyStoreLoad")
+@Label("Key Store Load")
+@Category({"ssl-utils", "Key Store"})
+@StackTrace(false)
+class KeyStoreLoadEvent extends Event {
+    @Label("Type")
+    String type;
+
+    @Label("Provider")
+    String provider;
+
+    @Label("Entries")
+    @Description("The number of entries or -1 if the load failed")
+    int entries;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
@@ -0,0 +1,29 @@
+package com.github.j3t.ssl.utils.jfr;
+
+
+import jdk.jfr.*;
+
+/**
+ * A trust check of a strategy trust manager is finished.
+ *
+ * @author j3t
+ */
+@Name("com.github.j3t.ssl.utils.TrustCheck")
+@Label("Trust Check")
+@Category({"ssl-utils", "Trust Manager"})
+@StackTrace(false)
+class TrustCheckEvent extends Event {
+    @Label("Chain Length")
+    int chainLength;
+
+    @Label("Authentication Type")
+    String authType;
+
+    @Label("Outcome")
+    @Description("trusted, skipped (by the strategy), cached or rejected")
+    String outcome;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
@@ -0,0 +1,135 @@
+package com.github.j3t.ssl.utils.jfr;
+
+import com.github.j3t.ssl.utils.KeyStoreBuilder;
+import com.github.j3t.ssl.utils.SSLContextBuilder;
+import com.github.j3t.ssl.utils.metrics.Metrics;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JfrEventRecorderTest {
+    private JfrEventRecorder recorder;
+
+    @Before
+    public void setUp() throws Exception {
+        recorder = JfrEventRecorder.register();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Metrics.setEventRecorder(null);
+    }
+
+    @Test
+    public void givenNoRecording_whenIsEnabledInvoked_thenFalseShouldBeReturned() throws Exception {
+        assertFalse(recorder.isEnabled());
+        assertEquals(0, Metrics.start());
+    }
+
+    @Test
+    public void givenRecording_whenKeyStoreAndContextBuilt_thenEventsShouldBeRecorded() throws Exception {
+        List<RecordedEvent> events = record(new Action() {
+            @Override
+            public void run() throws Exception {
+                KeyStoreBuilder.create().build();
+                SSLContextBuilder.create().build();
+            }
+        });
+
+        RecordedEvent load = find(events, "com.github.j3t.ssl.utils.KeyStoreLoad");
+        assertNotNull(load);
+        assertEquals(0, load.getInt("entries"));
+
+        RecordedEvent phase = find(events, "com.github.j3t.ssl.utils.ContextBuildPhase");
+        assertNotNull(phase);
+        assertEquals("instance", phase.getString("phase"));
+    }
+
+    @Test
+    public void givenRecording_whenTrustCheckedAndAliasChosen_thenEventsShouldBeRecorded() throws Exception {
+        List<RecordedEvent> events = record(new Action() {
+            @Override
+            public void run() {
+                recorder.trustChecked(2, "RSA", "sslutils.trust.check.rejected", 42);
+                recorder.aliasChosen("client", true, false, 42);
+            }
+        });
+
+        RecordedEvent check = find(events, "com.github.j3t.ssl.utils.TrustCheck");
+        assertEquals(2, check.getInt("chainLength"));
+        assertEquals("rejected", check.getString("outcome"));
+
+        RecordedEvent choice = find(events, "com.github.j3t.ssl.utils.AliasChoice");
+        assertEquals("client", choice.getString("alias"));
+        assertTrue(choice.getBoolean("client"));
+    }
+
+    @Test
+    public void givenRecording_whenCertificateExpired_thenEventShouldBeRecorded() throws Exception {
+        List<RecordedEvent> events = record(new Action() {
+            @Override
+            public void run() {
+                recorder.certificateExpiry("tenants", "client", "CN=localhost", 1000,
+                        "sslutils.certificate.expired");
+            }
+        });
+
+        RecordedEvent expiry = find(events, "com.github.j3t.ssl.utils.CertificateExpiry");
+        assertEquals("tenants", expiry.getString("keyStore"));
+        assertEquals("expired", expiry.getString("state"));
+        assertEquals(1000, expiry.getInstant("notAfter").toEpochMilli());
+    }
+
+    @Test
+    public void givenMetricName_whenLastSegmentInvoked_thenLastSegmentShouldBeReturned() throws Exception {
+        assertEquals("init", JfrEventRecorder.lastSegment("sslutils.context.build.init"));
+        assertEquals("build", JfrEventRecorder.lastSegment("build"));
+        assertNull(JfrEventRecorder.lastSegment(null));
+    }
+
+    private static List<RecordedEvent> record(Action action) throws Exception {
+        File file = File.createTempFile("ssl-utils", ".jfr");
+        file.deleteOnExit();
+
+        Recording recording = new Recording();
+
+        try {
+            recording.enable(KeyStoreLoadEvent.class);
+            recording.enable(ContextBuildPhaseEvent.class);
+            recording.enable(TrustCheckEvent.class);
+            recording.enable(AliasChoiceEvent.class);
+            recording.enable(CertificateExpiryEvent.class);
+            recording.start();
+
+            action.run();
+
+            recording.stop();
+            recording.dump(file.toPath());
+        } finally {
+            recording.close();
+        }
+
+        return new ArrayList<RecordedEvent>(RecordingFile.readAllEvents(file.toPath()));
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name) {
+        for (RecordedEvent event : events)
+            if (name.equals(event.getEventType().getName()))
+                return event;
+
+        return null;
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.j3t.ssl.utils.metrics.micrometer;
+
+
+import com.github.j3t.ssl.utils.metrics.Metrics;
+import com.github.j3t.ssl.utils.metrics.MetricsRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementation of {@link MetricsRecorder} that records the counters, gauges and latency histograms in a Micrometer
+ * {@link MeterRegistry}. The meters are registered on first use and looked up without allocation afterwards. The
+ * gauges of a named monitor are tagged with {@value #MONITOR_TAG}.
+ * <pre>
+ * MicrometerMetricsRecorder.bindTo(registry);
+ * </pre>
+ *
+ * @author j3t
+ */
+public class MicrometerMetricsRecorder implements MetricsRecorder {
+    /**
+     * The key of the tag, which contains the name of the monitor of a gauge.
+     */
+    public static final String MONITOR_TAG = "monitor";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<String, Timer>();
+    // gauges by name and monitor, the gauges without monitor are stored with an empty name
+    private final ConcurrentMap<String, ConcurrentMap<String, AtomicLong>> gauges =
+            new ConcurrentHashMap<String, ConcurrentMap<String, AtomicLong>>();
+
+    /**
+     * Creates an instance of {@link MicrometerMetricsRecorder}.
+     *
+     * @param registry the {@link MeterRegistry}
+     */
+    public MicrometerMetricsRecorder(MeterRegistry registry) {
+        if (registry == null)
+            throw new IllegalArgumentException("registry must not be null!");
+
+        this.registry = registry;
+    }
+
+    /**
+     * Creates a {@link MicrometerMetricsRecorder} and registers it (see {@link Metrics#setRecorder(MetricsRecorder)}).
+     *
+     * @param registry the {@link MeterRegistry}
+     * @return {@link MicrometerMetricsRecorder}
+     */
+    public static MicrometerMetricsRecorder bindTo(MeterRegistry registry) {
+        MicrometerMetricsRecorder recorder = new MicrometerMetricsRecorder(registry);
+        Metrics.setRecorder(recorder);
+
+        return recorder;
+    }
+
+    @Override
+    public void increment(String name) {
+        Counter counter = counters.get(name);
+
+        if (counter == null) {
+            counter = Counter.builder(name).register(registry);
+            counters.putIfAbsent(name, counter);
+        }
+
+        counter.increment();
+    }
+
+    @Override
+    public void record(String name, long nanos) {
+        Timer timer = timers.get(name);
+
+        if (timer == null) {
+            timer = Timer.builder(name).publishPercentileHistogram().register(registry);
+            timers.putIfAbsent(name, timer);
+        }
+
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void gauge(String name, String monitor, long value) {
+        ConcurrentMap<String, AtomicLong> monitors = gauges.get(name);
+
+        if (monitors == null) {
+            monitors = new ConcurrentHashMap<String, AtomicLong>();
+            ConcurrentMap<String, AtomicLong> existing = gauges.putIfAbsent(name, monitors);
+
+            if (existing != null)
+                monitors = existing;
+        }
+
+        String key = monitor != null ? monitor : "";
+        AtomicLong gauge = monitors.get(key);
+
+        if (gauge == null) {
+            AtomicLong created = new AtomicLong();
+            gauge = monitors.putIfAbsent(key, created);
+
+            // only the first one is registered, the registry holds it weakly and the map keeps it alive
+            if (gauge == null) {
+                gauge = created;
+                registry.gauge(name, monitor != null ? Tags.of(MONITOR_TAG, monitor) : Tags.empty(), created);
+            }
+        }
+
+        gauge.set(value);
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.j3t.ssl.utils.metrics.micrometer;
+
+import com.github.j3t.ssl.utils.KeyStoreBuilder;
+import com.github.j3t.ssl.utils.metrics.MetricNames;
+import com.github.j3t.ssl.utils.metrics.Metrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MicrometerMetricsRecorderTest {
+    private MeterRegistry registry;
+    private MicrometerMetricsRecorder recorder;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new SimpleMeterRegistry();
+        recorder = new MicrometerMetricsRecorder(registry);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Metrics.setRecorder(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullRegistry_whenCreated_thenExceptionShouldBeThrown() throws Exception {
+        new MicrometerMetricsRecorder(null);
+    }
+
+    @Test
+    public void givenRecorder_whenIncrementInvokedTwice_thenCounterShouldBeTwo() throws Exception {
+        recorder.increment(MetricNames.HANDSHAKE_FAILURE);
+        recorder.increment(MetricNames.HANDSHAKE_FAILURE);
+
+        assertEquals(2, registry.get(MetricNames.HANDSHAKE_FAILURE).counter().count(), 0);
+    }
+
+    @Test
+    public void givenRecorder_whenRecordInvoked_thenTimerShouldContainDuration() throws Exception {
+        recorder.record(MetricNames.HANDSHAKE, TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertEquals(1, registry.get(MetricNames.HANDSHAKE).timer().count());
+        assertEquals(5, registry.get(MetricNames.HANDSHAKE).timer().totalTime(TimeUnit.MILLISECONDS), 0);
+    }
+
+    @Test
+    public void givenRecorder_whenGaugeInvokedTwice_thenGaugeShouldHaveLastValue() throws Exception {
+        recorder.gauge(MetricNames.CERTIFICATE_EXPIRING, null, 3);
+        recorder.gauge(MetricNames.CERTIFICATE_EXPIRING, null, 2);
+
+        assertEquals(2, registry.get(MetricNames.CERTIFICATE_EXPIRING).gauge().value(), 0);
+    }
+
+    @Test
+    public void givenRecorder_whenGaugeInvokedWithTwoMonitors_thenEachMonitorShouldHaveItsOwnGauge() throws Exception {
+        recorder.gauge(MetricNames.CERTIFICATE_EXPIRED, "server", 3);
+        recorder.gauge(MetricNames.CERTIFICATE_EXPIRED, "client", 1);
+
+        assertEquals(3, registry.get(MetricNames.CERTIFICATE_EXPIRED)
+                .tag(MicrometerMetricsRecorder.MONITOR_TAG, "server").gauge().value(), 0);
+        assertEquals(1, registry.get(MetricNames.CERTIFICATE_EXPIRED)
+                .tag(MicrometerMetricsRecorder.MONITOR_TAG, "client").gauge().value(), 0);
+    }
+
+    @Test
+    public void givenBoundRecorder_whenKeyStoreBuilt_thenLoadTimeShouldBeRecorded() throws Exception {
+        MicrometerMetricsRecorder bound = MicrometerMetricsRecorder.bindTo(registry);
+        assertSame(bound, Metrics.getRecorder());
+
+        KeyStoreBuilder.create().build();
+
+        assertEquals(1, registry.get(MetricNames.KEY_STORE_LOAD).timer().count());
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.j3t.ssl.utils;
+
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link InputStream} that reads the remaining bytes of a {@link ByteBuffer} without copying them into an
+ * intermediate array. The position of the given buffer is not changed, {@link #reset()} without a mark returns to the
+ * position the stream was created with.
+ *
+ * @author j3t
+ */
+public class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates an instance of {@link ByteBufferInputStream}.
+     *
+     * @param buffer the {@link ByteBuffer}, e.g. a heap buffer or a mapped file
+     */
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        if (buffer == null)
+            throw new IllegalArgumentException("buffer must not be null!");
+
+        this.buffer = buffer.duplicate();
+        this.buffer.mark();
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || len > b.length - off)
+            throw new IndexOutOfBoundsException();
+
+        if (len == 0)
+            return 0;
+
+        if (!buffer.hasRemaining())
+            return -1;
+
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(b, off, n);
+
+        return n;
+    }
+
+    @Override
+    public long skip(long n) {
+        if (n <= 0)
+            return 0;
+
+        int skipped = (int) Math.min(n, buffer.remaining());
+        buffer.position(buffer.position() + skipped);
+
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        buffer.mark();
+    }
+
+    @Override
+    public synchronized void reset() {
+        buffer.reset();
+    }
+}
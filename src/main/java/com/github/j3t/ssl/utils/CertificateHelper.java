@@ -2,7 +2,9 @@ package com.github.j3t.ssl.utils;
 
 
 import com.github.j3t.ssl.utils.types.KeyUsage;
+import com.github.j3t.ssl.utils.types.KeyUsageSet;
 
+import java.io.IOException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateExpiredException;
 import java.security.cert.CertificateNotYetValidException;
@@ -10,7 +12,8 @@ import java.security.cert.X509Certificate;
 import java.util.*;
 
 /**
- * Helper class for {@link Certificate} objects.
+ * Helper class for {@link Certificate} objects. The metadata of X.509 certificates is read from their
+ * {@link CertificateInfo}, which is derived once per certificate.
  *
  * @author j3t
  */
@@ -27,7 +30,7 @@ public final class CertificateHelper {
         checkCertificate(certificate);
 
         if (X509Certificate.class.isAssignableFrom(certificate.getClass()))
-            return ((X509Certificate) certificate).getNotBefore();
+            return CertificateInfo.of(certificate).getNotBefore();
 
         return null;
     }
@@ -43,7 +46,7 @@ public final class CertificateHelper {
         checkCertificate(certificate);
 
         if (X509Certificate.class.isAssignableFrom(certificate.getClass()))
-            return ((X509Certificate) certificate).getNotAfter();
+            return CertificateInfo.of(certificate).getNotAfter();
 
         return null;
     }
@@ -56,16 +59,16 @@ public final class CertificateHelper {
      * @throws IllegalArgumentException if the certificate is <code>null</code>
      */
     public static String getDetails(Certificate certificate) {
-        return new StringBuilder()
-                .append(String.format("Certificate details:%n"))
-                .append(String.format("%4sSignature Algorithm: %s%n", " ", getSignatureAlgorithm(certificate)))
-                .append(String.format("%4sKeyUsage: %s%n", " ", StringHelper.arrayToCommaSeparatedString(getKeyUsages(certificate))))
-                .append(String.format("%4sValidity:%n", " "))
-                .append(String.format("%8sNot before: %s%n", " ", getValidityStart(certificate)))
-                .append(String.format("%8sNot after : %s%n", " ", getValidityEnd(certificate)))
-                .append(String.format("%4sIssuer : %s%n", " ", getIssuer(certificate)))
-                .append(String.format("%4sSubject: %s%n", " ", getSubject(certificate)))
-                .toString();
+        StringBuilder sb = new StringBuilder();
+
+        try {
+            KeyStoreRenderer.appendDetails(CertificateInfo.of(certificate), sb);
+        } catch (IOException e) {
+            // a StringBuilder doesn't throw IOExceptions
+            throw new IllegalStateException(e);
+        }
+
+        return sb.toString();
     }
 
     /**
@@ -77,7 +80,7 @@ public final class CertificateHelper {
      * @throws IllegalArgumentException if the certificate is <code>null</code> or not a X.509 certificate
      */
     public static String getSignatureAlgorithm(Certificate certificate) {
-        return castToX509CertificateOrThrowException(certificate).getSigAlgName();
+        return CertificateInfo.of(certificate).getSignatureAlgorithm();
     }
 
     /**
@@ -89,7 +92,7 @@ public final class CertificateHelper {
      * @throws IllegalArgumentException if the certificate is <code>null</code> or not a X.509 certificate
      */
     public static String getSubject(Certificate certificate) {
-        return castToX509CertificateOrThrowException(certificate).getSubjectX500Principal().getName();
+        return CertificateInfo.of(certificate).getSubject();
     }
 
     /**
@@ -101,7 +104,7 @@ public final class CertificateHelper {
      * @throws IllegalArgumentException if the certificate is <code>null</code> or not a X.509 certificate
      */
     public static String getIssuer(Certificate certificate) {
-        return castToX509CertificateOrThrowException(certificate).getIssuerX500Principal().getName();
+        return CertificateInfo.of(certificate).getIssuer();
     }
 
     /**
@@ -132,13 +135,48 @@ public final class CertificateHelper {
      * @throws IllegalArgumentException if the certificate is <code>null</code>
      */
     public static KeyUsage[] getKeyUsages(Certificate certificate) {
-        List<KeyUsage> supportedKeyUsages = new LinkedList<KeyUsage>();
+        checkCertificate(certificate);
+
+        if (!X509Certificate.class.isAssignableFrom(certificate.getClass()))
+            return new KeyUsage[0];
+
+        return CertificateInfo.of(certificate).getKeyUsages();
+    }
+
+    /**
+     * Returns the {@link KeyUsage}s of the given certificate as {@link KeyUsageSet}, without allocating.
+     *
+     * @param certificate the certificate
+     * @return {@link KeyUsageSet}, {@link KeyUsageSet#EMPTY} if the certificate has not any {@link KeyUsage}s or is not
+     * a X.509 certificate
+     * @throws IllegalArgumentException if the certificate is <code>null</code>
+     */
+    public static KeyUsageSet getKeyUsageSet(Certificate certificate) {
+        checkCertificate(certificate);
+
+        if (!X509Certificate.class.isAssignableFrom(certificate.getClass()))
+            return KeyUsageSet.EMPTY;
+
+        return CertificateInfo.of(certificate).getKeyUsageSet();
+    }
+
+    /**
+     * Returns the {@link KeyUsage}s of all certificates from the given chain as one {@link KeyUsageSet}, computed in one
+     * pass over the chain.
+     *
+     * @param certificateChain the given certificate chain
+     * @return {@link KeyUsageSet}, {@link KeyUsageSet#EMPTY} if no certificate has a {@link KeyUsage}
+     * @throws IllegalArgumentException if the certificate chain or one of its certificates is <code>null</code>
+     */
+    public static KeyUsageSet getKeyUsageSet(Certificate[] certificateChain) {
+        checkCertificateChain(certificateChain);
 
-        for (KeyUsage keyUsage : KeyUsage.values())
-            if (isKeyUsagePresent(certificate, keyUsage))
-                supportedKeyUsages.add(keyUsage);
+        int mask = 0;
 
-        return supportedKeyUsages.toArray(new KeyUsage[supportedKeyUsages.size()]);
+        for (Certificate certificate : certificateChain)
+            mask |= getKeyUsageSet(certificate).getMask();
+
+        return KeyUsageSet.valueOf(mask);
     }
 
     /**
@@ -155,13 +193,10 @@ public final class CertificateHelper {
 
         checkCertificate(certificate);
 
-        try {
-            X509Certificate x509Certificate = castToX509CertificateOrThrowException(certificate);
-
-            return x509Certificate.getKeyUsage() != null && x509Certificate.getKeyUsage()[keyUsage.ordinal()];
-        } catch (IllegalArgumentException e) {
+        if (!X509Certificate.class.isAssignableFrom(certificate.getClass()))
             return false;
-        }
+
+        return CertificateInfo.of(certificate).isKeyUsagePresent(keyUsage);
     }
 
     /**
@@ -175,13 +210,10 @@ public final class CertificateHelper {
      *                                  non X.509 certificate
      */
     public static boolean isKeyUsagePresent(Certificate[] certificateChain, KeyUsage keyUsage) {
-        checkCertificateChain(certificateChain);
-
-        for (Certificate certificate : certificateChain)
-            if (isKeyUsagePresent(certificate, keyUsage))
-                return true;
+        if (keyUsage == null)
+            throw new IllegalArgumentException("keyUsage must not be null!");
 
-        return false;
+        return getKeyUsageSet(certificateChain).contains(keyUsage);
     }
 
     /**
@@ -0,0 +1,353 @@
+package com.github.j3t.ssl.utils;
+
+
+import com.github.j3t.ssl.utils.types.KeyUsage;
+import com.github.j3t.ssl.utils.types.KeyUsageSet;
+
+import javax.security.auth.x500.X500Principal;
+import java.io.ByteArrayInputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.DSAKey;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.RSAKey;
+import java.util.*;
+
+/**
+ * Immutable view of the metadata of a X.509 certificate (key usages, subject, issuer, validity, subject alternative
+ * names, signature and key algorithm, key size and fingerprints). The metadata is derived once per certificate and
+ * cached (see {@link #of(Certificate)}), so repeated queries of the {@link CertificateHelper} and
+ * {@link KeyStoreHelper} neither clone the key usage array nor format the distinguished names again. The subject
+ * alternative names and the fingerprints are derived on first request, since most callers never read them.<br>
+ * <br>
+ * The cache holds the views as long as the certificate is strongly reachable, certificates with the same encoding
+ * share one view. The cache is split into stripes by the hash code of the certificate, so concurrent lookups of
+ * different certificates rarely wait for the same lock.
+ *
+ * @author j3t
+ */
+public final class CertificateInfo {
+    private static final int STRIPE_COUNT = 16;
+    private static final List<Map<Certificate, CertificateInfo>> CACHE = createCache();
+
+    private final KeyUsageSet keyUsageSet;
+    private final KeyUsage[] keyUsages;
+    private final String subject;
+    private final String issuer;
+    private final Date notBefore;
+    private final Date notAfter;
+    private final String signatureAlgorithm;
+    private final String keyAlgorithm;
+    private final int keySize;
+
+    // the view must not hold the certificate strongly, otherwise the weak key of the cache would never be cleared
+    private final Reference<X509Certificate> certificate;
+    private final byte[] encoded;
+    private volatile List<String> subjectAlternativeNames;
+    private volatile String sha1Fingerprint;
+    private volatile String sha256Fingerprint;
+
+    private CertificateInfo(X509Certificate certificate) {
+        keyUsageSet = KeyUsageSet.valueOf(certificate.getKeyUsage());
+        keyUsages = keyUsageSet.toArray();
+        subject = getName(certificate.getSubjectX500Principal());
+        issuer = getName(certificate.getIssuerX500Principal());
+        notBefore = certificate.getNotBefore();
+        notAfter = certificate.getNotAfter();
+        signatureAlgorithm = certificate.getSigAlgName();
+        keyAlgorithm = getAlgorithm(certificate.getPublicKey());
+        keySize = getKeySize(certificate.getPublicKey());
+        this.certificate = new WeakReference<X509Certificate>(certificate);
+        encoded = getEncoded(certificate);
+    }
+
+    /**
+     * Returns the view of the given certificate. The view is created on first request and cached.
+     *
+     * @param certificate the certificate
+     * @return {@link CertificateInfo}, shouldn't be <code>null</code>
+     * @throws IllegalArgumentException if the certificate is <code>null</code> or not a X.509 certificate
+     */
+    public static CertificateInfo of(Certificate certificate) {
+        X509Certificate x509Certificate = CertificateHelper.castToX509CertificateOrThrowException(certificate);
+        Map<Certificate, CertificateInfo> stripe = getStripe(x509Certificate);
+        CertificateInfo info = stripe.get(x509Certificate);
+
+        // the view is derived without holding the lock, a concurrent request may derive it twice
+        if (info == null) {
+            info = new CertificateInfo(x509Certificate);
+            stripe.put(x509Certificate, info);
+        }
+
+        return info;
+    }
+
+    /**
+     * Returns the cached view of the given certificate or derives a new one without caching it, e.g. to render a large
+     * key store once without growing the cache.
+     *
+     * @throws IllegalArgumentException if the certificate is <code>null</code> or not a X.509 certificate
+     */
+    static CertificateInfo derive(Certificate certificate) {
+        X509Certificate x509Certificate = CertificateHelper.castToX509CertificateOrThrowException(certificate);
+        CertificateInfo info = getStripe(x509Certificate).get(x509Certificate);
+
+        return info != null ? info : new CertificateInfo(x509Certificate);
+    }
+
+    /**
+     * Returns the key usages as bitmask, the bit of a {@link KeyUsage} is <code>1 &lt;&lt; keyUsage.ordinal()</code>.
+     *
+     * @return the bitmask, 0 if the certificate has no key usage extension
+     */
+    public int getKeyUsageMask() {
+        return keyUsageSet.getMask();
+    }
+
+    /**
+     * Returns the key usages as {@link KeyUsageSet}.
+     *
+     * @return {@link KeyUsageSet}, {@link KeyUsageSet#EMPTY} if the certificate has no key usage extension
+     */
+    public KeyUsageSet getKeyUsageSet() {
+        return keyUsageSet;
+    }
+
+    /**
+     * Returns the key usages.
+     *
+     * @return array with {@link KeyUsage}s or an empty array if the certificate has not any {@link KeyUsage}s
+     */
+    public KeyUsage[] getKeyUsages() {
+        return keyUsages.clone();
+    }
+
+    /**
+     * Checks that the certificate has a specific {@link KeyUsage}.
+     *
+     * @param keyUsage the specific {@link KeyUsage}
+     * @return <code>true</code> if the certificate has this specific {@link KeyUsage}, otherwise <code>false</code>
+     * @throws IllegalArgumentException if keyUsage is <code>null</code>
+     */
+    public boolean isKeyUsagePresent(KeyUsage keyUsage) {
+        return keyUsageSet.contains(keyUsage);
+    }
+
+    /**
+     * Returns the subject.
+     *
+     * @return the subject in RFC 2253 format (e.g. CN=localhost, O=ssl-utils)
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Returns the issuer.
+     *
+     * @return the issuer in RFC 2253 format (e.g. CN=DigiCert Assured ID Root G3, OU=www.digicert.com, O=DigiCert Inc)
+     */
+    public String getIssuer() {
+        return issuer;
+    }
+
+    /**
+     * Returns the start date of the validity period.
+     *
+     * @return {@link Date}, a copy
+     */
+    public Date getNotBefore() {
+        return notBefore != null ? (Date) notBefore.clone() : null;
+    }
+
+    /**
+     * Returns the end date of the validity period.
+     *
+     * @return {@link Date}, a copy
+     */
+    public Date getNotAfter() {
+        return notAfter != null ? (Date) notAfter.clone() : null;
+    }
+
+    /**
+     * Returns the values of the subject alternative names which are represented as string (e.g. DNS names, IP
+     * addresses, email addresses and URIs).
+     *
+     * @return unmodifiable list of names or an empty list if the certificate has no subject alternative names
+     */
+    public List<String> getSubjectAlternativeNames() {
+        List<String> names = subjectAlternativeNames;
+
+        if (names == null) {
+            names = getSubjectAlternativeNames(getCertificate());
+            subjectAlternativeNames = names;
+        }
+
+        return names;
+    }
+
+    /**
+     * Returns the signature algorithm.
+     *
+     * @return the name of the signature algorithm (e.g. SHA256withRSA)
+     */
+    public String getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    /**
+     * Returns the algorithm of the public key.
+     *
+     * @return the name of the key algorithm (e.g. RSA or EC)
+     */
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    /**
+     * Returns the size of the public key (the modulus of RSA keys, the prime of DSA keys and the field of EC keys).
+     *
+     * @return the size in bits or 0 if the size of the key is unknown
+     */
+    public int getKeySize() {
+        return keySize;
+    }
+
+    /**
+     * Returns the SHA-1 fingerprint of the encoded certificate.
+     *
+     * @return the fingerprint as hex {@link String} or <code>null</code> if the certificate can't be encoded
+     */
+    public String getSha1Fingerprint() {
+        String fingerprint = sha1Fingerprint;
+
+        if (fingerprint == null) {
+            fingerprint = digest("SHA-1", encoded);
+            sha1Fingerprint = fingerprint;
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * Returns the SHA-256 fingerprint of the encoded certificate.
+     *
+     * @return the fingerprint as hex {@link String} or <code>null</code> if the certificate can't be encoded
+     */
+    public String getSha256Fingerprint() {
+        String fingerprint = sha256Fingerprint;
+
+        if (fingerprint == null) {
+            fingerprint = digest("SHA-256", encoded);
+            sha256Fingerprint = fingerprint;
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * Returns the certificate of the view, which is decoded again if it was garbage collected in the meantime.
+     *
+     * @return the certificate or <code>null</code> if it was collected and can't be decoded
+     */
+    private X509Certificate getCertificate() {
+        X509Certificate x509Certificate = certificate.get();
+
+        if (x509Certificate != null || encoded == null)
+            return x509Certificate;
+
+        try {
+            return (X509Certificate) CertificateFactory.getInstance("X.509")
+                    .generateCertificate(new ByteArrayInputStream(encoded));
+        } catch (CertificateException e) {
+            return null;
+        }
+    }
+
+    private static List<Map<Certificate, CertificateInfo>> createCache() {
+        List<Map<Certificate, CertificateInfo>> stripes =
+                new ArrayList<Map<Certificate, CertificateInfo>>(STRIPE_COUNT);
+
+        for (int i = 0; i < STRIPE_COUNT; i++)
+            stripes.add(Collections.synchronizedMap(new WeakHashMap<Certificate, CertificateInfo>()));
+
+        return stripes;
+    }
+
+    private static Map<Certificate, CertificateInfo> getStripe(Certificate certificate) {
+        int hash = certificate.hashCode();
+
+        return CACHE.get((hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1));
+    }
+
+    private static String digest(String algorithm, byte[] encoded) {
+        if (encoded == null)
+            return null;
+
+        try {
+            return StringHelper.toHexString(MessageDigest.getInstance(algorithm).digest(encoded));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String getName(X500Principal principal) {
+        return principal != null ? principal.getName() : null;
+    }
+
+    private static String getAlgorithm(PublicKey publicKey) {
+        return publicKey != null ? publicKey.getAlgorithm() : null;
+    }
+
+    private static int getKeySize(PublicKey publicKey) {
+        if (publicKey instanceof RSAKey)
+            return ((RSAKey) publicKey).getModulus().bitLength();
+
+        if (publicKey instanceof ECKey)
+            return ((ECKey) publicKey).getParams().getCurve().getField().getFieldSize();
+
+        if (publicKey instanceof DSAKey && ((DSAKey) publicKey).getParams() != null)
+            return ((DSAKey) publicKey).getParams().getP().bitLength();
+
+        return 0;
+    }
+
+    private static List<String> getSubjectAlternativeNames(X509Certificate certificate) {
+        if (certificate == null)
+            return Collections.emptyList();
+
+        try {
+            Collection<List<?>> alternativeNames = certificate.getSubjectAlternativeNames();
+
+            if (alternativeNames == null)
+                return Collections.emptyList();
+
+            List<String> names = new ArrayList<String>(alternativeNames.size());
+
+            for (List<?> alternativeName : alternativeNames)
+                if (alternativeName.get(1) instanceof String)
+                    names.add((String) alternativeName.get(1));
+
+            return Collections.unmodifiableList(names);
+        } catch (CertificateParsingException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    private static byte[] getEncoded(X509Certificate certificate) {
+        try {
+            return certificate.getEncoded();
+        } catch (CertificateEncodingException e) {
+            return null;
+        }
+    }
+}
@@ -1,6 +1,15 @@
 package com.github.j3t.ssl.utils;
 
 
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Helper to identify the environment.
  *
@@ -8,7 +17,8 @@ package com.github.j3t.ssl.utils;
  */
 public class EnvironmentHelper {
     private static final String OS = createOperatingSystem();
-    private static final double JAVA_VERSION = createJavaVersion();
+    private static final int JAVA_VERSION = parseJavaVersion(System.getProperty("java.specification.version"));
+    private static final Map<String, Boolean> SUPPORTED_PROTOCOLS = new ConcurrentHashMap<String, Boolean>();
 
     public static boolean isWindows() {
         return OS.contains("win");
@@ -26,28 +36,96 @@ public class EnvironmentHelper {
         return OS.contains("sunos");
     }
 
+    /**
+     * Returns the major version of the Java specification (e.g. 6 for 1.6, 8 for 1.8 or 11 for 11).
+     *
+     * @return the major version or 0 if the version is unknown
+     */
+    public static int getJavaVersion() {
+        return JAVA_VERSION;
+    }
+
     public static boolean isJava6() {
-        return JAVA_VERSION == 1.6d;
+        return JAVA_VERSION == 6;
     }
 
     public static boolean isJava6OrHigher() {
-        return JAVA_VERSION >= 1.6d;
+        return JAVA_VERSION >= 6;
     }
 
     public static boolean isJava7() {
-        return JAVA_VERSION == 1.7d;
+        return JAVA_VERSION == 7;
     }
 
     public static boolean isJava7OrHigher() {
-        return JAVA_VERSION >= 1.7d;
+        return JAVA_VERSION >= 7;
     }
 
     public static boolean isJava8() {
-        return JAVA_VERSION == 1.8d;
+        return JAVA_VERSION == 8;
     }
 
     public static boolean isJava8OrHigher() {
-        return JAVA_VERSION >= 1.8d;
+        return JAVA_VERSION >= 8;
+    }
+
+    public static boolean isJava11OrHigher() {
+        return JAVA_VERSION >= 11;
+    }
+
+    /**
+     * Checks that the given SSL protocol is supported by the runtime. The protocol is supported, if a
+     * {@link SSLContext} is available for it and the protocol is listed in the supported protocols of this context
+     * (e.g. TLSv1.3 is supported by Java 11 and by Java 8 since update 261). The context is initialized without key
+     * and trust managers, so the default key and trust stores are not loaded. The result is cached, unless the context
+     * can't be initialized.
+     *
+     * @param protocol the protocol (e.g. {@link com.github.j3t.ssl.utils.types.SslProtocol#TLSv13})
+     * @return <code>true</code> if the protocol is supported, otherwise <code>false</code>
+     * @throws IllegalArgumentException if protocol is <code>null</code>
+     */
+    public static boolean isProtocolSupported(String protocol) {
+        if (protocol == null)
+            throw new IllegalArgumentException("protocol must not be null!");
+
+        Boolean supported = SUPPORTED_PROTOCOLS.get(protocol);
+
+        if (supported == null) {
+            supported = probeProtocol(protocol);
+
+            if (supported == null)
+                return false;
+
+            SUPPORTED_PROTOCOLS.put(protocol, supported);
+        }
+
+        return supported;
+    }
+
+    /**
+     * Probes the given protocol.
+     *
+     * @return <code>true</code> if the protocol is supported, <code>false</code> if not or <code>null</code> if the
+     * context of the protocol can't be initialized
+     */
+    private static Boolean probeProtocol(String protocol) {
+        SSLContext context;
+
+        try {
+            context = SSLContext.getInstance(protocol);
+        } catch (NoSuchAlgorithmException e) {
+            return false;
+        }
+
+        try {
+            context.init(new KeyManager[0], new TrustManager[0], null);
+        } catch (KeyManagementException e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+
+        return Arrays.asList(context.getSupportedSSLParameters().getProtocols()).contains(protocol);
     }
 
     private static String createOperatingSystem() {
@@ -59,11 +137,30 @@ public class EnvironmentHelper {
         return "";
     }
 
-    private static double createJavaVersion() {
+    /**
+     * Parses the major version from a Java specification version (e.g. 1.8 or 11).
+     *
+     * @param version the specification version
+     * @return the major version or 0 if the version can't be parsed
+     */
+    static int parseJavaVersion(String version) {
+        if (version == null)
+            return 0;
+
+        if (version.startsWith("1."))
+            version = version.substring(2);
+
+        int end = 0;
+        while (end < version.length() && Character.isDigit(version.charAt(end)))
+            end++;
+
+        if (end == 0)
+            return 0;
+
         try {
-            return Double.parseDouble(System.getProperty("java.specification.version"));
+            return Integer.parseInt(version.substring(0, end));
         } catch (NumberFormatException e) {
-            return 0d;
+            return 0;
         }
     }
 }
@@ -1,18 +1,21 @@
 package com.github.j3t.ssl.utils;
 
 
+import com.github.j3t.ssl.utils.metrics.Metrics;
 import com.github.j3t.ssl.utils.types.KeyStoreProvider;
 import com.github.j3t.ssl.utils.types.KeyStoreType;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.*;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Collection;
-import java.util.UUID;
 
 /**
  * A builder pattern style factory to create a {@link KeyStore}.
@@ -46,8 +49,12 @@ public class KeyStoreBuilder {
     private String path;
     private boolean fixAliases;
     private String libraryPath;
+    private Integer slot;
+    private PKCS11ProviderRegistry providerRegistry;
     private char[] password;
     private byte[] key;
+    private boolean memoryMapped;
+    private KeyStoreCache cache;
 
     protected KeyStoreBuilder() {
         type = KeyStore.getDefaultType();
@@ -122,9 +129,47 @@ public class KeyStoreBuilder {
         return this;
     }
 
+    /**
+     * Returns the path to the keystore file.
+     *
+     * @return the path or <code>null</code> if the keystore isn't loaded from a file
+     * @see #setPath(String)
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Maps the keystore file into memory instead of reading it into the heap. Default is <code>false</code>, the file
+     * is read with one bulk read. Mapping avoids the copy of large files (e.g. trust bundles of several MB), but on
+     * Windows the file can't be deleted or replaced until the mapping is garbage collected.
+     *
+     * @param memoryMapped when <code>true</code>, the keystore file is mapped into memory, otherwise not
+     * @return {@link KeyStoreBuilder}
+     * @see #setPath(String)
+     */
+    public KeyStoreBuilder setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+        return this;
+    }
+
+    /**
+     * Set the cache of parsed keystore files. Default is <code>null</code>, the default cache is used (see
+     * {@link KeyStoreCache#setDefault(KeyStoreCache)}). Note that a keystore loaded from a cache is read-only.
+     *
+     * @param cache the {@link KeyStoreCache} or <code>null</code>
+     * @return {@link KeyStoreBuilder}
+     * @see #setPath(String)
+     */
+    public KeyStoreBuilder setCache(KeyStoreCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
     /**
      * Set the path to the PKCS11-library. This is an alternative to {@link #setPath(String)} or
-     * {@link #setKey(byte[])}.
+     * {@link #setKey(byte[])}. Each build acquires a reference to the provider of the library and slot, which should
+     * be released when the key store isn't used anymore (see {@link PKCS11ProviderRegistry#release(String, Integer)}).
      *
      * @param libraryPath the path to the PKCS11-library (e.g. /usr/lib/smartcard-reader.lib)
      * @return {@link KeyStoreBuilder}
@@ -134,6 +179,31 @@ public class KeyStoreBuilder {
         return this;
     }
 
+    /**
+     * Set the slot of the PKCS11-library. Default is <code>null</code> (the first slot with a token is used).
+     *
+     * @param slot the slot id or <code>null</code>
+     * @return {@link KeyStoreBuilder}
+     * @see #setLibraryPath(String)
+     */
+    public KeyStoreBuilder setSlot(Integer slot) {
+        this.slot = slot;
+        return this;
+    }
+
+    /**
+     * Set the registry of the PKCS11 providers. Default is <code>null</code>, the default registry is used (see
+     * {@link PKCS11ProviderRegistry#getDefault()}).
+     *
+     * @param providerRegistry the {@link PKCS11ProviderRegistry} or <code>null</code>
+     * @return {@link KeyStoreBuilder}
+     * @see #setLibraryPath(String)
+     */
+    public KeyStoreBuilder setProviderRegistry(PKCS11ProviderRegistry providerRegistry) {
+        this.providerRegistry = providerRegistry;
+        return this;
+    }
+
     /**
      * Set the password to access the key store. Default is <code>null</code> (no password required).
      *
@@ -175,19 +245,36 @@ public class KeyStoreBuilder {
      * @throws CertificateException     if any of the certificates in the keystore could not be loaded
      */
     public KeyStore build() throws GeneralSecurityException, IOException, IllegalAccessException {
+        long start = Metrics.start();
         KeyStore keyStore = null;
 
+        try {
+            keyStore = load();
+
+            return keyStore;
+        } finally {
+            if (start != 0)
+                Metrics.keyStoreLoaded(type, provider, keyStore, getKeyLength(), start);
+        }
+    }
+
+    private long getKeyLength() {
+        if (path != null)
+            return new File(path).length();
+
+        return key != null ? key.length : 0;
+    }
+
+    private KeyStore load() throws GeneralSecurityException, IOException, IllegalAccessException {
         if (libraryPath != null)
             setUpPKCS11ProviderWithLibrary();
 
-        if (provider != null)
-            keyStore = KeyStore.getInstance(type, provider);
-        else
-            keyStore = KeyStore.getInstance(type);
-
         if (path != null)
-            keyStore.load(new FileInputStream(path), password);
-        else if (key != null)
+            return loadFile(readFile(path, memoryMapped));
+
+        KeyStore keyStore = getInstance();
+
+        if (key != null)
             keyStore.load(new ByteArrayInputStream(key), password);
         else
             keyStore.load(null, password);
@@ -198,6 +285,34 @@ public class KeyStoreBuilder {
         return keyStore;
     }
 
+    private KeyStore loadFile(ByteBuffer content) throws GeneralSecurityException, IOException {
+        KeyStoreCache keyStoreCache = cache != null ? cache : KeyStoreCache.getDefault();
+        Object cacheKey = null;
+
+        if (keyStoreCache != null && !fixAliases) {
+            cacheKey = KeyStoreCache.createKey(path, content, type, provider);
+            KeyStore cached = keyStoreCache.get(cacheKey, password);
+
+            if (cached != null)
+                return cached;
+        }
+
+        KeyStore keyStore = getInstance();
+        keyStore.load(new ByteBufferInputStream(content), password);
+
+        if (fixAliases)
+            fixKeyStoreAliases(keyStore);
+
+        return cacheKey != null ? keyStoreCache.put(cacheKey, keyStore, password) : keyStore;
+    }
+
+    private KeyStore getInstance() throws KeyStoreException, NoSuchProviderException {
+        if (provider != null)
+            return KeyStore.getInstance(type, provider);
+
+        return KeyStore.getInstance(type);
+    }
+
     /**
      * Build a {@link KeyStore} without catching exceptions.
      *
@@ -213,18 +328,47 @@ public class KeyStoreBuilder {
         }
     }
 
-    private void setUpPKCS11ProviderWithLibrary() throws IOException {
-        String name = UUID.randomUUID().toString();
+    /**
+     * Reads the given file with one bulk read or maps it into memory. The file is closed before this method returns.
+     *
+     * @param path         the path of the file
+     * @param memoryMapped when <code>true</code>, the file is mapped into memory, otherwise it is read into the heap
+     * @return {@link ByteBuffer} with the content of the file
+     * @throws IOException if the file can't be read
+     */
+    static ByteBuffer readFile(String path, boolean memoryMapped) throws IOException {
+        FileInputStream in = new FileInputStream(path);
+
+        try {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(path + " is too large (" + size + " bytes)!");
+
+            if (memoryMapped)
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
 
-        registerProvider(name, libraryPath);
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
 
-        setProvider("SunPKCS11-" + name);
+            while (buffer.hasRemaining())
+                if (channel.read(buffer) == -1)
+                    break;
+
+            buffer.flip();
+
+            return buffer;
+        } finally {
+            in.close();
+        }
     }
 
-    private void registerProvider(String name, String library) throws IOException {
-        byte[] config = String.format("name = %s\nlibrary=%s\n", name, library).getBytes();
+    private void setUpPKCS11ProviderWithLibrary() throws IOException {
+        PKCS11ProviderRegistry registry = providerRegistry != null
+                ? providerRegistry
+                : PKCS11ProviderRegistry.getDefault();
 
-        Security.addProvider(new sun.security.pkcs11.SunPKCS11(new ByteArrayInputStream(config)));
+        setProvider(registry.acquire(libraryPath, slot).getName());
     }
 
     /**
@@ -0,0 +1,295 @@
+package com.github.j3t.ssl.utils;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of parsed {@link KeyStore} files. The cache is used by the {@link KeyStoreBuilder} (see
+ * {@link KeyStoreBuilder#setCache(KeyStoreCache)} and {@link #setDefault(KeyStoreCache)}) to skip the parsing and the
+ * integrity check (e.g. the PBKDF/MAC verification of PKCS #12 files) whenever the same file is loaded again. A file
+ * is identified by its canonical path, size, last modification time and the digest of its content, the type and the
+ * provider.<br>
+ * <br>
+ * A cached key store is only returned if the password matches the one of the first load. It is returned as a
+ * read-only view, so modifications of one component can't affect the other components. If the cache is full, the
+ * least recently used key store will be evicted. The key stores are softly referenced, so they can be reclaimed when
+ * memory is low.<br>
+ * <br>
+ * The cache is thread-safe and can be shared between builders.
+ *
+ * @author j3t
+ */
+public class KeyStoreCache {
+    private static volatile KeyStoreCache defaultCache;
+
+    private final int maximumSize;
+    private final Map<Object, SoftReference<Entry>> keyStores;
+    private final SecureRandom random = new SecureRandom();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Creates an instance of {@link KeyStoreCache}.
+     *
+     * @param maximumSize the maximum number of key stores held by the cache
+     * @throws IllegalArgumentException if maximumSize is less than 1
+     */
+    public KeyStoreCache(int maximumSize) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("maximumSize must be greater than 0!");
+
+        this.maximumSize = maximumSize;
+        this.keyStores = new LinkedHashMap<Object, SoftReference<Entry>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, SoftReference<Entry>> eldest) {
+                if (size() <= KeyStoreCache.this.maximumSize)
+                    return false;
+
+                evictionCount.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Sets the cache used by all {@link KeyStoreBuilder}s without an own cache. Default is <code>null</code> (no
+     * cache).
+     *
+     * @param cache the {@link KeyStoreCache} or <code>null</code>
+     */
+    public static void setDefault(KeyStoreCache cache) {
+        defaultCache = cache;
+    }
+
+    /**
+     * Returns the cache used by all {@link KeyStoreBuilder}s without an own cache.
+     *
+     * @return {@link KeyStoreCache} or <code>null</code> if there is no default cache
+     */
+    public static KeyStoreCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Creates the key of a key store file.
+     *
+     * @param path     the path of the file
+     * @param content  the content of the file
+     * @param type     the key store type
+     * @param provider the provider name or <code>null</code>
+     * @return the key
+     * @throws IOException if the canonical path can't be resolved
+     */
+    static Object createKey(String path, ByteBuffer content, String type, String provider) throws IOException {
+        File file = new File(path);
+
+        return new Key(
+                file.getCanonicalPath(),
+                content.remaining(),
+                file.lastModified(),
+                StringHelper.toHexString(digest(content)),
+                type,
+                provider);
+    }
+
+    /**
+     * Returns a read-only view of the key store cached for the given key.
+     *
+     * @param key      the key (see {@link #createKey(String, ByteBuffer, String, String)})
+     * @param password the password used to load the key store
+     * @return {@link KeyStore} or <code>null</code> if the cache doesn't contain a key store for the key and password
+     */
+    synchronized KeyStore get(Object key, char[] password) {
+        SoftReference<Entry> reference = keyStores.get(key);
+        Entry entry = reference != null ? reference.get() : null;
+
+        if (entry == null || !entry.matches(password)) {
+            if (reference != null && entry == null)
+                keyStores.remove(key);
+
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        hitCount.incrementAndGet();
+        return ReadOnlyKeyStoreSpi.createView(entry.keyStore);
+    }
+
+    /**
+     * Puts the given key store into the cache. If the cache contains a key store for the key already, it will be
+     * replaced.
+     *
+     * @param key      the key (see {@link #createKey(String, ByteBuffer, String, String)})
+     * @param keyStore the loaded key store, which must not be modified afterwards
+     * @param password the password used to load the key store
+     * @return {@link KeyStore}, a read-only view of the given key store
+     */
+    synchronized KeyStore put(Object key, KeyStore keyStore, char[] password) {
+        byte[] salt = new byte[16];
+        random.nextBytes(salt);
+
+        keyStores.put(key, new SoftReference<Entry>(new Entry(keyStore, salt, digest(salt, password))));
+
+        return ReadOnlyKeyStoreSpi.createView(keyStore);
+    }
+
+    /**
+     * Removes all key stores from the cache. The counters will not be reset.
+     */
+    public synchronized void clear() {
+        keyStores.clear();
+    }
+
+    /**
+     * Returns the number of key stores held by the cache, including the ones already reclaimed by the garbage
+     * collector.
+     *
+     * @return the current size of the cache
+     */
+    public synchronized int size() {
+        return keyStores.size();
+    }
+
+    /**
+     * Returns the maximum number of key stores held by the cache.
+     *
+     * @return the maximum size of the cache
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns how many times a key store was found in the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns how many times a key store wasn't found in the cache (or the password didn't match).
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns how many key stores were evicted, because the cache was full.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private static byte[] digest(ByteBuffer content) {
+        MessageDigest digest = createDigest();
+        digest.update(content.duplicate());
+
+        return digest.digest();
+    }
+
+    private static byte[] digest(byte[] salt, char[] password) {
+        MessageDigest digest = createDigest();
+        digest.update(salt);
+
+        if (password != null)
+            for (char c : password) {
+                digest.update((byte) (c >> 8));
+                digest.update((byte) c);
+            }
+        else
+            digest.update((byte) 0xFF);
+
+        return digest.digest();
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Key {
+        private final String path;
+        private final int size;
+        private final long lastModified;
+        private final String digest;
+        private final String type;
+        private final String provider;
+
+        Key(String path, int size, long lastModified, String digest, String type, String provider) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digest = digest;
+            this.type = type;
+            this.provider = provider;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+
+            if (!(o instanceof Key))
+                return false;
+
+            Key key = (Key) o;
+
+            return size == key.size
+                    && lastModified == key.lastModified
+                    && path.equals(key.path)
+                    && digest.equals(key.digest)
+                    && (type != null ? type.equals(key.type) : key.type == null)
+                    && (provider != null ? provider.equals(key.provider) : key.provider == null);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = path.hashCode();
+            result = 31 * result + size;
+            result = 31 * result + (int) (lastModified ^ (lastModified >>> 32));
+            result = 31 * result + digest.hashCode();
+            result = 31 * result + (type != null ? type.hashCode() : 0);
+            result = 31 * result + (provider != null ? provider.hashCode() : 0);
+            return result;
+        }
+    }
+
+    private static class Entry {
+        private final KeyStore keyStore;
+        private final byte[] salt;
+        private final byte[] passwordDigest;
+
+        Entry(KeyStore keyStore, byte[] salt, byte[] passwordDigest) {
+            this.keyStore = keyStore;
+            this.salt = salt;
+            this.passwordDigest = passwordDigest;
+        }
+
+        boolean matches(char[] password) {
+            return MessageDigest.isEqual(passwordDigest, digest(salt, password));
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.github.j3t.ssl.utils;
 
 
+import com.github.j3t.ssl.utils.types.KeyStoreEntryType;
 import com.github.j3t.ssl.utils.types.KeyUsage;
+import com.github.j3t.ssl.utils.types.KeyUsageSet;
 
+import java.io.IOException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
 import java.util.*;
 
 /**
@@ -51,24 +57,38 @@ public final class KeyStoreHelper {
     public static String[] getAliases(KeyStore keyStore, KeyUsage... keyUsages) {
         checkKeyStore(keyStore);
 
+        return getAliases(keyStore, KeyUsageSet.of(keyUsages));
+    }
+
+    /**
+     * Returns all aliases from a {@link KeyStore} with specific key usages. The key usages of a chain are compared with
+     * one mask comparison (see {@link CertificateHelper#getKeyUsageSet(Certificate[])}). Large key stores queried
+     * repeatedly should be indexed once instead (see {@link KeyStoreIndex}).
+     *
+     * @param keyStore  the given {@link KeyStore}
+     * @param keyUsages the key usages that must be present
+     * @return array of {@link String}s, or an empty array if keyUsages is empty
+     * @throws IllegalArgumentException if keyStore or keyUsages are <code>null</code>
+     * @throws IllegalStateException    if the KeyStore is not been initialized
+     */
+    public static String[] getAliases(KeyStore keyStore, KeyUsageSet keyUsages) {
+        checkKeyStore(keyStore);
+
         if (keyUsages == null)
             throw new IllegalArgumentException("keyUsages must not be null!");
 
-        if (keyUsages.length == 0)
+        if (keyUsages.isEmpty())
             return new String[0];
 
         try {
-            List<String> aliases = new LinkedList<String>();
+            List<String> aliases = new ArrayList<String>();
             Enumeration<String> en = keyStore.aliases();
 
             while (en.hasMoreElements()) {
                 String alias = en.nextElement();
-                aliases.add(alias);
-                Certificate[] certChain = keyStore.getCertificateChain(alias);
 
-                for (KeyUsage keyUsage : keyUsages)
-                    if (!CertificateHelper.isKeyUsagePresent(certChain, keyUsage))
-                        aliases.remove(alias);
+                if (CertificateHelper.getKeyUsageSet(keyStore.getCertificateChain(alias)).containsAll(keyUsages))
+                    aliases.add(alias);
             }
 
             return aliases.toArray(new String[aliases.size()]);
@@ -86,12 +106,16 @@ public final class KeyStoreHelper {
      * @throws IllegalStateException    if the KeyStore is not been initialized
      */
     public static String toString(KeyStore keyStore) {
-        String[] aliases = getAliases(keyStore);
+        StringBuilder sb = new StringBuilder();
 
-        if (aliases.length == 0)
-            return "keyStore is empty";
+        try {
+            KeyStoreRenderer.create().render(keyStore, sb);
+        } catch (IOException e) {
+            // a StringBuilder doesn't throw IOExceptions
+            throw new IllegalStateException(e);
+        }
 
-        return String.format("keyStore contains %d aliase(s)\r\n%s", aliases.length, toStringByAlias(keyStore, aliases));
+        return sb.toString();
     }
 
     /**
@@ -106,27 +130,105 @@ public final class KeyStoreHelper {
     public static String toStringByAlias(KeyStore keyStore, String... aliases) {
         checkKeyStore(keyStore);
 
+        KeyStoreRenderer renderer = KeyStoreRenderer.create();
         StringBuilder sb = new StringBuilder();
 
         for (int i = 0; i < aliases.length; i++) {
             if (i > 0)
                 sb.append("\r\n");
 
-            String alias = aliases[i];
-
-            sb.append("\t").append(i + 1).append(". ").append(alias).append(" - ");
             try {
-                Certificate certificate = keyStore.getCertificate(alias);
-                String certToString = CertificateHelper.getDetails(certificate);
-                sb.append(certToString);
+                renderer.renderEntry(keyStore, aliases[i], i + 1, sb);
             } catch (KeyStoreException e) {
                 throw new IllegalStateException(e);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
             }
         }
 
         return sb.toString();
     }
 
+    /**
+     * Returns a fingerprint of the content of the given {@link KeyStore}. The fingerprint is a SHA-256 digest over all
+     * aliases (sorted) with their entry type and encoded certificates. Two key stores with the same fingerprint provide
+     * the same identities and trusted certificates, no matter which type they have or where they are loaded from.
+     * The keys are not part of the fingerprint, so key stores with the same certificates and different private or
+     * secret keys have the same fingerprint.
+     *
+     * @param keyStore the given {@link KeyStore}
+     * @return the fingerprint as hex {@link String}, shouldn't be <code>null</code>
+     * @throws IllegalArgumentException if keyStore is <code>null</code>
+     * @throws IllegalStateException    if the KeyStore is not been initialized or a certificate can't be encoded
+     */
+    public static String getFingerprint(KeyStore keyStore) {
+        String[] aliases = getAliases(keyStore);
+        Arrays.sort(aliases);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            for (String alias : aliases) {
+                update(digest, alias);
+
+                if (keyStore.isKeyEntry(alias)) {
+                    digest.update((byte) 1);
+                    update(digest, keyStore.getCertificateChain(alias));
+                } else {
+                    digest.update((byte) 0);
+                    update(digest, new Certificate[]{keyStore.getCertificate(alias)});
+                }
+            }
+
+            return StringHelper.toHexString(digest.digest());
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (CertificateEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            digest.update((byte) (c >> 8));
+            digest.update((byte) c);
+        }
+
+        digest.update((byte) 0);
+        digest.update((byte) 0);
+    }
+
+    private static void update(MessageDigest digest, Certificate[] certificateChain)
+            throws CertificateEncodingException {
+        if (certificateChain != null)
+            for (Certificate certificate : certificateChain)
+                if (certificate != null)
+                    digest.update(certificate.getEncoded());
+    }
+
+    /**
+     * Returns the type of the entry of the given alias. The type is determined by the class of the entry (see
+     * {@link KeyStore#entryInstanceOf(String, Class)}), so a private key without certificate chain (e.g. of a PKCS #11
+     * token) isn't taken for a secret key. Entries of other classes are treated as secret keys.
+     *
+     * @param keyStore the {@link KeyStore}
+     * @param alias    the alias of the entry
+     * @return {@link KeyStoreEntryType}
+     * @throws KeyStoreException if the key store is not initialized
+     */
+    static KeyStoreEntryType getEntryType(KeyStore keyStore, String alias) throws KeyStoreException {
+        if (keyStore.entryInstanceOf(alias, KeyStore.PrivateKeyEntry.class))
+            return KeyStoreEntryType.PRIVATE_KEY;
+
+        if (keyStore.entryInstanceOf(alias, KeyStore.TrustedCertificateEntry.class))
+            return KeyStoreEntryType.TRUSTED_CERTIFICATE;
+
+        return KeyStoreEntryType.SECRET_KEY;
+    }
+
     /**
      * Checks that the given key store isn't <code>null</code>.
      *
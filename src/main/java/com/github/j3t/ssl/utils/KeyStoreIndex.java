@@ -0,0 +1,581 @@
+package com.github.j3t.ssl.utils;
+
+
+import com.github.j3t.ssl.utils.types.KeyStoreEntryType;
+import com.github.j3t.ssl.utils.types.KeyUsage;
+import com.github.j3t.ssl.utils.types.KeyUsageSet;
+
+import javax.security.auth.x500.X500Principal;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.*;
+
+/**
+ * Immutable snapshot of the metadata of all entries of a {@link KeyStore} (entry type, key usages, key algorithm and
+ * size, issuer, subject, subject alternative names and validity). The snapshot is created with one pass over the
+ * aliases (see {@link #create(KeyStore)}), afterwards the queries are answered from the snapshot without touching the
+ * key store again. This makes repeated queries of large key stores (e.g. of many tenants) cheap.<br>
+ * <br>
+ * The entries are indexed by entry type, key algorithm, issuer, subject, subject alternative name and key usage. The
+ * distinguished names are compared in their canonical form (see {@link X500Principal#CANONICAL}), e.g.
+ * <code>CN=MyIssuer,O=MyOrganization</code> matches <code>cn=myissuer, o=myorganization</code>. A
+ * {@link Query} combines predicates, it starts with the smallest index matching one of its predicates and checks the
+ * others for the entries of this index only, e.g.
+ * <pre>
+ * index.query()
+ *      .setKeyAlgorithm("EC")
+ *      .setIssuer("CN=MyIssuer")
+ *      .setValidBetween(now, nextWeek)
+ *      .setKeyUsages(KeyUsage.DIGITAL_SIGNATURE)
+ *      .getAliases();
+ * </pre>
+ * Changes of the key store after the creation are not reflected by the snapshot, a new snapshot must be created
+ * instead. The snapshot is thread-safe.
+ *
+ * @author j3t
+ */
+public class KeyStoreIndex {
+    private final List<Entry> entries;
+    private final Map<String, Entry> byAlias = new HashMap<String, Entry>();
+    private final Map<KeyStoreEntryType, List<Entry>> byEntryType =
+            new EnumMap<KeyStoreEntryType, List<Entry>>(KeyStoreEntryType.class);
+    private final Map<String, List<Entry>> byKeyAlgorithm = new HashMap<String, List<Entry>>();
+    private final Map<String, List<Entry>> byIssuer = new HashMap<String, List<Entry>>();
+    private final Map<String, List<Entry>> bySubject = new HashMap<String, List<Entry>>();
+    private final Map<String, List<Entry>> bySubjectAlternativeName = new HashMap<String, List<Entry>>();
+    private final Map<KeyUsage, List<Entry>> byKeyUsage = new EnumMap<KeyUsage, List<Entry>>(KeyUsage.class);
+
+    private KeyStoreIndex(List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(entries);
+
+        for (Entry entry : entries) {
+            byAlias.put(entry.alias, entry);
+            add(byEntryType, entry.type, entry);
+            add(byKeyAlgorithm, normalizeAlgorithm(entry.getKeyAlgorithm()), entry);
+            add(byIssuer, entry.canonicalIssuer, entry);
+            add(bySubject, entry.canonicalSubject, entry);
+
+            for (String name : entry.getSubjectAlternativeNames())
+                add(bySubjectAlternativeName, normalizeName(name), entry);
+
+            for (KeyUsage keyUsage : entry.keyUsages.toArray())
+                add(byKeyUsage, keyUsage, entry);
+        }
+    }
+
+    /**
+     * Creates a snapshot of the given key store. Each entry is read once, the metadata of the certificates is derived
+     * by {@link CertificateInfo}.
+     *
+     * @param keyStore the key store
+     * @return {@link KeyStoreIndex}, shouldn't be <code>null</code>
+     * @throws IllegalArgumentException if keyStore is <code>null</code>
+     * @throws KeyStoreException        if the key store is not initialized
+     */
+    public static KeyStoreIndex create(KeyStore keyStore) throws KeyStoreException {
+        KeyStoreHelper.checkKeyStore(keyStore);
+
+        List<Entry> entries = new ArrayList<Entry>(keyStore.size());
+        Enumeration<String> aliases = keyStore.aliases();
+
+        while (aliases.hasMoreElements()) {
+            String alias = aliases.nextElement();
+            KeyStoreEntryType type = KeyStoreHelper.getEntryType(keyStore, alias);
+
+            if (type == KeyStoreEntryType.TRUSTED_CERTIFICATE) {
+                entries.add(new Entry(alias, type, new Certificate[]{keyStore.getCertificate(alias)}));
+            } else if (type == KeyStoreEntryType.PRIVATE_KEY) {
+                Certificate[] chain = keyStore.getCertificateChain(alias);
+                entries.add(new Entry(alias, type, chain != null ? chain : new Certificate[0]));
+            } else {
+                entries.add(new Entry(alias, type, new Certificate[0]));
+            }
+        }
+
+        return new KeyStoreIndex(entries);
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns all entries in the order of the aliases of the key store.
+     *
+     * @return unmodifiable list of {@link Entry}s
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the entry of an alias.
+     *
+     * @param alias the alias
+     * @return {@link Entry} or <code>null</code> if there is no entry with this alias
+     */
+    public Entry getEntry(String alias) {
+        return byAlias.get(alias);
+    }
+
+    /**
+     * Creates a query without predicates (all entries match).
+     *
+     * @return {@link Query}
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    private static <K> void add(Map<K, List<Entry>> index, K key, Entry entry) {
+        if (key == null)
+            return;
+
+        List<Entry> entries = index.get(key);
+
+        if (entries == null) {
+            entries = new ArrayList<Entry>(1);
+            index.put(key, entries);
+        }
+
+        entries.add(entry);
+    }
+
+    private static String normalizeAlgorithm(String algorithm) {
+        return algorithm != null ? algorithm.toUpperCase(Locale.ENGLISH) : null;
+    }
+
+    private static String normalizeName(String name) {
+        return name != null ? name.toLowerCase(Locale.ENGLISH) : null;
+    }
+
+    private static String getCanonicalName(X500Principal principal) {
+        return principal != null ? principal.getName(X500Principal.CANONICAL) : null;
+    }
+
+    /**
+     * The metadata of a key store entry. The certificate is the first certificate of the chain (or the trusted
+     * certificate), the key usages are the key usages of all certificates of the chain (like
+     * {@link KeyStoreHelper#getAliases(KeyStore, KeyUsageSet)}). Secret key entries have neither a certificate nor
+     * key usages.
+     */
+    public static final class Entry {
+        private final String alias;
+        private final KeyStoreEntryType type;
+        private final Certificate certificate;
+        private final CertificateInfo info;
+        private final KeyUsageSet keyUsages;
+        private final String canonicalIssuer;
+        private final String canonicalSubject;
+        private final long notBefore;
+        private final long notAfter;
+
+        Entry(String alias, KeyStoreEntryType type, Certificate[] chain) {
+            this.alias = alias;
+            this.type = type;
+            this.certificate = chain.length > 0 ? chain[0] : null;
+            this.info = certificate instanceof X509Certificate ? CertificateInfo.of(certificate) : null;
+            this.keyUsages = CertificateHelper.getKeyUsageSet(chain);
+
+            X509Certificate x509Certificate = info != null ? (X509Certificate) certificate : null;
+            this.canonicalIssuer = x509Certificate != null
+                    ? getCanonicalName(x509Certificate.getIssuerX500Principal())
+                    : null;
+            this.canonicalSubject = x509Certificate != null
+                    ? getCanonicalName(x509Certificate.getSubjectX500Principal())
+                    : null;
+
+            Date start = info != null ? info.getNotBefore() : null;
+            Date end = info != null ? info.getNotAfter() : null;
+
+            // entries without validity are never valid
+            this.notBefore = start != null ? start.getTime() : Long.MAX_VALUE;
+            this.notAfter = end != null ? end.getTime() : Long.MIN_VALUE;
+        }
+
+        /**
+         * Returns the alias.
+         *
+         * @return the alias
+         */
+        public String getAlias() {
+            return alias;
+        }
+
+        /**
+         * Returns the type of the entry.
+         *
+         * @return the {@link KeyStoreEntryType}
+         */
+        public KeyStoreEntryType getType() {
+            return type;
+        }
+
+        /**
+         * Returns the certificate.
+         *
+         * @return the certificate or <code>null</code> for secret key entries
+         */
+        public Certificate getCertificate() {
+            return certificate;
+        }
+
+        /**
+         * Returns the key usages of the chain.
+         *
+         * @return the {@link KeyUsageSet} of the chain
+         */
+        public KeyUsageSet getKeyUsages() {
+            return keyUsages;
+        }
+
+        /**
+         * Returns the algorithm of the public key.
+         *
+         * @return the algorithm of the public key (e.g. RSA or EC) or <code>null</code> if there is no X.509
+         * certificate
+         */
+        public String getKeyAlgorithm() {
+            return info != null ? info.getKeyAlgorithm() : null;
+        }
+
+        /**
+         * Returns the size of the public key.
+         *
+         * @return the size of the public key in bits (see {@link CertificateInfo#getKeySize()}) or 0 if unknown
+         */
+        public int getKeySize() {
+            return info != null ? info.getKeySize() : 0;
+        }
+
+        /**
+         * Returns the issuer of the certificate.
+         *
+         * @return the issuer in RFC 2253 format or <code>null</code> if there is no X.509 certificate
+         */
+        public String getIssuer() {
+            return info != null ? info.getIssuer() : null;
+        }
+
+        /**
+         * Returns the subject of the certificate.
+         *
+         * @return the subject in RFC 2253 format or <code>null</code> if there is no X.509 certificate
+         */
+        public String getSubject() {
+            return info != null ? info.getSubject() : null;
+        }
+
+        /**
+         * Returns the subject alternative names of the certificate.
+         *
+         * @return unmodifiable list of the subject alternative names, shouldn't be <code>null</code>
+         */
+        public List<String> getSubjectAlternativeNames() {
+            return info != null ? info.getSubjectAlternativeNames() : Collections.<String>emptyList();
+        }
+
+        /**
+         * Returns the start date of the validity period.
+         *
+         * @return the start date of the validity period or <code>null</code> if there is no X.509 certificate
+         */
+        public Date getNotBefore() {
+            return info != null ? info.getNotBefore() : null;
+        }
+
+        /**
+         * Returns the end date of the validity period.
+         *
+         * @return the end date of the validity period or <code>null</code> if there is no X.509 certificate
+         */
+        public Date getNotAfter() {
+            return info != null ? info.getNotAfter() : null;
+        }
+
+        /**
+         * Checks that the whole period is within the validity period of the certificate.
+         *
+         * @param from the start of the period
+         * @param to   the end of the period
+         * @return <code>true</code> if the certificate is valid during the period, otherwise <code>false</code>
+         */
+        public boolean isValidBetween(Date from, Date to) {
+            return isValidBetween(from.getTime(), to.getTime());
+        }
+
+        boolean isValidBetween(long from, long to) {
+            return notBefore <= from && to <= notAfter;
+        }
+
+        @Override
+        public String toString() {
+            return alias + " (" + type + ")";
+        }
+    }
+
+    /**
+     * A combination of predicates, an entry matches if it matches all predicates. The query is not thread-safe while
+     * its predicates are set.
+     */
+    public class Query {
+        private KeyStoreEntryType type;
+        private String keyAlgorithm;
+        private int minKeySize;
+        private String issuer;
+        private String subject;
+        private String subjectAlternativeName;
+        private KeyUsageSet keyUsages = KeyUsageSet.EMPTY;
+        private long validFrom;
+        private long validTo;
+        private boolean validity;
+
+        Query() {
+        }
+
+        /**
+         * Sets the entry type.
+         *
+         * @param type the {@link KeyStoreEntryType} or <code>null</code> for any type
+         * @return {@link Query}
+         */
+        public Query setEntryType(KeyStoreEntryType type) {
+            this.type = type;
+            return this;
+        }
+
+        /**
+         * Sets the algorithm of the key, compared case-insensitive.
+         *
+         * @param keyAlgorithm the algorithm (e.g. RSA or EC) or <code>null</code> for any algorithm
+         * @return {@link Query}
+         */
+        public Query setKeyAlgorithm(String keyAlgorithm) {
+            this.keyAlgorithm = normalizeAlgorithm(keyAlgorithm);
+            return this;
+        }
+
+        /**
+         * Sets the minimal size of the key.
+         *
+         * @param minKeySize the size in bits (see {@link CertificateInfo#getKeySize()}) or 0 for any size
+         * @return {@link Query}
+         */
+        public Query setMinKeySize(int minKeySize) {
+            this.minKeySize = minKeySize;
+            return this;
+        }
+
+        /**
+         * Sets the issuer.
+         *
+         * @param issuer the distinguished name of the issuer (e.g. CN=MyIssuer, O=MyOrganization) or
+         *               <code>null</code> for any issuer
+         * @return {@link Query}
+         * @throws IllegalArgumentException if the name is not a distinguished name
+         */
+        public Query setIssuer(String issuer) {
+            this.issuer = issuer != null ? getCanonicalName(new X500Principal(issuer)) : null;
+            return this;
+        }
+
+        /**
+         * Sets the subject.
+         *
+         * @param subject the distinguished name of the subject or <code>null</code> for any subject
+         * @return {@link Query}
+         * @throws IllegalArgumentException if the name is not a distinguished name
+         */
+        public Query setSubject(String subject) {
+            this.subject = subject != null ? getCanonicalName(new X500Principal(subject)) : null;
+            return this;
+        }
+
+        /**
+         * Sets a subject alternative name, which must be present. Names are compared case-insensitive.
+         *
+         * @param subjectAlternativeName the name (e.g. a DNS name) or <code>null</code> for any name
+         * @return {@link Query}
+         */
+        public Query setSubjectAlternativeName(String subjectAlternativeName) {
+            this.subjectAlternativeName = normalizeName(subjectAlternativeName);
+            return this;
+        }
+
+        /**
+         * Sets the key usages, which must be present.
+         *
+         * @param keyUsages the key usages
+         * @return {@link Query}
+         * @throws IllegalArgumentException if keyUsages is or contains <code>null</code>
+         */
+        public Query setKeyUsages(KeyUsage... keyUsages) {
+            return setKeyUsages(KeyUsageSet.of(keyUsages));
+        }
+
+        /**
+         * Sets the key usages, which must be present.
+         *
+         * @param keyUsages the key usages
+         * @return {@link Query}
+         * @throws IllegalArgumentException if keyUsages is <code>null</code>
+         */
+        public Query setKeyUsages(KeyUsageSet keyUsages) {
+            if (keyUsages == null)
+                throw new IllegalArgumentException("keyUsages must not be null!");
+
+            this.keyUsages = keyUsages;
+            return this;
+        }
+
+        /**
+         * Sets a point in time, the certificate must be valid at.
+         *
+         * @param date the point in time
+         * @return {@link Query}
+         * @throws IllegalArgumentException if date is <code>null</code>
+         */
+        public Query setValidAt(Date date) {
+            return setValidBetween(date, date);
+        }
+
+        /**
+         * Sets a period, the certificate must be valid during (e.g. now until next week).
+         *
+         * @param from the start of the period
+         * @param to   the end of the period
+         * @return {@link Query}
+         * @throws IllegalArgumentException if from or to is <code>null</code> or to is before from
+         */
+        public Query setValidBetween(Date from, Date to) {
+            if (from == null || to == null)
+                throw new IllegalArgumentException("period must not be null!");
+
+            if (to.before(from))
+                throw new IllegalArgumentException("end of period must not be before start!");
+
+            this.validFrom = from.getTime();
+            this.validTo = to.getTime();
+            this.validity = true;
+            return this;
+        }
+
+        /**
+         * Returns the matching entries.
+         *
+         * @return list of {@link Entry}s in the order of the aliases of the key store, or an empty list
+         */
+        public List<Entry> getEntries() {
+            List<Entry> candidates = getCandidates();
+            List<Entry> result = new ArrayList<Entry>();
+
+            for (Entry entry : candidates)
+                if (matches(entry))
+                    result.add(entry);
+
+            return result;
+        }
+
+        /**
+         * Returns the aliases of the matching entries.
+         *
+         * @return array of {@link String}s in the order of the aliases of the key store, or an empty array
+         */
+        public String[] getAliases() {
+            List<Entry> result = getEntries();
+            String[] aliases = new String[result.size()];
+
+            for (int i = 0; i < aliases.length; i++)
+                aliases[i] = result.get(i).alias;
+
+            return aliases;
+        }
+
+        /**
+         * Returns the first matching entry.
+         *
+         * @return {@link Entry} or <code>null</code> if no entry matches
+         */
+        public Entry getFirst() {
+            for (Entry entry : getCandidates())
+                if (matches(entry))
+                    return entry;
+
+            return null;
+        }
+
+        /**
+         * Returns the smallest index of the predicates (the entries are in the order of the aliases in each index).
+         */
+        private List<Entry> getCandidates() {
+            List<Entry> candidates = entries;
+
+            if (type != null)
+                candidates = smallest(candidates, byEntryType.get(type));
+
+            if (keyAlgorithm != null)
+                candidates = smallest(candidates, byKeyAlgorithm.get(keyAlgorithm));
+
+            if (issuer != null)
+                candidates = smallest(candidates, byIssuer.get(issuer));
+
+            if (subject != null)
+                candidates = smallest(candidates, bySubject.get(subject));
+
+            if (subjectAlternativeName != null)
+                candidates = smallest(candidates, bySubjectAlternativeName.get(subjectAlternativeName));
+
+            for (KeyUsage keyUsage : keyUsages.toArray())
+                candidates = smallest(candidates, byKeyUsage.get(keyUsage));
+
+            return candidates;
+        }
+
+        private List<Entry> smallest(List<Entry> candidates, List<Entry> index) {
+            if (index == null)
+                return Collections.emptyList();
+
+            return index.size() < candidates.size() ? index : candidates;
+        }
+
+        private boolean matches(Entry entry) {
+            if (type != null && type != entry.type)
+                return false;
+
+            if (keyAlgorithm != null && !keyAlgorithm.equals(normalizeAlgorithm(entry.getKeyAlgorithm())))
+                return false;
+
+            if (minKeySize > 0 && entry.getKeySize() < minKeySize)
+                return false;
+
+            if (issuer != null && !issuer.equals(entry.canonicalIssuer))
+                return false;
+
+            if (subject != null && !subject.equals(entry.canonicalSubject))
+                return false;
+
+            if (subjectAlternativeName != null && !containsName(entry.getSubjectAlternativeNames()))
+                return false;
+
+            if (!entry.keyUsages.containsAll(keyUsages))
+                return false;
+
+            return !validity || entry.isValidBetween(validFrom, validTo);
+        }
+
+        private boolean containsName(List<String> names) {
+            for (String name : names)
+                if (subjectAlternativeName.equals(normalizeName(name)))
+                    return true;
+
+            return false;
+        }
+    }
+}
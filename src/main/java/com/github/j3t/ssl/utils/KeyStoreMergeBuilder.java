@@ -0,0 +1,279 @@
+package com.github.j3t.ssl.utils;
+
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builder-pattern style factory to merge the certificates of many key stores into one in-memory {@link KeyStore}
+ * (e.g. a trust store assembled from the JDK cacerts, several PKCS #12 files and some key store blobs). The sources are
+ * loaded in parallel, so the time to build the merged key store is close to the time to load the slowest source.<br>
+ * <br>
+ * The merged key store contains trusted certificate entries only (the certificate of a key entry is added, the private
+ * key is not). The entries are merged deterministically: the sources in the order they are added and the aliases of a
+ * source in natural order. A certificate which is already part of the merged key store is skipped (compared by its
+ * SHA-256 fingerprint). An alias which is already taken by another certificate gets a suffix (e.g. alias-1).
+ *
+ * @author j3t
+ */
+public class KeyStoreMergeBuilder {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /**
+     * Creates a new {@link KeyStoreMergeBuilder} instance.
+     *
+     * @return {@link KeyStoreMergeBuilder}
+     */
+    public static KeyStoreMergeBuilder create() {
+        return new KeyStoreMergeBuilder();
+    }
+
+    private final List<Callable<KeyStore>> sources;
+    private String type;
+    private ExecutorService executor;
+
+    protected KeyStoreMergeBuilder() {
+        sources = new ArrayList<Callable<KeyStore>>();
+        type = KeyStore.getDefaultType();
+        executor = null;
+    }
+
+    /**
+     * Add a source, which is loaded when the merged key store is built.
+     *
+     * @param source the {@link KeyStoreBuilder} of the source
+     * @return {@link KeyStoreMergeBuilder}
+     * @throws IllegalArgumentException if source is <code>null</code>
+     */
+    public KeyStoreMergeBuilder addSource(final KeyStoreBuilder source) {
+        if (source == null)
+            throw new IllegalArgumentException("source must not be null!");
+
+        sources.add(new Callable<KeyStore>() {
+            @Override
+            public KeyStore call() throws Exception {
+                return source.build();
+            }
+        });
+
+        return this;
+    }
+
+    /**
+     * Add a source, which is already loaded.
+     *
+     * @param source the {@link KeyStore}
+     * @return {@link KeyStoreMergeBuilder}
+     * @throws IllegalArgumentException if source is <code>null</code>
+     */
+    public KeyStoreMergeBuilder addSource(final KeyStore source) {
+        KeyStoreHelper.checkKeyStore(source);
+
+        sources.add(new Callable<KeyStore>() {
+            @Override
+            public KeyStore call() {
+                return source;
+            }
+        });
+
+        return this;
+    }
+
+    /**
+     * Set the type of the merged key store. Default is the default type (see {@link KeyStore#getDefaultType()}).
+     *
+     * @param type the key store type (see {@link com.github.j3t.ssl.utils.types.KeyStoreType})
+     * @return {@link KeyStoreMergeBuilder}
+     */
+    public KeyStoreMergeBuilder setType(String type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * Set the executor used to load the sources. Default is <code>null</code>, a thread pool with one thread per
+     * source (but not more threads than available processors) is created and shut down for each build.
+     *
+     * @param executor the {@link ExecutorService} or <code>null</code>
+     * @return {@link KeyStoreMergeBuilder}
+     */
+    public KeyStoreMergeBuilder setExecutor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Build the merged {@link KeyStore}. If a source can't be loaded, the exception of the first failed source (in the
+     * order they are added) is thrown.
+     *
+     * @return {@link KeyStore}
+     * @throws KeyStoreException        if a KeyStoreSpi implementation for the specified type is not available
+     * @throws IOException              if there is an I/O or format problem with the data of a source
+     * @throws IllegalAccessException   if the aliases of a source can't be fixed
+     * @throws GeneralSecurityException if a source can't be loaded
+     * @throws InterruptedException     if the current thread was interrupted while waiting
+     */
+    public KeyStore build() throws GeneralSecurityException, IOException, IllegalAccessException,
+            InterruptedException {
+        ExecutorService executorService = executor != null ? executor : createExecutor(sources.size(), "ssl-utils-merge-");
+
+        try {
+            List<Future<KeyStore>> futures = new ArrayList<Future<KeyStore>>(sources.size());
+
+            for (Callable<KeyStore> source : sources)
+                futures.add(executorService.submit(source));
+
+            KeyStore keyStore = KeyStore.getInstance(type);
+            keyStore.load(null, null);
+
+            Set<String> fingerprints = new HashSet<String>();
+
+            for (Future<KeyStore> future : futures)
+                merge(keyStore, get(future), fingerprints);
+
+            return keyStore;
+        } finally {
+            if (executor == null)
+                executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Build the merged {@link KeyStore} without catching exceptions.
+     *
+     * @return {@link KeyStore}
+     * @throws IllegalStateException if the build failed
+     * @see #build()
+     */
+    public KeyStore buildUnsecure() throws IllegalStateException {
+        try {
+            return build();
+        } catch (Exception e) {
+            throw new IllegalStateException("build failed!", e);
+        }
+    }
+
+    private static void merge(KeyStore target, KeyStore source, Set<String> fingerprints)
+            throws KeyStoreException {
+        String[] aliases = KeyStoreHelper.getAliases(source);
+        Arrays.sort(aliases);
+
+        for (String alias : aliases) {
+            Certificate certificate = source.getCertificate(alias);
+
+            if (certificate != null)
+                addCertificate(target, alias, certificate, getFingerprint(certificate), fingerprints);
+        }
+    }
+
+    /**
+     * Adds the given certificate as trusted certificate entry, unless the fingerprint of the certificate is contained
+     * in the given set already. If the alias is already taken, a suffix is added (e.g. alias-1).
+     *
+     * @param target       the {@link KeyStore}
+     * @param alias        the preferred alias
+     * @param certificate  the {@link Certificate}
+     * @param fingerprint  the fingerprint of the certificate (see {@link #getFingerprint(Certificate)})
+     * @param fingerprints the fingerprints of the certificates added so far
+     * @return <code>true</code> if the certificate was added, <code>false</code> if it is a duplicate
+     * @throws KeyStoreException if the entry can't be set
+     */
+    static boolean addCertificate(KeyStore target, String alias, Certificate certificate, String fingerprint,
+                                  Set<String> fingerprints) throws KeyStoreException {
+        if (!fingerprints.add(fingerprint))
+            return false;
+
+        String name = alias;
+
+        for (int i = 1; target.containsAlias(name); i++)
+            name = alias + "-" + i;
+
+        target.setCertificateEntry(name, certificate);
+
+        return true;
+    }
+
+    /**
+     * Returns the SHA-256 fingerprint of the given certificate.
+     *
+     * @param certificate the {@link Certificate}
+     * @return the fingerprint as hex {@link String}
+     * @throws IllegalStateException if the certificate can't be encoded
+     */
+    static String getFingerprint(Certificate certificate) {
+        try {
+            return StringHelper.toHexString(MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded()));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Waits for the result of the given future and rethrows the cause, if the computation failed.
+     *
+     * @param future the {@link Future}
+     * @param <T>    the type of the result
+     * @return the result
+     */
+    static <T> T get(Future<T> future) throws GeneralSecurityException, IOException, IllegalAccessException,
+            InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof GeneralSecurityException)
+                throw (GeneralSecurityException) cause;
+
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+
+            if (cause instanceof IllegalAccessException)
+                throw (IllegalAccessException) cause;
+
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+
+            if (cause instanceof Error)
+                throw (Error) cause;
+
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Creates a pool of daemon threads, one thread per task but not more threads than available processors.
+     *
+     * @param tasks  the number of tasks
+     * @param prefix the prefix of the thread names
+     * @return {@link ExecutorService}
+     */
+    static ExecutorService createExecutor(int tasks, final String prefix) {
+        int threads = Math.max(1, Math.min(tasks, Runtime.getRuntime().availableProcessors()));
+
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
@@ -0,0 +1,335 @@
+package com.github.j3t.ssl.utils;
+
+
+import com.github.j3t.ssl.utils.types.KeyUsage;
+import com.github.j3t.ssl.utils.types.KeyUsageSet;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Renders key stores and certificates into an {@link Appendable} (e.g. a {@link Writer} or a {@link StringBuilder}).
+ * The entries are written one by one while the aliases are enumerated, so the memory used doesn't depend on the size
+ * of the key store. The output can be paginated (see {@link #setOffset(int)} and {@link #setLimit(int)}).<br>
+ * <br>
+ * The {@link Format#TEXT} format is the human readable format of {@link KeyStoreHelper#toString(KeyStore)} and
+ * {@link CertificateHelper#getDetails(Certificate)}. The {@link Format#JSON_LINES} format writes one JSON object per
+ * entry and line, e.g.
+ * <pre>
+ * {"index":1,"alias":"server","type":"PRIVATE_KEY","subject":"CN=localhost","issuer":"CN=localhost",
+ *  "notBefore":1469182211000,"notAfter":1562494211000,"signatureAlgorithm":"SHA1withDSA","keyAlgorithm":"DSA",
+ *  "keySize":1024,"keyUsages":["KEY_CERT_SIGN","C_RL_SIGN"],"subjectAlternativeNames":[],"sha256":"..."}
+ * </pre>
+ * The dates are written as milliseconds since the epoch. The {@link Format#TEXT} format reads the fields directly from
+ * the certificate, the fingerprint, subject alternative names and key size are only computed for
+ * {@link Format#JSON_LINES}. A renderer can be reused and shared, as long as its configuration isn't changed.
+ *
+ * @author j3t
+ */
+public class KeyStoreRenderer {
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    /**
+     * The output formats.
+     */
+    public enum Format {
+        /**
+         * Human readable, a header and a block of lines per entry.
+         */
+        TEXT,
+
+        /**
+         * One JSON object per entry and line, without header.
+         */
+        JSON_LINES
+    }
+
+    private Format format = Format.TEXT;
+    private int offset;
+    private int limit = Integer.MAX_VALUE;
+
+    protected KeyStoreRenderer() {
+    }
+
+    /**
+     * Creates an instance of {@link KeyStoreRenderer} rendering all entries as {@link Format#TEXT}.
+     *
+     * @return {@link KeyStoreRenderer}
+     */
+    public static KeyStoreRenderer create() {
+        return new KeyStoreRenderer();
+    }
+
+    /**
+     * Sets the output format. Default is {@link Format#TEXT}.
+     *
+     * @param format the {@link Format}
+     * @return {@link KeyStoreRenderer}
+     * @throws IllegalArgumentException if format is <code>null</code>
+     */
+    public KeyStoreRenderer setFormat(Format format) {
+        if (format == null)
+            throw new IllegalArgumentException("format must not be null!");
+
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * Sets the number of entries to skip. Default is 0.
+     *
+     * @param offset the number of entries to skip
+     * @return {@link KeyStoreRenderer}
+     * @throws IllegalArgumentException if offset is negative
+     */
+    public KeyStoreRenderer setOffset(int offset) {
+        if (offset < 0)
+            throw new IllegalArgumentException("offset must not be negative!");
+
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of entries to render. Default is all entries.
+     *
+     * @param limit the maximum number of entries
+     * @return {@link KeyStoreRenderer}
+     * @throws IllegalArgumentException if limit is negative
+     */
+    public KeyStoreRenderer setLimit(int limit) {
+        if (limit < 0)
+            throw new IllegalArgumentException("limit must not be negative!");
+
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Renders the entries of a key store in the order of its aliases. The entries are numbered from 1, the numbers
+     * continue after the skipped entries.
+     *
+     * @param keyStore the key store
+     * @param out      the target
+     * @return the number of rendered entries
+     * @throws IOException              if the target can't be written
+     * @throws IllegalArgumentException if keyStore or out is <code>null</code> or a certificate is not a X.509
+     *                                  certificate
+     * @throws IllegalStateException    if the KeyStore is not been initialized
+     */
+    public int render(KeyStore keyStore, Appendable out) throws IOException {
+        KeyStoreHelper.checkKeyStore(keyStore);
+        checkAppendable(out);
+
+        try {
+            int size = keyStore.size();
+
+            if (format == Format.TEXT) {
+                if (size == 0) {
+                    out.append("keyStore is empty");
+                    return 0;
+                }
+
+                out.append("keyStore contains ").append(Integer.toString(size)).append(" aliase(s)\r\n");
+            }
+
+            Enumeration<String> aliases = keyStore.aliases();
+            int index = 0;
+            int rendered = 0;
+
+            while (aliases.hasMoreElements() && rendered < limit) {
+                String alias = aliases.nextElement();
+
+                if (index++ < offset)
+                    continue;
+
+                if (rendered++ > 0 && format == Format.TEXT)
+                    out.append("\r\n");
+
+                renderEntry(keyStore, alias, index, out);
+            }
+
+            return rendered;
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Renders a certificate.
+     *
+     * @param certificate the certificate
+     * @param out         the target
+     * @throws IOException              if the target can't be written
+     * @throws IllegalArgumentException if certificate or out is <code>null</code> or the certificate is not a X.509
+     *                                  certificate
+     */
+    public void render(Certificate certificate, Appendable out) throws IOException {
+        checkAppendable(out);
+
+        if (format == Format.TEXT) {
+            appendDetails(CertificateHelper.castToX509CertificateOrThrowException(certificate), out);
+        } else {
+            out.append('{');
+            appendJsonCertificate(CertificateInfo.derive(certificate), out);
+            out.append("}\n");
+        }
+    }
+
+    /**
+     * Renders the entry of an alias with the given number.
+     */
+    void renderEntry(KeyStore keyStore, String alias, int number, Appendable out) throws IOException,
+            KeyStoreException {
+        Certificate certificate = keyStore.getCertificate(alias);
+
+        if (format == Format.TEXT) {
+            out.append('\t').append(Integer.toString(number)).append(". ").append(alias).append(" - ");
+
+            if (certificate != null)
+                appendDetails(CertificateHelper.castToX509CertificateOrThrowException(certificate), out);
+            else
+                out.append("no certificate").append(LINE_SEPARATOR);
+        } else {
+            out.append("{\"index\":").append(Integer.toString(number)).append(",\"alias\":");
+            appendJsonString(alias, out);
+            out.append(",\"type\":\"").append(KeyStoreHelper.getEntryType(keyStore, alias).name()).append('"');
+
+            if (certificate != null) {
+                out.append(',');
+                appendJsonCertificate(CertificateInfo.derive(certificate), out);
+            }
+
+            out.append("}\n");
+        }
+    }
+
+    /**
+     * Appends the human readable details of a certificate (see {@link CertificateHelper#getDetails(Certificate)}).
+     */
+    static void appendDetails(CertificateInfo info, Appendable out) throws IOException {
+        appendDetails(info.getSignatureAlgorithm(), info.getKeyUsageSet(), info.getNotBefore(), info.getNotAfter(),
+                info.getIssuer(), info.getSubject(), out);
+    }
+
+    /**
+     * Appends the human readable details of a certificate, the fields are read directly from the certificate.
+     */
+    static void appendDetails(X509Certificate certificate, Appendable out) throws IOException {
+        appendDetails(certificate.getSigAlgName(), KeyUsageSet.valueOf(certificate.getKeyUsage()),
+                certificate.getNotBefore(), certificate.getNotAfter(),
+                CertificateInfo.getName(certificate.getIssuerX500Principal()),
+                CertificateInfo.getName(certificate.getSubjectX500Principal()), out);
+    }
+
+    private static void appendDetails(String signatureAlgorithm, KeyUsageSet keyUsageSet, Date notBefore,
+                                      Date notAfter, String issuer, String subject, Appendable out)
+            throws IOException {
+        out.append("Certificate details:").append(LINE_SEPARATOR);
+        out.append("    Signature Algorithm: ").append(signatureAlgorithm).append(LINE_SEPARATOR);
+        out.append("    KeyUsage: ");
+
+        KeyUsage[] keyUsages = keyUsageSet.toArray();
+
+        for (int i = 0; i < keyUsages.length; i++) {
+            if (i > 0)
+                out.append(", ");
+
+            out.append(keyUsages[i].name());
+        }
+
+        out.append(LINE_SEPARATOR);
+        out.append("    Validity:").append(LINE_SEPARATOR);
+        out.append("        Not before: ").append(String.valueOf(notBefore)).append(LINE_SEPARATOR);
+        out.append("        Not after : ").append(String.valueOf(notAfter)).append(LINE_SEPARATOR);
+        out.append("    Issuer : ").append(issuer).append(LINE_SEPARATOR);
+        out.append("    Subject: ").append(subject).append(LINE_SEPARATOR);
+    }
+
+    private static void appendJsonCertificate(CertificateInfo info, Appendable out) throws IOException {
+        out.append("\"subject\":");
+        appendJsonString(info.getSubject(), out);
+        out.append(",\"issuer\":");
+        appendJsonString(info.getIssuer(), out);
+        out.append(",\"notBefore\":");
+        appendJsonDate(info.getNotBefore(), out);
+        out.append(",\"notAfter\":");
+        appendJsonDate(info.getNotAfter(), out);
+        out.append(",\"signatureAlgorithm\":");
+        appendJsonString(info.getSignatureAlgorithm(), out);
+        out.append(",\"keyAlgorithm\":");
+        appendJsonString(info.getKeyAlgorithm(), out);
+        out.append(",\"keySize\":").append(Integer.toString(info.getKeySize()));
+        out.append(",\"keyUsages\":[");
+
+        KeyUsage[] keyUsages = info.getKeyUsageSet().toArray();
+
+        for (int i = 0; i < keyUsages.length; i++) {
+            if (i > 0)
+                out.append(',');
+
+            out.append('"').append(keyUsages[i].name()).append('"');
+        }
+
+        out.append("],\"subjectAlternativeNames\":[");
+
+        List<String> names = info.getSubjectAlternativeNames();
+
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0)
+                out.append(',');
+
+            appendJsonString(names.get(i), out);
+        }
+
+        out.append("],\"sha256\":");
+        appendJsonString(info.getSha256Fingerprint(), out);
+    }
+
+    private static void appendJsonDate(Date date, Appendable out) throws IOException {
+        out.append(date != null ? Long.toString(date.getTime()) : "null");
+    }
+
+    /**
+     * Appends a JSON string, quotes, backslashes and control characters are escaped.
+     */
+    static void appendJsonString(String value, Appendable out) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+
+        out.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '"' || c == '\\')
+                out.append('\\').append(c);
+            else if (c == '\n')
+                out.append("\\n");
+            else if (c == '\r')
+                out.append("\\r");
+            else if (c == '\t')
+                out.append("\\t");
+            else if (c < 0x20)
+                out.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            else
+                out.append(c);
+        }
+
+        out.append('"');
+    }
+
+    private static void checkAppendable(Appendable out) {
+        if (out == null)
+            throw new IllegalArgumentException("out must not be null!");
+    }
+}
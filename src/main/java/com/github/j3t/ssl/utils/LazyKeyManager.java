@@ -0,0 +1,367 @@
+package com.github.j3t.ssl.utils;
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementation of {@link X509ExtendedKeyManager} that recovers the private keys of a key store on demand. The
+ * {@link KeyManagerFactory} recovers (e.g. decrypts) the key of every entry when it is initialized, which dominates the
+ * startup and the heap with thousands of identities. This key manager only indexes the aliases and certificate chains
+ * of the key entries when it is created, a private key is recovered when {@link #getPrivateKey(String)} is called the
+ * first time. To fail fast on a wrong password, the key of one entry is recovered when the key manager is created. If
+ * a key can't be recovered later on, the alias is remembered and the recovery isn't retried.<br>
+ * <br>
+ * The recovered keys are held in a bounded cache. If the cache is full, the least recently used key will be evicted
+ * and recovered again on its next use. The aliases are selected like the SunX509 key manager does, by the key type and
+ * the issuers requested by the peer. The aliases of a key type are determined once and reused by later selections.<br>
+ * <br>
+ * The key store must not be modified afterwards. The key manager is thread-safe.
+ *
+ * @author j3t
+ */
+public class LazyKeyManager extends X509ExtendedKeyManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LazyKeyManager.class);
+
+    private final KeyStore keyStore;
+    private final char[] password;
+    private static final String[] NO_ALIASES = new String[0];
+
+    private final Map<String, X509Certificate[]> chains;
+    private final ConcurrentMap<String, String[]> aliasesByKeyType = new ConcurrentHashMap<String, String[]>();
+    private final int maximumSize;
+    private final Map<String, PrivateKey> keys;
+    private final Set<String> unrecoverable = Collections.synchronizedSet(new HashSet<String>());
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Creates an instance of {@link LazyKeyManager}.
+     *
+     * @param keyStore    the key store, which must not be modified afterwards
+     * @param password    the password of the key entries or <code>null</code>
+     * @param maximumSize the maximum number of private keys held by the key manager
+     * @throws IllegalArgumentException  if keyStore is <code>null</code> or maximumSize is less than 1
+     * @throws KeyStoreException         if the key store is not initialized
+     * @throws NoSuchAlgorithmException  if the algorithm to recover a key can't be found
+     * @throws UnrecoverableKeyException if a key can't be recovered (e.g. the password is wrong)
+     */
+    public LazyKeyManager(KeyStore keyStore, char[] password, int maximumSize) throws KeyStoreException,
+            NoSuchAlgorithmException, UnrecoverableKeyException {
+        if (keyStore == null)
+            throw new IllegalArgumentException("keyStore must not be null!");
+
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("maximumSize must be greater than 0!");
+
+        this.keyStore = keyStore;
+        this.password = password != null ? password.clone() : null;
+        this.chains = createIndex(keyStore);
+        this.maximumSize = maximumSize;
+        this.keys = new LruMap(maximumSize, evictionCount);
+
+        // the key is only recovered to verify the password, like the KeyManagerFactory does for all entries
+        if (!chains.isEmpty())
+            keyStore.getKey(chains.keySet().iterator().next(), this.password);
+    }
+
+    @Override
+    public String chooseClientAlias(String[] keyTypes, Principal[] issuers, Socket socket) {
+        if (keyTypes != null)
+            for (String keyType : keyTypes) {
+                String alias = chooseAlias(keyType, issuers);
+
+                if (alias != null)
+                    return alias;
+            }
+
+        return null;
+    }
+
+    @Override
+    public String chooseEngineClientAlias(String[] keyTypes, Principal[] issuers, SSLEngine engine) {
+        return chooseClientAlias(keyTypes, issuers, null);
+    }
+
+    @Override
+    public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+        return chooseAlias(keyType, issuers);
+    }
+
+    @Override
+    public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+        return chooseServerAlias(keyType, issuers, null);
+    }
+
+    @Override
+    public String[] getClientAliases(String keyType, Principal[] issuers) {
+        return getAliases(keyType, issuers);
+    }
+
+    @Override
+    public String[] getServerAliases(String keyType, Principal[] issuers) {
+        return getAliases(keyType, issuers);
+    }
+
+    @Override
+    public X509Certificate[] getCertificateChain(String alias) {
+        X509Certificate[] chain = alias != null ? chains.get(alias) : null;
+
+        return chain != null ? chain.clone() : null;
+    }
+
+    @Override
+    public PrivateKey getPrivateKey(String alias) {
+        if (alias == null || !chains.containsKey(alias) || unrecoverable.contains(alias))
+            return null;
+
+        PrivateKey key;
+
+        synchronized (keys) {
+            key = keys.get(alias);
+        }
+
+        if (key != null) {
+            hitCount.incrementAndGet();
+            return key;
+        }
+
+        missCount.incrementAndGet();
+
+        // the key is recovered without holding the lock, so a slow recovery doesn't block the other aliases
+        key = recover(alias);
+
+        if (key != null)
+            synchronized (keys) {
+                keys.put(alias, key);
+            }
+        else
+            unrecoverable.add(alias);
+
+        return key;
+    }
+
+    /**
+     * Returns the number of key entries indexed by the key manager.
+     *
+     * @return the number of aliases
+     */
+    public int getAliasCount() {
+        return chains.size();
+    }
+
+    /**
+     * Returns the number of private keys held by the key manager.
+     *
+     * @return the current size of the cache
+     */
+    public int size() {
+        synchronized (keys) {
+            return keys.size();
+        }
+    }
+
+    /**
+     * Returns the maximum number of private keys held by the key manager.
+     *
+     * @return the maximum size of the cache
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns how many times a private key was found in the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns how many times a private key wasn't found in the cache and was recovered from the key store.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns how many private keys were evicted, because the cache was full.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private PrivateKey recover(String alias) {
+        try {
+            Key key = keyStore.getKey(alias, password);
+
+            if (key instanceof PrivateKey)
+                return (PrivateKey) key;
+
+            LOGGER.warn("entry has no private key: {}", alias);
+        } catch (GeneralSecurityException e) {
+            LOGGER.warn("private key can't be recovered: " + alias, e);
+        }
+
+        return null;
+    }
+
+    private String chooseAlias(String keyType, Principal[] issuers) {
+        if (keyType == null)
+            return null;
+
+        String[] aliases = getAliases(keyType);
+
+        if (issuers == null || issuers.length == 0)
+            return aliases.length > 0 ? aliases[0] : null;
+
+        Set<Principal> acceptedIssuers = new HashSet<Principal>(Arrays.asList(issuers));
+
+        for (String alias : aliases)
+            if (isIssuedBy(chains.get(alias), acceptedIssuers))
+                return alias;
+
+        return null;
+    }
+
+    private String[] getAliases(String keyType, Principal[] issuers) {
+        if (keyType == null)
+            return null;
+
+        String[] aliases = getAliases(keyType);
+
+        if (issuers == null || issuers.length == 0)
+            return aliases.length > 0 ? aliases.clone() : null;
+
+        Set<Principal> acceptedIssuers = new HashSet<Principal>(Arrays.asList(issuers));
+        List<String> issuedAliases = new ArrayList<String>();
+
+        for (String alias : aliases)
+            if (isIssuedBy(chains.get(alias), acceptedIssuers))
+                issuedAliases.add(alias);
+
+        return issuedAliases.isEmpty() ? null : issuedAliases.toArray(new String[issuedAliases.size()]);
+    }
+
+    /**
+     * Returns the aliases of the chains matching the key type, in the order of the key store. The aliases are
+     * determined once per key type, since the key store isn't modified.
+     */
+    private String[] getAliases(String keyType) {
+        String[] aliases = aliasesByKeyType.get(keyType);
+
+        if (aliases != null)
+            return aliases;
+
+        List<String> matching = new ArrayList<String>();
+
+        for (Map.Entry<String, X509Certificate[]> entry : chains.entrySet())
+            if (matches(entry.getValue(), keyType))
+                matching.add(entry.getKey());
+
+        aliases = matching.isEmpty() ? NO_ALIASES : matching.toArray(new String[matching.size()]);
+        String[] previous = aliasesByKeyType.putIfAbsent(keyType, aliases);
+
+        return previous != null ? previous : aliases;
+    }
+
+    /**
+     * Checks whether the chain matches the key type (e.g. RSA, EC or EC_RSA, an EC key signed with RSA).
+     */
+    static boolean matches(X509Certificate[] chain, String keyType) {
+        int separator = keyType.indexOf('_');
+        String keyAlgorithm = separator > 0 ? keyType.substring(0, separator) : keyType;
+
+        if (!keyAlgorithm.equals(chain[0].getPublicKey().getAlgorithm()))
+            return false;
+
+        if (separator <= 0)
+            return true;
+
+        String signatureAlgorithm = chain[0].getSigAlgName().toUpperCase(Locale.ENGLISH);
+
+        return signatureAlgorithm.contains("WITH" + keyType.substring(separator + 1).toUpperCase(Locale.ENGLISH));
+    }
+
+    private static boolean isIssuedBy(X509Certificate[] chain, Set<Principal> issuers) {
+        for (X509Certificate certificate : chain)
+            if (issuers.contains(certificate.getIssuerX500Principal()))
+                return true;
+
+        return false;
+    }
+
+    private static Map<String, X509Certificate[]> createIndex(KeyStore keyStore) throws KeyStoreException {
+        Map<String, X509Certificate[]> chains = new LinkedHashMap<String, X509Certificate[]>();
+        Enumeration<String> aliases = keyStore.aliases();
+
+        while (aliases.hasMoreElements()) {
+            String alias = aliases.nextElement();
+            Certificate[] chain = keyStore.isKeyEntry(alias) ? keyStore.getCertificateChain(alias) : null;
+
+            if (chain == null || chain.length == 0 || !(chain[0] instanceof X509Certificate))
+                continue;
+
+            X509Certificate[] x509Chain = new X509Certificate[chain.length];
+
+            for (int i = 0; i < chain.length; i++)
+                x509Chain[i] = (X509Certificate) chain[i];
+
+            chains.put(alias, x509Chain);
+        }
+
+        return chains;
+    }
+
+    /**
+     * Access ordered map, which evicts the least recently used entry when the maximum size is exceeded.
+     */
+    private static final class LruMap extends LinkedHashMap<String, PrivateKey> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maximumSize;
+        private final AtomicLong evictionCount;
+
+        LruMap(int maximumSize, AtomicLong evictionCount) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+            this.evictionCount = evictionCount;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PrivateKey> eldest) {
+            if (size() <= maximumSize)
+                return false;
+
+            evictionCount.incrementAndGet();
+            return true;
+        }
+    }
+}
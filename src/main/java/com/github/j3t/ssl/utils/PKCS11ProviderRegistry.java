@@ -0,0 +1,211 @@
+package com.github.j3t.ssl.utils;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.security.Provider;
+import java.security.Security;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A registry of PKCS #11 providers. The registry is used by the {@link KeyStoreBuilder} (see
+ * {@link KeyStoreBuilder#setLibraryPath(String)}) to create and register (see {@link Security#addProvider(Provider)})
+ * one provider per library and slot, instead of one provider per key store. The acquisitions of a provider are
+ * counted, each acquisition must be released (see {@link #release(String, Integer)}) and the provider stays registered
+ * until the last acquisition is released.<br>
+ * <br>
+ * The registry is thread-safe.
+ *
+ * @author j3t
+ */
+public class PKCS11ProviderRegistry {
+    private static final PKCS11ProviderRegistry DEFAULT = new PKCS11ProviderRegistry(new SunPKCS11ProviderFactory());
+
+    private final ProviderFactory factory;
+    private final Map<Key, Entry> providers = new HashMap<Key, Entry>();
+
+    /**
+     * Creates an instance of {@link PKCS11ProviderRegistry}.
+     *
+     * @param factory the {@link ProviderFactory} used to create the providers
+     * @throws IllegalArgumentException if factory is <code>null</code>
+     */
+    public PKCS11ProviderRegistry(ProviderFactory factory) {
+        if (factory == null)
+            throw new IllegalArgumentException("factory must not be null!");
+
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the registry used by all {@link KeyStoreBuilder}s without an own registry. The providers of the default
+     * registry are instances of <code>sun.security.pkcs11.SunPKCS11</code>.
+     *
+     * @return {@link PKCS11ProviderRegistry}
+     */
+    public static PKCS11ProviderRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the provider for the given library and slot. The provider will be created and registered, if the registry
+     * doesn't contain a provider for the library and slot already. Each invocation increments the reference count of
+     * the provider.
+     *
+     * @param libraryPath the path to the PKCS11-library (e.g. /usr/lib/smartcard-reader.lib)
+     * @param slot        the slot id or <code>null</code> (first slot with a token)
+     * @return {@link Provider}
+     * @throws IllegalArgumentException if libraryPath is <code>null</code>
+     * @throws IOException              if the canonical path of the library can't be resolved or the provider can't be
+     *                                  created
+     */
+    public synchronized Provider acquire(String libraryPath, Integer slot) throws IOException {
+        Key key = createKey(libraryPath, slot);
+        Entry entry = providers.get(key);
+
+        if (entry != null) {
+            entry.references++;
+            return entry.provider;
+        }
+
+        Provider provider = factory.create(createConfiguration(UUID.randomUUID().toString(), libraryPath, slot));
+
+        if (Security.addProvider(provider) == -1)
+            throw new IllegalStateException("provider '" + provider.getName() + "' is already registered!");
+
+        providers.put(key, new Entry(provider));
+
+        return provider;
+    }
+
+    /**
+     * Decrements the reference count of the provider for the given library and slot. The provider is removed from the
+     * registry and from the security provider list when the last reference is released. Key stores created with the
+     * provider should not be used anymore afterwards.
+     *
+     * @param libraryPath the path to the PKCS11-library
+     * @param slot        the slot id or <code>null</code>
+     * @return <code>true</code> if a reference was released, otherwise <code>false</code>
+     * @throws IllegalArgumentException if libraryPath is <code>null</code>
+     * @throws IOException              if the canonical path of the library can't be resolved
+     */
+    public synchronized boolean release(String libraryPath, Integer slot) throws IOException {
+        Key key = createKey(libraryPath, slot);
+        Entry entry = providers.get(key);
+
+        if (entry == null)
+            return false;
+
+        if (--entry.references == 0) {
+            providers.remove(key);
+            Security.removeProvider(entry.provider.getName());
+        }
+
+        return true;
+    }
+
+    /**
+     * Releases all providers of the registry regardless of their reference counts (see
+     * {@link #release(String, Integer)}).
+     */
+    public synchronized void releaseAll() {
+        for (Entry entry : providers.values())
+            Security.removeProvider(entry.provider.getName());
+
+        providers.clear();
+    }
+
+    /**
+     * Returns the number of providers created and not yet released.
+     *
+     * @return the number of live providers
+     */
+    public synchronized int getLiveCount() {
+        return providers.size();
+    }
+
+    private static Key createKey(String libraryPath, Integer slot) throws IOException {
+        if (libraryPath == null)
+            throw new IllegalArgumentException("libraryPath must not be null!");
+
+        return new Key(new File(libraryPath).getCanonicalPath(), slot);
+    }
+
+    /**
+     * Creates the configuration of a SunPKCS11 provider.
+     *
+     * @param name        the name suffix of the provider
+     * @param libraryPath the path to the PKCS11-library
+     * @param slot        the slot id or <code>null</code>
+     * @return the configuration
+     */
+    static String createConfiguration(String name, String libraryPath, Integer slot) {
+        String configuration = String.format("name = %s\nlibrary=%s\n", name, libraryPath);
+
+        if (slot != null)
+            configuration += String.format("slot = %d\n", slot);
+
+        return configuration;
+    }
+
+    /**
+     * Creates the providers of a {@link PKCS11ProviderRegistry}.
+     */
+    public interface ProviderFactory {
+        /**
+         * Creates a provider with the given configuration.
+         *
+         * @param configuration the configuration in the format of the SunPKCS11 provider (e.g. name, library and slot)
+         * @return {@link Provider}
+         * @throws IOException if the provider can't be created
+         */
+        Provider create(String configuration) throws IOException;
+    }
+
+    private static class SunPKCS11ProviderFactory implements ProviderFactory {
+        @Override
+        public Provider create(String configuration) {
+            return new sun.security.pkcs11.SunPKCS11(new ByteArrayInputStream(configuration.getBytes()));
+        }
+    }
+
+    private static final class Entry {
+        private final Provider provider;
+        private int references = 1;
+
+        Entry(Provider provider) {
+            this.provider = provider;
+        }
+    }
+
+    private static final class Key {
+        private final String libraryPath;
+        private final Integer slot;
+
+        Key(String libraryPath, Integer slot) {
+            this.libraryPath = libraryPath;
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+
+            if (!(o instanceof Key))
+                return false;
+
+            Key key = (Key) o;
+
+            return libraryPath.equals(key.libraryPath) && (slot != null ? slot.equals(key.slot) : key.slot == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * libraryPath.hashCode() + (slot != null ? slot.hashCode() : 0);
+        }
+    }
+}
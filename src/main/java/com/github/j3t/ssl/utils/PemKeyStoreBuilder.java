@@ -0,0 +1,371 @@
+package com.github.j3t.ssl.utils;
+
+
+import com.github.j3t.ssl.utils.types.KeyStoreType;
+
+import javax.crypto.Cipher;
+import javax.crypto.EncryptedPrivateKeyInfo;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builder-pattern style factory to create an in-memory {@link KeyStore} with private key entries, while the keys and
+ * their certificate chains are provided by PEM files. This is an alternative to the conversion of PEM files into a
+ * PKCS #12 key store, which has to be decrypted at every start.<br>
+ * <br>
+ * The private keys must be PKCS #8 blocks (<code>PRIVATE KEY</code> or <code>ENCRYPTED PRIVATE KEY</code>). Encrypted
+ * keys are decrypted with the password of the builder. The keys are decoded (and decrypted) once, they are kept by the
+ * builder and reused by later builds as long as the file isn't modified. The chain starts with the certificate of the
+ * key, followed by the issuer certificates. A RSA, EC or DSA key must match the public key of this certificate.<br>
+ * <br>
+ * Keys encrypted with PBES2 (e.g. by OpenSSL 1.1 or higher) require Java 8 or higher, older runtimes can only decrypt
+ * keys encrypted with PBES1 (e.g. PBEWithSHA1AndDESede).<br>
+ * <br>
+ * The entries of the key store are protected by the password of the builder (an empty password, if there is no
+ * password), which must also be passed to {@link SSLContextBuilder#setKeyStorePassword(char[])}.
+ *
+ * @author j3t
+ */
+public class PemKeyStoreBuilder {
+    private static final String PRIVATE_KEY = "PRIVATE KEY";
+    private static final String ENCRYPTED_PRIVATE_KEY = "ENCRYPTED PRIVATE KEY";
+    private static final byte[] PROBE = {'s', 's', 'l', '-', 'u', 't', 'i', 'l', 's'};
+
+    /**
+     * Creates a new {@link PemKeyStoreBuilder} instance.
+     *
+     * @return {@link PemKeyStoreBuilder}
+     */
+    public static PemKeyStoreBuilder create() {
+        return new PemKeyStoreBuilder();
+    }
+
+    private final List<Entry> entries;
+    private final Map<String, KeyFile> keys;
+    private String type;
+    private char[] password;
+
+    protected PemKeyStoreBuilder() {
+        entries = new ArrayList<Entry>();
+        keys = new HashMap<String, KeyFile>();
+        type = KeyStoreType.JKS;
+        password = null;
+    }
+
+    /**
+     * Add a private key entry, while the key and the chain are provided by one file.
+     *
+     * @param alias the alias of the entry
+     * @param path  the path of the file with the private key and the certificate chain
+     * @return {@link PemKeyStoreBuilder}
+     * @throws IllegalArgumentException if alias or path is <code>null</code>
+     */
+    public PemKeyStoreBuilder addKeyEntry(String alias, String path) {
+        return addKeyEntry(alias, path, path);
+    }
+
+    /**
+     * Add a private key entry.
+     *
+     * @param alias     the alias of the entry
+     * @param keyPath   the path of the file with the private key
+     * @param chainPath the path of the file with the certificate chain
+     * @return {@link PemKeyStoreBuilder}
+     * @throws IllegalArgumentException if alias, keyPath or chainPath is <code>null</code>
+     */
+    public PemKeyStoreBuilder addKeyEntry(String alias, String keyPath, String chainPath) {
+        if (alias == null)
+            throw new IllegalArgumentException("alias must not be null!");
+
+        if (keyPath == null)
+            throw new IllegalArgumentException("keyPath must not be null!");
+
+        if (chainPath == null)
+            throw new IllegalArgumentException("chainPath must not be null!");
+
+        entries.add(new Entry(alias, keyPath, chainPath));
+        return this;
+    }
+
+    /**
+     * Set the type of the key store. Default is {@link KeyStoreType#JKS}, because a PKCS #12 key store encrypts each
+     * key entry with a slow password-based cipher.
+     *
+     * @param type the key store type (see {@link KeyStoreType})
+     * @return {@link PemKeyStoreBuilder}
+     */
+    public PemKeyStoreBuilder setType(String type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * Set the password used to decrypt encrypted private keys and to protect the entries of the key store. Default is
+     * <code>null</code> (no encrypted keys, entries protected by an empty password).
+     *
+     * @param password the password or <code>null</code>
+     * @return {@link PemKeyStoreBuilder}
+     */
+    public PemKeyStoreBuilder setPassword(char[] password) {
+        this.password = password;
+        keys.clear();
+        return this;
+    }
+
+    /**
+     * Set the password used to decrypt encrypted private keys and to protect the entries of the key store. Default is
+     * <code>null</code> (no encrypted keys, entries protected by an empty password).
+     *
+     * @param password the password or <code>null</code>
+     * @return {@link PemKeyStoreBuilder}
+     */
+    public PemKeyStoreBuilder setPassword(String password) {
+        return setPassword(password != null ? password.toCharArray() : null);
+    }
+
+    /**
+     * Build the {@link KeyStore}.
+     *
+     * @return {@link KeyStore}
+     * @throws KeyStoreException         if a KeyStoreSpi implementation for the specified type is not available or a
+     *                                   private key doesn't match the certificate of its entry
+     * @throws IOException               if a file can't be read or doesn't contain a PKCS #8 key or a certificate
+     * @throws CertificateException      if a certificate can't be decoded
+     * @throws UnrecoverableKeyException if an encrypted key can't be decrypted (e.g. the password is wrong or PBES2 is
+     *                                   used before Java 8)
+     * @throws GeneralSecurityException  if a key can't be decoded
+     */
+    public KeyStore build() throws GeneralSecurityException, IOException {
+        KeyStore keyStore = KeyStore.getInstance(type);
+        keyStore.load(null, null);
+
+        CertificateFactory factory = CertificateFactory.getInstance("X.509");
+        char[] entryPassword = password != null ? password : new char[0];
+
+        for (Entry entry : entries) {
+            List<byte[]> certificates = new ArrayList<byte[]>();
+            KeyBlock key = read(entry.keyPath, entry.keyPath.equals(entry.chainPath) ? certificates : null);
+
+            if (!entry.keyPath.equals(entry.chainPath))
+                read(entry.chainPath, certificates);
+
+            if (certificates.isEmpty())
+                throw new IOException("no certificate found: " + entry.chainPath);
+
+            Certificate[] chain = new Certificate[certificates.size()];
+
+            for (int i = 0; i < chain.length; i++)
+                chain[i] = factory.generateCertificate(new ByteArrayInputStream(certificates.get(i)));
+
+            keyStore.setKeyEntry(entry.alias, getKey(entry, key, chain[0]), entryPassword, chain);
+        }
+
+        return keyStore;
+    }
+
+    /**
+     * Build the {@link KeyStore} without catching exceptions.
+     *
+     * @return {@link KeyStore}
+     * @throws IllegalStateException if the build failed
+     * @see #build()
+     */
+    public KeyStore buildUnsecure() throws IllegalStateException {
+        try {
+            return build();
+        } catch (Exception e) {
+            throw new IllegalStateException("build failed!", e);
+        }
+    }
+
+    /**
+     * Reads the given file and adds its certificates to the given list, if the list isn't <code>null</code>.
+     *
+     * @return the first private key block or <code>null</code> if there is no private key
+     */
+    private static KeyBlock read(String path, List<byte[]> certificates) throws IOException {
+        InputStream in = new FileInputStream(path);
+
+        try {
+            PemReader reader = new PemReader(in);
+            KeyBlock key = null;
+
+            for (byte[] block = reader.read(null); block != null; block = reader.read(null)) {
+                String label = reader.getLabel();
+
+                if (PemReader.CERTIFICATE.equals(label)) {
+                    if (certificates != null)
+                        certificates.add(block);
+                } else if (PRIVATE_KEY.equals(label) || ENCRYPTED_PRIVATE_KEY.equals(label)) {
+                    if (key == null)
+                        key = new KeyBlock(block, ENCRYPTED_PRIVATE_KEY.equals(label));
+                } else if (label.endsWith(PRIVATE_KEY)) {
+                    throw new IOException(label + " isn't supported, the key must be converted to PKCS #8: " + path);
+                }
+            }
+
+            return key;
+        } finally {
+            in.close();
+        }
+    }
+
+    private PrivateKey getKey(Entry entry, KeyBlock block, Certificate certificate)
+            throws GeneralSecurityException, IOException {
+        String path = entry.keyPath;
+
+        if (block == null)
+            throw new IOException("no private key found: " + path);
+
+        File file = new File(path);
+        String canonicalPath = file.getCanonicalPath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        KeyFile keyFile = keys.get(canonicalPath);
+
+        // the previous key of a modified file is replaced
+        if (keyFile == null || keyFile.lastModified != lastModified || keyFile.length != length) {
+            PKCS8EncodedKeySpec spec = block.encrypted
+                    ? decrypt(path, block.encoded)
+                    : new PKCS8EncodedKeySpec(block.encoded);
+            PrivateKey key = KeyFactory.getInstance(certificate.getPublicKey().getAlgorithm()).generatePrivate(spec);
+            keyFile = new KeyFile(lastModified, length, key);
+            keys.put(canonicalPath, keyFile);
+        }
+
+        Arrays.fill(block.encoded, (byte) 0);
+
+        // the chain can be replaced without the key, so the pair is verified again if the certificate changed
+        PublicKey publicKey = certificate.getPublicKey();
+
+        if (!publicKey.equals(keyFile.verifiedPublicKey)) {
+            if (!matches(keyFile.key, publicKey))
+                throw new KeyStoreException("the private key doesn't match the certificate of entry '" + entry.alias
+                        + "': " + path);
+
+            keyFile.verifiedPublicKey = publicKey;
+        }
+
+        return keyFile.key;
+    }
+
+    /**
+     * Checks that the private key belongs to the public key by signing a probe with the private key and verifying the
+     * signature with the public key. Keys of other algorithms than RSA, EC and DSA are not checked.
+     *
+     * @return <code>true</code> if the keys belong together or the algorithm is unknown, otherwise <code>false</code>
+     */
+    private static boolean matches(PrivateKey privateKey, PublicKey publicKey) throws GeneralSecurityException {
+        String algorithm = privateKey.getAlgorithm();
+
+        if ("RSA".equals(algorithm))
+            algorithm = "SHA256withRSA";
+        else if ("EC".equals(algorithm))
+            algorithm = "SHA256withECDSA";
+        else if ("DSA".equals(algorithm))
+            algorithm = "SHA1withDSA";
+        else
+            return true;
+
+        Signature signature = Signature.getInstance(algorithm);
+        signature.initSign(privateKey);
+        signature.update(PROBE);
+        byte[] signed = signature.sign();
+
+        signature.initVerify(publicKey);
+        signature.update(PROBE);
+
+        return signature.verify(signed);
+    }
+
+    private PKCS8EncodedKeySpec decrypt(String path, byte[] encoded) throws GeneralSecurityException, IOException {
+        if (password == null)
+            throw new UnrecoverableKeyException("key is encrypted, but there is no password: " + path);
+
+        EncryptedPrivateKeyInfo info = new EncryptedPrivateKeyInfo(encoded);
+        String algorithm = info.getAlgName();
+
+        // the cipher of PBES2 (e.g. PBEWithHmacSHA256AndAES_256) is defined by the parameters, which can only be
+        // decoded since Java 8
+        if ("PBES2".equals(algorithm) || "1.2.840.113549.1.5.13".equals(algorithm)) {
+            if (!EnvironmentHelper.isJava8OrHigher() || info.getAlgParameters() == null)
+                throw new UnrecoverableKeyException("key is encrypted with PBES2, which requires Java 8 or higher: "
+                        + path);
+
+            algorithm = info.getAlgParameters().toString();
+        }
+
+        PBEKeySpec keySpec = new PBEKeySpec(password);
+
+        try {
+            Cipher cipher = Cipher.getInstance(algorithm);
+            cipher.init(Cipher.DECRYPT_MODE, SecretKeyFactory.getInstance(algorithm).generateSecret(keySpec),
+                    info.getAlgParameters());
+
+            return info.getKeySpec(cipher);
+        } catch (GeneralSecurityException e) {
+            UnrecoverableKeyException exception = new UnrecoverableKeyException("key can't be decrypted: " + path);
+            exception.initCause(e);
+            throw exception;
+        } finally {
+            keySpec.clearPassword();
+        }
+    }
+
+    private static final class KeyFile {
+        private final long lastModified;
+        private final long length;
+        private final PrivateKey key;
+        private PublicKey verifiedPublicKey;
+
+        KeyFile(long lastModified, long length, PrivateKey key) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.key = key;
+        }
+    }
+
+    private static class KeyBlock {
+        private final byte[] encoded;
+        private final boolean encrypted;
+
+        KeyBlock(byte[] encoded, boolean encrypted) {
+            this.encoded = encoded;
+            this.encrypted = encrypted;
+        }
+    }
+
+    private static class Entry {
+        private final String alias;
+        private final String keyPath;
+        private final String chainPath;
+
+        Entry(String alias, String keyPath, String chainPath) {
+            this.alias = alias;
+            this.keyPath = keyPath;
+            this.chainPath = chainPath;
+        }
+    }
+}
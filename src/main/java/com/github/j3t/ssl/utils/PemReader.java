@@ -0,0 +1,265 @@
+package com.github.j3t.ssl.utils;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads the blocks (e.g. <code>-----BEGIN CERTIFICATE-----</code> to <code>-----END CERTIFICATE-----</code>) of a PEM
+ * stream line by line and decodes their Base64 content. Only the current line and the decoded bytes of the current
+ * block are kept in memory, lines outside of a block (e.g. comments) and blocks with other labels are skipped without
+ * decoding them.
+ *
+ * @author j3t
+ */
+class PemReader {
+    /**
+     * The label of certificate blocks.
+     */
+    static final String CERTIFICATE = "CERTIFICATE";
+
+    private static final byte[] BEGIN = "-----BEGIN ".getBytes();
+    private static final byte[] DASHES = "-----".getBytes();
+    private static final int[] DECODING = new int[128];
+
+    static {
+        Arrays.fill(DECODING, -1);
+
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+        for (int i = 0; i < alphabet.length(); i++)
+            DECODING[alphabet.charAt(i)] = i;
+    }
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private int limit;
+
+    private byte[] line = new byte[128];
+    private int lineStart;
+    private int lineEnd;
+
+    private String label;
+
+    /**
+     * Creates an instance of {@link PemReader}.
+     *
+     * @param in the {@link InputStream}, which is not closed by the reader
+     */
+    PemReader(InputStream in) {
+        if (in == null)
+            throw new IllegalArgumentException("in must not be null!");
+
+        this.in = in;
+    }
+
+    /**
+     * Returns the next certificate, the Base64 content of the block is decoded while it is read.
+     *
+     * @return the DER encoded certificate, which can be passed to
+     * {@link java.security.cert.CertificateFactory#generateCertificate(InputStream)}, or <code>null</code> if there are
+     * no more blocks
+     * @throws IOException if the stream can't be read, ends within a block or the content isn't Base64 encoded
+     */
+    byte[] readCertificate() throws IOException {
+        return read(CERTIFICATE);
+    }
+
+    /**
+     * Returns the content of the next block with the given label (e.g. PRIVATE KEY), blocks with other labels are
+     * skipped.
+     *
+     * @param label the label or <code>null</code> (any block)
+     * @return the decoded content of the block or <code>null</code> if there are no more blocks
+     * @throws IOException if the stream can't be read, ends within a block or the content isn't Base64 encoded
+     * @see #getLabel()
+     */
+    byte[] read(String label) throws IOException {
+        while (readLine())
+            if (isBoundary(BEGIN)) {
+                String found = new String(line, lineStart + BEGIN.length,
+                        lineEnd - lineStart - BEGIN.length - DASHES.length, "US-ASCII");
+                byte[] end = ("-----END " + found + "-----").getBytes("US-ASCII");
+
+                if (label == null || label.equals(found)) {
+                    this.label = found;
+                    return readBlock(end);
+                }
+
+                skipBlock(end);
+            }
+
+        this.label = null;
+        return null;
+    }
+
+    /**
+     * Returns the label of the block returned by the last read.
+     *
+     * @return the label (e.g. CERTIFICATE) or <code>null</code> if there are no more blocks
+     */
+    String getLabel() {
+        return label;
+    }
+
+    private void skipBlock(byte[] end) throws IOException {
+        while (readLine())
+            if (isLine(end))
+                return;
+
+        throw new IOException("block is not terminated!");
+    }
+
+    private byte[] readBlock(byte[] end) throws IOException {
+        byte[] der = new byte[2048];
+        int size = 0;
+        int bits = 0;
+        int count = 0;
+        boolean padded = false;
+
+        while (readLine()) {
+            if (isLine(end)) {
+                if (count == 1)
+                    throw new IOException("block is truncated!");
+
+                return Arrays.copyOf(der, size);
+            }
+
+            // headers like Proc-Type aren't used for certificates, but are allowed by RFC 1421
+            if (indexOf(':') != -1)
+                continue;
+
+            // a line decodes to at most 3/4 of its length
+            if (size + lineEnd - lineStart > der.length)
+                der = Arrays.copyOf(der, Math.max(der.length * 2, size + lineEnd - lineStart));
+
+            byte[] chars = line;
+
+            for (int i = lineStart; i < lineEnd; i++) {
+                byte b = chars[i];
+
+                if (b == '=') {
+                    padded = true;
+                    continue;
+                }
+
+                int value = b >= 0 ? DECODING[b] : -1;
+
+                if (value == -1 || padded)
+                    throw new IOException("block isn't Base64 encoded!");
+
+                // count is the number of buffered characters, 4 characters are decoded to 3 bytes
+                bits = bits << 6 | value;
+
+                if (count == 0) {
+                    count = 1;
+                } else if (count == 1) {
+                    der[size++] = (byte) (bits >> 4);
+                    bits &= 0x0F;
+                    count = 2;
+                } else if (count == 2) {
+                    der[size++] = (byte) (bits >> 2);
+                    bits &= 0x03;
+                    count = 3;
+                } else {
+                    der[size++] = (byte) bits;
+                    bits = 0;
+                    count = 0;
+                }
+            }
+        }
+
+        throw new IOException("block is not terminated!");
+    }
+
+    private int indexOf(char c) {
+        for (int i = lineStart; i < lineEnd; i++)
+            if (line[i] == c)
+                return i;
+
+        return -1;
+    }
+
+    private boolean isBoundary(byte[] prefix) {
+        int length = lineEnd - lineStart;
+
+        if (length <= prefix.length + DASHES.length)
+            return false;
+
+        for (int i = 0; i < prefix.length; i++)
+            if (line[lineStart + i] != prefix[i])
+                return false;
+
+        for (int i = 0; i < DASHES.length; i++)
+            if (line[lineEnd - DASHES.length + i] != DASHES[i])
+                return false;
+
+        return true;
+    }
+
+    private boolean isLine(byte[] marker) {
+        if (lineEnd - lineStart != marker.length)
+            return false;
+
+        for (int i = 0; i < marker.length; i++)
+            if (line[lineStart + i] != marker[i])
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Reads the next line into the line buffer, without the line break and surrounding whitespaces.
+     */
+    private boolean readLine() throws IOException {
+        int length = 0;
+        boolean read = false;
+
+        while (true) {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+
+                if (limit <= 0) {
+                    limit = 0;
+                    break;
+                }
+            }
+
+            read = true;
+            int end = position;
+
+            while (end < limit && buffer[end] != '\n')
+                end++;
+
+            if (length + end - position > line.length)
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + end - position));
+
+            System.arraycopy(buffer, position, line, length, end - position);
+            length += end - position;
+            position = end;
+
+            if (position < limit) {
+                position++;
+                break;
+            }
+        }
+
+        lineStart = 0;
+        lineEnd = length;
+
+        while (lineStart < lineEnd && isWhitespace(line[lineStart]))
+            lineStart++;
+
+        while (lineEnd > lineStart && isWhitespace(line[lineEnd - 1]))
+            lineEnd--;
+
+        return read;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
@@ -0,0 +1,285 @@
+package com.github.j3t.ssl.utils;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Builder-pattern style factory to create an in-memory trust store from PEM files, e.g. a bundle like
+ * <code>/etc/ssl/certs/ca-certificates.crt</code> or a hashed directory like <code>/etc/ssl/certs</code>. The files
+ * are scanned line by line and the certificates are decoded in batches by worker threads, each with its own
+ * {@link CertificateFactory}, so the decoding of large bundles is spread over the available processors.<br>
+ * <br>
+ * The alias of a certificate is the name of the file without extension (e.g. ca-certificates), further certificates of
+ * the same file get a suffix (e.g. ca-certificates-1). Duplicate certificates are skipped, symbolic links within a
+ * directory resolve to the alias of the target file.
+ *
+ * @author j3t
+ */
+public class PemTrustStoreBuilder {
+    private static final int BATCH_SIZE = 16;
+
+    /**
+     * Creates a new {@link PemTrustStoreBuilder} instance.
+     *
+     * @return {@link PemTrustStoreBuilder}
+     */
+    public static PemTrustStoreBuilder create() {
+        return new PemTrustStoreBuilder();
+    }
+
+    private final List<File> files;
+    private String type;
+    private ExecutorService executor;
+
+    protected PemTrustStoreBuilder() {
+        files = new ArrayList<File>();
+        type = KeyStore.getDefaultType();
+        executor = null;
+    }
+
+    /**
+     * Add a PEM file, which may contain any number of certificates.
+     *
+     * @param path the path of the file
+     * @return {@link PemTrustStoreBuilder}
+     * @throws IllegalArgumentException if path is <code>null</code>
+     */
+    public PemTrustStoreBuilder addFile(String path) {
+        if (path == null)
+            throw new IllegalArgumentException("path must not be null!");
+
+        files.add(new File(path));
+        return this;
+    }
+
+    /**
+     * Add all files of a directory (not recursive). The files are read in the order of their names.
+     *
+     * @param path the path of the directory
+     * @return {@link PemTrustStoreBuilder}
+     * @throws IllegalArgumentException if path is <code>null</code> or not a directory
+     */
+    public PemTrustStoreBuilder addDirectory(String path) {
+        if (path == null)
+            throw new IllegalArgumentException("path must not be null!");
+
+        File[] children = new File(path).listFiles();
+
+        if (children == null)
+            throw new IllegalArgumentException("path must be a readable directory!");
+
+        Arrays.sort(children);
+
+        for (File child : children)
+            if (child.isFile())
+                files.add(child);
+
+        return this;
+    }
+
+    /**
+     * Set the type of the trust store. Default is the default type (see {@link KeyStore#getDefaultType()}).
+     *
+     * @param type the key store type (see {@link com.github.j3t.ssl.utils.types.KeyStoreType})
+     * @return {@link PemTrustStoreBuilder}
+     */
+    public PemTrustStoreBuilder setType(String type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * Set the executor used to decode the certificates. Default is <code>null</code>, a thread pool with one thread
+     * per available processor is created and shut down for each build.
+     *
+     * @param executor the {@link ExecutorService} or <code>null</code>
+     * @return {@link PemTrustStoreBuilder}
+     */
+    public PemTrustStoreBuilder setExecutor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Build the trust store.
+     *
+     * @return {@link KeyStore}
+     * @throws GeneralSecurityException if a KeyStoreSpi implementation for the specified type is not available
+     *                                  ({@link KeyStoreException}) or a certificate can't be decoded
+     *                                  ({@link CertificateException})
+     * @throws IOException              if a file can't be read or a certificate block is not terminated
+     * @throws InterruptedException     if the current thread was interrupted while waiting
+     */
+    public KeyStore build() throws GeneralSecurityException, IOException, InterruptedException {
+        // with one processor a hand-over per batch costs more than it saves, so the blocks are decoded inline
+        ExecutorService executorService = executor != null || Runtime.getRuntime().availableProcessors() == 1
+                ? executor
+                : KeyStoreMergeBuilder.createExecutor(Integer.MAX_VALUE, "ssl-utils-pem-");
+
+        ThreadLocal<CertificateFactory> factories = new ThreadLocal<CertificateFactory>();
+        List<Future<List<Decoded>>> futures = new ArrayList<Future<List<Decoded>>>();
+        List<String> aliases = new ArrayList<String>();
+
+        try {
+            Set<String> paths = new HashSet<String>();
+            List<byte[]> batch = new ArrayList<byte[]>(BATCH_SIZE);
+
+            for (File file : files) {
+                File target = file.getCanonicalFile();
+
+                if (!paths.add(target.getPath()))
+                    continue;
+
+                InputStream in = new FileInputStream(target);
+
+                try {
+                    PemReader reader = new PemReader(in);
+                    String alias = getAlias(target);
+
+                    for (byte[] block = reader.readCertificate(); block != null; block = reader.readCertificate()) {
+                        batch.add(block);
+                        aliases.add(alias);
+
+                        if (batch.size() == BATCH_SIZE) {
+                            futures.add(submit(executorService, createDecoder(factories, batch)));
+                            batch = new ArrayList<byte[]>(BATCH_SIZE);
+                        }
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+
+            if (!batch.isEmpty())
+                futures.add(submit(executorService, createDecoder(factories, batch)));
+
+            return createKeyStore(futures, aliases);
+        } finally {
+            if (executor == null && executorService != null)
+                executorService.shutdownNow();
+            else
+                for (Future<List<Decoded>> future : futures)
+                    future.cancel(true);
+        }
+    }
+
+    private KeyStore createKeyStore(List<Future<List<Decoded>>> futures, List<String> aliases)
+            throws GeneralSecurityException, IOException, InterruptedException {
+        KeyStore keyStore = KeyStore.getInstance(type);
+        keyStore.load(null, null);
+
+        Set<String> fingerprints = new HashSet<String>();
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        int index = 0;
+
+        for (Future<List<Decoded>> future : futures)
+            for (Decoded decoded : get(future)) {
+                String alias = aliases.get(index++);
+                Integer count = counts.get(alias);
+
+                // the suffix is counted per file, otherwise each alias of a large bundle would be probed from -1 on
+                if (KeyStoreMergeBuilder.addCertificate(keyStore, count == null ? alias : alias + "-" + count,
+                        decoded.certificate, decoded.fingerprint, fingerprints))
+                    counts.put(alias, count == null ? 1 : count + 1);
+            }
+
+        return keyStore;
+    }
+
+    /**
+     * Build the trust store without catching exceptions.
+     *
+     * @return {@link KeyStore}
+     * @throws IllegalStateException if the build failed
+     * @see #build()
+     */
+    public KeyStore buildUnsecure() throws IllegalStateException {
+        try {
+            return build();
+        } catch (Exception e) {
+            throw new IllegalStateException("build failed!", e);
+        }
+    }
+
+    private static <T> Future<T> submit(ExecutorService executorService, Callable<T> task) {
+        if (executorService != null)
+            return executorService.submit(task);
+
+        FutureTask<T> future = new FutureTask<T>(task);
+        future.run();
+
+        return future;
+    }
+
+    private static Callable<List<Decoded>> createDecoder(final ThreadLocal<CertificateFactory> factories,
+                                                         final List<byte[]> blocks) {
+        return new Callable<List<Decoded>>() {
+            @Override
+            public List<Decoded> call() throws CertificateException {
+                CertificateFactory factory = factories.get();
+
+                if (factory == null) {
+                    factory = CertificateFactory.getInstance("X.509");
+                    factories.set(factory);
+                }
+
+                List<Decoded> certificates = new ArrayList<Decoded>(blocks.size());
+
+                for (byte[] block : blocks)
+                    certificates.add(new Decoded(factory.generateCertificate(new ByteArrayInputStream(block))));
+
+                return certificates;
+            }
+        };
+    }
+
+    private static List<Decoded> get(Future<List<Decoded>> future) throws GeneralSecurityException,
+            IOException, InterruptedException {
+        try {
+            return KeyStoreMergeBuilder.get(future);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String getAlias(File file) {
+        String name = file.getName();
+        int index = name.lastIndexOf('.');
+
+        return index > 0 ? name.substring(0, index) : name;
+    }
+
+    /**
+     * A decoded certificate and its fingerprint, which is computed by the worker too.
+     */
+    private static class Decoded {
+        private final Certificate certificate;
+        private final String fingerprint;
+
+        Decoded(Certificate certificate) {
+            this.certificate = certificate;
+            this.fingerprint = KeyStoreMergeBuilder.getFingerprint(certificate);
+        }
+    }
+}
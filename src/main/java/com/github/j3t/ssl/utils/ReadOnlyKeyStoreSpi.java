@@ -0,0 +1,197 @@
+package com.github.j3t.ssl.utils;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.*;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.util.Date;
+import java.util.Enumeration;
+
+/**
+ * Implementation of {@link KeyStoreSpi} that provides a read-only view of a loaded {@link KeyStore}. Read operations
+ * are delegated, write operations throw a {@link KeyStoreException}.
+ *
+ * @author j3t
+ */
+class ReadOnlyKeyStoreSpi extends KeyStoreSpi {
+    private final KeyStore keyStore;
+    private boolean loaded;
+
+    private ReadOnlyKeyStoreSpi(KeyStore keyStore) {
+        this.keyStore = keyStore;
+    }
+
+    /**
+     * Creates a read-only view of the given key store.
+     *
+     * @param keyStore the loaded {@link KeyStore}
+     * @return {@link KeyStore}, the view
+     */
+    static KeyStore createView(KeyStore keyStore) {
+        KeyStore view = new KeyStore(new ReadOnlyKeyStoreSpi(keyStore), keyStore.getProvider(), keyStore.getType()) {
+        };
+
+        try {
+            view.load(null, null);
+        } catch (Exception e) {
+            throw new IllegalStateException("view can't be initialized!", e);
+        }
+
+        return view;
+    }
+
+    @Override
+    public Key engineGetKey(String alias, char[] password) throws NoSuchAlgorithmException,
+            UnrecoverableKeyException {
+        try {
+            return keyStore.getKey(alias, password);
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public Certificate[] engineGetCertificateChain(String alias) {
+        try {
+            return keyStore.getCertificateChain(alias);
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public Certificate engineGetCertificate(String alias) {
+        try {
+            return keyStore.getCertificate(alias);
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public Date engineGetCreationDate(String alias) {
+        try {
+            return keyStore.getCreationDate(alias);
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public KeyStore.Entry engineGetEntry(String alias, KeyStore.ProtectionParameter protection)
+            throws KeyStoreException, NoSuchAlgorithmException, UnrecoverableEntryException {
+        return keyStore.getEntry(alias, protection);
+    }
+
+    @Override
+    public boolean engineEntryInstanceOf(String alias, Class<? extends KeyStore.Entry> entryClass) {
+        try {
+            return keyStore.entryInstanceOf(alias, entryClass);
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void engineSetKeyEntry(String alias, Key key, char[] password, Certificate[] chain)
+            throws KeyStoreException {
+        throw new KeyStoreException("key store is read-only!");
+    }
+
+    @Override
+    public void engineSetKeyEntry(String alias, byte[] key, Certificate[] chain) throws KeyStoreException {
+        throw new KeyStoreException("key store is read-only!");
+    }
+
+    @Override
+    public void engineSetCertificateEntry(String alias, Certificate cert) throws KeyStoreException {
+        throw new KeyStoreException("key store is read-only!");
+    }
+
+    @Override
+    public void engineSetEntry(String alias, KeyStore.Entry entry, KeyStore.ProtectionParameter protection)
+            throws KeyStoreException {
+        throw new KeyStoreException("key store is read-only!");
+    }
+
+    @Override
+    public void engineDeleteEntry(String alias) throws KeyStoreException {
+        throw new KeyStoreException("key store is read-only!");
+    }
+
+    @Override
+    public Enumeration<String> engineAliases() {
+        try {
+            return keyStore.aliases();
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean engineContainsAlias(String alias) {
+        try {
+            return keyStore.containsAlias(alias);
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int engineSize() {
+        try {
+            return keyStore.size();
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean engineIsKeyEntry(String alias) {
+        try {
+            return keyStore.isKeyEntry(alias);
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean engineIsCertificateEntry(String alias) {
+        try {
+            return keyStore.isCertificateEntry(alias);
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String engineGetCertificateAlias(Certificate cert) {
+        try {
+            return keyStore.getCertificateAlias(cert);
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void engineStore(OutputStream stream, char[] password) throws IOException, NoSuchAlgorithmException,
+            CertificateException {
+        try {
+            keyStore.store(stream, password);
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void engineLoad(InputStream stream, char[] password) throws IOException {
+        // the first call initializes the view (see createView)
+        if (loaded)
+            throw new IOException("key store is read-only!");
+
+        loaded = true;
+    }
+}
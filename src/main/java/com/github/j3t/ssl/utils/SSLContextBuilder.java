@@ -1,15 +1,23 @@
 package com.github.j3t.ssl.utils;
 
 
+import com.github.j3t.ssl.utils.metrics.MetricNames;
+import com.github.j3t.ssl.utils.metrics.Metrics;
+import com.github.j3t.ssl.utils.sni.SniKeyManager;
 import com.github.j3t.ssl.utils.strategy.KeyManagerStrategy;
+import com.github.j3t.ssl.utils.strategy.StrategyExtendedTrustManager;
 import com.github.j3t.ssl.utils.strategy.StrategyKeyManager;
 import com.github.j3t.ssl.utils.strategy.StrategyTrustManager;
+import com.github.j3t.ssl.utils.strategy.TrustDecisionCache;
 import com.github.j3t.ssl.utils.strategy.TrustManagerStrategy;
+import com.github.j3t.ssl.utils.trust.CompositeTrustManager;
+import com.github.j3t.ssl.utils.trust.MutableTrustManager;
 import com.github.j3t.ssl.utils.types.SslProtocol;
 
 import javax.net.ssl.*;
 import java.io.IOException;
 import java.security.*;
+import java.security.cert.X509Certificate;
 import java.util.Arrays;
 
 /**
@@ -18,18 +26,37 @@ import java.util.Arrays;
  * @author j3t
  */
 public class SSLContextBuilder {
+    private static final String[] BEST_EFFORT_PROTOCOLS = {
+            SslProtocol.TLSv13, SslProtocol.TLSv12, SslProtocol.TLSv11, SslProtocol.TLSv10};
+
+    private static final TrustManagerStrategy DELEGATE_ALWAYS = new TrustManagerStrategy() {
+        @Override
+        public boolean checkTrusted(X509Certificate[] chain, String authType) {
+            return true;
+        }
+    };
+
     private KeyStore keyStore;
     private char[] keyStorePassword;
     private String keyManagerAlgorithm;
     private KeyManagerStrategy keyManagerStrategy;
+    private boolean serverNameIndication;
+    private String serverNameDefaultAlias;
+    private int lazyKeyManagerSize;
 
     private KeyStore trustStore;
     private String trustManagerAlgorithm;
     private TrustManagerStrategy trustManagerStrategy;
+    private TrustDecisionCache trustDecisionCache;
+    private TrustManagerCache trustManagerCache;
+    private boolean defaultTrust;
+    private MutableTrustManager mutableTrustManager;
 
     private SecureRandom secureRandomGenerator;
     private String protocol;
 
+    private SSLContextCache cache;
+
     /**
      * Creates a new {@link SSLContextBuilder} instance.
      *
@@ -44,13 +71,22 @@ public class SSLContextBuilder {
         keyStorePassword = null;
         keyManagerAlgorithm = KeyManagerFactory.getDefaultAlgorithm();
         keyManagerStrategy = null;
+        serverNameIndication = false;
+        serverNameDefaultAlias = null;
+        lazyKeyManagerSize = 0;
 
         trustStore = null;
         trustManagerAlgorithm = TrustManagerFactory.getDefaultAlgorithm();
         trustManagerStrategy = null;
+        trustDecisionCache = null;
+        trustManagerCache = null;
+        defaultTrust = false;
+        mutableTrustManager = null;
 
         secureRandomGenerator = null;
         protocol = null;
+
+        cache = null;
     }
 
     /**
@@ -93,6 +129,66 @@ public class SSLContextBuilder {
         return this;
     }
 
+    /**
+     * Set up a cache for the decisions of the trust manager. A certificate chain that was trusted before will not be
+     * verified again until the decision expires. The {@link TrustManagerStrategy} is consulted nevertheless.<br>
+     * <br>
+     * Default: none
+     *
+     * @param trustDecisionCache the cache, should only be shared between contexts with the same trust store
+     * @return this {@link SSLContextBuilder}
+     */
+    public SSLContextBuilder setTrustDecisionCache(TrustDecisionCache trustDecisionCache) {
+        this.trustDecisionCache = trustDecisionCache;
+        return this;
+    }
+
+    /**
+     * Set up whether the peers trusted by the default trust manager of the JVM (e.g. the cacerts) are trusted in
+     * addition to the trust store. The trust manager of the trust store is consulted first, the default trust manager
+     * is created once per process and shared (see {@link CompositeTrustManager}). Requires Java 7 or higher.<br>
+     * <br>
+     * Default: <code>false</code>
+     *
+     * @param defaultTrust <code>true</code> to trust the peers trusted by the JVM too
+     * @return this {@link SSLContextBuilder}
+     */
+    public SSLContextBuilder setDefaultTrust(boolean defaultTrust) {
+        this.defaultTrust = defaultTrust;
+        return this;
+    }
+
+    /**
+     * Set up a trust manager with trust anchors that can be added and removed at runtime. The contexts built with it
+     * see the changes with their next handshake. The trust manager replaces the trust store, but it can be combined
+     * with the default trust (see {@link #setDefaultTrust(boolean)}) and the strategies. Requires Java 7 or
+     * higher.<br>
+     * <br>
+     * Default: none
+     *
+     * @param mutableTrustManager the trust manager (e.g. {@link MutableTrustManager#create(KeyStore)})
+     * @return this {@link SSLContextBuilder}
+     */
+    public SSLContextBuilder setMutableTrustManager(MutableTrustManager mutableTrustManager) {
+        this.mutableTrustManager = mutableTrustManager;
+        return this;
+    }
+
+    /**
+     * Set up a cache for the trust managers. Contexts built with a trust store of the same content share the trust
+     * managers and their trust anchors, instead of creating them for each context. If not set, the default cache is
+     * used (see {@link TrustManagerCache#setDefault(TrustManagerCache)}).<br>
+     * <br>
+     * Default: none
+     *
+     * @param trustManagerCache the cache
+     * @return this {@link SSLContextBuilder}
+     */
+    public SSLContextBuilder setTrustManagerCache(TrustManagerCache trustManagerCache) {
+        this.trustManagerCache = trustManagerCache;
+        return this;
+    }
+
     /**
      * Set up the key store. This store contains private key (at least one) to authenticate your self.<br>
      * <br>
@@ -159,10 +255,64 @@ public class SSLContextBuilder {
         return this;
     }
 
+    /**
+     * Set up the selection of the server alias by the host name the client requested via the server name indication
+     * (SNI) extension. The aliases of the key store are indexed by the DNS names (or the common name) of their
+     * certificates. If no alias matches, the {@link KeyManagerStrategy} or the key manager of the current context
+     * selects the alias.<br>
+     * <br>
+     * Default: <code>false</code>
+     *
+     * @param serverNameIndication <code>true</code> to select the server alias by the requested host name
+     * @return this {@link SSLContextBuilder}
+     * @see SniKeyManager
+     */
+    public SSLContextBuilder setServerNameIndication(boolean serverNameIndication) {
+        return setServerNameIndication(serverNameIndication, null);
+    }
+
+    /**
+     * Set up the selection of the server alias by the host name the client requested via the server name indication
+     * (SNI) extension (see {@link #setServerNameIndication(boolean)}). The default alias is selected if the client
+     * doesn't send a host name or no alias matches the requested one.<br>
+     * <br>
+     * Default: <code>false</code>, no default alias
+     *
+     * @param serverNameIndication <code>true</code> to select the server alias by the requested host name
+     * @param defaultAlias         the alias of a key entry or <code>null</code> to let the
+     *                             {@link KeyManagerStrategy} or the key manager of the current context select the alias
+     * @return this {@link SSLContextBuilder}
+     * @see SniKeyManager
+     */
+    public SSLContextBuilder setServerNameIndication(boolean serverNameIndication, String defaultAlias) {
+        this.serverNameIndication = serverNameIndication;
+        this.serverNameDefaultAlias = defaultAlias;
+        return this;
+    }
+
+    /**
+     * Set up a {@link LazyKeyManager}, which recovers the private keys on first use instead of recovering all keys
+     * when the context is built. This speeds up the build of key stores with many identities, the recovered keys are
+     * held in a cache of the given size. The key manager algorithm is ignored in this case.<br>
+     * <br>
+     * Default: 0 (the keys are recovered by the KeyManagerFactory when the context is built)
+     *
+     * @param maximumSize the maximum number of private keys held by the key manager or 0 to use the KeyManagerFactory
+     * @return this {@link SSLContextBuilder}
+     * @throws IllegalArgumentException if maximumSize is negative
+     */
+    public SSLContextBuilder setLazyKeyManager(int maximumSize) {
+        if (maximumSize < 0)
+            throw new IllegalArgumentException("maximumSize must not be negative!");
+
+        this.lazyKeyManagerSize = maximumSize;
+        return this;
+    }
+
     /**
      * Set up the protocol.<br>
      * <br>
-     * Default: Java 8 TLSv1.2, Java 7 TLSv1.1 otherwise TLSv1.0
+     * Default: the newest protocol supported by the runtime (e.g. Java 11 TLSv1.3, Java 7 TLSv1.2, Java 6 TLSv1.0)
      *
      * @param protocol the protocol (e.g. SSLv3, TLSv1.1, ...)
      * @return this @link SSLContextBuilder}
@@ -185,6 +335,21 @@ public class SSLContextBuilder {
         return this;
     }
 
+    /**
+     * Set up a cache for the built contexts. If a context with the same configuration (content of the key and trust
+     * store, key store password, algorithms, protocol, strategies and random number generator) was built before, the
+     * cached context will be returned instead of building a new one.<br>
+     * <br>
+     * Default: none
+     *
+     * @param cache the cache
+     * @return this {@link SSLContextBuilder}
+     */
+    public SSLContextBuilder setCache(SSLContextCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
     /**
      * Build the {@link SSLContext}.
      *
@@ -193,12 +358,116 @@ public class SSLContextBuilder {
      * @throws IOException              if the build failed!
      */
     public SSLContext build() throws GeneralSecurityException, IOException {
-        SSLContext ctx = createSSLContext();
-        ctx.init(createKeyManagers(), createTrustManagers(), createSecureRandomGenerator());
+        if (cache == null)
+            return buildSSLContext();
+
+        Object key = createCacheKey();
+        SSLContext ctx = cache.get(key);
+
+        if (ctx == null) {
+            ctx = buildSSLContext();
+            cache.put(key, ctx);
+        }
 
         return ctx;
     }
 
+    protected SSLContext buildSSLContext() throws GeneralSecurityException, IOException {
+        long start = Metrics.start();
+        boolean built = false;
+
+        try {
+            SSLContext ctx = createSSLContext();
+            long phase = Metrics.contextBuildPhase(MetricNames.CONTEXT_BUILD_INSTANCE, protocol, start);
+
+            KeyManager[] keyManagers = createKeyManagers();
+            phase = Metrics.contextBuildPhase(MetricNames.CONTEXT_BUILD_KEY_MANAGERS, protocol, phase);
+
+            TrustManager[] trustManagers = createTrustManagers();
+            phase = Metrics.contextBuildPhase(MetricNames.CONTEXT_BUILD_TRUST_MANAGERS, protocol, phase);
+
+            ctx.init(keyManagers, trustManagers, createSecureRandomGenerator());
+            Metrics.contextBuildPhase(MetricNames.CONTEXT_BUILD_INIT, protocol, phase);
+
+            built = true;
+
+            return ctx;
+        } finally {
+            if (built)
+                Metrics.contextBuildPhase(MetricNames.CONTEXT_BUILD, protocol, start);
+            else
+                Metrics.increment(MetricNames.CONTEXT_BUILD_FAILURE);
+        }
+    }
+
+    protected Object createCacheKey() throws GeneralSecurityException {
+        return Arrays.asList(
+                protocol != null ? protocol : getProtocolBestEffort(),
+                keyStore != null ? KeyStoreHelper.getFingerprint(keyStore) : null,
+                keyStore != null ? getKeyDigest() : null,
+                keyManagerAlgorithm,
+                keyManagerStrategy,
+                serverNameIndication,
+                serverNameDefaultAlias,
+                lazyKeyManagerSize,
+                trustStore != null ? KeyStoreHelper.getFingerprint(trustStore) : null,
+                trustManagerAlgorithm,
+                trustManagerStrategy,
+                trustDecisionCache,
+                defaultTrust,
+                mutableTrustManager,
+                secureRandomGenerator);
+    }
+
+    /**
+     * Returns a salted digest of the key store password and the keys of the key store, so the cache key contains
+     * neither of them and key stores with the same certificates but different keys are distinguished. If the keys
+     * can't be read (e.g. the lazy key manager is used, a key is protected by another password or not extractable),
+     * the key store itself is returned, so the context is only shared by builders of the same instance.
+     */
+    private Object getKeyDigest() throws GeneralSecurityException {
+        if (lazyKeyManagerSize > 0)
+            return keyStore;
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(CacheKeySalt.VALUE);
+
+        if (keyStorePassword != null) {
+            digest.update((byte) 1);
+
+            for (char c : keyStorePassword) {
+                digest.update((byte) (c >> 8));
+                digest.update((byte) c);
+            }
+        }
+
+        String[] aliases = KeyStoreHelper.getAliases(keyStore);
+        Arrays.sort(aliases);
+
+        for (String alias : aliases) {
+            if (!keyStore.isKeyEntry(alias))
+                continue;
+
+            Key key;
+
+            try {
+                key = keyStore.getKey(alias, keyStorePassword);
+            } catch (UnrecoverableKeyException e) {
+                return keyStore;
+            }
+
+            byte[] encoded = key != null ? key.getEncoded() : null;
+
+            if (encoded == null)
+                return keyStore;
+
+            digest.update((byte) 0);
+            digest.update(encoded);
+        }
+
+        return StringHelper.toHexString(digest.digest());
+    }
+
     protected SSLContext createSSLContext() throws NoSuchAlgorithmException, NoSuchProviderException {
         if (protocol == null)
             return SSLContext.getInstance(getProtocolBestEffort());
@@ -207,6 +476,11 @@ public class SSLContextBuilder {
     }
 
     protected String getProtocolBestEffort() {
+        for (String protocol : BEST_EFFORT_PROTOCOLS)
+            if (EnvironmentHelper.isProtocolSupported(protocol))
+                return protocol;
+
+        // no protocol could be probed, e.g. the provider can't be initialized
         if (EnvironmentHelper.isJava7OrHigher())
             return SslProtocol.TLSv12;
 
@@ -217,24 +491,45 @@ public class SSLContextBuilder {
         if (keyStore == null)
             return null;
 
-        KeyManagerFactory kmf = KeyManagerFactory.getInstance(keyManagerAlgorithm);
-        kmf.init(keyStore, keyStorePassword);
+        KeyManager[] keyManagers;
 
-        KeyManager[] keyManagers = kmf.getKeyManagers();
+        if (lazyKeyManagerSize > 0) {
+            keyManagers = new KeyManager[]{new LazyKeyManager(keyStore, keyStorePassword, lazyKeyManagerSize)};
+        } else {
+            KeyManagerFactory kmf = KeyManagerFactory.getInstance(keyManagerAlgorithm);
+            kmf.init(keyStore, keyStorePassword);
+
+            keyManagers = kmf.getKeyManagers();
+        }
 
         if (keyManagerStrategy != null)
             keyManagers = addStrategy(keyManagers);
 
+        if (serverNameIndication)
+            keyManagers = addServerNameIndication(keyManagers);
+
         return keyManagers;
     }
 
     protected TrustManager[] createTrustManagers() throws NoSuchAlgorithmException, KeyStoreException {
-        TrustManagerFactory instance = TrustManagerFactory.getInstance(trustManagerAlgorithm);
-        instance.init(trustStore);
+        TrustManagerCache cache = trustManagerCache != null ? trustManagerCache : TrustManagerCache.getDefault();
+        TrustManager[] trustManagers;
 
-        TrustManager[] trustManagers = instance.getTrustManagers();
+        if (mutableTrustManager != null) {
+            trustManagers = new TrustManager[]{mutableTrustManager};
+        } else if (cache != null && trustStore != null) {
+            trustManagers = cache.get(trustStore, trustManagerAlgorithm);
+        } else {
+            TrustManagerFactory instance = TrustManagerFactory.getInstance(trustManagerAlgorithm);
+            instance.init(trustStore);
 
-        if (trustManagerStrategy != null)
+            trustManagers = instance.getTrustManagers();
+        }
+
+        if (defaultTrust && (trustStore != null || mutableTrustManager != null))
+            trustManagers = addDefaultTrust(trustManagers);
+
+        if (trustManagerStrategy != null || trustDecisionCache != null)
             trustManagers = addStrategy(trustManagers);
 
         return trustManagers;
@@ -253,13 +548,57 @@ public class SSLContextBuilder {
         return kms;
     }
 
+    protected KeyManager[] addServerNameIndication(KeyManager[] keyManagers) throws KeyStoreException {
+        KeyManager[] kms = new KeyManager[keyManagers.length];
+
+        if (serverNameDefaultAlias != null && !keyStore.isKeyEntry(serverNameDefaultAlias))
+            throw new KeyStoreException("default alias is not a key entry: " + serverNameDefaultAlias);
+
+        for (int i = 0; i < keyManagers.length; i++)
+            kms[i] = new SniKeyManager((X509KeyManager) keyManagers[i], keyStore, serverNameDefaultAlias);
+
+        return kms;
+    }
+
+    protected TrustManager[] addDefaultTrust(TrustManager[] trustManagers) throws NoSuchAlgorithmException,
+            KeyStoreException {
+        if (!EnvironmentHelper.isJava7OrHigher())
+            throw new NoSuchAlgorithmException("default trust requires Java 7 or higher!");
+
+        TrustManager[] tms = new TrustManager[trustManagers.length];
+        X509TrustManager defaultTrustManager = CompositeTrustManager.getDefaultTrustManager();
+
+        for (int i = 0; i < trustManagers.length; i++)
+            tms[i] = trustManagers[i] instanceof X509TrustManager
+                    ? new CompositeTrustManager((X509TrustManager) trustManagers[i], defaultTrustManager)
+                    : trustManagers[i];
+
+        return tms;
+    }
+
     protected TrustManager[] addStrategy(TrustManager[] trustManagers) {
         TrustManager[] tms = new TrustManager[trustManagers.length];
 
+        TrustManagerStrategy strategy = trustManagerStrategy != null ? trustManagerStrategy : DELEGATE_ALWAYS;
+
         for (int i = 0; i < trustManagers.length; i++)
-            tms[i] = new StrategyTrustManager((X509TrustManager) trustManagers[i], trustManagerStrategy);
+            if (EnvironmentHelper.isJava7OrHigher() && trustManagers[i] instanceof X509ExtendedTrustManager)
+                tms[i] = new StrategyExtendedTrustManager((X509ExtendedTrustManager) trustManagers[i], strategy,
+                        trustDecisionCache);
+            else
+                tms[i] = new StrategyTrustManager((X509TrustManager) trustManagers[i], strategy, trustDecisionCache);
 
         return tms;
     }
 
+    /**
+     * The random salt of the cache keys, created once per process on first use.
+     */
+    private static final class CacheKeySalt {
+        static final byte[] VALUE = new byte[16];
+
+        static {
+            new SecureRandom().nextBytes(VALUE);
+        }
+    }
 }
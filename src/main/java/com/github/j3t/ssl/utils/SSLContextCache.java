@@ -0,0 +1,137 @@
+package com.github.j3t.ssl.utils;
+
+
+import javax.net.ssl.SSLContext;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of {@link SSLContext} objects. The cache is used by the {@link SSLContextBuilder} (see
+ * {@link SSLContextBuilder#setCache(SSLContextCache)}) to return the same context whenever the configuration (content
+ * of the key and trust store, algorithms, protocol and strategies) is the same as for a previously built one. If the
+ * cache is full, the least recently used context will be evicted.<br>
+ * <br>
+ * The cache is thread-safe and can be shared between builders.
+ *
+ * @author j3t
+ */
+public class SSLContextCache {
+    private final int maximumSize;
+    private final Map<Object, SSLContext> contexts;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Creates an instance of {@link SSLContextCache}.
+     *
+     * @param maximumSize the maximum number of contexts held by the cache
+     * @throws IllegalArgumentException if maximumSize is less than 1
+     */
+    public SSLContextCache(int maximumSize) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("maximumSize must be greater than 0!");
+
+        this.maximumSize = maximumSize;
+        this.contexts = new LinkedHashMap<Object, SSLContext>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, SSLContext> eldest) {
+                if (size() <= SSLContextCache.this.maximumSize)
+                    return false;
+
+                evictionCount.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the context cached for the given key.
+     *
+     * @param key the key (e.g. the configuration of a {@link SSLContextBuilder})
+     * @return {@link SSLContext} or <code>null</code> if the cache doesn't contain a context for the key
+     */
+    public synchronized SSLContext get(Object key) {
+        SSLContext context = contexts.get(key);
+
+        if (context != null)
+            hitCount.incrementAndGet();
+        else
+            missCount.incrementAndGet();
+
+        return context;
+    }
+
+    /**
+     * Puts the given context into the cache. If the cache is full, the least recently used context will be evicted.
+     *
+     * @param key     the key (e.g. the configuration of a {@link SSLContextBuilder})
+     * @param context the context
+     * @throws IllegalArgumentException if key or context are <code>null</code>
+     */
+    public synchronized void put(Object key, SSLContext context) {
+        if (key == null)
+            throw new IllegalArgumentException("key must not be null!");
+
+        if (context == null)
+            throw new IllegalArgumentException("context must not be null!");
+
+        contexts.put(key, context);
+    }
+
+    /**
+     * Removes all contexts from the cache. The counters will not be reset.
+     */
+    public synchronized void clear() {
+        contexts.clear();
+    }
+
+    /**
+     * Returns the number of contexts held by the cache.
+     *
+     * @return the current size of the cache
+     */
+    public synchronized int size() {
+        return contexts.size();
+    }
+
+    /**
+     * Returns the maximum number of contexts held by the cache.
+     *
+     * @return the maximum size of the cache
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns how many times a context was found in the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns how many times a context wasn't found in the cache.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns how many contexts were evicted, because the cache was full.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+}
@@ -26,4 +26,22 @@ public class StringHelper {
 
         return sb.toString();
     }
+
+    /**
+     * Returns the given bytes as a lower case hexadecimal {@link String}.
+     *
+     * @param bytes the given bytes
+     * @return two hex digits per byte or an empty {@link String}
+     */
+    public static String toHexString(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+
+        if (bytes != null)
+            for (byte b : bytes) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+
+        return sb.toString();
+    }
 }
@@ -0,0 +1,262 @@
+package com.github.j3t.ssl.utils;
+
+
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.Certificate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of the trust managers created by the {@link TrustManagerFactory}. The cache is used by the
+ * {@link SSLContextBuilder} (see {@link SSLContextBuilder#setTrustManagerCache(TrustManagerCache)} and
+ * {@link #setDefault(TrustManagerCache)}) to share the trust managers, and their trust anchors, between all contexts
+ * built with the same trust store. A trust store is identified by the algorithm and its content (see
+ * {@link KeyStoreHelper#getFingerprint(KeyStore)}), so stores loaded separately from the same file share the trust
+ * managers too. The fingerprint is computed once per trust store instance, later lookups only check that the store
+ * still contains the same certificate objects.<br>
+ * <br>
+ * The trust managers are weakly referenced, they are held by the contexts using them and can be collected once the
+ * last of these contexts is collected.<br>
+ * <br>
+ * The cache is thread-safe and can be shared between builders.
+ *
+ * @author j3t
+ */
+public class TrustManagerCache {
+    private static volatile TrustManagerCache defaultCache;
+
+    private final Map<Object, Entry> entries = new HashMap<Object, Entry>();
+    private final Map<KeyStore, Snapshot> snapshots = new WeakHashMap<KeyStore, Snapshot>();
+    private final ReferenceQueue<TrustManager> queue = new ReferenceQueue<TrustManager>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Sets the cache used by all {@link SSLContextBuilder}s without an own cache. Default is <code>null</code> (no
+     * cache).
+     *
+     * @param cache the {@link TrustManagerCache} or <code>null</code>
+     */
+    public static void setDefault(TrustManagerCache cache) {
+        defaultCache = cache;
+    }
+
+    /**
+     * Returns the cache used by all {@link SSLContextBuilder}s without an own cache.
+     *
+     * @return {@link TrustManagerCache} or <code>null</code> if there is no default cache
+     */
+    public static TrustManagerCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Returns the trust managers for the given trust store. If there are no trust managers for a trust store with the
+     * same content and algorithm, they are created by the {@link TrustManagerFactory} and put into the cache.
+     *
+     * @param trustStore the trust store
+     * @param algorithm  the algorithm of the {@link TrustManagerFactory}
+     * @return the trust managers, shouldn't be <code>null</code>
+     * @throws IllegalArgumentException if trustStore or algorithm is <code>null</code>
+     * @throws NoSuchAlgorithmException if no TrustManagerFactory is available for the algorithm
+     * @throws KeyStoreException        if the trust managers can't be initialized with the trust store
+     */
+    public TrustManager[] get(KeyStore trustStore, String algorithm) throws NoSuchAlgorithmException,
+            KeyStoreException {
+        KeyStoreHelper.checkKeyStore(trustStore);
+
+        if (algorithm == null)
+            throw new IllegalArgumentException("algorithm must not be null!");
+
+        Object key = Arrays.asList(algorithm, getFingerprint(trustStore));
+        TrustManager[] trustManagers = get(key);
+
+        if (trustManagers != null) {
+            hitCount.incrementAndGet();
+            return trustManagers;
+        }
+
+        missCount.incrementAndGet();
+
+        // the factory is initialized without holding the lock, so the other trust stores aren't blocked
+        TrustManagerFactory factory = TrustManagerFactory.getInstance(algorithm);
+        factory.init(trustStore);
+
+        return put(key, factory.getTrustManagers());
+    }
+
+    private String getFingerprint(KeyStore trustStore) throws KeyStoreException {
+        Snapshot snapshot;
+
+        synchronized (this) {
+            snapshot = snapshots.get(trustStore);
+        }
+
+        if (snapshot != null && snapshot.matches(trustStore))
+            return snapshot.fingerprint;
+
+        snapshot = new Snapshot(trustStore);
+
+        synchronized (this) {
+            snapshots.put(trustStore, snapshot);
+        }
+
+        return snapshot.fingerprint;
+    }
+
+    private synchronized TrustManager[] get(Object key) {
+        expungeStaleEntries();
+
+        Entry entry = entries.get(key);
+
+        return entry != null ? entry.get() : null;
+    }
+
+    private synchronized TrustManager[] put(Object key, TrustManager[] trustManagers) {
+        Entry entry = entries.get(key);
+        TrustManager[] existing = entry != null ? entry.get() : null;
+
+        // another thread has put the trust managers in the meantime, the existing ones are shared
+        if (existing != null)
+            return existing;
+
+        entries.put(key, new Entry(key, trustManagers, queue));
+
+        return trustManagers.clone();
+    }
+
+    /**
+     * Removes all trust managers from the cache. The counters will not be reset.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        snapshots.clear();
+    }
+
+    /**
+     * Returns the number of trust stores with trust managers held by the cache. Trust managers already collected by
+     * the garbage collector are removed before.
+     *
+     * @return the current size of the cache
+     */
+    public synchronized int size() {
+        expungeStaleEntries();
+
+        return entries.size();
+    }
+
+    /**
+     * Returns how many times the trust managers were found in the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns how many times the trust managers weren't found in the cache and were created.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private void expungeStaleEntries() {
+        for (Reference<? extends TrustManager> reference = queue.poll(); reference != null; reference = queue.poll()) {
+            Object key = ((TrustManagerReference) reference).key;
+            Entry entry = entries.get(key);
+
+            if (entry != null && entry.contains(reference))
+                entries.remove(key);
+        }
+    }
+
+    /**
+     * The certificates of a trust store instance and its fingerprint. The certificates are immutable, so the content
+     * is unchanged as long as the store returns the same certificate objects for the same aliases.
+     */
+    private static class Snapshot {
+        private final String[] aliases;
+        private final Certificate[] certificates;
+        private final String fingerprint;
+
+        Snapshot(KeyStore keyStore) throws KeyStoreException {
+            aliases = KeyStoreHelper.getAliases(keyStore);
+            certificates = new Certificate[aliases.length];
+
+            for (int i = 0; i < aliases.length; i++)
+                certificates[i] = keyStore.getCertificate(aliases[i]);
+
+            fingerprint = KeyStoreHelper.getFingerprint(keyStore);
+        }
+
+        boolean matches(KeyStore keyStore) throws KeyStoreException {
+            if (keyStore.size() != aliases.length)
+                return false;
+
+            for (int i = 0; i < aliases.length; i++)
+                if (keyStore.getCertificate(aliases[i]) != certificates[i])
+                    return false;
+
+            return true;
+        }
+    }
+
+    private static class TrustManagerReference extends WeakReference<TrustManager> {
+        private final Object key;
+
+        TrustManagerReference(Object key, TrustManager trustManager, ReferenceQueue<TrustManager> queue) {
+            super(trustManager, queue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * The trust managers of one trust store. Each one is referenced separately, because the contexts don't keep the
+     * array returned by the factory.
+     */
+    private static class Entry {
+        private final TrustManagerReference[] references;
+
+        Entry(Object key, TrustManager[] trustManagers, ReferenceQueue<TrustManager> queue) {
+            references = new TrustManagerReference[trustManagers.length];
+
+            for (int i = 0; i < trustManagers.length; i++)
+                references[i] = new TrustManagerReference(key, trustManagers[i], queue);
+        }
+
+        TrustManager[] get() {
+            TrustManager[] trustManagers = new TrustManager[references.length];
+
+            for (int i = 0; i < references.length; i++) {
+                trustManagers[i] = references[i].get();
+
+                if (trustManagers[i] == null)
+                    return null;
+            }
+
+            return trustManagers;
+        }
+
+        boolean contains(Reference<?> reference) {
+            for (TrustManagerReference trustManagerReference : references)
+                if (trustManagerReference == reference)
+                    return true;
+
+            return false;
+        }
+    }
+}
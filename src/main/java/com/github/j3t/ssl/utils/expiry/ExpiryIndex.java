@@ -0,0 +1,267 @@
+package com.github.j3t.ssl.utils.expiry;
+
+
+import com.github.j3t.ssl.utils.KeyStoreIndex;
+
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable index of the certificates of one or more key stores, sorted by the end of their validity period. A range
+ * query (e.g. all certificates expiring within the next 30 days, see {@link #getExpiringWithin(long, TimeUnit)}) is a
+ * binary search and doesn't check the certificates one by one.<br>
+ * <br>
+ * The index contains the first certificate of each private key entry and each trusted certificate (see
+ * {@link KeyStoreIndex}). A certificate is expired at a point in time, if the end of its validity period is before
+ * it. Changes of the key stores after the creation are not reflected by the index, a new index must be created
+ * instead. The index is thread-safe.
+ *
+ * @author j3t
+ */
+public class ExpiryIndex {
+    private final Entry[] entries;
+    private final long[] notAfters;
+
+    private ExpiryIndex(List<Entry> entries) {
+        this.entries = entries.toArray(new Entry[entries.size()]);
+
+        Arrays.sort(this.entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry e1, Entry e2) {
+                return e1.notAfter < e2.notAfter ? -1 : e1.notAfter == e2.notAfter ? 0 : 1;
+            }
+        });
+
+        this.notAfters = new long[this.entries.length];
+
+        for (int i = 0; i < notAfters.length; i++)
+            notAfters[i] = this.entries[i].notAfter;
+    }
+
+    /**
+     * Creates the index of a key store.
+     *
+     * @param name     the name of the key store (e.g. the path), which identifies the store in the entries
+     * @param keyStore the key store
+     * @return {@link ExpiryIndex}, shouldn't be <code>null</code>
+     * @throws IllegalArgumentException if keyStore is <code>null</code>
+     * @throws KeyStoreException        if the key store is not initialized
+     */
+    public static ExpiryIndex create(String name, KeyStore keyStore) throws KeyStoreException {
+        return create(Collections.singletonMap(name, keyStore));
+    }
+
+    /**
+     * Creates the index of many key stores.
+     *
+     * @param keyStores the key stores by their names
+     * @return {@link ExpiryIndex}, shouldn't be <code>null</code>
+     * @throws IllegalArgumentException if keyStores is or contains <code>null</code>
+     * @throws KeyStoreException        if a key store is not initialized
+     */
+    public static ExpiryIndex create(Map<String, KeyStore> keyStores) throws KeyStoreException {
+        if (keyStores == null)
+            throw new IllegalArgumentException("keyStores must not be null!");
+
+        List<Entry> entries = new ArrayList<Entry>();
+
+        for (Map.Entry<String, KeyStore> keyStore : keyStores.entrySet())
+            for (KeyStoreIndex.Entry entry : KeyStoreIndex.create(keyStore.getValue()).getEntries())
+                if (entry.getNotAfter() != null)
+                    entries.add(new Entry(keyStore.getKey(), entry));
+
+        return new ExpiryIndex(entries);
+    }
+
+    /**
+     * Returns the number of certificates.
+     *
+     * @return the number of certificates
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Returns all certificates.
+     *
+     * @return unmodifiable list of {@link Entry}s, sorted by the end of their validity period
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(Arrays.asList(entries));
+    }
+
+    /**
+     * Returns the certificates expiring within the given duration from now on.
+     *
+     * @param duration the duration, durations beyond the end of time include all certificates not expired yet
+     * @param unit     the time unit of duration
+     * @return list of {@link Entry}s sorted by the end of their validity period, or an empty list
+     * @throws IllegalArgumentException if duration is negative or unit is <code>null</code>
+     */
+    public List<Entry> getExpiringWithin(long duration, TimeUnit unit) {
+        if (duration < 0)
+            throw new IllegalArgumentException("duration must not be negative!");
+
+        if (unit == null)
+            throw new IllegalArgumentException("unit must not be null!");
+
+        long now = System.currentTimeMillis();
+        long millis = unit.toMillis(duration);
+
+        return getEntries(now, now + millis < now ? Long.MAX_VALUE : now + millis);
+    }
+
+    /**
+     * Returns the certificates expiring in the given period, i.e. the end of their validity period is within
+     * [from, to).
+     *
+     * @param from the start of the period
+     * @param to   the end of the period (exclusive)
+     * @return list of {@link Entry}s sorted by the end of their validity period, or an empty list
+     * @throws IllegalArgumentException if from or to is <code>null</code>
+     */
+    public List<Entry> getExpiringBetween(Date from, Date to) {
+        if (from == null || to == null)
+            throw new IllegalArgumentException("period must not be null!");
+
+        return getEntries(from.getTime(), to.getTime());
+    }
+
+    /**
+     * Returns the certificates which are expired at the given point in time.
+     *
+     * @param date the point in time
+     * @return list of {@link Entry}s sorted by the end of their validity period, or an empty list
+     * @throws IllegalArgumentException if date is <code>null</code>
+     */
+    public List<Entry> getExpiredAt(Date date) {
+        if (date == null)
+            throw new IllegalArgumentException("date must not be null!");
+
+        return getEntries(Long.MIN_VALUE, date.getTime());
+    }
+
+    /**
+     * Returns the first certificate which is not yet expired at the given point in time.
+     *
+     * @param date the point in time
+     * @return {@link Entry} or <code>null</code> if all certificates are expired
+     * @throws IllegalArgumentException if date is <code>null</code>
+     */
+    public Entry getNextExpiring(Date date) {
+        if (date == null)
+            throw new IllegalArgumentException("date must not be null!");
+
+        int index = indexOf(date.getTime());
+
+        return index < entries.length ? entries[index] : null;
+    }
+
+    /**
+     * Returns the index of the first certificate with an end of the validity period at or after the given time, which
+     * is the number of certificates expired at this time.
+     */
+    int indexOf(long time) {
+        int low = 0;
+        int high = notAfters.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (notAfters[middle] < time)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    Entry get(int index) {
+        return entries[index];
+    }
+
+    private List<Entry> getEntries(long from, long to) {
+        int start = indexOf(from);
+        int end = Math.max(start, indexOf(to));
+
+        return Collections.unmodifiableList(Arrays.asList(entries).subList(start, end));
+    }
+
+    /**
+     * A certificate of the index.
+     */
+    public static final class Entry {
+        private final String keyStore;
+        private final String alias;
+        private final String subject;
+        private final Certificate certificate;
+        private final long notAfter;
+
+        Entry(String keyStore, KeyStoreIndex.Entry entry) {
+            this.keyStore = keyStore;
+            this.alias = entry.getAlias();
+            this.subject = entry.getSubject();
+            this.certificate = entry.getCertificate();
+            this.notAfter = entry.getNotAfter().getTime();
+        }
+
+        /**
+         * Returns the name of the key store.
+         *
+         * @return the name of the key store
+         */
+        public String getKeyStore() {
+            return keyStore;
+        }
+
+        /**
+         * Returns the alias of the entry.
+         *
+         * @return the alias
+         */
+        public String getAlias() {
+            return alias;
+        }
+
+        /**
+         * Returns the subject of the certificate.
+         *
+         * @return the subject in RFC 2253 format
+         */
+        public String getSubject() {
+            return subject;
+        }
+
+        /**
+         * Returns the certificate.
+         *
+         * @return the certificate
+         */
+        public Certificate getCertificate() {
+            return certificate;
+        }
+
+        /**
+         * Returns the end of the validity period.
+         *
+         * @return {@link Date}
+         */
+        public Date getNotAfter() {
+            return new Date(notAfter);
+        }
+
+        long getNotAfterMillis() {
+            return notAfter;
+        }
+
+        @Override
+        public String toString() {
+            return keyStore + ":" + alias + " (" + getNotAfter() + ")";
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.github.j3t.ssl.utils.expiry;
+
+
+import com.github.j3t.ssl.utils.metrics.EventRecorder;
+import com.github.j3t.ssl.utils.metrics.MetricNames;
+import com.github.j3t.ssl.utils.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the expiry state of the certificates of an {@link ExpiryIndex} to the {@link Metrics}. Each check sets
+ * the gauges {@link MetricNames#CERTIFICATE_EXPIRED} and {@link MetricNames#CERTIFICATE_EXPIRING} (the certificates
+ * expiring within the warning period) of the monitor name and records an event (see {@link EventRecorder}) for each
+ * certificate which entered the warning period or expired since the previous check.<br>
+ * <br>
+ * The state only changes when a certificate crosses one of these boundaries, so the background thread (see
+ * {@link #start()}) doesn't poll, it sleeps until the next boundary of the index. The delay is limited to one day,
+ * so adjustments of the system clock are caught up. A new index (e.g. after a key store was reloaded) is checked
+ * immediately (see {@link #setIndex(ExpiryIndex)}).
+ *
+ * @author j3t
+ */
+public class ExpiryMonitor implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpiryMonitor.class);
+    private static final long MAX_DELAY = TimeUnit.DAYS.toMillis(1);
+
+    private final String name;
+    private final long warningPeriod;
+
+    private ExpiryIndex index;
+    private long lastCheck = Long.MIN_VALUE;
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> future;
+
+    /**
+     * Creates an instance of {@link ExpiryMonitor} without name. Monitors without name publish the same gauges, so
+     * only one of them should be used.
+     *
+     * @param index         the {@link ExpiryIndex}
+     * @param warningPeriod the period before the expiry in which a certificate is counted as expiring (e.g. 30 days)
+     * @param unit          the time unit of warningPeriod
+     * @throws IllegalArgumentException if index or unit is <code>null</code> or warningPeriod is negative
+     */
+    public ExpiryMonitor(ExpiryIndex index, long warningPeriod, TimeUnit unit) {
+        this(null, index, warningPeriod, unit);
+    }
+
+    /**
+     * Creates an instance of {@link ExpiryMonitor}.
+     *
+     * @param name          the name of the monitor, which distinguishes its gauges from the gauges of other monitors
+     *                      (see {@link com.github.j3t.ssl.utils.metrics.MetricsRecorder#gauge(String, String, long)}),
+     *                      or <code>null</code>
+     * @param index         the {@link ExpiryIndex}
+     * @param warningPeriod the period before the expiry in which a certificate is counted as expiring (e.g. 30 days)
+     * @param unit          the time unit of warningPeriod
+     * @throws IllegalArgumentException if index or unit is <code>null</code> or warningPeriod is negative
+     */
+    public ExpiryMonitor(String name, ExpiryIndex index, long warningPeriod, TimeUnit unit) {
+        if (index == null)
+            throw new IllegalArgumentException("index must not be null!");
+
+        if (unit == null)
+            throw new IllegalArgumentException("unit must not be null!");
+
+        if (warningPeriod < 0)
+            throw new IllegalArgumentException("warningPeriod must not be negative!");
+
+        this.name = name;
+        this.index = index;
+        this.warningPeriod = unit.toMillis(warningPeriod);
+    }
+
+    /**
+     * Returns the name of the monitor.
+     *
+     * @return the name or <code>null</code>
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the current index.
+     *
+     * @return {@link ExpiryIndex}
+     */
+    public synchronized ExpiryIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Replaces the index, e.g. after a key store was reloaded. If the monitor is started, the new index is checked
+     * immediately. Events are only recorded for certificates which cross a boundary after the previous check.
+     *
+     * @param index the new {@link ExpiryIndex}
+     * @throws IllegalArgumentException if index is <code>null</code>
+     */
+    public synchronized void setIndex(ExpiryIndex index) {
+        if (index == null)
+            throw new IllegalArgumentException("index must not be null!");
+
+        this.index = index;
+
+        if (executor != null)
+            schedule(0);
+    }
+
+    /**
+     * Checks the index, publishes the gauges and records the events of the certificates which entered the warning
+     * period or expired since the previous check.
+     *
+     * @return the time of the next boundary in milliseconds since the epoch or {@link Long#MAX_VALUE} if no
+     * certificate will cross a boundary anymore
+     */
+    public long check() {
+        return check(System.currentTimeMillis());
+    }
+
+    synchronized long check(long now) {
+        long warning = now + warningPeriod < now ? Long.MAX_VALUE : now + warningPeriod;
+        int expired = index.indexOf(now);
+        int expiring = index.indexOf(warning);
+
+        Metrics.gauge(MetricNames.CERTIFICATE_EXPIRED, name, expired);
+        Metrics.gauge(MetricNames.CERTIFICATE_EXPIRING, name, expiring - expired);
+
+        for (int i = index.indexOf(lastCheck); i < expired; i++)
+            publish(index.get(i), MetricNames.CERTIFICATE_EXPIRED);
+
+        long previousWarning = lastCheck + warningPeriod < lastCheck ? Long.MAX_VALUE : lastCheck + warningPeriod;
+
+        for (int i = Math.max(index.indexOf(previousWarning), expired); i < expiring; i++)
+            publish(index.get(i), MetricNames.CERTIFICATE_EXPIRING);
+
+        lastCheck = now;
+
+        // a certificate expires one millisecond after the end of its validity period
+        long next = Long.MAX_VALUE;
+
+        if (expired < index.size())
+            next = index.get(expired).getNotAfterMillis() + 1;
+
+        if (expiring < index.size())
+            next = Math.min(next, index.get(expiring).getNotAfterMillis() - warningPeriod + 1);
+
+        return next;
+    }
+
+    /**
+     * Starts checking the index in a background thread, the first check is done immediately.
+     *
+     * @throws IllegalStateException if the monitor is already started
+     */
+    public synchronized void start() {
+        if (executor != null)
+            throw new IllegalStateException("monitor is already started!");
+
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ssl-expiry-monitor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        schedule(0);
+    }
+
+    /**
+     * Stops checking the index in background.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            future = null;
+        }
+    }
+
+    private synchronized void schedule(long delay) {
+        if (executor == null)
+            return;
+
+        if (future != null)
+            future.cancel(false);
+
+        future = executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                // the check and the scheduling of the next one must not interleave with a new index
+                synchronized (ExpiryMonitor.this) {
+                    long next = MAX_DELAY;
+
+                    try {
+                        long now = System.currentTimeMillis();
+                        next = Math.min(Math.max(check(now) - now, 0), MAX_DELAY);
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("expiry check failed!", e);
+                    }
+
+                    schedule(next);
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static void publish(ExpiryIndex.Entry entry, String state) {
+        Metrics.certificateExpiry(entry.getKeyStore(), entry.getAlias(), entry.getSubject(),
+                entry.getNotAfterMillis(), state);
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.j3t.ssl.utils.metrics;
+
+/**
+ * Service provider interface to record the events of this library with their attributes, e.g. as JDK Flight
+ * Recorder events. An implementation is registered via {@link Metrics#setEventRecorder(EventRecorder)}.<br>
+ * <br>
+ * The methods are invoked within the handshake, so an implementation should be thread-safe and fast.
+ *
+ * @author j3t
+ */
+public interface EventRecorder {
+
+    /**
+     * Returns whether events are recorded at the moment. If not, the instrumented code doesn't read the clock.
+     *
+     * @return <code>true</code> if events are recorded, otherwise <code>false</code>
+     */
+    boolean isEnabled();
+
+    /**
+     * A key store was loaded (see {@link com.github.j3t.ssl.utils.KeyStoreBuilder#build()}).
+     *
+     * @param type     the key store type
+     * @param provider the provider name or <code>null</code> if the default provider is used
+     * @param entries  the number of entries or -1 if the load failed
+     * @param bytes    the size of the key file or 0 if the key store isn't loaded from a file or byte array
+     * @param nanos    the duration in nanoseconds
+     */
+    void keyStoreLoaded(String type, String provider, int entries, long bytes, long nanos);
+
+    /**
+     * A phase of an SSL context build is finished (see {@link com.github.j3t.ssl.utils.SSLContextBuilder#build()}).
+     *
+     * @param phase    the name of the phase, one of the CONTEXT_BUILD names of {@link MetricNames}
+     * @param protocol the requested protocol or <code>null</code> if the best protocol is selected
+     * @param nanos    the duration in nanoseconds
+     */
+    void contextBuildPhase(String phase, String protocol, long nanos);
+
+    /**
+     * A trust check of a strategy trust manager is finished.
+     *
+     * @param chainLength the length of the certificate chain
+     * @param authType    the authentication type
+     * @param outcome     the outcome, one of the TRUST_CHECK counter names of {@link MetricNames}
+     * @param nanos       the duration in nanoseconds
+     */
+    void trustChecked(int chainLength, String authType, String outcome, long nanos);
+
+    /**
+     * An alias was chosen by a strategy key manager.
+     *
+     * @param alias    the alias or <code>null</code> if no alias was found
+     * @param client   <code>true</code> if a client alias was requested, otherwise <code>false</code>
+     * @param strategy <code>true</code> if the alias was chosen by the strategy, otherwise <code>false</code>
+     * @param nanos    the duration in nanoseconds
+     */
+    void aliasChosen(String alias, boolean client, boolean strategy, long nanos);
+
+    /**
+     * A certificate entered the warning period or expired (see {@link com.github.j3t.ssl.utils.expiry.ExpiryMonitor}).
+     *
+     * @param keyStore the name of the key store
+     * @param alias    the alias of the entry
+     * @param subject  the subject of the certificate
+     * @param notAfter the end of the validity period in milliseconds since the epoch
+     * @param state    the new state, one of the CERTIFICATE gauge names of {@link MetricNames}
+     */
+    void certificateExpiry(String keyStore, String alias, String subject, long notAfter, String state);
+}
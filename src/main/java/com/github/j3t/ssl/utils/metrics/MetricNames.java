@@ -0,0 +1,116 @@
+package com.github.j3t.ssl.utils.metrics;
+
+/**
+ * Names of the counters, gauges and latency histograms recorded by this library.
+ *
+ * @author j3t
+ */
+public interface MetricNames {
+    /**
+     * Histogram, the duration to load a key store (see {@link com.github.j3t.ssl.utils.KeyStoreBuilder#build()}).
+     */
+    String KEY_STORE_LOAD = "sslutils.keystore.load";
+
+    /**
+     * Counter, the number of key stores which failed to load.
+     */
+    String KEY_STORE_LOAD_FAILURE = "sslutils.keystore.load.failure";
+
+    /**
+     * Histogram, the duration to build an SSL context (see {@link com.github.j3t.ssl.utils.SSLContextBuilder#build()}).
+     * Contexts returned by the cache are not measured.
+     */
+    String CONTEXT_BUILD = "sslutils.context.build";
+
+    /**
+     * Histogram, the duration to create the SSL context instance of the protocol.
+     */
+    String CONTEXT_BUILD_INSTANCE = "sslutils.context.build.instance";
+
+    /**
+     * Histogram, the duration to create the key managers.
+     */
+    String CONTEXT_BUILD_KEY_MANAGERS = "sslutils.context.build.keymanagers";
+
+    /**
+     * Histogram, the duration to create the trust managers.
+     */
+    String CONTEXT_BUILD_TRUST_MANAGERS = "sslutils.context.build.trustmanagers";
+
+    /**
+     * Histogram, the duration to initialize the SSL context.
+     */
+    String CONTEXT_BUILD_INIT = "sslutils.context.build.init";
+
+    /**
+     * Counter, the number of SSL contexts which failed to build.
+     */
+    String CONTEXT_BUILD_FAILURE = "sslutils.context.build.failure";
+
+    /**
+     * Histogram, the duration of a trust check of a strategy trust manager.
+     */
+    String TRUST_CHECK = "sslutils.trust.check";
+
+    /**
+     * Counter, the number of chains trusted by the underlying trust manager.
+     */
+    String TRUST_CHECK_TRUSTED = "sslutils.trust.check.trusted";
+
+    /**
+     * Counter, the number of trust checks which were not delegated because of the strategy.
+     */
+    String TRUST_CHECK_SKIPPED = "sslutils.trust.check.skipped";
+
+    /**
+     * Counter, the number of trust checks which were answered by the trust decision cache.
+     */
+    String TRUST_CHECK_CACHED = "sslutils.trust.check.cached";
+
+    /**
+     * Counter, the number of rejected chains.
+     */
+    String TRUST_CHECK_REJECTED = "sslutils.trust.check.rejected";
+
+    /**
+     * Histogram, the duration of an alias selection of a strategy key manager.
+     */
+    String KEY_ALIAS = "sslutils.key.alias";
+
+    /**
+     * Counter, the number of aliases chosen by the strategy.
+     */
+    String KEY_ALIAS_STRATEGY = "sslutils.key.alias.strategy";
+
+    /**
+     * Counter, the number of alias selections without result.
+     */
+    String KEY_ALIAS_NOT_FOUND = "sslutils.key.alias.notfound";
+
+    /**
+     * Histogram, the duration of a handshake. The handshakes are not intercepted by the SSL contexts of this library,
+     * so only the handshakes of sockets and engines passed to {@link Metrics#startHandshake(javax.net.ssl.SSLSocket)},
+     * {@link Metrics#registerHandshake(java.net.Socket)} or
+     * {@link Metrics#handshakeStatus(javax.net.ssl.SSLEngineResult, long)} are recorded. The sockets created by the
+     * socket factory of a {@link com.github.j3t.ssl.utils.reload.SSLContextReloader} are registered automatically.
+     */
+    String HANDSHAKE = "sslutils.handshake";
+
+    /**
+     * Counter, the number of failed handshakes started by
+     * {@link Metrics#startHandshake(javax.net.ssl.SSLSocket)}.
+     */
+    String HANDSHAKE_FAILURE = "sslutils.handshake.failure";
+
+    /**
+     * Gauge, the number of expired certificates (see {@link com.github.j3t.ssl.utils.expiry.ExpiryMonitor}), one per
+     * monitor.
+     */
+    String CERTIFICATE_EXPIRED = "sslutils.certificate.expired";
+
+    /**
+     * Gauge, the number of certificates which expire within the warning period (see
+     * {@link com.github.j3t.ssl.utils.expiry.ExpiryMonitor}), one per monitor.
+     */
+    String CERTIFICATE_EXPIRING = "sslutils.certificate.expiring";
+}
@@ -0,0 +1,370 @@
+package com.github.j3t.ssl.utils.metrics;
+
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.net.Socket;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.cert.X509Certificate;
+
+/**
+ * Entry point of the metrics. By default, nothing is recorded and the instrumented code neither allocates nor reads
+ * the clock. A {@link MetricsRecorder} (counters and latency histograms) and an {@link EventRecorder} (events with
+ * attributes) are registered for the whole process, e.g. at application startup.<br>
+ * <br>
+ * A duration is measured like this:
+ * <pre>
+ * long start = Metrics.start();
+ * ...
+ * Metrics.stop(MetricNames.HANDSHAKE, start);
+ * </pre>
+ *
+ * @author j3t
+ */
+public final class Metrics {
+    private static final MetricsRecorder NOOP = new MetricsRecorder() {
+        @Override
+        public void increment(String name) {
+        }
+
+        @Override
+        public void record(String name, long nanos) {
+        }
+
+        @Override
+        public void gauge(String name, String monitor, long value) {
+        }
+    };
+
+    private static final EventRecorder NOOP_EVENTS = new EventRecorder() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void keyStoreLoaded(String type, String provider, int entries, long bytes, long nanos) {
+        }
+
+        @Override
+        public void contextBuildPhase(String phase, String protocol, long nanos) {
+        }
+
+        @Override
+        public void trustChecked(int chainLength, String authType, String outcome, long nanos) {
+        }
+
+        @Override
+        public void aliasChosen(String alias, boolean client, boolean strategy, long nanos) {
+        }
+
+        @Override
+        public void certificateExpiry(String keyStore, String alias, String subject, long notAfter, String state) {
+        }
+    };
+
+    private static volatile MetricsRecorder recorder = NOOP;
+    private static volatile EventRecorder events = NOOP_EVENTS;
+
+    private Metrics() {
+    }
+
+    /**
+     * Registers the {@link MetricsRecorder}.
+     *
+     * @param recorder the {@link MetricsRecorder} or <code>null</code> to disable the metrics
+     */
+    public static void setRecorder(MetricsRecorder recorder) {
+        Metrics.recorder = recorder != null ? recorder : NOOP;
+    }
+
+    /**
+     * Returns the registered {@link MetricsRecorder}.
+     *
+     * @return {@link MetricsRecorder}, a no-op recorder if the metrics are disabled
+     */
+    public static MetricsRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Registers the {@link EventRecorder}.
+     *
+     * @param events the {@link EventRecorder} or <code>null</code> to disable the events
+     */
+    public static void setEventRecorder(EventRecorder events) {
+        Metrics.events = events != null ? events : NOOP_EVENTS;
+    }
+
+    /**
+     * Returns the registered {@link EventRecorder}.
+     *
+     * @return {@link EventRecorder}, a no-op recorder if the events are disabled
+     */
+    public static EventRecorder getEventRecorder() {
+        return events;
+    }
+
+    /**
+     * Returns whether a {@link MetricsRecorder} is registered.
+     *
+     * @return <code>true</code> if the metrics are enabled, otherwise <code>false</code>
+     */
+    public static boolean isEnabled() {
+        return recorder != NOOP;
+    }
+
+    /**
+     * Starts a measurement.
+     *
+     * @return the current value of {@link System#nanoTime()} or 0 if neither metrics nor events are recorded
+     */
+    public static long start() {
+        return recorder != NOOP || events.isEnabled() ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Stops a measurement and records the duration since the given start. Nothing is recorded if the measurement was
+     * started while neither metrics nor events were recorded.
+     *
+     * @param name  the name of the histogram (see {@link MetricNames})
+     * @param start the result of {@link #start()} or of a previous {@link #stop(String, long)}
+     * @return the current value of {@link System#nanoTime()}, which can be used as start of the next measurement, or
+     * 0 if nothing was recorded
+     */
+    public static long stop(String name, long start) {
+        if (start == 0)
+            return 0;
+
+        long now = System.nanoTime();
+        recorder.record(name, now - start);
+
+        return now;
+    }
+
+    /**
+     * Increments the counter with the given name.
+     *
+     * @param name the name of the counter (see {@link MetricNames})
+     */
+    public static void increment(String name) {
+        recorder.increment(name);
+    }
+
+    /**
+     * Sets the gauge with the given name and monitor.
+     *
+     * @param name    the name of the gauge (see {@link MetricNames})
+     * @param monitor the name of the monitor, which publishes the gauge, or <code>null</code>
+     * @param value   the current value
+     */
+    public static void gauge(String name, String monitor, long value) {
+        recorder.gauge(name, monitor, value);
+    }
+
+    /**
+     * Starts the handshake of the given socket and records the duration (see {@link MetricNames#HANDSHAKE}) or the
+     * failure (see {@link MetricNames#HANDSHAKE_FAILURE}).
+     *
+     * @param socket the {@link SSLSocket}
+     * @throws IOException if the handshake failed
+     * @see SSLSocket#startHandshake()
+     */
+    public static void startHandshake(SSLSocket socket) throws IOException {
+        long start = start();
+
+        try {
+            socket.startHandshake();
+        } catch (IOException e) {
+            increment(MetricNames.HANDSHAKE_FAILURE);
+            throw e;
+        }
+
+        stop(MetricNames.HANDSHAKE, start);
+    }
+
+    /**
+     * Registers a {@link HandshakeCompletedListener}, which records the duration of the first handshake of the given
+     * socket (see {@link MetricNames#HANDSHAKE}). The duration is measured from this call until the handshake is
+     * completed, so the socket should be registered when it is connected, e.g. by a socket factory. Failed handshakes
+     * are not reported to the listener, so they are not counted. Nothing is registered if neither metrics nor events
+     * are recorded.
+     *
+     * @param socket the socket, only instances of {@link SSLSocket} are registered
+     * @return the given socket
+     */
+    public static Socket registerHandshake(Socket socket) {
+        long start = start();
+
+        if (start != 0 && socket instanceof SSLSocket)
+            ((SSLSocket) socket).addHandshakeCompletedListener(new HandshakeTimer(start));
+
+        return socket;
+    }
+
+    /**
+     * Tracks the handshake of an {@link javax.net.ssl.SSLEngine} and records its duration (see
+     * {@link MetricNames#HANDSHAKE}). The method is invoked with the result of each wrap and unwrap and the value
+     * returned by the previous invocation, initially 0. The measurement starts with the first result, which requires
+     * a handshake, and is recorded when the handshake is {@link HandshakeStatus#FINISHED}, e.g.
+     * <pre>
+     * SSLEngineResult result = engine.wrap(source, target);
+     * handshake = Metrics.handshakeStatus(result, handshake);
+     * </pre>
+     * A failed handshake, i.e. an {@link javax.net.ssl.SSLException} thrown by wrap or unwrap, is counted by the
+     * caller (see {@link MetricNames#HANDSHAKE_FAILURE}).
+     *
+     * @param result the result of a wrap or unwrap
+     * @param start  the result of the previous invocation or 0
+     * @return the start of the running handshake or 0 if no handshake is running or nothing is recorded
+     */
+    public static long handshakeStatus(SSLEngineResult result, long start) {
+        HandshakeStatus status = result.getHandshakeStatus();
+
+        if (status == HandshakeStatus.FINISHED) {
+            stop(MetricNames.HANDSHAKE, start);
+            return 0;
+        }
+
+        if (start == 0 && status != HandshakeStatus.NOT_HANDSHAKING)
+            return start();
+
+        return start;
+    }
+
+    /**
+     * Records the load of a key store.
+     *
+     * @param type     the key store type
+     * @param provider the provider name or <code>null</code>
+     * @param keyStore the loaded {@link KeyStore} or <code>null</code> if the load failed
+     * @param bytes    the size of the key file or byte array
+     * @param start    the result of {@link #start()}
+     */
+    public static void keyStoreLoaded(String type, String provider, KeyStore keyStore, long bytes, long start) {
+        if (start == 0)
+            return;
+
+        long nanos = System.nanoTime() - start;
+
+        if (keyStore != null)
+            recorder.record(MetricNames.KEY_STORE_LOAD, nanos);
+        else
+            recorder.increment(MetricNames.KEY_STORE_LOAD_FAILURE);
+
+        if (events.isEnabled())
+            events.keyStoreLoaded(type, provider, size(keyStore), bytes, nanos);
+    }
+
+    /**
+     * Records a phase of an SSL context build.
+     *
+     * @param phase    the name of the phase, one of the CONTEXT_BUILD names of {@link MetricNames}
+     * @param protocol the requested protocol or <code>null</code>
+     * @param start    the result of {@link #start()} or of a previous phase
+     * @return the current value of {@link System#nanoTime()}, which can be used as start of the next phase, or 0 if
+     * nothing was recorded
+     */
+    public static long contextBuildPhase(String phase, String protocol, long start) {
+        if (start == 0)
+            return 0;
+
+        long now = System.nanoTime();
+        recorder.record(phase, now - start);
+
+        if (events.isEnabled())
+            events.contextBuildPhase(phase, protocol, now - start);
+
+        return now;
+    }
+
+    /**
+     * Records a trust check.
+     *
+     * @param chain    the certificate chain
+     * @param authType the authentication type
+     * @param outcome  the outcome, one of the TRUST_CHECK counter names of {@link MetricNames}
+     * @param start    the result of {@link #start()}
+     */
+    public static void trustChecked(X509Certificate[] chain, String authType, String outcome, long start) {
+        if (start == 0)
+            return;
+
+        long nanos = System.nanoTime() - start;
+        recorder.increment(outcome);
+        recorder.record(MetricNames.TRUST_CHECK, nanos);
+
+        if (events.isEnabled())
+            events.trustChecked(chain != null ? chain.length : 0, authType, outcome, nanos);
+    }
+
+    /**
+     * Records an alias selection.
+     *
+     * @param alias    the chosen alias or <code>null</code>
+     * @param client   <code>true</code> if a client alias was requested, otherwise <code>false</code>
+     * @param strategy <code>true</code> if the alias was chosen by the strategy, otherwise <code>false</code>
+     * @param start    the result of {@link #start()}
+     */
+    public static void aliasChosen(String alias, boolean client, boolean strategy, long start) {
+        if (start == 0)
+            return;
+
+        long nanos = System.nanoTime() - start;
+
+        if (strategy)
+            recorder.increment(MetricNames.KEY_ALIAS_STRATEGY);
+        else if (alias == null)
+            recorder.increment(MetricNames.KEY_ALIAS_NOT_FOUND);
+
+        recorder.record(MetricNames.KEY_ALIAS, nanos);
+
+        if (events.isEnabled())
+            events.aliasChosen(alias, client, strategy, nanos);
+    }
+
+    /**
+     * Records a certificate which entered the warning period or expired.
+     *
+     * @param keyStore the name of the key store
+     * @param alias    the alias of the entry
+     * @param subject  the subject of the certificate
+     * @param notAfter the end of the validity period in milliseconds since the epoch
+     * @param state    the new state, one of the CERTIFICATE gauge names of {@link MetricNames}
+     */
+    public static void certificateExpiry(String keyStore, String alias, String subject, long notAfter,
+                                         String state) {
+        if (events.isEnabled())
+            events.certificateExpiry(keyStore, alias, subject, notAfter, state);
+    }
+
+    /**
+     * Records the duration of the first completed handshake and unregisters itself.
+     */
+    private static final class HandshakeTimer implements HandshakeCompletedListener {
+        private final long start;
+
+        HandshakeTimer(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void handshakeCompleted(HandshakeCompletedEvent event) {
+            event.getSocket().removeHandshakeCompletedListener(this);
+            stop(MetricNames.HANDSHAKE, start);
+        }
+    }
+
+    private static int size(KeyStore keyStore) {
+        try {
+            return keyStore != null ? keyStore.size() : -1;
+        } catch (KeyStoreException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.j3t.ssl.utils.metrics;
+
+/**
+ * Service provider interface to record the metrics of this library (see {@link MetricNames}), e.g. to forward them
+ * to a metrics registry. An implementation is registered via {@link Metrics#setRecorder(MetricsRecorder)}.<br>
+ * <br>
+ * The methods are invoked within the handshake, so an implementation should be thread-safe and fast.
+ *
+ * @author j3t
+ */
+public interface MetricsRecorder {
+
+    /**
+     * Increments the counter with the given name by one.
+     *
+     * @param name the name of the counter (see {@link MetricNames})
+     */
+    void increment(String name);
+
+    /**
+     * Records a duration for the latency histogram with the given name.
+     *
+     * @param name  the name of the histogram (see {@link MetricNames})
+     * @param nanos the duration in nanoseconds
+     */
+    void record(String name, long nanos);
+
+    /**
+     * Sets the gauge with the given name and monitor to the given value. The gauges of different monitors are
+     * independent, e.g. each {@link com.github.j3t.ssl.utils.expiry.ExpiryMonitor} publishes its own gauges.
+     *
+     * @param name    the name of the gauge (see {@link MetricNames})
+     * @param monitor the name of the monitor, which publishes the gauge, or <code>null</code>
+     * @param value   the current value
+     */
+    void gauge(String name, String monitor, long value);
+}
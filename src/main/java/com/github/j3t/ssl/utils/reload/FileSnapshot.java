@@ -0,0 +1,89 @@
+package com.github.j3t.ssl.utils.reload;
+
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Immutable state (modification time, length and content digest) of a file at a specific time.
+ *
+ * @author j3t
+ */
+class FileSnapshot {
+    private final File file;
+    private final long lastModified;
+    private final long length;
+    private final byte[] digest;
+
+    private FileSnapshot(File file, long lastModified, long length, byte[] digest) {
+        this.file = file;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.digest = digest;
+    }
+
+    /**
+     * Creates a snapshot of the given file.
+     *
+     * @param path the path to the file
+     * @return {@link FileSnapshot}
+     * @throws IOException if the file can't be read
+     */
+    static FileSnapshot of(String path) throws IOException {
+        File file = new File(path);
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        return new FileSnapshot(file, lastModified, length, digest(file));
+    }
+
+    /**
+     * Returns a snapshot of the current state of the file. The content is only read again, when the modification time
+     * or the length of the file has changed.
+     *
+     * @return this {@link FileSnapshot} if the file wasn't touched, otherwise a new one
+     * @throws IOException if the file can't be read
+     */
+    FileSnapshot refresh() throws IOException {
+        if (file.lastModified() == lastModified && file.length() == length)
+            return this;
+
+        return of(file.getPath());
+    }
+
+    /**
+     * Checks that the given snapshot has the same content as this one.
+     *
+     * @param other the other snapshot
+     * @return <code>true</code> if the digests are equal, otherwise <code>false</code>
+     */
+    boolean hasSameContent(FileSnapshot other) {
+        return Arrays.equals(digest, other.digest);
+    }
+
+    private static byte[] digest(File file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            InputStream in = new FileInputStream(file);
+
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+
+                while ((read = in.read(buffer)) != -1)
+                    digest.update(buffer, 0, read);
+            } finally {
+                in.close();
+            }
+
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.j3t.ssl.utils.reload;
+
+
+import javax.net.ssl.*;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Implementation of {@link SSLContextSpi} that delegates each request to the current {@link SSLContext}. The socket
+ * factories are created once, so they stay the same when the current context is replaced.
+ *
+ * @author j3t
+ */
+class ReloadingSSLContextSpi extends SSLContextSpi {
+    private final AtomicReference<SSLContext> delegate;
+    private final SSLSocketFactory socketFactory;
+    private final SSLServerSocketFactory serverSocketFactory;
+
+    ReloadingSSLContextSpi(AtomicReference<SSLContext> delegate) {
+        this.delegate = delegate;
+        this.socketFactory = new ReloadingSSLSocketFactory(delegate);
+        this.serverSocketFactory = new ReloadingSSLServerSocketFactory(delegate);
+    }
+
+    @Override
+    protected void engineInit(KeyManager[] keyManagers, TrustManager[] trustManagers, SecureRandom secureRandom)
+            throws KeyManagementException {
+        throw new KeyManagementException("context is initialized by the reloader!");
+    }
+
+    @Override
+    protected SSLSocketFactory engineGetSocketFactory() {
+        return socketFactory;
+    }
+
+    @Override
+    protected SSLServerSocketFactory engineGetServerSocketFactory() {
+        return serverSocketFactory;
+    }
+
+    @Override
+    protected SSLEngine engineCreateSSLEngine() {
+        return delegate.get().createSSLEngine();
+    }
+
+    @Override
+    protected SSLEngine engineCreateSSLEngine(String host, int port) {
+        return delegate.get().createSSLEngine(host, port);
+    }
+
+    @Override
+    protected SSLSessionContext engineGetServerSessionContext() {
+        return delegate.get().getServerSessionContext();
+    }
+
+    @Override
+    protected SSLSessionContext engineGetClientSessionContext() {
+        return delegate.get().getClientSessionContext();
+    }
+
+    @Override
+    protected SSLParameters engineGetDefaultSSLParameters() {
+        return delegate.get().getDefaultSSLParameters();
+    }
+
+    @Override
+    protected SSLParameters engineGetSupportedSSLParameters() {
+        return delegate.get().getSupportedSSLParameters();
+    }
+}
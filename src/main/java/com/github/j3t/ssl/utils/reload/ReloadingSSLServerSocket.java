@@ -0,0 +1,155 @@
+package com.github.j3t.ssl.utils.reload;
+
+
+import com.github.j3t.ssl.utils.metrics.Metrics;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Implementation of {@link SSLServerSocket} that accepts plain connections and layers each one with the socket factory
+ * of the current {@link SSLContext}, so a long-lived server socket serves the rotated certificates once the context
+ * is reloaded. The settings (e.g. cipher suites, protocols and client authentication) are applied to each accepted
+ * socket, <code>null</code> settings keep the defaults of the current context.
+ *
+ * @author j3t
+ */
+class ReloadingSSLServerSocket extends SSLServerSocket {
+    private final AtomicReference<SSLContext> delegate;
+
+    private volatile String[] enabledCipherSuites;
+    private volatile String[] enabledProtocols;
+    private volatile boolean needClientAuth;
+    private volatile boolean wantClientAuth;
+    private volatile boolean useClientMode;
+    private volatile boolean enableSessionCreation = true;
+
+    ReloadingSSLServerSocket(AtomicReference<SSLContext> delegate) throws IOException {
+        this.delegate = delegate;
+    }
+
+    ReloadingSSLServerSocket(AtomicReference<SSLContext> delegate, int port, int backlog, InetAddress ifAddress)
+            throws IOException {
+        super(port, backlog, ifAddress);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Socket accept() throws IOException {
+        Socket socket = super.accept();
+        SSLSocket sslSocket;
+
+        try {
+            sslSocket = (SSLSocket) delegate.get().getSocketFactory().createSocket(socket, null, socket.getPort(),
+                    true);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+
+        sslSocket.setUseClientMode(useClientMode);
+
+        if (enabledCipherSuites != null)
+            sslSocket.setEnabledCipherSuites(enabledCipherSuites);
+
+        if (enabledProtocols != null)
+            sslSocket.setEnabledProtocols(enabledProtocols);
+
+        if (needClientAuth)
+            sslSocket.setNeedClientAuth(true);
+        else
+            sslSocket.setWantClientAuth(wantClientAuth);
+
+        sslSocket.setEnableSessionCreation(enableSessionCreation);
+
+        return Metrics.registerHandshake(sslSocket);
+    }
+
+    @Override
+    public String[] getEnabledCipherSuites() {
+        String[] cipherSuites = enabledCipherSuites;
+
+        return cipherSuites != null ? cipherSuites.clone() : delegate.get().getServerSocketFactory()
+                .getDefaultCipherSuites();
+    }
+
+    @Override
+    public void setEnabledCipherSuites(String[] suites) {
+        if (suites == null)
+            throw new IllegalArgumentException("suites must not be null!");
+
+        enabledCipherSuites = suites.clone();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return delegate.get().getServerSocketFactory().getSupportedCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedProtocols() {
+        return delegate.get().getSupportedSSLParameters().getProtocols();
+    }
+
+    @Override
+    public String[] getEnabledProtocols() {
+        String[] protocols = enabledProtocols;
+
+        return protocols != null ? protocols.clone() : delegate.get().getDefaultSSLParameters().getProtocols();
+    }
+
+    @Override
+    public void setEnabledProtocols(String[] protocols) {
+        if (protocols == null)
+            throw new IllegalArgumentException("protocols must not be null!");
+
+        enabledProtocols = protocols.clone();
+    }
+
+    @Override
+    public void setNeedClientAuth(boolean need) {
+        needClientAuth = need;
+        wantClientAuth = false;
+    }
+
+    @Override
+    public boolean getNeedClientAuth() {
+        return needClientAuth;
+    }
+
+    @Override
+    public void setWantClientAuth(boolean want) {
+        wantClientAuth = want;
+        needClientAuth = false;
+    }
+
+    @Override
+    public boolean getWantClientAuth() {
+        return wantClientAuth;
+    }
+
+    @Override
+    public void setUseClientMode(boolean mode) {
+        useClientMode = mode;
+    }
+
+    @Override
+    public boolean getUseClientMode() {
+        return useClientMode;
+    }
+
+    @Override
+    public void setEnableSessionCreation(boolean flag) {
+        enableSessionCreation = flag;
+    }
+
+    @Override
+    public boolean getEnableSessionCreation() {
+        return enableSessionCreation;
+    }
+}
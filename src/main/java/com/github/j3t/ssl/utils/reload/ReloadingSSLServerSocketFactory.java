@@ -0,0 +1,57 @@
+package com.github.j3t.ssl.utils.reload;
+
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Implementation of {@link SSLServerSocketFactory} that creates server sockets, which layer each accepted connection
+ * with the current {@link SSLContext} (see {@link ReloadingSSLServerSocket}).
+ *
+ * @author j3t
+ */
+class ReloadingSSLServerSocketFactory extends SSLServerSocketFactory {
+    private final AtomicReference<SSLContext> delegate;
+
+    ReloadingSSLServerSocketFactory(AtomicReference<SSLContext> delegate) {
+        this.delegate = delegate;
+    }
+
+    private SSLServerSocketFactory factory() {
+        return delegate.get().getServerSocketFactory();
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return factory().getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return factory().getSupportedCipherSuites();
+    }
+
+    @Override
+    public ServerSocket createServerSocket() throws IOException {
+        return new ReloadingSSLServerSocket(delegate);
+    }
+
+    @Override
+    public ServerSocket createServerSocket(int port) throws IOException {
+        return new ReloadingSSLServerSocket(delegate, port, 50, null);
+    }
+
+    @Override
+    public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+        return new ReloadingSSLServerSocket(delegate, port, backlog, null);
+    }
+
+    @Override
+    public ServerSocket createServerSocket(int port, int backlog, InetAddress ifAddress) throws IOException {
+        return new ReloadingSSLServerSocket(delegate, port, backlog, ifAddress);
+    }
+}
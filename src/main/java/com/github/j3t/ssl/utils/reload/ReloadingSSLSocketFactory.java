@@ -0,0 +1,71 @@
+package com.github.j3t.ssl.utils.reload;
+
+
+import com.github.j3t.ssl.utils.metrics.Metrics;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Implementation of {@link SSLSocketFactory} that creates each socket with the socket factory of the current
+ * {@link SSLContext}. The handshakes of the sockets are recorded (see {@link Metrics#registerHandshake(Socket)}), for
+ * unconnected sockets the duration includes the connect.
+ *
+ * @author j3t
+ */
+class ReloadingSSLSocketFactory extends SSLSocketFactory {
+    private final AtomicReference<SSLContext> delegate;
+
+    ReloadingSSLSocketFactory(AtomicReference<SSLContext> delegate) {
+        this.delegate = delegate;
+    }
+
+    private SSLSocketFactory factory() {
+        return delegate.get().getSocketFactory();
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return factory().getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return factory().getSupportedCipherSuites();
+    }
+
+    @Override
+    public Socket createSocket() throws IOException {
+        return Metrics.registerHandshake(factory().createSocket());
+    }
+
+    @Override
+    public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+        return Metrics.registerHandshake(factory().createSocket(socket, host, port, autoClose));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return Metrics.registerHandshake(factory().createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        return Metrics.registerHandshake(factory().createSocket(host, port, localHost, localPort));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return Metrics.registerHandshake(factory().createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+            throws IOException {
+        return Metrics.registerHandshake(factory().createSocket(address, port, localAddress, localPort));
+    }
+}
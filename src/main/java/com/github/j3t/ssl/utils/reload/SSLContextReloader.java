@@ -0,0 +1,176 @@
+package com.github.j3t.ssl.utils.reload;
+
+
+import com.github.j3t.ssl.utils.KeyStoreBuilder;
+import com.github.j3t.ssl.utils.SSLContextBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Provides a {@link SSLContext} which is rebuilt whenever the content of the key store file or the trust store file has
+ * changed (see {@link KeyStoreBuilder#setPath(String)}). The context returned by {@link #getSSLContext()} never
+ * changes, it delegates to the most recently built context. Socket factories and engines obtained from it are stable
+ * too, connections created before a reload keep using the previous context. Server sockets accept plain connections
+ * and layer each one with the current context, so they serve the rotated certificates without being recreated.<br>
+ * <br>
+ * The files can be checked on demand via {@link #reload()} or periodically in background via
+ * {@link #start(long, TimeUnit)}. A file is only read again, if the modification time or the length has changed and
+ * the context is only rebuilt, if the content digest has changed. Handshakes never wait for a reload.
+ *
+ * @author j3t
+ */
+public class SSLContextReloader implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSLContextReloader.class);
+
+    private final SSLContextBuilder sslContextBuilder;
+    private final KeyStoreBuilder keyStoreBuilder;
+    private final KeyStoreBuilder trustStoreBuilder;
+
+    private final AtomicReference<SSLContext> delegate;
+    private final SSLContext sslContext;
+
+    private FileSnapshot keyStoreSnapshot;
+    private FileSnapshot trustStoreSnapshot;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Creates an instance of {@link SSLContextReloader} and builds the initial context.
+     *
+     * @param sslContextBuilder the builder of the context, the key and trust store will be replaced on each reload
+     * @param keyStoreBuilder   the builder of the key store or <code>null</code>
+     * @param trustStoreBuilder the builder of the trust store or <code>null</code>
+     * @throws GeneralSecurityException if the build failed!
+     * @throws IOException              if the build failed!
+     * @throws IllegalAccessException   if the build failed!
+     * @throws IllegalArgumentException if sslContextBuilder is <code>null</code>
+     */
+    public SSLContextReloader(SSLContextBuilder sslContextBuilder, KeyStoreBuilder keyStoreBuilder,
+                              KeyStoreBuilder trustStoreBuilder)
+            throws GeneralSecurityException, IOException, IllegalAccessException {
+        if (sslContextBuilder == null)
+            throw new IllegalArgumentException("sslContextBuilder must not be null!");
+
+        this.sslContextBuilder = sslContextBuilder;
+        this.keyStoreBuilder = keyStoreBuilder;
+        this.trustStoreBuilder = trustStoreBuilder;
+
+        if (keyStoreBuilder != null) {
+            keyStoreSnapshot = createSnapshot(keyStoreBuilder);
+            sslContextBuilder.setKeyStore(keyStoreBuilder.build());
+        }
+
+        if (trustStoreBuilder != null) {
+            trustStoreSnapshot = createSnapshot(trustStoreBuilder);
+            sslContextBuilder.setTrustStore(trustStoreBuilder.build());
+        }
+
+        SSLContext initial = sslContextBuilder.build();
+        delegate = new AtomicReference<SSLContext>(initial);
+        sslContext = new SSLContext(new ReloadingSSLContextSpi(delegate), initial.getProvider(),
+                initial.getProtocol()) {
+        };
+    }
+
+    /**
+     * Returns the reloading {@link SSLContext}.
+     *
+     * @return {@link SSLContext}, always the same instance
+     */
+    public SSLContext getSSLContext() {
+        return sslContext;
+    }
+
+    SSLContext getDelegate() {
+        return delegate.get();
+    }
+
+    /**
+     * Checks the key store and trust store file and rebuilds the context if the content of at least one has changed.
+     * If the rebuild fails, the current context stays in use and the files will be checked again on the next call.
+     *
+     * @return <code>true</code> if the context was rebuilt, otherwise <code>false</code>
+     * @throws GeneralSecurityException if the build failed!
+     * @throws IOException              if a file can't be read or the build failed!
+     * @throws IllegalAccessException   if the build failed!
+     */
+    public synchronized boolean reload() throws GeneralSecurityException, IOException, IllegalAccessException {
+        FileSnapshot keyStoreCurrent = keyStoreSnapshot != null ? keyStoreSnapshot.refresh() : null;
+        FileSnapshot trustStoreCurrent = trustStoreSnapshot != null ? trustStoreSnapshot.refresh() : null;
+
+        boolean keyStoreChanged = keyStoreCurrent != null && !keyStoreCurrent.hasSameContent(keyStoreSnapshot);
+        boolean trustStoreChanged = trustStoreCurrent != null && !trustStoreCurrent.hasSameContent(trustStoreSnapshot);
+
+        if (keyStoreChanged)
+            sslContextBuilder.setKeyStore(keyStoreBuilder.build());
+
+        if (trustStoreChanged)
+            sslContextBuilder.setTrustStore(trustStoreBuilder.build());
+
+        if (keyStoreChanged || trustStoreChanged) {
+            delegate.set(sslContextBuilder.build());
+            LOGGER.debug("context reloaded");
+        }
+
+        keyStoreSnapshot = keyStoreCurrent;
+        trustStoreSnapshot = trustStoreCurrent;
+
+        return keyStoreChanged || trustStoreChanged;
+    }
+
+    /**
+     * Starts checking the files periodically in a background thread. Failed reloads are logged and retried.
+     *
+     * @param period the delay between the end of one check and the start of the next one
+     * @param unit   the time unit of period
+     * @throws IllegalStateException if the reloader is already started
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (executor != null)
+            throw new IllegalStateException("reloader is already started!");
+
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ssl-context-reloader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reload();
+                } catch (Exception e) {
+                    LOGGER.warn("reload failed!", e);
+                }
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stops checking the files in background. The context stays usable.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private static FileSnapshot createSnapshot(KeyStoreBuilder builder) throws IOException {
+        return builder.getPath() != null ? FileSnapshot.of(builder.getPath()) : null;
+    }
+}
@@ -0,0 +1,165 @@
+package com.github.j3t.ssl.utils.sni;
+
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Index of host names to key store aliases. The host names are stored in a trie of reversed labels (e.g.
+ * www.example.com is stored as com &rarr; example &rarr; www), so a lookup needs one step per label no matter how many
+ * host names are indexed. Wildcard names (e.g. *.example.com) are stored at the node of their domain and match exactly
+ * one additional label.<br>
+ * <br>
+ * The index is not thread-safe while it is filled, lookups can be done concurrently afterwards.
+ *
+ * @author j3t
+ */
+public class HostNameIndex {
+    private final Node root = new Node();
+    private int size;
+
+    /**
+     * Adds a host name to the index. Names are compared case-insensitive, a trailing dot is ignored. Wildcards are
+     * only supported as complete left-most label, other names with wildcards will be ignored.
+     *
+     * @param hostName     the host name (e.g. www.example.com or *.example.com)
+     * @param alias        the alias of the key store entry
+     * @param keyAlgorithm the algorithm of the private key (e.g. RSA or EC)
+     * @return <code>true</code> if the name was added, otherwise <code>false</code>
+     */
+    public boolean add(String hostName, String alias, String keyAlgorithm) {
+        String[] labels = split(hostName);
+
+        if (labels == null)
+            return false;
+
+        boolean wildcard = "*".equals(labels[0]);
+
+        if (wildcard && labels.length < 3)
+            return false;
+
+        for (int i = wildcard ? 1 : 0; i < labels.length; i++)
+            if (labels[i].indexOf('*') >= 0)
+                return false;
+
+        Node node = root;
+        for (int i = labels.length - 1; i >= (wildcard ? 1 : 0); i--)
+            node = node.child(labels[i]);
+
+        (wildcard ? node.wildcards : node.exacts).add(new Entry(alias, keyAlgorithm));
+        size++;
+
+        return true;
+    }
+
+    /**
+     * Finds the alias for the given host name and key type. An exact match is preferred to a wildcard match.
+     *
+     * @param hostName the host name requested by the peer
+     * @param keyType  the key type requested by the handshake (e.g. RSA, EC or EC_RSA) or <code>null</code> if any
+     *                 key is acceptable
+     * @return the alias or <code>null</code> if there is no matching entry
+     */
+    public String find(String hostName, String keyType) {
+        String[] labels = split(hostName);
+
+        if (labels == null)
+            return null;
+
+        Node domain = root;
+        for (int i = labels.length - 1; i >= 1 && domain != null; i--)
+            domain = domain.children.get(labels[i]);
+
+        if (domain == null)
+            return null;
+
+        Node host = domain.children.get(labels[0]);
+        String alias = host != null ? find(host.exacts, keyType) : null;
+
+        if (alias == null && labels.length > 1)
+            alias = find(domain.wildcards, keyType);
+
+        return alias;
+    }
+
+    /**
+     * Returns the number of indexed host names.
+     *
+     * @return the number of host names
+     */
+    public int size() {
+        return size;
+    }
+
+    private static String find(List<Entry> entries, String keyType) {
+        for (Entry entry : entries)
+            if (matches(entry.keyAlgorithm, keyType))
+                return entry.alias;
+
+        return null;
+    }
+
+    static boolean matches(String keyAlgorithm, String keyType) {
+        if (keyType == null)
+            return true;
+
+        int separator = keyType.indexOf('_');
+        String algorithm = separator > 0 ? keyType.substring(0, separator) : keyType;
+
+        if ("RSASSA-PSS".equals(algorithm))
+            return "RSA".equals(keyAlgorithm) || "RSASSA-PSS".equals(keyAlgorithm);
+
+        return algorithm.equals(keyAlgorithm);
+    }
+
+    private static String[] split(String hostName) {
+        if (hostName == null)
+            return null;
+
+        String name = hostName.toLowerCase(Locale.ENGLISH);
+
+        if (name.endsWith("."))
+            name = name.substring(0, name.length() - 1);
+
+        if (name.length() == 0)
+            return null;
+
+        String[] labels = name.split("\\.", -1);
+
+        for (String label : labels)
+            if (label.length() == 0)
+                return null;
+
+        return labels;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<String, Node>();
+        private final List<Entry> exacts = new LinkedList<Entry>();
+        private final List<Entry> wildcards = new LinkedList<Entry>();
+
+        private Node child(String label) {
+            Node child = children.get(label);
+
+            if (child == null) {
+                child = new Node();
+                children.put(label, child);
+            }
+
+            return child;
+        }
+    }
+
+    private static class Entry {
+        private final String alias;
+        private final String keyAlgorithm;
+
+        private Entry(String alias, String keyAlgorithm) {
+            this.alias = alias;
+            this.keyAlgorithm = keyAlgorithm;
+        }
+    }
+}
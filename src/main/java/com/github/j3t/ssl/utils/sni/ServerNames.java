@@ -0,0 +1,40 @@
+package com.github.j3t.ssl.utils.sni;
+
+
+import javax.net.ssl.*;
+import java.net.Socket;
+
+/**
+ * Helper to retrieve the host name requested via the server name indication (SNI) extension. The SNI API is available
+ * since Java 8, so this class must not be used by older runtimes.
+ *
+ * @author j3t
+ */
+final class ServerNames {
+
+    private ServerNames() {
+    }
+
+    static String getRequestedHostName(Socket socket) {
+        if (socket instanceof SSLSocket)
+            return getRequestedHostName(((SSLSocket) socket).getHandshakeSession());
+
+        return null;
+    }
+
+    static String getRequestedHostName(SSLEngine engine) {
+        if (engine != null)
+            return getRequestedHostName(engine.getHandshakeSession());
+
+        return null;
+    }
+
+    private static String getRequestedHostName(SSLSession session) {
+        if (session instanceof ExtendedSSLSession)
+            for (SNIServerName serverName : ((ExtendedSSLSession) session).getRequestedServerNames())
+                if (serverName instanceof SNIHostName)
+                    return ((SNIHostName) serverName).getAsciiName();
+
+        return null;
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.j3t.ssl.utils.sni;
+
+
+import com.github.j3t.ssl.utils.EnvironmentHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
+import javax.net.ssl.X509KeyManager;
+import java.net.Socket;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.util.*;
+
+/**
+ * Implementation of {@link X509ExtendedKeyManager} that selects the server alias by the host name the client requested
+ * via the server name indication (SNI) extension. The aliases of the key store are indexed once by the DNS names of
+ * the subject alternative names extension, or by the common name if the certificate has no DNS names (see
+ * {@link HostNameIndex}). If no alias matches, the default alias is selected or the request is delegated to the
+ * underlying key manager.<br>
+ * <br>
+ * SNI is available since Java 8, older runtimes always use the fallback.
+ *
+ * @author j3t
+ */
+public class SniKeyManager extends X509ExtendedKeyManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SniKeyManager.class);
+    private static final Integer DNS_NAME = 2;
+
+    private final X509KeyManager keyManager;
+    private final HostNameIndex index;
+    private final String defaultAlias;
+    private final String defaultKeyAlgorithm;
+
+    /**
+     * Creates an instance of {@link SniKeyManager}.
+     *
+     * @param keyManager   the underlying {@link X509KeyManager}, provides the keys and certificates
+     * @param keyStore     the key store of the underlying key manager
+     * @param defaultAlias the alias selected when no host name matches or <code>null</code> to consult the underlying
+     *                     key manager
+     * @throws KeyStoreException if the key store is not initialized
+     */
+    public SniKeyManager(X509KeyManager keyManager, KeyStore keyStore, String defaultAlias) throws KeyStoreException {
+        this.keyManager = keyManager;
+        this.index = createIndex(keyStore);
+        this.defaultAlias = defaultAlias;
+        this.defaultKeyAlgorithm = getKeyAlgorithm(keyStore, defaultAlias);
+    }
+
+    /**
+     * Returns the alias selected when no host name matches.
+     *
+     * @return the default alias or <code>null</code>
+     */
+    public String getDefaultAlias() {
+        return defaultAlias;
+    }
+
+    /**
+     * Returns the index of host names.
+     *
+     * @return {@link HostNameIndex}
+     */
+    public HostNameIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+        String hostName = EnvironmentHelper.isJava8OrHigher() ? ServerNames.getRequestedHostName(socket) : null;
+        String alias = chooseServerAlias(hostName, keyType);
+
+        return alias != null ? alias : keyManager.chooseServerAlias(keyType, issuers, socket);
+    }
+
+    @Override
+    public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+        String hostName = EnvironmentHelper.isJava8OrHigher() ? ServerNames.getRequestedHostName(engine) : null;
+        String alias = chooseServerAlias(hostName, keyType);
+
+        if (alias != null)
+            return alias;
+
+        if (keyManager instanceof X509ExtendedKeyManager)
+            return ((X509ExtendedKeyManager) keyManager).chooseEngineServerAlias(keyType, issuers, engine);
+
+        return keyManager.chooseServerAlias(keyType, issuers, null);
+    }
+
+    private String chooseServerAlias(String hostName, String keyType) {
+        String alias = index.find(hostName, keyType);
+
+        if (alias == null && defaultAlias != null && HostNameIndex.matches(defaultKeyAlgorithm, keyType))
+            alias = defaultAlias;
+
+        LOGGER.debug("chosen alias for {}: {}", hostName, alias);
+
+        return alias;
+    }
+
+    @Override
+    public String chooseClientAlias(String[] keyTypes, Principal[] issuers, Socket socket) {
+        return keyManager.chooseClientAlias(keyTypes, issuers, socket);
+    }
+
+    @Override
+    public String chooseEngineClientAlias(String[] keyTypes, Principal[] issuers, SSLEngine engine) {
+        if (keyManager instanceof X509ExtendedKeyManager)
+            return ((X509ExtendedKeyManager) keyManager).chooseEngineClientAlias(keyTypes, issuers, engine);
+
+        return keyManager.chooseClientAlias(keyTypes, issuers, null);
+    }
+
+    @Override
+    public X509Certificate[] getCertificateChain(String alias) {
+        return keyManager.getCertificateChain(alias);
+    }
+
+    @Override
+    public String[] getClientAliases(String keyType, Principal[] issuers) {
+        return keyManager.getClientAliases(keyType, issuers);
+    }
+
+    @Override
+    public PrivateKey getPrivateKey(String alias) {
+        return keyManager.getPrivateKey(alias);
+    }
+
+    @Override
+    public String[] getServerAliases(String keyType, Principal[] issuers) {
+        return keyManager.getServerAliases(keyType, issuers);
+    }
+
+    private static HostNameIndex createIndex(KeyStore keyStore) throws KeyStoreException {
+        HostNameIndex index = new HostNameIndex();
+        Enumeration<String> aliases = keyStore.aliases();
+
+        while (aliases.hasMoreElements()) {
+            String alias = aliases.nextElement();
+            Certificate certificate = keyStore.isKeyEntry(alias) ? keyStore.getCertificate(alias) : null;
+
+            if (certificate instanceof X509Certificate) {
+                X509Certificate x509Certificate = (X509Certificate) certificate;
+                String keyAlgorithm = x509Certificate.getPublicKey().getAlgorithm();
+
+                for (String hostName : getHostNames(x509Certificate))
+                    index.add(hostName, alias, keyAlgorithm);
+            }
+        }
+
+        return index;
+    }
+
+    static Collection<String> getHostNames(X509Certificate certificate) {
+        Set<String> hostNames = new LinkedHashSet<String>();
+
+        try {
+            Collection<List<?>> alternativeNames = certificate.getSubjectAlternativeNames();
+
+            if (alternativeNames != null)
+                for (List<?> alternativeName : alternativeNames)
+                    if (DNS_NAME.equals(alternativeName.get(0)))
+                        hostNames.add((String) alternativeName.get(1));
+        } catch (CertificateParsingException e) {
+            LOGGER.debug("subject alternative names can't be parsed", e);
+        }
+
+        if (hostNames.isEmpty())
+            try {
+                for (Rdn rdn : new LdapName(certificate.getSubjectX500Principal().getName()).getRdns())
+                    if ("CN".equalsIgnoreCase(rdn.getType()))
+                        hostNames.add(rdn.getValue().toString());
+            } catch (InvalidNameException e) {
+                LOGGER.debug("subject can't be parsed", e);
+            }
+
+        return hostNames;
+    }
+
+    private static String getKeyAlgorithm(KeyStore keyStore, String alias) throws KeyStoreException {
+        Certificate certificate = alias != null ? keyStore.getCertificate(alias) : null;
+
+        return certificate != null ? certificate.getPublicKey().getAlgorithm() : null;
+    }
+}
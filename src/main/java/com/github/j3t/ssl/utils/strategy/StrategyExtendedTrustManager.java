@@ -0,0 +1,145 @@
+package com.github.j3t.ssl.utils.strategy;
+
+import javax.net.ssl.*;
+import java.net.Socket;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+/**
+ * Implementation of {@link X509ExtendedTrustManager} that allows control which peers can be trusted, like the
+ * {@link StrategyTrustManager} does. Requests of a {@link Socket} or an {@link SSLEngine} are delegated to the
+ * corresponding methods of the trust manager of the current context, so the endpoint identification is done within
+ * the handshake.<br>
+ * <br>
+ * If a {@link TrustDecisionCache} is used and the endpoint identification is enabled, a decision is only reused for
+ * the same peer host.<br>
+ * <br>
+ * <b>Note:</b> If the strategy skips the trust manager of the current context, neither the endpoint identification
+ * nor the algorithm constraints are checked, since both are part of the trust manager. The runtime only adds these
+ * checks to trust managers which don't extend {@link X509ExtendedTrustManager}, like the {@link StrategyTrustManager},
+ * so a strategy which skips the trust manager should verify the peer host itself if required.
+ * {@link X509ExtendedTrustManager} is available since Java 7.
+ *
+ * @author j3t
+ * @see TrustManagerStrategy#checkTrusted(X509Certificate[], String)
+ */
+public class StrategyExtendedTrustManager extends X509ExtendedTrustManager {
+    private X509ExtendedTrustManager trustManager;
+    private StrategyTrustCheck check;
+
+    /**
+     * Creates an instance of {@link StrategyExtendedTrustManager}.
+     *
+     * @param trustManager the underlying {@link X509ExtendedTrustManager}
+     * @param strategy     the {@link TrustManagerStrategy}
+     * @param cache        the {@link TrustDecisionCache} or <code>null</code>
+     */
+    public StrategyExtendedTrustManager(final X509ExtendedTrustManager trustManager, TrustManagerStrategy strategy,
+                                        TrustDecisionCache cache) {
+        this.trustManager = trustManager;
+        this.check = new StrategyTrustCheck(trustManager, strategy, cache) {
+            @Override
+            void delegate(X509Certificate[] chain, String authType, boolean client, Socket socket, SSLEngine engine)
+                    throws CertificateException {
+                if (socket != null)
+                    if (client)
+                        trustManager.checkClientTrusted(chain, authType, socket);
+                    else
+                        trustManager.checkServerTrusted(chain, authType, socket);
+                else if (engine != null)
+                    if (client)
+                        trustManager.checkClientTrusted(chain, authType, engine);
+                    else
+                        trustManager.checkServerTrusted(chain, authType, engine);
+                else if (client)
+                    trustManager.checkClientTrusted(chain, authType);
+                else
+                    trustManager.checkServerTrusted(chain, authType);
+            }
+
+            @Override
+            String createKey(X509Certificate[] chain, String authType, boolean client, Socket socket,
+                             SSLEngine engine) throws CertificateException {
+                String algorithm = socket != null ? getEndpointIdentificationAlgorithm(socket)
+                        : getEndpointIdentificationAlgorithm(engine);
+
+                if (algorithm == null)
+                    return super.createKey(chain, authType, client, socket, engine);
+
+                String host = socket != null ? getPeerHost(socket) : getPeerHost(engine);
+
+                // the decision depends on the peer, but the peer is unknown
+                if (host == null)
+                    return null;
+
+                return TrustDecisionCache.createKey(getScope(), getVersion(), chain, authType, client,
+                        algorithm + ":" + host);
+            }
+        };
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        check.check(chain, authType, true, null, null);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        check.check(chain, authType, false, null, null);
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket)
+            throws CertificateException {
+        check.check(chain, authType, true, socket, null);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket)
+            throws CertificateException {
+        check.check(chain, authType, false, socket, null);
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine)
+            throws CertificateException {
+        check.check(chain, authType, true, null, engine);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine)
+            throws CertificateException {
+        check.check(chain, authType, false, null, engine);
+    }
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+        return trustManager.getAcceptedIssuers();
+    }
+
+    private static String getEndpointIdentificationAlgorithm(Socket socket) {
+        if (socket instanceof SSLSocket)
+            return ((SSLSocket) socket).getSSLParameters().getEndpointIdentificationAlgorithm();
+
+        return null;
+    }
+
+    private static String getPeerHost(Socket socket) {
+        if (socket instanceof SSLSocket) {
+            SSLSession session = ((SSLSocket) socket).getHandshakeSession();
+
+            if (session != null)
+                return session.getPeerHost();
+        }
+
+        return null;
+    }
+
+    private static String getEndpointIdentificationAlgorithm(SSLEngine engine) {
+        return engine != null ? engine.getSSLParameters().getEndpointIdentificationAlgorithm() : null;
+    }
+
+    private static String getPeerHost(SSLEngine engine) {
+        return engine != null ? engine.getPeerHost() : null;
+    }
+}
@@ -1,9 +1,12 @@
 package com.github.j3t.ssl.utils.strategy;
 
 
+import com.github.j3t.ssl.utils.metrics.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
 import javax.net.ssl.X509KeyManager;
 import java.net.Socket;
 import java.security.Principal;
@@ -11,14 +14,16 @@ import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
 
 /**
- * Implementation of {@link X509KeyManager} that allows control which alias/key is used during authentication. Whenever
- * an alias/key is requested, the given {@link TrustManagerStrategy} will be consulted. Depending on the result, the
- * request will be delegated to the key manager of the current context or not.
+ * Implementation of {@link X509ExtendedKeyManager} that allows control which alias/key is used during authentication.
+ * Whenever an alias/key is requested, the given {@link TrustManagerStrategy} will be consulted. Depending on the
+ * result, the request will be delegated to the key manager of the current context or not. Requests of an
+ * {@link SSLEngine} are delegated to the engine methods, if the key manager of the current context is an
+ * {@link X509ExtendedKeyManager}.
  *
  * @author j3t
  * @see KeyManagerStrategy
  */
-public class StrategyKeyManager implements X509KeyManager {
+public class StrategyKeyManager extends X509ExtendedKeyManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(StrategyKeyManager.class);
 
     private X509KeyManager keyManager;
@@ -37,26 +42,56 @@ public class StrategyKeyManager implements X509KeyManager {
 
     @Override
     public String chooseClientAlias(String[] keyTypes, Principal[] issuers, Socket socket) {
+        long start = Metrics.start();
         String alias = strategy.chooseAlias();
+        boolean strategyAlias = alias != null;
 
         if (alias == null)
             alias = keyManager.chooseClientAlias(keyTypes, issuers, socket);
 
-        LOGGER.debug("chosen alias: {}", alias);
-
-        return alias;
+        return chosen(alias, true, strategyAlias, start);
     }
 
     @Override
     public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+        long start = Metrics.start();
         String alias = strategy.chooseAlias();
+        boolean strategyAlias = alias != null;
 
         if (alias == null)
             alias = keyManager.chooseServerAlias(keyType, issuers, socket);
 
-        LOGGER.debug("chosen alias: {}", alias);
+        return chosen(alias, false, strategyAlias, start);
+    }
 
-        return alias;
+    @Override
+    public String chooseEngineClientAlias(String[] keyTypes, Principal[] issuers, SSLEngine engine) {
+        long start = Metrics.start();
+        String alias = strategy.chooseAlias();
+        boolean strategyAlias = alias != null;
+
+        if (alias == null)
+            if (keyManager instanceof X509ExtendedKeyManager)
+                alias = ((X509ExtendedKeyManager) keyManager).chooseEngineClientAlias(keyTypes, issuers, engine);
+            else
+                alias = keyManager.chooseClientAlias(keyTypes, issuers, null);
+
+        return chosen(alias, true, strategyAlias, start);
+    }
+
+    @Override
+    public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+        long start = Metrics.start();
+        String alias = strategy.chooseAlias();
+        boolean strategyAlias = alias != null;
+
+        if (alias == null)
+            if (keyManager instanceof X509ExtendedKeyManager)
+                alias = ((X509ExtendedKeyManager) keyManager).chooseEngineServerAlias(keyType, issuers, engine);
+            else
+                alias = keyManager.chooseServerAlias(keyType, issuers, null);
+
+        return chosen(alias, false, strategyAlias, start);
     }
 
     @Override
@@ -79,4 +114,12 @@ public class StrategyKeyManager implements X509KeyManager {
         return keyManager.getServerAliases(keyType, issuers);
     }
 
+    private static String chosen(String alias, boolean client, boolean strategy, long start) {
+        LOGGER.debug("chosen alias: {}", alias);
+
+        Metrics.aliasChosen(alias, client, strategy, start);
+
+        return alias;
+    }
+
 }
@@ -0,0 +1,123 @@
+package com.github.j3t.ssl.utils.strategy;
+
+import com.github.j3t.ssl.utils.metrics.MetricNames;
+import com.github.j3t.ssl.utils.metrics.Metrics;
+import com.github.j3t.ssl.utils.trust.VersionedTrustManager;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509TrustManager;
+import java.net.Socket;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+/**
+ * The trust check shared by the {@link StrategyTrustManager} and the {@link StrategyExtendedTrustManager}. The
+ * {@link TrustManagerStrategy} is consulted first, then the {@link TrustDecisionCache} (if any) and finally the
+ * underlying trust manager. The outcome of each check is recorded (see {@link Metrics}).
+ *
+ * @author j3t
+ */
+abstract class StrategyTrustCheck {
+    private final VersionedTrustManager versionedTrustManager;
+    private final TrustManagerStrategy strategy;
+    private final TrustDecisionCache cache;
+    private final String scope;
+
+    /**
+     * Creates an instance of {@link StrategyTrustCheck}.
+     *
+     * @param trustManager the underlying {@link X509TrustManager}
+     * @param strategy     the {@link TrustManagerStrategy}
+     * @param cache        the {@link TrustDecisionCache} or <code>null</code>
+     */
+    StrategyTrustCheck(X509TrustManager trustManager, TrustManagerStrategy strategy, TrustDecisionCache cache) {
+        this.versionedTrustManager = trustManager instanceof VersionedTrustManager
+                ? (VersionedTrustManager) trustManager
+                : null;
+        this.strategy = strategy;
+        this.cache = cache;
+        this.scope = cache != null ? TrustDecisionCache.getScope(trustManager) : null;
+    }
+
+    /**
+     * Checks the trustworthiness of the given chain.
+     *
+     * @param chain    the peer certificate chain
+     * @param authType the authentication type based on the certificate
+     * @param client   <code>true</code> if the peer is a client, otherwise <code>false</code>
+     * @param socket   the socket of the handshake or <code>null</code>
+     * @param engine   the engine of the handshake or <code>null</code>
+     * @throws CertificateException if the chain is not trusted
+     */
+    final void check(X509Certificate[] chain, String authType, boolean client, Socket socket, SSLEngine engine)
+            throws CertificateException {
+        long start = Metrics.start();
+
+        if (!strategy.checkTrusted(chain, authType)) {
+            Metrics.trustChecked(chain, authType, MetricNames.TRUST_CHECK_SKIPPED, start);
+            return;
+        }
+
+        String key = cache != null ? createKey(chain, authType, client, socket, engine) : null;
+
+        if (key != null && cache.isTrusted(key)) {
+            Metrics.trustChecked(chain, authType, MetricNames.TRUST_CHECK_CACHED, start);
+            return;
+        }
+
+        try {
+            delegate(chain, authType, client, socket, engine);
+        } catch (CertificateException e) {
+            Metrics.trustChecked(chain, authType, MetricNames.TRUST_CHECK_REJECTED, start);
+            throw e;
+        }
+
+        if (key != null)
+            cache.trusted(key, chain);
+
+        Metrics.trustChecked(chain, authType, MetricNames.TRUST_CHECK_TRUSTED, start);
+    }
+
+    /**
+     * Delegates the check to the underlying trust manager.
+     *
+     * @param chain    the peer certificate chain
+     * @param authType the authentication type based on the certificate
+     * @param client   <code>true</code> if the peer is a client, otherwise <code>false</code>
+     * @param socket   the socket of the handshake or <code>null</code>
+     * @param engine   the engine of the handshake or <code>null</code>
+     * @throws CertificateException if the chain is not trusted
+     */
+    abstract void delegate(X509Certificate[] chain, String authType, boolean client, Socket socket, SSLEngine engine)
+            throws CertificateException;
+
+    /**
+     * Creates the key of the decision, which only depends on the chain by default.
+     *
+     * @param chain    the peer certificate chain
+     * @param authType the authentication type based on the certificate
+     * @param client   <code>true</code> if the peer is a client, otherwise <code>false</code>
+     * @param socket   the socket of the handshake or <code>null</code>
+     * @param engine   the engine of the handshake or <code>null</code>
+     * @return the key or <code>null</code> if the decision can't be cached
+     * @throws CertificateException if a certificate can't be encoded
+     */
+    String createKey(X509Certificate[] chain, String authType, boolean client, Socket socket, SSLEngine engine)
+            throws CertificateException {
+        return TrustDecisionCache.createKey(getScope(), getVersion(), chain, authType, client);
+    }
+
+    /**
+     * Returns the scope of the decisions, which identifies the underlying trust manager.
+     */
+    String getScope() {
+        return scope;
+    }
+
+    /**
+     * Returns the version of the trust anchors, which changes with each update of a {@link VersionedTrustManager}.
+     */
+    long getVersion() {
+        return versionedTrustManager != null ? versionedTrustManager.getVersion() : 0;
+    }
+}
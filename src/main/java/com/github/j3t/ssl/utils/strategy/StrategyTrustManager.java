@@ -1,6 +1,8 @@
 package com.github.j3t.ssl.utils.strategy;
 
+import javax.net.ssl.SSLEngine;
 import javax.net.ssl.X509TrustManager;
+import java.net.Socket;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 
@@ -8,35 +10,56 @@ import java.security.cert.X509Certificate;
  * Implementation of {@link X509TrustManager} that allows control which peers can be trusted. Whenever the
  * trustworthiness of a peer is requested, the given {@link TrustManagerStrategy} will be consulted. Depending on the
  * result, the request will be delegated to the trust manager of the current context or not or an
- * {@link CertificateException} is thrown.
+ * {@link CertificateException} is thrown.<br>
+ * <br>
+ * Optionally, the decisions of the trust manager of the current context can be cached (see
+ * {@link TrustDecisionCache}). In this case, a chain which was trusted before will not be delegated again.
  *
  * @author j3t
  * @see TrustManagerStrategy#checkTrusted(X509Certificate[], String)
  */
 public class StrategyTrustManager implements X509TrustManager {
     private X509TrustManager trustManager;
-    private TrustManagerStrategy strategy;
+    private StrategyTrustCheck check;
 
     public StrategyTrustManager(X509TrustManager trustManager, TrustManagerStrategy strategy) {
+        this(trustManager, strategy, null);
+    }
+
+    /**
+     * Creates an instance of {@link StrategyTrustManager}.
+     *
+     * @param trustManager the underlying {@link X509TrustManager}
+     * @param strategy     the {@link TrustManagerStrategy}
+     * @param cache        the {@link TrustDecisionCache} or <code>null</code>
+     */
+    public StrategyTrustManager(final X509TrustManager trustManager, TrustManagerStrategy strategy,
+                                TrustDecisionCache cache) {
         this.trustManager = trustManager;
-        this.strategy = strategy;
+        this.check = new StrategyTrustCheck(trustManager, strategy, cache) {
+            @Override
+            void delegate(X509Certificate[] chain, String authType, boolean client, Socket socket, SSLEngine engine)
+                    throws CertificateException {
+                if (client)
+                    trustManager.checkClientTrusted(chain, authType);
+                else
+                    trustManager.checkServerTrusted(chain, authType);
+            }
+        };
     }
 
     @Override
     public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
-        if (strategy.checkTrusted(chain, authType))
-            trustManager.checkClientTrusted(chain, authType);
+        check.check(chain, authType, true, null, null);
     }
 
     @Override
     public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
-        if (strategy.checkTrusted(chain, authType))
-            trustManager.checkServerTrusted(chain, authType);
+        check.check(chain, authType, false, null, null);
     }
 
     @Override
     public X509Certificate[] getAcceptedIssuers() {
         return trustManager.getAcceptedIssuers();
     }
-
 }
@@ -0,0 +1,279 @@
+package com.github.j3t.ssl.utils.strategy;
+
+
+import com.github.j3t.ssl.utils.StringHelper;
+
+import javax.net.ssl.X509TrustManager;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of positive trust decisions. The {@link StrategyTrustManager} stores each certificate chain the
+ * underlying trust manager has accepted and skips the underlying trust manager for this chain afterwards. A decision
+ * is identified by the underlying trust manager (see {@link #getScope(X509TrustManager)}) and the version of its
+ * trust anchors (see {@link com.github.j3t.ssl.utils.trust.VersionedTrustManager}), the fingerprint (SHA-256) of the
+ * encoded chain, the authentication type and the peer side (client/server).<br>
+ * <br>
+ * A decision expires after the time to live or when the first certificate of the chain expires (i.e. the earliest end
+ * of the validity periods of all certificates of the chain), whichever comes first. If the cache is full, the least
+ * recently used decision will be evicted. The cache is thread-safe and can be shared, a decision of one trust manager
+ * is never reused by another one.
+ *
+ * @author j3t
+ * @see StrategyTrustManager#StrategyTrustManager(javax.net.ssl.X509TrustManager, TrustManagerStrategy,
+ * TrustDecisionCache)
+ */
+public class TrustDecisionCache {
+    private static final Map<X509TrustManager, String> SCOPES =
+            Collections.synchronizedMap(new WeakHashMap<X509TrustManager, String>());
+    private static final AtomicLong SCOPE_COUNT = new AtomicLong();
+
+    private final int maximumSize;
+    private final long timeToLive;
+    private final Map<String, Long> decisions;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong expirationCount = new AtomicLong();
+
+    /**
+     * Creates an instance of {@link TrustDecisionCache}.
+     *
+     * @param maximumSize the maximum number of decisions held by the cache
+     * @param timeToLive  the maximum time a decision is held by the cache
+     * @param unit        the time unit of timeToLive
+     * @throws IllegalArgumentException if maximumSize is less than 1 or timeToLive is negative
+     */
+    public TrustDecisionCache(int maximumSize, long timeToLive, TimeUnit unit) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("maximumSize must be greater than 0!");
+
+        if (timeToLive < 0)
+            throw new IllegalArgumentException("timeToLive must not be negative!");
+
+        this.maximumSize = maximumSize;
+        this.timeToLive = unit.toMillis(timeToLive);
+        this.decisions = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() <= TrustDecisionCache.this.maximumSize)
+                    return false;
+
+                evictionCount.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Checks that the given decision was cached and is not expired yet.
+     *
+     * @param key the key of the decision (see {@link #createKey(String, long, X509Certificate[], String, boolean)})
+     * @return <code>true</code> if the chain was trusted before, otherwise <code>false</code>
+     */
+    synchronized boolean isTrusted(String key) {
+        Long expiration = decisions.get(key);
+
+        if (expiration == null) {
+            missCount.incrementAndGet();
+            return false;
+        }
+
+        if (expiration <= System.currentTimeMillis()) {
+            decisions.remove(key);
+            expirationCount.incrementAndGet();
+            missCount.incrementAndGet();
+            return false;
+        }
+
+        hitCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Stores the decision that the given chain is trusted.
+     *
+     * @param key   the key of the decision (see {@link #createKey(String, long, X509Certificate[], String, boolean)})
+     * @param chain the trusted chain
+     */
+    synchronized void trusted(String key, X509Certificate[] chain) {
+        long expiration = System.currentTimeMillis() + timeToLive;
+
+        for (X509Certificate certificate : chain)
+            expiration = Math.min(expiration, certificate.getNotAfter().getTime());
+
+        decisions.put(key, expiration);
+    }
+
+    /**
+     * Returns the scope of the decisions of a trust manager. The scope identifies the trust manager instance, so
+     * trust managers of different trust stores never share a decision, even if they share the cache.
+     *
+     * @param trustManager the underlying trust manager
+     * @return the scope
+     */
+    static String getScope(X509TrustManager trustManager) {
+        synchronized (SCOPES) {
+            String scope = SCOPES.get(trustManager);
+
+            if (scope == null) {
+                scope = Integer.toHexString(System.identityHashCode(trustManager)) + "-"
+                        + SCOPE_COUNT.incrementAndGet();
+                SCOPES.put(trustManager, scope);
+            }
+
+            return scope;
+        }
+    }
+
+    /**
+     * Creates the key of a decision.
+     *
+     * @param scope    the scope of the underlying trust manager (see {@link #getScope(X509TrustManager)})
+     * @param version  the version of the trust anchors of the underlying trust manager
+     * @param chain    the peer certificate chain
+     * @param authType the authentication type based on the certificate
+     * @param client   <code>true</code> if the peer is a client, otherwise <code>false</code>
+     * @return the key or <code>null</code> if the chain is empty and therefore can't be cached
+     * @throws CertificateException if a certificate can't be encoded
+     */
+    static String createKey(String scope, long version, X509Certificate[] chain, String authType, boolean client)
+            throws CertificateException {
+        return createKey(scope, version, chain, authType, client, null);
+    }
+
+    /**
+     * Creates the key of a decision which depends on the identity of the peer (e.g. because the endpoint
+     * identification is enabled).
+     *
+     * @param scope    the scope of the underlying trust manager (see {@link #getScope(X509TrustManager)})
+     * @param version  the version of the trust anchors of the underlying trust manager
+     * @param chain    the peer certificate chain
+     * @param authType the authentication type based on the certificate
+     * @param client   <code>true</code> if the peer is a client, otherwise <code>false</code>
+     * @param peer     the identity of the peer (e.g. HTTPS:www.example.com) or <code>null</code>
+     * @return the key or <code>null</code> if the chain is empty and therefore can't be cached
+     * @throws CertificateException if a certificate can't be encoded
+     */
+    static String createKey(String scope, long version, X509Certificate[] chain, String authType, boolean client,
+                            String peer) throws CertificateException {
+        if (chain == null || chain.length == 0)
+            return null;
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            for (X509Certificate certificate : chain)
+                digest.update(certificate.getEncoded());
+
+            StringBuilder key = new StringBuilder(scope).append('.').append(version)
+                    .append(client ? ":client:" : ":server:").append(authType).append(':')
+                    .append(StringHelper.toHexString(digest.digest()));
+
+            if (peer != null)
+                key.append('@').append(peer);
+
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Removes all expired decisions.
+     */
+    public synchronized void removeExpired() {
+        long now = System.currentTimeMillis();
+
+        for (Iterator<Long> it = decisions.values().iterator(); it.hasNext(); )
+            if (it.next() <= now) {
+                it.remove();
+                expirationCount.incrementAndGet();
+            }
+    }
+
+    /**
+     * Removes all decisions from the cache. The counters will not be reset.
+     */
+    public synchronized void clear() {
+        decisions.clear();
+    }
+
+    /**
+     * Returns the number of decisions held by the cache.
+     *
+     * @return the current size of the cache
+     */
+    public synchronized int size() {
+        return decisions.size();
+    }
+
+    /**
+     * Returns the maximum number of decisions held by the cache.
+     *
+     * @return the maximum size of the cache
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns how many times a chain was found in the cache and the underlying trust manager was skipped.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns how many times a chain wasn't found in the cache.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the ratio of hits to all requests.
+     *
+     * @return the hit ratio between 0.0 and 1.0, or 0.0 if the cache wasn't requested yet
+     */
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long requests = hits + missCount.get();
+
+        return requests == 0 ? 0d : (double) hits / requests;
+    }
+
+    /**
+     * Returns how many decisions were evicted, because the cache was full.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns how many decisions were removed, because they were expired.
+     *
+     * @return the number of expirations
+     */
+    public long getExpirationCount() {
+        return expirationCount.get();
+    }
+}
@@ -0,0 +1,197 @@
+package com.github.j3t.ssl.utils.trust;
+
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedTrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.net.Socket;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Implementation of {@link X509ExtendedTrustManager} that trusts a peer if one of two trust managers trusts it, e.g.
+ * a trust manager of a few private CAs and the default trust manager of the JVM (see
+ * {@link #getDefaultTrustManager()}). This avoids copying the cacerts of the JVM into a custom trust store and
+ * building its trust anchors once per context.<br>
+ * <br>
+ * A chain is checked by the custom trust manager first, which is cheap as long as it contains only a few
+ * certificates. The fallback trust manager is only consulted if the custom one doesn't trust the chain. The accepted
+ * issuers of both trust managers are merged once, when they are requested the first time (and again after an update
+ * of a {@link VersionedTrustManager}). The version of the composite trust manager changes with each update of one
+ * of its trust managers.
+ * {@link X509ExtendedTrustManager} is available since Java 7.
+ *
+ * @author j3t
+ */
+public class CompositeTrustManager extends X509ExtendedTrustManager implements VersionedTrustManager {
+    private static X509TrustManager defaultTrustManager;
+
+    private final X509TrustManager customTrustManager;
+    private final X509TrustManager fallbackTrustManager;
+    private volatile AcceptedIssuers acceptedIssuers;
+
+    /**
+     * Creates an instance of {@link CompositeTrustManager}.
+     *
+     * @param customTrustManager   the trust manager checked first (e.g. of a few private CAs)
+     * @param fallbackTrustManager the trust manager checked if the custom one doesn't trust the peer (e.g.
+     *                             {@link #getDefaultTrustManager()})
+     * @throws IllegalArgumentException if customTrustManager or fallbackTrustManager is <code>null</code>
+     */
+    public CompositeTrustManager(X509TrustManager customTrustManager, X509TrustManager fallbackTrustManager) {
+        if (customTrustManager == null)
+            throw new IllegalArgumentException("customTrustManager must not be null!");
+
+        if (fallbackTrustManager == null)
+            throw new IllegalArgumentException("fallbackTrustManager must not be null!");
+
+        this.customTrustManager = customTrustManager;
+        this.fallbackTrustManager = fallbackTrustManager;
+    }
+
+    /**
+     * Returns the default trust manager of the JVM (the trust manager of the default {@link TrustManagerFactory}
+     * initialized without a trust store, e.g. with the cacerts of the JVM). The trust manager is created once per
+     * process and shared by all composite trust managers.
+     *
+     * @return {@link X509TrustManager}, shouldn't be <code>null</code>
+     * @throws NoSuchAlgorithmException if the default TrustManagerFactory is not available
+     * @throws KeyStoreException        if the default trust store can't be loaded
+     */
+    public static synchronized X509TrustManager getDefaultTrustManager() throws NoSuchAlgorithmException,
+            KeyStoreException {
+        if (defaultTrustManager == null) {
+            TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            factory.init((KeyStore) null);
+
+            for (TrustManager trustManager : factory.getTrustManagers())
+                if (trustManager instanceof X509TrustManager) {
+                    defaultTrustManager = (X509TrustManager) trustManager;
+                    break;
+                }
+
+            if (defaultTrustManager == null)
+                throw new NoSuchAlgorithmException("default TrustManagerFactory has no X509TrustManager!");
+        }
+
+        return defaultTrustManager;
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        check(chain, authType, true, null, null);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        check(chain, authType, false, null, null);
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket)
+            throws CertificateException {
+        check(chain, authType, true, socket, null);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket)
+            throws CertificateException {
+        check(chain, authType, false, socket, null);
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine)
+            throws CertificateException {
+        check(chain, authType, true, null, engine);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine)
+            throws CertificateException {
+        check(chain, authType, false, null, engine);
+    }
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+        AcceptedIssuers issuers = acceptedIssuers;
+        long customVersion = getVersion(customTrustManager);
+        long fallbackVersion = getVersion(fallbackTrustManager);
+
+        if (issuers == null || issuers.customVersion != customVersion || issuers.fallbackVersion != fallbackVersion) {
+            Set<X509Certificate> merged = new LinkedHashSet<X509Certificate>();
+            merged.addAll(Arrays.asList(customTrustManager.getAcceptedIssuers()));
+            merged.addAll(Arrays.asList(fallbackTrustManager.getAcceptedIssuers()));
+
+            issuers = new AcceptedIssuers(merged.toArray(new X509Certificate[merged.size()]), customVersion,
+                    fallbackVersion);
+            acceptedIssuers = issuers;
+        }
+
+        return issuers.certificates.clone();
+    }
+
+    /**
+     * Returns the sum of the versions of both trust managers. Both versions only increase, so the sum changes with
+     * each update of one of them.
+     *
+     * @return the version or 0 if neither trust manager is a {@link VersionedTrustManager}
+     */
+    @Override
+    public long getVersion() {
+        return getVersion(customTrustManager) + getVersion(fallbackTrustManager);
+    }
+
+    private static long getVersion(X509TrustManager trustManager) {
+        return trustManager instanceof VersionedTrustManager ? ((VersionedTrustManager) trustManager).getVersion() : 0;
+    }
+
+    private void check(X509Certificate[] chain, String authType, boolean client, Socket socket, SSLEngine engine)
+            throws CertificateException {
+        try {
+            check(customTrustManager, chain, authType, client, socket, engine);
+        } catch (CertificateException e) {
+            check(fallbackTrustManager, chain, authType, client, socket, engine);
+        }
+    }
+
+    static void check(X509TrustManager trustManager, X509Certificate[] chain, String authType, boolean client,
+                              Socket socket, SSLEngine engine) throws CertificateException {
+        if (trustManager instanceof X509ExtendedTrustManager && (socket != null || engine != null)) {
+            X509ExtendedTrustManager extendedTrustManager = (X509ExtendedTrustManager) trustManager;
+
+            if (socket != null)
+                if (client)
+                    extendedTrustManager.checkClientTrusted(chain, authType, socket);
+                else
+                    extendedTrustManager.checkServerTrusted(chain, authType, socket);
+            else if (client)
+                extendedTrustManager.checkClientTrusted(chain, authType, engine);
+            else
+                extendedTrustManager.checkServerTrusted(chain, authType, engine);
+        } else if (client) {
+            trustManager.checkClientTrusted(chain, authType);
+        } else {
+            trustManager.checkServerTrusted(chain, authType);
+        }
+    }
+
+    private static class AcceptedIssuers {
+        private final X509Certificate[] certificates;
+        private final long customVersion;
+        private final long fallbackVersion;
+
+        AcceptedIssuers(X509Certificate[] certificates, long customVersion, long fallbackVersion) {
+            this.certificates = certificates;
+            this.customVersion = customVersion;
+            this.fallbackVersion = fallbackVersion;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.github.j3t.ssl.utils.trust;
+
+
+import javax.net.ssl.CertPathTrustManagerParameters;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedTrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.PKIXBuilderParameters;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.*;
+
+/**
+ * Implementation of {@link X509ExtendedTrustManager} with trust anchors that can be added and removed at runtime. The
+ * contexts using the trust manager see the change with their next handshake, so neither a new trust store nor a new
+ * context (and its session cache) is needed to add or revoke a CA.<br>
+ * <br>
+ * The anchors are held in a copy-on-write index: an update copies the anchors, creates the PKIX trust manager for the
+ * new anchors (without a trust store, see {@link CertPathTrustManagerParameters}) and publishes both at once. The
+ * checks of the handshakes read the current state without locking. Updates are serialized, so they should be batched
+ * (see {@link #addTrustAnchors(Collection)}) if many anchors change at once. Each update increments the version
+ * (see {@link #getVersion()}), which is part of the key of cached trust decisions, so a decision made before an
+ * update is never reused.<br>
+ * <br>
+ * Revocation checking is disabled, like it is for a trust manager created from a trust store by default.
+ * {@link X509ExtendedTrustManager} is available since Java 7.
+ *
+ * @author j3t
+ */
+public class MutableTrustManager extends X509ExtendedTrustManager implements VersionedTrustManager {
+    private final String algorithm;
+    private volatile State state;
+
+    /**
+     * Creates an instance of {@link MutableTrustManager} without trust anchors.
+     */
+    public MutableTrustManager() {
+        this(TrustManagerFactory.getDefaultAlgorithm());
+    }
+
+    /**
+     * Creates an instance of {@link MutableTrustManager} without trust anchors.
+     *
+     * @param algorithm the algorithm of the {@link TrustManagerFactory}, which must support
+     *                  {@link CertPathTrustManagerParameters} (e.g. PKIX)
+     * @throws IllegalArgumentException if algorithm is <code>null</code>
+     */
+    public MutableTrustManager(String algorithm) {
+        if (algorithm == null)
+            throw new IllegalArgumentException("algorithm must not be null!");
+
+        this.algorithm = algorithm;
+        this.state = new State(Collections.<X509Certificate>emptySet(), null, 0);
+    }
+
+    /**
+     * Creates an instance of {@link MutableTrustManager} with the certificates of the given trust store as trust
+     * anchors.
+     *
+     * @param trustStore the trust store
+     * @return {@link MutableTrustManager}
+     * @throws IllegalArgumentException if trustStore is <code>null</code>
+     * @throws KeyStoreException        if the trust store is not initialized
+     */
+    public static MutableTrustManager create(KeyStore trustStore) throws KeyStoreException {
+        if (trustStore == null)
+            throw new IllegalArgumentException("trustStore must not be null!");
+
+        List<X509Certificate> anchors = new ArrayList<X509Certificate>();
+        Enumeration<String> aliases = trustStore.aliases();
+
+        while (aliases.hasMoreElements()) {
+            Certificate certificate = trustStore.getCertificate(aliases.nextElement());
+
+            if (certificate instanceof X509Certificate)
+                anchors.add((X509Certificate) certificate);
+        }
+
+        MutableTrustManager trustManager = new MutableTrustManager();
+        trustManager.addTrustAnchors(anchors);
+
+        return trustManager;
+    }
+
+    /**
+     * Adds a trust anchor.
+     *
+     * @param anchor the certificate of the anchor (e.g. a CA certificate)
+     * @return <code>true</code> if the anchor was added, <code>false</code> if it was already present
+     * @throws IllegalArgumentException if anchor is <code>null</code>
+     * @throws IllegalStateException    if the trust manager can't be created for the new anchors
+     */
+    public boolean addTrustAnchor(X509Certificate anchor) {
+        if (anchor == null)
+            throw new IllegalArgumentException("anchor must not be null!");
+
+        return addTrustAnchors(Collections.singleton(anchor));
+    }
+
+    /**
+     * Adds the given trust anchors with one update.
+     *
+     * @param anchors the certificates of the anchors
+     * @return <code>true</code> if at least one anchor was added
+     * @throws IllegalArgumentException if anchors is or contains <code>null</code>
+     * @throws IllegalStateException    if the trust manager can't be created for the new anchors
+     */
+    public synchronized boolean addTrustAnchors(Collection<X509Certificate> anchors) {
+        if (anchors == null || anchors.contains(null))
+            throw new IllegalArgumentException("anchors must not be null!");
+
+        Set<X509Certificate> updated = new LinkedHashSet<X509Certificate>(state.anchors);
+
+        if (!updated.addAll(anchors))
+            return false;
+
+        update(updated);
+        return true;
+    }
+
+    /**
+     * Removes a trust anchor.
+     *
+     * @param anchor the certificate of the anchor
+     * @return <code>true</code> if the anchor was removed, <code>false</code> if it wasn't present
+     * @throws IllegalArgumentException if anchor is <code>null</code>
+     * @throws IllegalStateException    if the trust manager can't be created for the remaining anchors
+     */
+    public synchronized boolean removeTrustAnchor(X509Certificate anchor) {
+        if (anchor == null)
+            throw new IllegalArgumentException("anchor must not be null!");
+
+        if (!state.anchors.contains(anchor))
+            return false;
+
+        Set<X509Certificate> updated = new LinkedHashSet<X509Certificate>(state.anchors);
+        updated.remove(anchor);
+
+        update(updated);
+        return true;
+    }
+
+    /**
+     * Returns whether the given certificate is a trust anchor.
+     *
+     * @param anchor the certificate
+     * @return <code>true</code> if it is a trust anchor, otherwise <code>false</code>
+     */
+    public boolean containsTrustAnchor(X509Certificate anchor) {
+        return state.anchors.contains(anchor);
+    }
+
+    /**
+     * Returns the number of trust anchors.
+     *
+     * @return the number of trust anchors
+     */
+    public int size() {
+        return state.anchors.size();
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        CompositeTrustManager.check(getTrustManager(), chain, authType, true, null, null);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        CompositeTrustManager.check(getTrustManager(), chain, authType, false, null, null);
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket)
+            throws CertificateException {
+        CompositeTrustManager.check(getTrustManager(), chain, authType, true, socket, null);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket)
+            throws CertificateException {
+        CompositeTrustManager.check(getTrustManager(), chain, authType, false, socket, null);
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine)
+            throws CertificateException {
+        CompositeTrustManager.check(getTrustManager(), chain, authType, true, null, engine);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine)
+            throws CertificateException {
+        CompositeTrustManager.check(getTrustManager(), chain, authType, false, null, engine);
+    }
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+        return state.anchors.toArray(new X509Certificate[0]);
+    }
+
+    /**
+     * Returns the version of the trust anchors, which is incremented by each update.
+     *
+     * @return the version
+     */
+    @Override
+    public long getVersion() {
+        return state.version;
+    }
+
+    private X509TrustManager getTrustManager() throws CertificateException {
+        X509TrustManager trustManager = state.trustManager;
+
+        if (trustManager == null)
+            throw new CertificateException("there are no trust anchors!");
+
+        return trustManager;
+    }
+
+    private void update(Set<X509Certificate> anchors) {
+        state = new State(Collections.unmodifiableSet(anchors), anchors.isEmpty() ? null : createTrustManager(anchors),
+                state.version + 1);
+    }
+
+    private X509TrustManager createTrustManager(Set<X509Certificate> anchors) {
+        Set<TrustAnchor> trustAnchors = new HashSet<TrustAnchor>();
+
+        for (X509Certificate anchor : anchors)
+            trustAnchors.add(new TrustAnchor(anchor, null));
+
+        try {
+            PKIXBuilderParameters parameters = new PKIXBuilderParameters(trustAnchors, new X509CertSelector());
+            parameters.setRevocationEnabled(false);
+
+            TrustManagerFactory factory = TrustManagerFactory.getInstance(algorithm);
+            factory.init(new CertPathTrustManagerParameters(parameters));
+
+            for (TrustManager trustManager : factory.getTrustManagers())
+                if (trustManager instanceof X509TrustManager)
+                    return (X509TrustManager) trustManager;
+
+            throw new IllegalStateException("TrustManagerFactory has no X509TrustManager: " + algorithm);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The anchors and the trust manager created for them, published together.
+     */
+    private static class State {
+        private final Set<X509Certificate> anchors;
+        private final X509TrustManager trustManager;
+        private final long version;
+
+        State(Set<X509Certificate> anchors, X509TrustManager trustManager, long version) {
+            this.anchors = anchors;
+            this.trustManager = trustManager;
+            this.version = version;
+        }
+    }
+}
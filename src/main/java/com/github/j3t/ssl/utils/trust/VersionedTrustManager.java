@@ -0,0 +1,20 @@
+package com.github.j3t.ssl.utils.trust;
+
+/**
+ * A trust manager whose trust anchors can change at runtime. The version changes with each update of the anchors, so
+ * it can be part of the key of cached trust decisions (see
+ * {@link com.github.j3t.ssl.utils.strategy.TrustDecisionCache}). The interface doesn't depend on
+ * {@link javax.net.ssl.X509ExtendedTrustManager}, so it can be checked on Java 6 as well.
+ *
+ * @author j3t
+ * @see MutableTrustManager
+ * @see CompositeTrustManager
+ */
+public interface VersionedTrustManager {
+    /**
+     * Returns the version of the trust anchors, which changes with each update.
+     *
+     * @return the version
+     */
+    long getVersion();
+}
@@ -0,0 +1,27 @@
+package com.github.j3t.ssl.utils.types;
+
+
+import java.security.KeyStore;
+
+/**
+ * Constants representing the types of key store entries.
+ *
+ * @author j3t
+ * @see KeyStore.Entry
+ */
+public enum KeyStoreEntryType {
+    /**
+     * A private key and its certificate chain (see {@link KeyStore.PrivateKeyEntry}).
+     */
+    PRIVATE_KEY,
+
+    /**
+     * A secret key without certificates (see {@link KeyStore.SecretKeyEntry}).
+     */
+    SECRET_KEY,
+
+    /**
+     * A trusted certificate (see {@link KeyStore.TrustedCertificateEntry}).
+     */
+    TRUSTED_CERTIFICATE
+}
@@ -0,0 +1,228 @@
+package com.github.j3t.ssl.utils.types;
+
+
+import java.security.cert.X509Certificate;
+
+/**
+ * Immutable set of {@link KeyUsage}s backed by a bitmask, the bit of a {@link KeyUsage} is
+ * <code>1 &lt;&lt; keyUsage.ordinal()</code>. There are only 512 combinations of the 9 key usages, so all sets are
+ * created up front and {@link #valueOf(int)}, {@link #with(KeyUsage)} and the checks don't allocate.
+ *
+ * @author j3t
+ * @see X509Certificate#getKeyUsage()
+ */
+public final class KeyUsageSet {
+    private static final KeyUsage[] KEY_USAGES = KeyUsage.values();
+    private static final int ALL_MASK = (1 << KEY_USAGES.length) - 1;
+    private static final KeyUsageSet[] SETS = new KeyUsageSet[ALL_MASK + 1];
+
+    static {
+        for (int mask = 0; mask <= ALL_MASK; mask++)
+            SETS[mask] = new KeyUsageSet(mask);
+    }
+
+    /**
+     * The set without key usages.
+     */
+    public static final KeyUsageSet EMPTY = SETS[0];
+
+    /**
+     * The set with all key usages.
+     */
+    public static final KeyUsageSet ALL = SETS[ALL_MASK];
+
+    private final int mask;
+
+    private KeyUsageSet(int mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * Returns the set of the given key usages.
+     *
+     * @param keyUsages the key usages
+     * @return {@link KeyUsageSet}, shouldn't be <code>null</code>
+     * @throws IllegalArgumentException if keyUsages is or contains <code>null</code>
+     */
+    public static KeyUsageSet of(KeyUsage... keyUsages) {
+        if (keyUsages == null)
+            throw new IllegalArgumentException("keyUsages must not be null!");
+
+        int mask = 0;
+
+        for (KeyUsage keyUsage : keyUsages)
+            mask |= bit(keyUsage);
+
+        return SETS[mask];
+    }
+
+    /**
+     * Returns the set of the given bitmask.
+     *
+     * @param mask the bitmask
+     * @return {@link KeyUsageSet}, shouldn't be <code>null</code>
+     * @throws IllegalArgumentException if the bitmask has a bit without {@link KeyUsage}
+     */
+    public static KeyUsageSet valueOf(int mask) {
+        if ((mask & ~ALL_MASK) != 0)
+            throw new IllegalArgumentException("mask has unknown bits: " + Integer.toHexString(mask));
+
+        return SETS[mask];
+    }
+
+    /**
+     * Returns the set of the key usages extension of a certificate.
+     *
+     * @param keyUsage the key usages extension (see {@link X509Certificate#getKeyUsage()}) or <code>null</code>
+     * @return {@link KeyUsageSet}, {@link #EMPTY} if the extension is <code>null</code>
+     */
+    public static KeyUsageSet valueOf(boolean[] keyUsage) {
+        int mask = 0;
+
+        if (keyUsage != null)
+            for (int i = 0; i < keyUsage.length && i < KEY_USAGES.length; i++)
+                if (keyUsage[i])
+                    mask |= 1 << i;
+
+        return SETS[mask];
+    }
+
+    /**
+     * Returns the bitmask.
+     *
+     * @return the bitmask
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * Returns the set with the key usages of this set and the given key usage.
+     *
+     * @param keyUsage the key usage
+     * @return {@link KeyUsageSet}, shouldn't be <code>null</code>
+     * @throws IllegalArgumentException if keyUsage is <code>null</code>
+     */
+    public KeyUsageSet with(KeyUsage keyUsage) {
+        return SETS[mask | bit(keyUsage)];
+    }
+
+    /**
+     * Returns the set with the key usages of this and the given set.
+     *
+     * @param keyUsages the other set
+     * @return {@link KeyUsageSet}, shouldn't be <code>null</code>
+     * @throws IllegalArgumentException if keyUsages is <code>null</code>
+     */
+    public KeyUsageSet union(KeyUsageSet keyUsages) {
+        return SETS[mask | mask(keyUsages)];
+    }
+
+    /**
+     * Checks that the set contains a specific key usage.
+     *
+     * @param keyUsage the key usage
+     * @return <code>true</code> if the set contains the key usage, otherwise <code>false</code>
+     * @throws IllegalArgumentException if keyUsage is <code>null</code>
+     */
+    public boolean contains(KeyUsage keyUsage) {
+        return (mask & bit(keyUsage)) != 0;
+    }
+
+    /**
+     * Checks that the set contains all key usages of the given set.
+     *
+     * @param keyUsages the key usages
+     * @return <code>true</code> if the set contains all of them (or the given set is empty), otherwise
+     * <code>false</code>
+     * @throws IllegalArgumentException if keyUsages is <code>null</code>
+     */
+    public boolean containsAll(KeyUsageSet keyUsages) {
+        int other = mask(keyUsages);
+
+        return (mask & other) == other;
+    }
+
+    /**
+     * Checks that the set contains at least one key usage of the given set.
+     *
+     * @param keyUsages the key usages
+     * @return <code>true</code> if the set contains one of them, otherwise <code>false</code>
+     * @throws IllegalArgumentException if keyUsages is <code>null</code>
+     */
+    public boolean containsAny(KeyUsageSet keyUsages) {
+        return (mask & mask(keyUsages)) != 0;
+    }
+
+    /**
+     * Returns whether the set contains no key usages.
+     *
+     * @return <code>true</code> if the set is empty, otherwise <code>false</code>
+     */
+    public boolean isEmpty() {
+        return mask == 0;
+    }
+
+    /**
+     * Returns the number of key usages.
+     *
+     * @return the number of key usages
+     */
+    public int size() {
+        return Integer.bitCount(mask);
+    }
+
+    /**
+     * Returns the key usages in the order of their declaration.
+     *
+     * @return array with {@link KeyUsage}s or an empty array if the set is empty
+     */
+    public KeyUsage[] toArray() {
+        KeyUsage[] keyUsages = new KeyUsage[size()];
+        int index = 0;
+
+        for (KeyUsage keyUsage : KEY_USAGES)
+            if ((mask & 1 << keyUsage.ordinal()) != 0)
+                keyUsages[index++] = keyUsage;
+
+        return keyUsages;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof KeyUsageSet && ((KeyUsageSet) o).mask == mask;
+    }
+
+    @Override
+    public int hashCode() {
+        return mask;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+
+        for (KeyUsage keyUsage : toArray()) {
+            if (sb.length() > 1)
+                sb.append(", ");
+
+            sb.append(keyUsage);
+        }
+
+        return sb.append(']').toString();
+    }
+
+    private static int bit(KeyUsage keyUsage) {
+        if (keyUsage == null)
+            throw new IllegalArgumentException("keyUsage must not be null!");
+
+        return 1 << keyUsage.ordinal();
+    }
+
+    private static int mask(KeyUsageSet keyUsages) {
+        if (keyUsages == null)
+            throw new IllegalArgumentException("keyUsages must not be null!");
+
+        return keyUsages.mask;
+    }
+}
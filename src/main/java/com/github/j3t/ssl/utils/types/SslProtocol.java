@@ -9,5 +9,6 @@ public interface SslProtocol {
     String TLSv10 = "TLSv1";
     String TLSv11 = "TLSv1.1";
     String TLSv12 = "TLSv1.2";
+    String TLSv13 = "TLSv1.3";
     String SSLv3 = "SSLv3";
 }
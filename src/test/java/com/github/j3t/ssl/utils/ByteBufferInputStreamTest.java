@@ -0,0 +1,82 @@
+package com.github.j3t.ssl.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ByteBufferInputStreamTest {
+    private ByteBuffer buffer;
+    private ByteBufferInputStream in;
+
+    @Before
+    public void setUp() throws Exception {
+        buffer = ByteBuffer.wrap(new byte[]{1, 2, (byte) 0xFF, 4, 5});
+        in = new ByteBufferInputStream(buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullBuffer_whenCreated_thenExceptionShouldBeThrown() throws Exception {
+        new ByteBufferInputStream(null);
+    }
+
+    @Test
+    public void givenStream_whenReadInvoked_thenUnsignedBytesAndEndOfStreamShouldBeReturned() throws Exception {
+        assertEquals(1, in.read());
+        assertEquals(2, in.read());
+        assertEquals(255, in.read());
+        assertEquals(4, in.read());
+        assertEquals(5, in.read());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void givenStream_whenReadArrayInvoked_thenRemainingBytesShouldBeCopied() throws Exception {
+        byte[] bytes = new byte[8];
+
+        assertEquals(0, in.read(bytes, 0, 0));
+        assertEquals(5, in.read(bytes, 1, 7));
+        assertEquals(-1, in.read(bytes, 0, 8));
+        assertArrayEquals(new byte[]{0, 1, 2, (byte) 0xFF, 4, 5, 0, 0}, bytes);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void givenStream_whenReadArrayWithInvalidRangeInvoked_thenExceptionShouldBeThrown() throws Exception {
+        in.read(new byte[2], 1, 2);
+    }
+
+    @Test
+    public void givenStream_whenSkipAndAvailableInvoked_thenPositionShouldBeMoved() throws Exception {
+        assertEquals(5, in.available());
+        assertEquals(0, in.skip(-1));
+        assertEquals(3, in.skip(3));
+        assertEquals(2, in.available());
+        assertEquals(2, in.skip(10));
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    public void givenStream_whenMarkAndResetInvoked_thenPositionShouldBeRestored() throws Exception {
+        assertTrue(in.markSupported());
+
+        in.reset();
+        in.read();
+        in.mark(10);
+        in.read();
+        in.reset();
+
+        assertEquals(2, in.read());
+    }
+
+    @Test
+    public void givenStream_whenRead_thenPositionOfBufferShouldNotBeChanged() throws Exception {
+        in.skip(2);
+        in.read();
+
+        assertEquals(0, buffer.position());
+    }
+}
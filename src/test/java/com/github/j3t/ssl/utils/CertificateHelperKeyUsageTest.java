@@ -1,6 +1,7 @@
 package com.github.j3t.ssl.utils;
 
 import com.github.j3t.ssl.utils.types.KeyUsage;
+import com.github.j3t.ssl.utils.types.KeyUsageSet;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -100,4 +101,19 @@ public class CertificateHelperKeyUsageTest {
         CertificateHelper.isKeyUsagePresent((Certificate[]) null, KeyUsage.DATA_ENCIPHERMENT);
     }
 
+    @Test
+    public void getKeyUsageSetShouldReturnKeyUsagesOfAllCertificatesWhenCalledWithChain() {
+        X509Certificate issuer = mock(X509Certificate.class);
+        when(x509Certificate.getKeyUsage()).thenReturn(new boolean[]{true, false, false, false, false, false, false, false, false});
+        when(issuer.getKeyUsage()).thenReturn(new boolean[]{false, false, false, false, false, true, false, false, false});
+
+        assertEquals(KeyUsageSet.of(KeyUsage.DIGITAL_SIGNATURE, KeyUsage.KEY_CERT_SIGN),
+                CertificateHelper.getKeyUsageSet(new Certificate[]{x509Certificate, certificate, issuer}));
+    }
+
+    @Test
+    public void getKeyUsageSetShouldReturnEmptySetWhenCertificateInNotAnX509Certificate() {
+        assertSame(KeyUsageSet.EMPTY, CertificateHelper.getKeyUsageSet(certificate));
+    }
+
 }
@@ -0,0 +1,105 @@
+package com.github.j3t.ssl.utils;
+
+import com.github.j3t.ssl.utils.types.KeyUsage;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+
+import static com.github.j3t.ssl.utils.test.Fixtures.KEYSTORE_SERVER;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class CertificateInfoTest {
+    private X509Certificate certificate;
+
+    @Before
+    public void setUp() throws Exception {
+        certificate = (X509Certificate) KEYSTORE_SERVER.getCertificate(KeyStoreHelper.getAliases(KEYSTORE_SERVER)[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullCertificate_whenOfInvoked_thenExceptionShouldBeThrown() {
+        CertificateInfo.of(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNonX509Certificate_whenOfInvoked_thenExceptionShouldBeThrown() {
+        CertificateInfo.of(mock(Certificate.class));
+    }
+
+    @Test
+    public void givenSameCertificate_whenOfInvokedTwice_thenSameInfoShouldBeReturned() {
+        assertSame(CertificateInfo.of(certificate), CertificateInfo.of(certificate));
+    }
+
+    @Test
+    public void givenCertificate_whenOfInvoked_thenMetadataShouldMatchCertificate() {
+        CertificateInfo info = CertificateInfo.of(certificate);
+
+        assertEquals(certificate.getSubjectX500Principal().getName(), info.getSubject());
+        assertEquals(certificate.getIssuerX500Principal().getName(), info.getIssuer());
+        assertEquals(certificate.getNotBefore(), info.getNotBefore());
+        assertEquals(certificate.getNotAfter(), info.getNotAfter());
+        assertEquals(certificate.getSigAlgName(), info.getSignatureAlgorithm());
+        assertEquals(certificate.getPublicKey().getAlgorithm(), info.getKeyAlgorithm());
+        assertArrayEquals(CertificateHelper.getKeyUsages(certificate), info.getKeyUsages());
+    }
+
+    @Test
+    public void givenCertificate_whenFingerprintsRequested_thenDigestsOfEncodingShouldBeReturned() throws Exception {
+        CertificateInfo info = CertificateInfo.of(certificate);
+
+        assertEquals(StringHelper.toHexString(MessageDigest.getInstance("SHA-1").digest(certificate.getEncoded())),
+                info.getSha1Fingerprint());
+        assertEquals(StringHelper.toHexString(MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded())),
+                info.getSha256Fingerprint());
+    }
+
+    @Test
+    public void givenCertificate_whenOfInvoked_thenLazyMetadataShouldNotBeDerived() throws Exception {
+        X509Certificate x509Certificate = mock(X509Certificate.class);
+
+        CertificateInfo info = CertificateInfo.of(x509Certificate);
+
+        verify(x509Certificate, never()).getSubjectAlternativeNames();
+        assertTrue(info.getSubjectAlternativeNames().isEmpty());
+        assertSame(info.getSubjectAlternativeNames(), info.getSubjectAlternativeNames());
+        verify(x509Certificate, times(1)).getSubjectAlternativeNames();
+    }
+
+    @Test
+    public void givenKeyUsages_whenMaskRequested_thenBitOfEachKeyUsageShouldBeSet() {
+        X509Certificate x509Certificate = mock(X509Certificate.class);
+        when(x509Certificate.getKeyUsage()).thenReturn(new boolean[]{true, false, false, false, false, true, false, false, false});
+
+        CertificateInfo info = CertificateInfo.of(x509Certificate);
+
+        assertEquals(1 << KeyUsage.DIGITAL_SIGNATURE.ordinal() | 1 << KeyUsage.KEY_CERT_SIGN.ordinal(), info.getKeyUsageMask());
+        assertTrue(info.isKeyUsagePresent(KeyUsage.KEY_CERT_SIGN));
+        assertFalse(info.isKeyUsagePresent(KeyUsage.C_RL_SIGN));
+        assertArrayEquals(new KeyUsage[]{KeyUsage.DIGITAL_SIGNATURE, KeyUsage.KEY_CERT_SIGN}, info.getKeyUsages());
+    }
+
+    @Test
+    public void givenMockedCertificate_whenOfInvoked_thenMissingMetadataShouldBeNull() {
+        CertificateInfo info = CertificateInfo.of(mock(X509Certificate.class));
+
+        assertNull(info.getSubject());
+        assertNull(info.getNotAfter());
+        assertNull(info.getKeyAlgorithm());
+        assertEquals(0, info.getKeyUsageMask());
+        assertTrue(info.getSubjectAlternativeNames().isEmpty());
+    }
+
+    @Test
+    public void givenInfo_whenDateModified_thenInfoShouldBeUnchanged() {
+        CertificateInfo info = CertificateInfo.of(certificate);
+
+        info.getNotAfter().setTime(0);
+
+        assertEquals(certificate.getNotAfter(), info.getNotAfter());
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.j3t.ssl.utils;
+
+import com.github.j3t.ssl.utils.types.SslProtocol;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class EnvironmentHelperTest {
+
+    @Test
+    public void parseJavaVersionShouldReturnMinorVersionWhenVersionHasLegacyFormat() {
+        assertEquals(6, EnvironmentHelper.parseJavaVersion("1.6"));
+        assertEquals(7, EnvironmentHelper.parseJavaVersion("1.7"));
+        assertEquals(8, EnvironmentHelper.parseJavaVersion("1.8"));
+    }
+
+    @Test
+    public void parseJavaVersionShouldReturnMajorVersionWhenVersionHasNewFormat() {
+        assertEquals(9, EnvironmentHelper.parseJavaVersion("9"));
+        assertEquals(11, EnvironmentHelper.parseJavaVersion("11"));
+        assertEquals(17, EnvironmentHelper.parseJavaVersion("17"));
+        assertEquals(21, EnvironmentHelper.parseJavaVersion("21"));
+    }
+
+    @Test
+    public void parseJavaVersionShouldIgnoreSuffixes() {
+        assertEquals(10, EnvironmentHelper.parseJavaVersion("10.0.2"));
+        assertEquals(22, EnvironmentHelper.parseJavaVersion("22-ea"));
+    }
+
+    @Test
+    public void parseJavaVersionShouldReturnZeroWhenVersionIsUnknown() {
+        assertEquals(0, EnvironmentHelper.parseJavaVersion(null));
+        assertEquals(0, EnvironmentHelper.parseJavaVersion(""));
+        assertEquals(0, EnvironmentHelper.parseJavaVersion("unknown"));
+    }
+
+    @Test
+    public void getJavaVersionShouldMatchTheRuntime() {
+        assertEquals(EnvironmentHelper.parseJavaVersion(System.getProperty("java.specification.version")),
+                EnvironmentHelper.getJavaVersion());
+        assertTrue(EnvironmentHelper.isJava6OrHigher());
+    }
+
+    @Test
+    public void isProtocolSupportedShouldReturnFalseWhenProtocolIsUnknown() {
+        assertFalse(EnvironmentHelper.isProtocolSupported("TLSv0.9"));
+    }
+
+    @Test
+    public void isProtocolSupportedShouldReturnTrueWhenProtocolIsTLSv10() {
+        assertTrue(EnvironmentHelper.isProtocolSupported(SslProtocol.TLSv10));
+    }
+
+    @Test
+    public void isProtocolSupportedShouldReturnTrueWhenJavaIs11OrHigherAndProtocolIsTLSv13() {
+        assumeTrue("Java Version isn't 11 or higher!", EnvironmentHelper.isJava11OrHigher());
+
+        assertTrue(EnvironmentHelper.isProtocolSupported(SslProtocol.TLSv13));
+    }
+
+    @Test
+    public void isProtocolSupportedShouldReturnFalseWhenJavaIs6AndProtocolIsTLSv12() {
+        assumeTrue("Java Version isn't 6!", EnvironmentHelper.isJava6());
+
+        assertFalse(EnvironmentHelper.isProtocolSupported(SslProtocol.TLSv12));
+    }
+
+    @Test
+    public void isProtocolSupportedShouldNotDependOnTheDefaultKeyStore() {
+        String keyStore = System.getProperty("javax.net.ssl.keyStore");
+        System.setProperty("javax.net.ssl.keyStore", "does-not-exist.jks");
+
+        try {
+            assertTrue(EnvironmentHelper.isProtocolSupported(SslProtocol.TLSv11));
+        } finally {
+            if (keyStore != null)
+                System.setProperty("javax.net.ssl.keyStore", keyStore);
+            else
+                System.clearProperty("javax.net.ssl.keyStore");
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void isProtocolSupportedShouldThrowExceptionWhenProtocolIsNull() {
+        EnvironmentHelper.isProtocolSupported(null);
+    }
+}
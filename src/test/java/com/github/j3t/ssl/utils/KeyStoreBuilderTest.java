@@ -1,15 +1,30 @@
 package com.github.j3t.ssl.utils;
 
+import com.github.j3t.ssl.utils.metrics.MetricNames;
+import com.github.j3t.ssl.utils.metrics.Metrics;
+import com.github.j3t.ssl.utils.metrics.MetricsRecorder;
 import com.github.j3t.ssl.utils.types.KeyStoreType;
+import com.sun.management.UnixOperatingSystemMXBean;
+import org.junit.Assume;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.ByteBuffer;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.ProviderException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 public class KeyStoreBuilderTest {
     @Test(expected = IllegalStateException.class)
@@ -39,4 +54,65 @@ public class KeyStoreBuilderTest {
 
         KeyStoreBuilder.create().setType(KeyStoreType.PKCS11).setLibraryPath(file.getPath()).build();
     }
+
+    @Test
+    public void givenRecorder_whenBuild_thenLoadTimeAndFailuresShouldBeRecorded() throws Exception {
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        Metrics.setRecorder(recorder);
+
+        try {
+            KeyStoreBuilder.create().build();
+            KeyStoreBuilder.create().setType("UNKNOWN_KEYSTORE_TYPE").buildUnsecure();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            verify(recorder).record(eq(MetricNames.KEY_STORE_LOAD), anyLong());
+            verify(recorder).increment(MetricNames.KEY_STORE_LOAD_FAILURE);
+        } finally {
+            Metrics.setRecorder(null);
+        }
+    }
+
+    @Test
+    public void givenKeyStoreFile_whenBuildMemoryMapped_thenKeyStoreShouldBeEqual() throws Exception {
+        String path = getClass().getResource("/certs/server.jks").getFile();
+
+        KeyStore keyStore = KeyStoreBuilder.create().setPath(path).build();
+        KeyStore mapped = KeyStoreBuilder.create().setPath(path).setMemoryMapped(true).build();
+
+        assertEquals(KeyStoreHelper.getFingerprint(keyStore), KeyStoreHelper.getFingerprint(mapped));
+    }
+
+    @Test
+    public void givenKeyStoreFile_whenBuildRepeated_thenFileDescriptorsShouldBeClosed() throws Exception {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        Assume.assumeTrue(os instanceof UnixOperatingSystemMXBean);
+
+        String path = getClass().getResource("/certs/server.jks").getFile();
+        long before = ((UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount();
+
+        for (int i = 0; i < 100; i++)
+            KeyStoreBuilder.create().setPath(path).build();
+
+        assertTrue(((UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount() - before < 10);
+    }
+
+    @Test
+    public void givenFile_whenReadFileInvoked_thenContentShouldBeReturned() throws Exception {
+        File file = File.createTempFile("read-file-test", ".bin");
+        file.deleteOnExit();
+
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[]{1, 2, 3});
+        } finally {
+            out.close();
+        }
+
+        for (boolean memoryMapped : new boolean[]{false, true}) {
+            ByteBuffer buffer = KeyStoreBuilder.readFile(file.getPath(), memoryMapped);
+
+            assertEquals(3, buffer.remaining());
+            assertEquals(3, buffer.get(2));
+        }
+    }
 }
@@ -0,0 +1,162 @@
+package com.github.j3t.ssl.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+
+import static com.github.j3t.ssl.utils.test.Fixtures.*;
+import static org.junit.Assert.*;
+
+public class KeyStoreCacheTest {
+    private KeyStoreCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new KeyStoreCache(2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        KeyStoreCache.setDefault(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenMaximumSizeZero_whenCacheCreated_thenExceptionShouldBeThrown() {
+        new KeyStoreCache(0);
+    }
+
+    @Test
+    public void givenSameFile_whenBuildExecutedTwice_thenCachedKeyStoreShouldBeReturned() throws Exception {
+        KeyStore first = createBuilder(CLIENT_JKS, "PtUPmi#o").build();
+        KeyStore second = createBuilder(CLIENT_JKS, "PtUPmi#o").build();
+
+        assertEquals(KeyStoreHelper.getFingerprint(first), KeyStoreHelper.getFingerprint(second));
+        assertEquals(KeyStoreHelper.getFingerprint(KEYSTORE_CLIENT), KeyStoreHelper.getFingerprint(second));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void givenDifferentPassword_whenBuildExecuted_thenKeyStoreShouldBeLoadedAgain() throws Exception {
+        createBuilder(CLIENT_JKS, "PtUPmi#o").build();
+        createBuilder(CLIENT_JKS, null).build();
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void givenCachedKeyStore_whenBuildExecutedWithWrongPassword_thenExceptionShouldBeThrown() throws Exception {
+        createBuilder(CLIENT_P12, "PtUPmi#o").build();
+        createBuilder(CLIENT_P12, "wrong").build();
+    }
+
+    @Test(expected = KeyStoreException.class)
+    public void givenCachedKeyStore_whenSetCertificateEntryInvoked_thenExceptionShouldBeThrown() throws Exception {
+        KeyStore keyStore = createBuilder(CLIENT_JKS, null).build();
+
+        keyStore.setCertificateEntry("other", keyStore.getCertificate("client"));
+    }
+
+    @Test(expected = KeyStoreException.class)
+    public void givenCachedKeyStore_whenDeleteEntryInvoked_thenExceptionShouldBeThrown() throws Exception {
+        createBuilder(CLIENT_JKS, null).build().deleteEntry("client");
+    }
+
+    @Test(expected = IOException.class)
+    public void givenCachedKeyStore_whenLoadInvoked_thenExceptionShouldBeThrown() throws Exception {
+        createBuilder(CLIENT_JKS, null).build().load(null, null);
+    }
+
+    @Test
+    public void givenModifiedFile_whenBuildExecuted_thenKeyStoreShouldBeLoadedAgain() throws Exception {
+        File file = File.createTempFile("ssl-utils", ".jks");
+        file.deleteOnExit();
+
+        copy(CLIENT_JKS, file);
+        KeyStore first = createBuilder(file.getPath(), null).build();
+
+        copy(MULTI_JKS, file);
+        KeyStore second = createBuilder(file.getPath(), null).build();
+
+        assertEquals(0, cache.getHitCount());
+        assertNotEquals(KeyStoreHelper.getFingerprint(first), KeyStoreHelper.getFingerprint(second));
+    }
+
+    @Test
+    public void givenFullCache_whenBuildExecuted_thenLeastRecentlyUsedKeyStoreShouldBeEvicted() throws Exception {
+        cache = new KeyStoreCache(1);
+
+        createBuilder(CLIENT_JKS, null).build();
+        createBuilder(SERVER_JKS, null).build();
+        createBuilder(CLIENT_JKS, null).build();
+
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getEvictionCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void givenDefaultCache_whenBuildExecutedWithoutCache_thenDefaultCacheShouldBeUsed() throws Exception {
+        KeyStoreCache.setDefault(cache);
+
+        KeyStoreBuilder.create().setPath(CLIENT_JKS).build();
+        KeyStoreBuilder.create().setPath(CLIENT_JKS).build();
+
+        assertSame(cache, KeyStoreCache.getDefault());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void givenFixAliases_whenBuildExecuted_thenCacheShouldNotBeUsed() throws Exception {
+        createBuilder(CLIENT_JKS, null).setFixAliases(true).build();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void givenCachedKeyStore_whenSSLContextBuilt_thenContextShouldBeReturned() throws Exception {
+        createBuilder(CLIENT_JKS, "PtUPmi#o").build();
+
+        SSLContext context = SSLContextBuilder.create()
+                .setKeyStore(createBuilder(CLIENT_JKS, "PtUPmi#o").build())
+                .setKeyStorePassword("PtUPmi#o".toCharArray())
+                .setTrustStore(createBuilder(CLIENT_TRUST_JKS, null).build())
+                .build();
+
+        assertNotNull(context);
+        assertEquals(1, cache.getHitCount());
+    }
+
+    private KeyStoreBuilder createBuilder(String path, String password) {
+        return KeyStoreBuilder.create()
+                .setPath(path)
+                .setPassword(password != null ? password.toCharArray() : null)
+                .setCache(cache);
+    }
+
+    private static void copy(String source, File target) throws IOException {
+        FileInputStream in = new FileInputStream(source);
+        FileOutputStream out = new FileOutputStream(target);
+
+        try {
+            byte[] buffer = new byte[4096];
+
+            for (int n = in.read(buffer); n != -1; n = in.read(buffer))
+                out.write(buffer, 0, n);
+        } finally {
+            in.close();
+            out.close();
+        }
+    }
+}
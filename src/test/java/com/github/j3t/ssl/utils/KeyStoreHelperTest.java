@@ -1,6 +1,7 @@
 package com.github.j3t.ssl.utils;
 
 import com.github.j3t.ssl.utils.types.KeyUsage;
+import com.github.j3t.ssl.utils.types.KeyUsageSet;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -88,6 +89,18 @@ public class KeyStoreHelperTest {
         assertEquals(0, KeyStoreHelper.getAliases(keyStore, KeyUsage.DATA_ENCIPHERMENT, KeyUsage.C_RL_SIGN).length);
     }
 
+    @Test
+    public void getAliasesWithKeyUsageSetShouldReturnSameAliasesAsWithKeyUsages() {
+        assertArrayEquals(KeyStoreHelper.getAliases(keyStore, KeyUsage.KEY_CERT_SIGN, KeyUsage.C_RL_SIGN),
+                KeyStoreHelper.getAliases(keyStore, KeyUsageSet.of(KeyUsage.KEY_CERT_SIGN, KeyUsage.C_RL_SIGN)));
+        assertEquals(0, KeyStoreHelper.getAliases(keyStore, KeyUsageSet.EMPTY).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getAliasesWithKeyUsageSetShouldThrowExceptionWhenKeyUsageSetIsNull() {
+        KeyStoreHelper.getAliases(keyStore, (KeyUsageSet) null);
+    }
+
     @Test
     public void toStringShouldReturnStringNotEmptyWhenKeyStoreIsNotNull() {
         assertFalse(KeyStoreHelper.toString(keyStore).isEmpty());
@@ -0,0 +1,157 @@
+package com.github.j3t.ssl.utils;
+
+import com.github.j3t.ssl.utils.types.KeyStoreEntryType;
+import com.github.j3t.ssl.utils.types.KeyStoreType;
+import com.github.j3t.ssl.utils.types.KeyUsage;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import javax.security.auth.x500.X500Principal;
+import java.security.KeyStore;
+import java.security.KeyStoreSpi;
+import java.security.cert.X509Certificate;
+import java.util.*;
+
+import static com.github.j3t.ssl.utils.test.Fixtures.IDENTITY_DIRECTORY;
+import static com.github.j3t.ssl.utils.test.Fixtures.KEYSTORE_SERVER;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class KeyStoreIndexTest {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private KeyStore keyStore;
+    private KeyStoreIndex index;
+    private Date now;
+
+    @Before
+    public void setUp() throws Exception {
+        now = new Date();
+
+        KeyStore pem = PemKeyStoreBuilder.create()
+                .addKeyEntry("rsa", IDENTITY_DIRECTORY + "/rsa.pem")
+                .addKeyEntry("ec", IDENTITY_DIRECTORY + "/ec-key.pem", IDENTITY_DIRECTORY + "/ec-chain.pem")
+                .build();
+
+        keyStore = KeyStore.getInstance(KeyStoreType.JCEKS);
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("rsa", pem.getKey("rsa", new char[0]), new char[0], pem.getCertificateChain("rsa"));
+        keyStore.setKeyEntry("ec", pem.getKey("ec", new char[0]), new char[0], pem.getCertificateChain("ec"));
+        keyStore.setCertificateEntry("server", KEYSTORE_SERVER.getCertificate("server"));
+        keyStore.setKeyEntry("secret", new SecretKeySpec(new byte[16], "AES"), new char[0], null);
+        keyStore.setCertificateEntry("expiring", expiringCertificate());
+
+        index = KeyStoreIndex.create(keyStore);
+    }
+
+    private X509Certificate expiringCertificate() throws Exception {
+        Collection<List<?>> names = new ArrayList<List<?>>();
+        names.add(Arrays.<Object>asList(2, "www.example.com"));
+
+        X509Certificate certificate = mock(X509Certificate.class);
+        when(certificate.getSubjectX500Principal()).thenReturn(new X500Principal("CN=www.example.com"));
+        when(certificate.getIssuerX500Principal()).thenReturn(new X500Principal("CN=MyIssuer"));
+        when(certificate.getKeyUsage()).thenReturn(new boolean[]{true, false, false, false, false, false, false, false, false});
+        when(certificate.getSubjectAlternativeNames()).thenReturn(names);
+        when(certificate.getNotBefore()).thenReturn(new Date(now.getTime() - DAY));
+        when(certificate.getNotAfter()).thenReturn(new Date(now.getTime() + 3 * DAY));
+
+        return certificate;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullKeyStore_whenCreateInvoked_thenExceptionShouldBeThrown() throws Exception {
+        KeyStoreIndex.create(null);
+    }
+
+    @Test
+    public void givenKeyStore_whenCreated_thenEachEntryShouldBeIndexedWithItsType() {
+        assertEquals(5, index.size());
+        assertEquals(KeyStoreEntryType.PRIVATE_KEY, index.getEntry("rsa").getType());
+        assertEquals(KeyStoreEntryType.TRUSTED_CERTIFICATE, index.getEntry("server").getType());
+        assertEquals(KeyStoreEntryType.SECRET_KEY, index.getEntry("secret").getType());
+        assertNull(index.getEntry("secret").getCertificate());
+    }
+
+    @Test
+    public void givenKeyStore_whenCreated_thenKeyMetadataShouldBeIndexed() {
+        assertEquals("RSA", index.getEntry("rsa").getKeyAlgorithm());
+        assertEquals(2048, index.getEntry("rsa").getKeySize());
+        assertEquals("EC", index.getEntry("ec").getKeyAlgorithm());
+        assertEquals(256, index.getEntry("ec").getKeySize());
+        assertEquals(1024, index.getEntry("server").getKeySize());
+    }
+
+    @Test
+    public void givenKeyStore_whenCreated_thenQueriesShouldNotTouchKeyStore() throws Exception {
+        keyStore.deleteEntry("ec");
+
+        assertArrayEquals(new String[]{"ec"}, index.query().setKeyAlgorithm("ec").getAliases());
+    }
+
+    @Test
+    public void givenNoPredicates_whenQueried_thenAllEntriesShouldBeReturned() {
+        assertEquals(index.getEntries(), index.query().getEntries());
+    }
+
+    @Test
+    public void givenIssuerWithSpaces_whenQueried_thenNameShouldBeNormalized() {
+        assertArrayEquals(new String[]{"ec"}, index.query().setIssuer("O=pem-ec, CN=ssl-utils test CA").getAliases());
+    }
+
+    @Test
+    public void givenIssuerInOtherCase_whenQueried_thenNamesShouldBeComparedCanonically() {
+        assertArrayEquals(new String[]{"ec"}, index.query().setIssuer("o=PEM-EC,  cn=SSL-Utils Test CA").getAliases());
+        assertArrayEquals(new String[]{"expiring"}, index.query().setSubject("cn=WWW.EXAMPLE.COM").getAliases());
+    }
+
+    @Test
+    public void givenPrivateKeyEntryWithoutChain_whenCreated_thenEntryShouldBeIndexedAsPrivateKey() throws Exception {
+        KeyStoreSpi spi = mock(KeyStoreSpi.class);
+        when(spi.engineAliases()).thenReturn(Collections.enumeration(Collections.singleton("token")));
+        when(spi.engineIsKeyEntry("token")).thenReturn(true);
+        when(spi.engineEntryInstanceOf("token", KeyStore.PrivateKeyEntry.class)).thenReturn(true);
+
+        KeyStore token = new KeyStore(spi, null, KeyStoreType.PKCS11) {
+        };
+        token.load(null, null);
+
+        KeyStoreIndex.Entry entry = KeyStoreIndex.create(token).getEntry("token");
+
+        assertEquals(KeyStoreEntryType.PRIVATE_KEY, entry.getType());
+        assertNull(entry.getCertificate());
+    }
+
+    @Test
+    public void givenCombinedPredicates_whenQueried_thenOnlyEntriesMatchingAllShouldBeReturned() {
+        KeyStoreIndex.Query query = index.query()
+                .setIssuer("CN=MyIssuer")
+                .setKeyUsages(KeyUsage.DIGITAL_SIGNATURE)
+                .setSubjectAlternativeName("WWW.EXAMPLE.COM");
+
+        assertEquals("expiring", query.getFirst().getAlias());
+        assertNull(query.setValidBetween(now, new Date(now.getTime() + 7 * DAY)).getFirst());
+    }
+
+    @Test
+    public void givenValidity_whenQueried_thenEntriesWithoutCertificateShouldNotMatch() {
+        List<String> aliases = Arrays.asList(index.query().setValidAt(now).getAliases());
+
+        assertTrue(aliases.contains("rsa"));
+        assertTrue(aliases.contains("expiring"));
+        assertFalse(aliases.contains("secret"));
+    }
+
+    @Test
+    public void givenUnknownValue_whenQueried_thenEmptyResultShouldBeReturned() {
+        assertEquals(0, index.query().setKeyAlgorithm("EC").setKeyUsages(KeyUsage.C_RL_SIGN).getAliases().length);
+        assertEquals(0, index.query().setSubject("CN=unknown").getEntries().size());
+        assertEquals(0, index.query().setEntryType(KeyStoreEntryType.SECRET_KEY).setMinKeySize(1).getEntries().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenPeriodEndingBeforeStart_whenSetValidBetweenInvoked_thenExceptionShouldBeThrown() {
+        index.query().setValidBetween(now, new Date(now.getTime() - 1));
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.j3t.ssl.utils;
+
+import com.github.j3t.ssl.utils.types.KeyStoreType;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.j3t.ssl.utils.test.Fixtures.*;
+import static org.junit.Assert.*;
+
+public class KeyStoreMergeBuilderTest {
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullSource_whenAddSourceInvoked_thenExceptionShouldBeThrown() {
+        KeyStoreMergeBuilder.create().addSource((KeyStoreBuilder) null);
+    }
+
+    @Test
+    public void givenNoSources_whenBuild_thenEmptyKeyStoreShouldBeReturned() throws Exception {
+        assertEquals(0, KeyStoreMergeBuilder.create().build().size());
+    }
+
+    @Test
+    public void givenSources_whenBuild_thenCertificatesShouldBeMerged() throws Exception {
+        KeyStore keyStore = KeyStoreMergeBuilder.create()
+                .addSource(KeyStoreBuilder.create().setPath(CLIENT_JKS))
+                .addSource(KeyStoreBuilder.create().setType(KeyStoreType.PKCS12).setPath(CLIENT_P12).setPassword("PtUPmi#o"))
+                .addSource(KeyStoreBuilder.create().setPath(SERVER_JKS))
+                .addSource(KEYSTORE_CLIENT)
+                .build();
+
+        String[] aliases = KeyStoreHelper.getAliases(keyStore);
+        Arrays.sort(aliases);
+
+        assertArrayEquals(new String[]{"client", "server"}, aliases);
+        assertTrue(keyStore.isCertificateEntry("client"));
+        assertEquals(KEYSTORE_CLIENT.getCertificate("client"), keyStore.getCertificate("client"));
+    }
+
+    @Test
+    public void givenSameAliasForDifferentCertificates_whenBuild_thenAliasShouldBeSuffixed() throws Exception {
+        Certificate client = KEYSTORE_CLIENT.getCertificate("client");
+        Certificate server = KEYSTORE_SERVER.getCertificate("server");
+
+        KeyStore keyStore = KeyStoreMergeBuilder.create()
+                .addSource(KeyStoreBuilder.create().setKey(createKey("ca", server)))
+                .addSource(KeyStoreBuilder.create().setKey(createKey("ca", client)))
+                .addSource(KeyStoreBuilder.create().setKey(createKey("ca", client)))
+                .build();
+
+        assertEquals(2, keyStore.size());
+        assertEquals(server, keyStore.getCertificate("ca"));
+        assertEquals(client, keyStore.getCertificate("ca-1"));
+    }
+
+    @Test
+    public void givenSlowSources_whenBuild_thenSourcesShouldBeLoadedInParallel() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(4);
+        KeyStoreMergeBuilder builder = KeyStoreMergeBuilder.create();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        for (int i = 0; i < 4; i++)
+            builder.addSource(new KeyStoreBuilder() {
+                @Override
+                public KeyStore build() throws IOException {
+                    latch.countDown();
+
+                    try {
+                        if (!latch.await(10, TimeUnit.SECONDS))
+                            throw new IOException("sources are not loaded in parallel!");
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+
+                    return KEYSTORE_CLIENT;
+                }
+            });
+
+        try {
+            assertEquals(1, builder.setExecutor(executor).build().size());
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void givenInvalidSource_whenBuild_thenExceptionOfSourceShouldBeThrown() throws Exception {
+        KeyStoreMergeBuilder.create()
+                .addSource(KeyStoreBuilder.create().setPath(CLIENT_JKS))
+                .addSource(KeyStoreBuilder.create().setKey(new byte[]{1, 2, 3}))
+                .build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void givenInvalidSource_whenBuildUnsecure_thenExceptionShouldBeThrown() throws Exception {
+        KeyStoreMergeBuilder.create().addSource(KeyStoreBuilder.create().setKey(new byte[]{1, 2, 3})).buildUnsecure();
+    }
+
+    private static byte[] createKey(String alias, Certificate certificate) throws Exception {
+        KeyStore keyStore = KeyStoreBuilder.create().build();
+        keyStore.setCertificateEntry(alias, certificate);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        keyStore.store(out, new char[0]);
+
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.j3t.ssl.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.security.KeyStore;
+import java.security.KeyStoreSpi;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class KeyStoreRendererTest {
+    private KeyStore keyStore;
+    private KeyStore multiKeyStore;
+
+    @Before
+    public void setUp() throws Exception {
+        keyStore = KeyStoreBuilder.create()
+                .setPath(getClass().getResource("/certs/server.jks").getFile())
+                .build();
+
+        multiKeyStore = KeyStoreBuilder.create()
+                .setPath(getClass().getResource("/certs/multi.jks").getFile())
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNegativeOffset_whenSetOffsetExecuted_thenExceptionShouldBeThrown() {
+        KeyStoreRenderer.create().setOffset(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNegativeLimit_whenSetLimitExecuted_thenExceptionShouldBeThrown() {
+        KeyStoreRenderer.create().setLimit(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNoTarget_whenRenderExecuted_thenExceptionShouldBeThrown() throws Exception {
+        KeyStoreRenderer.create().render(keyStore, null);
+    }
+
+    @Test
+    public void givenTextFormat_whenRenderExecuted_thenOutputShouldBeEqualToToString() throws Exception {
+        StringWriter writer = new StringWriter();
+
+        assertEquals(2, KeyStoreRenderer.create().render(multiKeyStore, writer));
+        assertEquals(KeyStoreHelper.toString(multiKeyStore), writer.toString());
+    }
+
+    @Test
+    public void givenOffsetAndLimit_whenRenderExecuted_thenOnlyThePageShouldBeRendered() throws Exception {
+        String[] aliases = aliases(multiKeyStore);
+        StringBuilder sb = new StringBuilder();
+
+        assertEquals(1, KeyStoreRenderer.create().setOffset(1).setLimit(1).render(multiKeyStore, sb));
+        assertEquals("keyStore contains 2 aliase(s)\r\n" + KeyStoreHelper.toStringByAlias(multiKeyStore, aliases[1])
+                .replace("\t1. ", "\t2. "), sb.toString());
+    }
+
+    @Test
+    public void givenOffsetBehindTheLastEntry_whenRenderExecuted_thenNoEntryShouldBeRendered() throws Exception {
+        StringBuilder sb = new StringBuilder();
+
+        assertEquals(0, KeyStoreRenderer.create()
+                .setFormat(KeyStoreRenderer.Format.JSON_LINES)
+                .setOffset(2)
+                .render(multiKeyStore, sb));
+        assertEquals("", sb.toString());
+    }
+
+    @Test
+    public void givenJsonLinesFormat_whenRenderExecuted_thenOneObjectPerEntryShouldBeRendered() throws Exception {
+        StringBuilder sb = new StringBuilder();
+
+        KeyStoreRenderer.create().setFormat(KeyStoreRenderer.Format.JSON_LINES).render(keyStore, sb);
+
+        String json = sb.toString();
+
+        assertTrue(json.endsWith("}\n"));
+        assertEquals(1, json.split("\n").length);
+        assertTrue(json.startsWith("{\"index\":1,\"alias\":\"server\",\"type\":\"PRIVATE_KEY\",\"subject\":\"CN=localhost,"));
+        assertTrue(json.contains("\"notAfter\":" + CertificateHelper.getValidityEnd(keyStore.getCertificate("server")).getTime()));
+        assertTrue(json.contains("\"keyAlgorithm\":\"DSA\",\"keySize\":1024,\"keyUsages\":[\"KEY_CERT_SIGN\",\"C_RL_SIGN\"]"));
+        assertTrue(json.contains("\"subjectAlternativeNames\":[],\"sha256\":\""));
+    }
+
+    @Test
+    public void givenSecretKeyEntry_whenRenderExecuted_thenEntryShouldBeRenderedWithoutCertificate() throws Exception {
+        KeyStore secretKeyStore = KeyStore.getInstance("JCEKS");
+        secretKeyStore.load(null, null);
+        secretKeyStore.setKeyEntry("secret", new SecretKeySpec(new byte[16], "AES"), "secret".toCharArray(), null);
+
+        StringBuilder text = new StringBuilder();
+        StringBuilder json = new StringBuilder();
+
+        KeyStoreRenderer.create().render(secretKeyStore, text);
+        KeyStoreRenderer.create().setFormat(KeyStoreRenderer.Format.JSON_LINES).render(secretKeyStore, json);
+
+        assertTrue(text.toString().endsWith("\t1. secret - no certificate" + System.getProperty("line.separator")));
+        assertEquals("{\"index\":1,\"alias\":\"secret\",\"type\":\"SECRET_KEY\"}\n", json.toString());
+    }
+
+    @Test
+    public void givenPrivateKeyEntryWithoutChain_whenRenderExecuted_thenEntryShouldBeRenderedAsPrivateKey()
+            throws Exception {
+        KeyStoreSpi spi = mock(KeyStoreSpi.class);
+        when(spi.engineAliases()).thenReturn(Collections.enumeration(Collections.singleton("token")));
+        when(spi.engineIsKeyEntry("token")).thenReturn(true);
+        when(spi.engineEntryInstanceOf("token", KeyStore.PrivateKeyEntry.class)).thenReturn(true);
+
+        KeyStore token = new KeyStore(spi, null, "PKCS11") {
+        };
+        token.load(null, null);
+        StringBuilder json = new StringBuilder();
+
+        KeyStoreRenderer.create().setFormat(KeyStoreRenderer.Format.JSON_LINES).render(token, json);
+
+        assertEquals("{\"index\":1,\"alias\":\"token\",\"type\":\"PRIVATE_KEY\"}\n", json.toString());
+    }
+
+    @Test
+    public void givenSpecialCharacters_whenAppendJsonStringExecuted_thenCharactersShouldBeEscaped() throws IOException {
+        StringBuilder sb = new StringBuilder();
+
+        KeyStoreRenderer.appendJsonString("a\"b\\c\nd\u0001", sb);
+
+        assertEquals("\"a\\\"b\\\\c\\nd\\u0001\"", sb.toString());
+    }
+
+    @Test
+    public void givenCertificate_whenRenderExecuted_thenOutputShouldBeEqualToDetails() throws Exception {
+        StringBuilder sb = new StringBuilder();
+
+        KeyStoreRenderer.create().render(keyStore.getCertificate("server"), sb);
+
+        assertEquals(CertificateHelper.getDetails(keyStore.getCertificate("server")), sb.toString());
+    }
+
+    @Test
+    public void givenTextFormat_whenRenderExecuted_thenFingerprintsAndAlternativeNamesShouldNotBeComputed()
+            throws Exception {
+        X509Certificate certificate = mock(X509Certificate.class);
+        when(certificate.getSigAlgName()).thenReturn("SHA256withRSA");
+
+        StringBuilder sb = new StringBuilder();
+        KeyStoreRenderer.create().render(certificate, sb);
+
+        assertTrue(sb.toString().contains("Signature Algorithm: SHA256withRSA"));
+        verify(certificate, never()).getEncoded();
+        verify(certificate, never()).getSubjectAlternativeNames();
+        verify(certificate, never()).getPublicKey();
+    }
+
+    private static String[] aliases(KeyStore keyStore) throws Exception {
+        return Collections.list(keyStore.aliases()).toArray(new String[0]);
+    }
+}
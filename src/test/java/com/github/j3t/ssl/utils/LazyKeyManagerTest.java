@@ -0,0 +1,203 @@
+package com.github.j3t.ssl.utils;
+
+import com.github.j3t.ssl.utils.types.KeyStoreType;
+import com.github.j3t.ssl.utils.types.SslProtocol;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import javax.security.auth.x500.X500Principal;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.UnrecoverableKeyException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.j3t.ssl.utils.test.Fixtures.*;
+import static org.junit.Assert.*;
+
+public class LazyKeyManagerTest {
+    private static final char[] PASSWORD = "secret".toCharArray();
+
+    private KeyStore keyStore;
+
+    @Before
+    public void setUp() throws Exception {
+        keyStore = PemKeyStoreBuilder.create()
+                .addKeyEntry("rsa", IDENTITY_DIRECTORY + "/rsa.pem")
+                .addKeyEntry("ec", IDENTITY_DIRECTORY + "/ec-key.pem", IDENTITY_DIRECTORY + "/ec-chain.pem")
+                .setPassword(PASSWORD)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenMaximumSizeZero_whenCreated_thenExceptionShouldBeThrown() throws Exception {
+        new LazyKeyManager(keyStore, PASSWORD, 0);
+    }
+
+    @Test
+    public void givenKeyStore_whenCreated_thenAliasesShouldBeIndexedButNoKeyRecovered() throws Exception {
+        LazyKeyManager keyManager = new LazyKeyManager(keyStore, PASSWORD, 8);
+
+        assertEquals(2, keyManager.getAliasCount());
+        assertEquals(0, keyManager.size());
+        assertEquals(0, keyManager.getMissCount());
+        assertEquals(keyStore.getCertificate("ec"), keyManager.getCertificateChain("ec")[0]);
+        assertEquals(2, keyManager.getCertificateChain("ec").length);
+    }
+
+    @Test
+    public void givenKeyManager_whenPrivateKeyRequestedTwice_thenKeyShouldBeRecoveredOnce() throws Exception {
+        LazyKeyManager keyManager = new LazyKeyManager(keyStore, PASSWORD, 8);
+
+        assertEquals(keyStore.getKey("rsa", PASSWORD), keyManager.getPrivateKey("rsa"));
+        assertSame(keyManager.getPrivateKey("rsa"), keyManager.getPrivateKey("rsa"));
+        assertEquals(1, keyManager.getMissCount());
+        assertEquals(2, keyManager.getHitCount());
+        assertEquals(1, keyManager.size());
+    }
+
+    @Test
+    public void givenFullKeyManager_whenOtherKeyRequested_thenLeastRecentlyUsedKeyShouldBeEvicted() throws Exception {
+        LazyKeyManager keyManager = new LazyKeyManager(keyStore, PASSWORD, 1);
+
+        keyManager.getPrivateKey("rsa");
+        keyManager.getPrivateKey("ec");
+        keyManager.getPrivateKey("rsa");
+
+        assertEquals(1, keyManager.size());
+        assertEquals(3, keyManager.getMissCount());
+        assertEquals(2, keyManager.getEvictionCount());
+    }
+
+    @Test(expected = UnrecoverableKeyException.class)
+    public void givenWrongPassword_whenCreated_thenExceptionShouldBeThrown() throws Exception {
+        new LazyKeyManager(keyStore, "wrong".toCharArray(), 8);
+    }
+
+    @Test(expected = UnrecoverableKeyException.class)
+    public void givenWrongPasswordAndLazyKeyManager_whenBuildExecuted_thenExceptionShouldBeThrown() throws Exception {
+        SSLContextBuilder.create()
+                .setKeyStore(KEYSTORE_SERVER)
+                .setKeyStorePassword("wrong")
+                .setLazyKeyManager(8)
+                .build();
+    }
+
+    @Test
+    public void givenUnknownAlias_whenPrivateKeyRequested_thenNullShouldBeReturned() throws Exception {
+        LazyKeyManager keyManager = new LazyKeyManager(keyStore, PASSWORD, 8);
+
+        assertNull(keyManager.getPrivateKey("unknown"));
+        assertNull(keyManager.getPrivateKey(null));
+        assertEquals(0, keyManager.size());
+    }
+
+    @Test
+    public void givenUnrecoverableKey_whenPrivateKeyRequestedTwice_thenRecoveryShouldNotBeRetried() throws Exception {
+        KeyStore mixed = KeyStore.getInstance(KeyStoreType.JKS);
+        mixed.load(null, null);
+        mixed.setKeyEntry("rsa", keyStore.getKey("rsa", PASSWORD), PASSWORD, keyStore.getCertificateChain("rsa"));
+        mixed.setKeyEntry("ec", keyStore.getKey("ec", PASSWORD), PASSWORD, keyStore.getCertificateChain("ec"));
+
+        // the first entry is verified when the key manager is created, the other one gets a different password
+        String verified = mixed.aliases().nextElement();
+        String other = verified.equals("rsa") ? "ec" : "rsa";
+        mixed.setKeyEntry(other, keyStore.getKey(other, PASSWORD), "other".toCharArray(),
+                keyStore.getCertificateChain(other));
+
+        LazyKeyManager keyManager = new LazyKeyManager(mixed, PASSWORD, 8);
+
+        assertNull(keyManager.getPrivateKey(other));
+        assertNull(keyManager.getPrivateKey(other));
+        assertEquals(1, keyManager.getMissCount());
+        assertNotNull(keyManager.getPrivateKey(verified));
+    }
+
+    @Test
+    public void givenKeyTypes_whenAliasChosen_thenAliasWithMatchingKeyShouldBeReturned() throws Exception {
+        LazyKeyManager keyManager = new LazyKeyManager(keyStore, PASSWORD, 8);
+
+        assertEquals("rsa", keyManager.chooseServerAlias("RSA", null, null));
+        assertEquals("ec", keyManager.chooseEngineServerAlias("EC_EC", null, null));
+        assertEquals("ec", keyManager.chooseClientAlias(new String[]{"DSA", "EC"}, null, null));
+        assertNull(keyManager.chooseServerAlias("EC_RSA", null, null));
+        assertNull(keyManager.chooseServerAlias("DSA", null, null));
+        assertEquals(0, keyManager.size());
+    }
+
+    @Test
+    public void givenIssuers_whenAliasChosen_thenAliasIssuedByOneOfThemShouldBeReturned() throws Exception {
+        LazyKeyManager keyManager = new LazyKeyManager(keyStore, PASSWORD, 8);
+        Principal ca = keyManager.getCertificateChain("ec")[1].getSubjectX500Principal();
+
+        assertArrayEquals(new String[]{"ec"}, keyManager.getClientAliases("EC", new Principal[]{ca}));
+        assertNull(keyManager.getServerAliases("RSA", new Principal[]{ca}));
+        assertNull(keyManager.getServerAliases("EC", new Principal[]{new X500Principal("CN=unknown")}));
+    }
+
+    @Test
+    public void givenModifiedAliases_whenAliasChosenAgain_thenAliasesOfTheKeyStoreShouldBeReturned() throws Exception {
+        LazyKeyManager keyManager = new LazyKeyManager(keyStore, PASSWORD, 8);
+        Principal ca = keyManager.getCertificateChain("ec")[1].getSubjectX500Principal();
+
+        keyManager.getServerAliases("EC", null)[0] = "modified";
+
+        assertArrayEquals(new String[]{"ec"}, keyManager.getServerAliases("EC", null));
+        assertEquals("ec", keyManager.chooseServerAlias("EC", new Principal[]{ca}, null));
+        assertNull(keyManager.chooseServerAlias("EC", new Principal[]{new X500Principal("CN=unknown")}, null));
+    }
+
+    @Test
+    public void givenSSLContextWithLazyKeyManager_whenHandshakeExecuted_thenConnectionShouldBeEstablished()
+            throws Exception {
+        SSLContext server = SSLContextBuilder.create()
+                .setKeyStore(KEYSTORE_SERVER)
+                .setKeyStorePassword("EC\\sEOoY")
+                .setLazyKeyManager(8)
+                .setProtocol(SslProtocol.TLSv12)
+                .build();
+        SSLContext client = SSLContextBuilder.create()
+                .setTrustStore(TRUSTSTORE_CLIENT)
+                .setProtocol(SslProtocol.TLSv12)
+                .build();
+
+        final SSLServerSocket serverSocket = (SSLServerSocket) server.getServerSocketFactory().createServerSocket(0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Void> accepted = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    SSLSocket socket = (SSLSocket) serverSocket.accept();
+
+                    try {
+                        socket.startHandshake();
+                        socket.getOutputStream().write(1);
+                    } finally {
+                        socket.close();
+                    }
+
+                    return null;
+                }
+            });
+
+            SSLSocket socket = (SSLSocket) client.getSocketFactory().createSocket("localhost", serverSocket.getLocalPort());
+
+            try {
+                assertEquals(1, socket.getInputStream().read());
+            } finally {
+                socket.close();
+            }
+
+            accepted.get();
+        } finally {
+            serverSocket.close();
+            executor.shutdownNow();
+        }
+    }
+}
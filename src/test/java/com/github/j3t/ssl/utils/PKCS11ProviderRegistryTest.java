@@ -0,0 +1,153 @@
+package com.github.j3t.ssl.utils;
+
+import com.github.j3t.ssl.utils.types.KeyStoreType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.KeyStore;
+import java.security.Provider;
+import java.security.Security;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PKCS11ProviderRegistryTest {
+    private AtomicInteger created;
+    private PKCS11ProviderRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        created = new AtomicInteger();
+        registry = new PKCS11ProviderRegistry(new PKCS11ProviderRegistry.ProviderFactory() {
+            @Override
+            public Provider create(String configuration) {
+                created.incrementAndGet();
+
+                return new StubProvider(configuration);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        registry.releaseAll();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullFactory_whenRegistryCreated_thenExceptionShouldBeThrown() {
+        new PKCS11ProviderRegistry(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullLibraryPath_whenAcquireInvoked_thenExceptionShouldBeThrown() throws Exception {
+        registry.acquire(null, null);
+    }
+
+    @Test
+    public void givenSameLibraryAndSlot_whenAcquireInvokedTwice_thenSameProviderShouldBeReturned() throws Exception {
+        Provider first = registry.acquire("/usr/lib/pkcs11.so", 1);
+        Provider second = registry.acquire("/usr/lib/../lib/pkcs11.so", 1);
+
+        assertSame(first, second);
+        assertSame(first, Security.getProvider(first.getName()));
+        assertEquals(1, created.get());
+        assertEquals(1, registry.getLiveCount());
+    }
+
+    @Test
+    public void givenDifferentSlots_whenAcquireInvoked_thenDifferentProvidersShouldBeReturned() throws Exception {
+        Provider first = registry.acquire("/usr/lib/pkcs11.so", null);
+        Provider second = registry.acquire("/usr/lib/pkcs11.so", 2);
+
+        assertNotSame(first, second);
+        assertEquals(2, registry.getLiveCount());
+    }
+
+    @Test
+    public void givenAcquiredProvider_whenReleaseInvoked_thenProviderShouldBeRemoved() throws Exception {
+        Provider provider = registry.acquire("/usr/lib/pkcs11.so", null);
+
+        assertTrue(registry.release("/usr/lib/pkcs11.so", null));
+        assertFalse(registry.release("/usr/lib/pkcs11.so", null));
+        assertNull(Security.getProvider(provider.getName()));
+        assertEquals(0, registry.getLiveCount());
+
+        assertNotSame(provider, registry.acquire("/usr/lib/pkcs11.so", null));
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    public void givenProviderAcquiredTwice_whenReleaseInvoked_thenProviderShouldBeRemovedWithTheLastReference()
+            throws Exception {
+        Provider provider = registry.acquire("/usr/lib/pkcs11.so", null);
+        registry.acquire("/usr/lib/pkcs11.so", null);
+
+        assertTrue(registry.release("/usr/lib/pkcs11.so", null));
+        assertSame(provider, Security.getProvider(provider.getName()));
+        assertEquals(1, registry.getLiveCount());
+
+        assertTrue(registry.release("/usr/lib/pkcs11.so", null));
+        assertNull(Security.getProvider(provider.getName()));
+        assertEquals(0, registry.getLiveCount());
+    }
+
+    @Test
+    public void givenSlot_whenCreateConfigurationInvoked_thenSlotShouldBeConfigured() throws Exception {
+        assertEquals("name = a\nlibrary=/lib.so\n", PKCS11ProviderRegistry.createConfiguration("a", "/lib.so", null));
+        assertEquals("name = a\nlibrary=/lib.so\nslot = 3\n",
+                PKCS11ProviderRegistry.createConfiguration("a", "/lib.so", 3));
+    }
+
+    @Test
+    public void givenKeyStoreBuilderWithLibraryPath_whenBuildInvokedTwice_thenProviderShouldBeReused() throws Exception {
+        File library = File.createTempFile("pkcs11-test", ".library");
+        library.deleteOnExit();
+        int providers = Security.getProviders().length;
+
+        KeyStore first = createBuilder(library).build();
+        KeyStore second = createBuilder(library).build();
+
+        assertSame(first.getProvider(), second.getProvider());
+        assertEquals(1, created.get());
+        assertEquals(providers + 1, Security.getProviders().length);
+    }
+
+    @Test(expected = IOException.class)
+    public void givenFailingFactory_whenAcquireInvoked_thenNoProviderShouldBeRegistered() throws Exception {
+        registry = new PKCS11ProviderRegistry(new PKCS11ProviderRegistry.ProviderFactory() {
+            @Override
+            public Provider create(String configuration) throws IOException {
+                throw new IOException("no token");
+            }
+        });
+
+        try {
+            registry.acquire("/usr/lib/pkcs11.so", null);
+        } finally {
+            assertEquals(0, registry.getLiveCount());
+        }
+    }
+
+    private KeyStoreBuilder createBuilder(File library) {
+        return KeyStoreBuilder.create()
+                .setType(KeyStoreType.PKCS11)
+                .setLibraryPath(library.getPath())
+                .setProviderRegistry(registry);
+    }
+
+    /**
+     * A provider without token, which provides a JKS key store as PKCS11 key store.
+     */
+    private static class StubProvider extends Provider {
+        private static final long serialVersionUID = 1L;
+
+        StubProvider(String configuration) {
+            super("Stub-" + configuration.substring(7, configuration.indexOf('\n')), 1.0, "stub");
+
+            put("KeyStore.PKCS11", "sun.security.provider.JavaKeyStore$JKS");
+        }
+    }
+}
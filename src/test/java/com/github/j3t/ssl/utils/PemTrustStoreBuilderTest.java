@@ -0,0 +1,91 @@
+package com.github.j3t.ssl.utils;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.github.j3t.ssl.utils.test.Fixtures.*;
+import static org.junit.Assert.*;
+
+public class PemTrustStoreBuilderTest {
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullPath_whenAddFileInvoked_thenExceptionShouldBeThrown() {
+        PemTrustStoreBuilder.create().addFile(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenFile_whenAddDirectoryInvoked_thenExceptionShouldBeThrown() {
+        PemTrustStoreBuilder.create().addDirectory(BUNDLE_PEM);
+    }
+
+    @Test
+    public void givenBundle_whenBuild_thenCertificatesShouldBeAdded() throws Exception {
+        KeyStore keyStore = PemTrustStoreBuilder.create().addFile(BUNDLE_PEM).build();
+
+        assertArrayEquals(new String[]{"bundle", "bundle-1"}, getSortedAliases(keyStore));
+        assertEquals(KEYSTORE_CLIENT.getCertificate("client"), keyStore.getCertificate("bundle"));
+        assertEquals(KEYSTORE_SERVER.getCertificate("server"), keyStore.getCertificate("bundle-1"));
+        assertTrue(keyStore.isCertificateEntry("bundle"));
+    }
+
+    @Test
+    public void givenDirectory_whenBuild_thenCertificatesShouldBeAddedByFileName() throws Exception {
+        KeyStore keyStore = PemTrustStoreBuilder.create().addDirectory(PEM_DIRECTORY).addFile(BUNDLE_PEM).build();
+
+        assertArrayEquals(new String[]{"client", "server"}, getSortedAliases(keyStore));
+        assertEquals(KEYSTORE_SERVER.getCertificate("server"), keyStore.getCertificate("server"));
+    }
+
+    @Test
+    public void givenExecutor_whenBuild_thenExecutorShouldBeUsedAndNotShutDown() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            KeyStore keyStore = PemTrustStoreBuilder.create()
+                    .addFile(BUNDLE_PEM)
+                    .setExecutor(executor)
+                    .build();
+
+            assertEquals(2, keyStore.size());
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = CertificateException.class)
+    public void givenInvalidCertificate_whenBuild_thenExceptionShouldBeThrown() throws Exception {
+        File file = File.createTempFile("ssl-utils", ".pem");
+        file.deleteOnExit();
+
+        FileOutputStream out = new FileOutputStream(file);
+
+        try {
+            out.write("-----BEGIN CERTIFICATE-----\nAAAA\n-----END CERTIFICATE-----\n".getBytes("US-ASCII"));
+        } finally {
+            out.close();
+        }
+
+        PemTrustStoreBuilder.create().addFile(BUNDLE_PEM).addFile(file.getPath()).build();
+    }
+
+    @Test
+    public void givenPemTrustStore_whenSSLContextBuilt_thenContextShouldBeReturned() throws Exception {
+        KeyStore trustStore = PemTrustStoreBuilder.create().addDirectory(PEM_DIRECTORY).buildUnsecure();
+
+        assertNotNull(SSLContextBuilder.create().setTrustStore(trustStore).build());
+    }
+
+    private static String[] getSortedAliases(KeyStore keyStore) {
+        String[] aliases = KeyStoreHelper.getAliases(keyStore);
+        Arrays.sort(aliases);
+
+        return aliases;
+    }
+}
@@ -14,6 +14,8 @@ import static org.junit.Assume.assumeTrue;
 
 @RunWith(Parameterized.class)
 public class SSLContextBuilderProtocolTest {
+    private static final boolean TLS13_SUPPORTED = EnvironmentHelper.isProtocolSupported(SslProtocol.TLSv13);
+
     private boolean test;
     private String expectedProtocol;
 
@@ -27,9 +29,10 @@ public class SSLContextBuilderProtocolTest {
         return Arrays.asList(new Object[][]{
                 {EnvironmentHelper.isJava6(), SslProtocol.TLSv10},
                 {EnvironmentHelper.isJava7(), SslProtocol.TLSv12},
-                {EnvironmentHelper.isJava7OrHigher(), SslProtocol.TLSv12},
-                {EnvironmentHelper.isJava8(), SslProtocol.TLSv12},
-                {EnvironmentHelper.isJava8OrHigher(), SslProtocol.TLSv12},
+                {EnvironmentHelper.isJava7OrHigher() && !TLS13_SUPPORTED, SslProtocol.TLSv12},
+                {EnvironmentHelper.isJava8() && !TLS13_SUPPORTED, SslProtocol.TLSv12},
+                {EnvironmentHelper.isJava8() && TLS13_SUPPORTED, SslProtocol.TLSv13},
+                {EnvironmentHelper.isJava11OrHigher(), SslProtocol.TLSv13},
         });
     }
 
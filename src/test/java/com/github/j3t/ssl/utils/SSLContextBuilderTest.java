@@ -1,9 +1,18 @@
 package com.github.j3t.ssl.utils;
 
+import com.github.j3t.ssl.utils.metrics.MetricNames;
+import com.github.j3t.ssl.utils.metrics.Metrics;
+import com.github.j3t.ssl.utils.metrics.MetricsRecorder;
+import com.github.j3t.ssl.utils.sni.SniKeyManager;
+import com.github.j3t.ssl.utils.strategy.StrategyExtendedTrustManager;
+import com.github.j3t.ssl.utils.strategy.StrategyTrustManager;
+import com.github.j3t.ssl.utils.strategy.TrustDecisionCache;
 import com.github.j3t.ssl.utils.strategy.TrustManagerStrategy;
+import com.github.j3t.ssl.utils.test.Fixtures;
 import com.github.j3t.ssl.utils.types.SslProtocol;
 import org.junit.Test;
 
+import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.TrustManager;
@@ -13,11 +22,17 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -42,7 +57,7 @@ public class SSLContextBuilderTest {
     @Test
     public void testSSLContextWithCustomRandomGenerator() throws Exception {
         // given SSLContext with a custom random generator
-        SecureRandom randomGenerator = mock(SecureRandom.class);
+        SecureRandom randomGenerator = spy(new SecureRandom());
         SSLContext sslContext = SSLContextBuilder.create()
                 .setSecureRandomGenerator(randomGenerator)
                 .build();
@@ -53,7 +68,7 @@ public class SSLContextBuilderTest {
         sslEngine.beginHandshake();
 
         // then the custom random generator should be used
-        verify(randomGenerator).nextBytes(any(byte[].class));
+        verify(randomGenerator, atLeastOnce()).nextBytes(any(byte[].class));
     }
 
     @Test(expected = NoSuchAlgorithmException.class)
@@ -84,4 +99,62 @@ public class SSLContextBuilderTest {
                 .build();
         // then exception should be thrown
     }
+
+    @Test
+    public void testTrustManagersWithTrustDecisionCacheButWithoutStrategy() throws Exception {
+        // given SSLContextBuilder with a trust decision cache only
+        TrustManager[] trustManagers = SSLContextBuilder.create()
+                .setTrustDecisionCache(new TrustDecisionCache(10, 1, TimeUnit.HOURS))
+
+                // when trust managers are created
+                .createTrustManagers();
+
+        // then the trust managers should be wrapped
+        assertTrue(trustManagers[0] instanceof StrategyTrustManager
+                || trustManagers[0] instanceof StrategyExtendedTrustManager);
+    }
+
+    @Test
+    public void givenRecorder_whenBuild_thenPhasesShouldBeRecorded() throws Exception {
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        Metrics.setRecorder(recorder);
+
+        try {
+            SSLContextBuilder.create().build();
+
+            verify(recorder).record(eq(MetricNames.CONTEXT_BUILD_INSTANCE), anyLong());
+            verify(recorder).record(eq(MetricNames.CONTEXT_BUILD_KEY_MANAGERS), anyLong());
+            verify(recorder).record(eq(MetricNames.CONTEXT_BUILD_TRUST_MANAGERS), anyLong());
+            verify(recorder).record(eq(MetricNames.CONTEXT_BUILD_INIT), anyLong());
+            verify(recorder).record(eq(MetricNames.CONTEXT_BUILD), anyLong());
+        } finally {
+            Metrics.setRecorder(null);
+        }
+    }
+
+    @Test
+    public void givenServerNameIndicationWithDefaultAlias_whenKeyManagersCreated_thenDefaultAliasShouldBeSet()
+            throws Exception {
+        // given SSLContextBuilder with server name indication and a default alias
+        KeyManager[] keyManagers = SSLContextBuilder.create()
+                .setKeyStore(Fixtures.KEYSTORE_SERVER)
+                .setKeyStorePassword("EC\\sEOoY")
+                .setServerNameIndication(true, "server")
+
+                // when key managers are created
+                .createKeyManagers();
+
+        // then the key manager should select the default alias
+        assertEquals("server", ((SniKeyManager) keyManagers[0]).getDefaultAlias());
+    }
+
+    @Test(expected = KeyStoreException.class)
+    public void givenServerNameIndicationWithUnknownDefaultAlias_whenKeyManagersCreated_thenExceptionShouldBeThrown()
+            throws Exception {
+        SSLContextBuilder.create()
+                .setKeyStore(Fixtures.KEYSTORE_SERVER)
+                .setKeyStorePassword("EC\\sEOoY")
+                .setServerNameIndication(true, "unknown")
+                .createKeyManagers();
+    }
 }
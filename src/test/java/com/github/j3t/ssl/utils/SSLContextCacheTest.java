@@ -0,0 +1,118 @@
+package com.github.j3t.ssl.utils;
+
+import com.github.j3t.ssl.utils.strategy.TrustManagerStrategy;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+
+import static com.github.j3t.ssl.utils.test.Fixtures.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class SSLContextCacheTest {
+    private SSLContextCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new SSLContextCache(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenMaximumSizeZero_whenCacheCreated_thenExceptionShouldBeThrown() {
+        new SSLContextCache(0);
+    }
+
+    @Test
+    public void givenSameConfiguration_whenBuildExecutedTwice_thenSameContextShouldBeReturned() throws Exception {
+        SSLContext first = createBuilder(KEYSTORE_CLIENT, TRUSTSTORE_CLIENT).build();
+        SSLContext second = createBuilder(KEYSTORE_CLIENT, TRUSTSTORE_CLIENT).build();
+
+        assertSame(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void givenKeyStoresWithSameContent_whenBuildExecuted_thenSameContextShouldBeReturned() throws Exception {
+        KeyStore copy = KeyStoreBuilder.create().setPath(CLIENT_JKS).build();
+
+        assertSame(createBuilder(KEYSTORE_CLIENT, TRUSTSTORE_CLIENT).build(), createBuilder(copy, TRUSTSTORE_CLIENT).build());
+    }
+
+    @Test
+    public void givenDifferentTrustStore_whenBuildExecuted_thenNewContextShouldBeReturned() throws Exception {
+        SSLContext first = createBuilder(KEYSTORE_CLIENT, TRUSTSTORE_CLIENT).build();
+        SSLContext second = createBuilder(KEYSTORE_CLIENT, TRUSTSTORE_SERVER).build();
+
+        assertNotSame(first, second);
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void givenKeyStoreWithSameCertificatesAndDifferentKey_whenBuildExecuted_thenNewContextShouldBeReturned()
+            throws Exception {
+        String alias = KeyStoreHelper.getAliases(KEYSTORE_CLIENT)[0];
+        Certificate[] chain = KEYSTORE_CLIENT.getCertificateChain(alias);
+        char[] password = "PtUPmi#o".toCharArray();
+
+        KeyStore otherKey = KeyStore.getInstance("JKS");
+        otherKey.load(null, null);
+        otherKey.setKeyEntry(alias, KeyPairGenerator.getInstance(chain[0].getPublicKey().getAlgorithm())
+                .generateKeyPair().getPrivate(), password, chain);
+
+        assertEquals(KeyStoreHelper.getFingerprint(KEYSTORE_CLIENT), KeyStoreHelper.getFingerprint(otherKey));
+        assertNotSame(createBuilder(KEYSTORE_CLIENT, TRUSTSTORE_CLIENT).build(),
+                createBuilder(otherKey, TRUSTSTORE_CLIENT).build());
+    }
+
+    @Test
+    public void givenDifferentPassword_whenBuildExecuted_thenNewContextShouldBeReturned() throws Exception {
+        SSLContext first = createBuilder(KEYSTORE_MULTI, TRUSTSTORE_CLIENT).build();
+        SSLContext second = createBuilder(KEYSTORE_MULTI, TRUSTSTORE_CLIENT).setKeyStorePassword("changeit").build();
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void givenDifferentStrategy_whenBuildExecuted_thenNewContextShouldBeReturned() throws Exception {
+        SSLContext first = createBuilder(KEYSTORE_CLIENT, TRUSTSTORE_CLIENT).build();
+        SSLContext second = createBuilder(KEYSTORE_CLIENT, TRUSTSTORE_CLIENT)
+                .setTrustManagerStrategy(mock(TrustManagerStrategy.class))
+                .build();
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void givenFullCache_whenNewContextBuilt_thenLeastRecentlyUsedContextShouldBeEvicted() throws Exception {
+        SSLContext first = createBuilder(KEYSTORE_CLIENT, TRUSTSTORE_CLIENT).build();
+        createBuilder(KEYSTORE_CLIENT, TRUSTSTORE_SERVER).build();
+        createBuilder(KEYSTORE_CLIENT, KEYSTORE_MULTI).build();
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotSame(first, createBuilder(KEYSTORE_CLIENT, TRUSTSTORE_CLIENT).build());
+    }
+
+    @Test
+    public void givenClearedCache_whenBuildExecuted_thenNewContextShouldBeReturned() throws Exception {
+        SSLContext first = createBuilder(KEYSTORE_CLIENT, TRUSTSTORE_CLIENT).build();
+        cache.clear();
+
+        assertNotSame(first, createBuilder(KEYSTORE_CLIENT, TRUSTSTORE_CLIENT).build());
+    }
+
+    private SSLContextBuilder createBuilder(KeyStore keyStore, KeyStore trustStore) {
+        return SSLContextBuilder.create()
+                .setKeyStore(keyStore)
+                .setKeyStorePassword("PtUPmi#o")
+                .setTrustStore(trustStore)
+                .setCache(cache);
+    }
+}
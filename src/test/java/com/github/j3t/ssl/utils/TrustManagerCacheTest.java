@@ -0,0 +1,118 @@
+package com.github.j3t.ssl.utils;
+
+import com.github.j3t.ssl.utils.strategy.TrustDecisionCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.j3t.ssl.utils.test.Fixtures.*;
+import static org.junit.Assert.*;
+
+public class TrustManagerCacheTest {
+    private static final String ALGORITHM = TrustManagerFactory.getDefaultAlgorithm();
+
+    private TrustManagerCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new TrustManagerCache();
+    }
+
+    @After
+    public void tearDown() {
+        TrustManagerCache.setDefault(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullTrustStore_whenGetInvoked_thenExceptionShouldBeThrown() throws Exception {
+        cache.get(null, ALGORITHM);
+    }
+
+    @Test
+    public void givenSameTrustStore_whenGetInvokedTwice_thenSameTrustManagersShouldBeReturned() throws Exception {
+        TrustManager[] first = cache.get(TRUSTSTORE_CLIENT, ALGORITHM);
+        TrustManager[] second = cache.get(TRUSTSTORE_CLIENT, ALGORITHM);
+
+        assertSame(first[0], second[0]);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void givenTrustStoresWithSameContent_whenGetInvoked_thenSameTrustManagersShouldBeReturned()
+            throws Exception {
+        KeyStore copy = KeyStoreBuilder.create().setPath(CLIENT_TRUST_JKS).build();
+
+        assertSame(cache.get(TRUSTSTORE_CLIENT, ALGORITHM)[0], cache.get(copy, ALGORITHM)[0]);
+    }
+
+    @Test
+    public void givenModifiedTrustStore_whenGetInvoked_thenNewTrustManagersShouldBeReturned() throws Exception {
+        KeyStore copy = KeyStoreBuilder.create().setPath(CLIENT_TRUST_JKS).build();
+        TrustManager[] first = cache.get(copy, ALGORITHM);
+
+        copy.setCertificateEntry("extra", KEYSTORE_SERVER.getCertificate("server"));
+
+        assertNotSame(first[0], cache.get(copy, ALGORITHM)[0]);
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void givenDifferentTrustStores_whenGetInvoked_thenDifferentTrustManagersShouldBeReturned()
+            throws Exception {
+        assertNotSame(cache.get(TRUSTSTORE_CLIENT, ALGORITHM)[0], cache.get(TRUSTSTORE_SERVER, ALGORITHM)[0]);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void givenUnreferencedTrustManagers_whenCollected_thenEntryShouldBeRemoved() throws Exception {
+        cache.get(TRUSTSTORE_CLIENT, ALGORITHM);
+
+        for (int i = 0; i < 20 && cache.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void givenDefaultCache_whenContextsBuilt_thenTrustManagersShouldBeShared() throws Exception {
+        TrustManagerCache.setDefault(cache);
+
+        SSLContext first = SSLContextBuilder.create().setTrustStore(TRUSTSTORE_CLIENT).build();
+        SSLContext second = SSLContextBuilder.create().setTrustStore(TRUSTSTORE_CLIENT).build();
+
+        assertNotSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void givenCacheAndStrategy_whenContextBuilt_thenSharedTrustManagerShouldBeWrapped() throws Exception {
+        SSLContextBuilder builder = SSLContextBuilder.create()
+                .setTrustStore(TRUSTSTORE_CLIENT)
+                .setTrustManagerCache(cache)
+                .setTrustDecisionCache(new TrustDecisionCache(8, 1, TimeUnit.MINUTES));
+
+        assertNotNull(builder.build());
+        assertNotNull(builder.build());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void givenClearedCache_whenGetInvoked_thenNewTrustManagersShouldBeCreated() throws Exception {
+        TrustManager[] first = cache.get(TRUSTSTORE_CLIENT, ALGORITHM);
+        cache.clear();
+
+        assertNotSame(first[0], cache.get(TRUSTSTORE_CLIENT, ALGORITHM)[0]);
+        assertEquals(2, cache.getMissCount());
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.j3t.ssl.utils.expiry;
+
+import com.github.j3t.ssl.utils.types.KeyStoreType;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.security.auth.x500.X500Principal;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.j3t.ssl.utils.test.Fixtures.KEYSTORE_SERVER;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ExpiryIndexTest {
+    static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private long now;
+    private ExpiryIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        now = System.currentTimeMillis();
+
+        Map<String, KeyStore> keyStores = new LinkedHashMap<String, KeyStore>();
+        keyStores.put("a", keyStore(now + 10 * DAY, now - DAY, now + 40 * DAY));
+        keyStores.put("b", keyStore(now + 5 * DAY));
+
+        index = ExpiryIndex.create(keyStores);
+    }
+
+    static KeyStore keyStore(long... notAfters) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance(KeyStoreType.JCEKS);
+        keyStore.load(null, null);
+
+        for (int i = 0; i < notAfters.length; i++)
+            keyStore.setCertificateEntry("cert-" + i, certificate(notAfters[i]));
+
+        return keyStore;
+    }
+
+    static X509Certificate certificate(long notAfter) {
+        X509Certificate certificate = mock(X509Certificate.class);
+        when(certificate.getSubjectX500Principal()).thenReturn(new X500Principal("CN=" + notAfter));
+        when(certificate.getNotBefore()).thenReturn(new Date(0));
+        when(certificate.getNotAfter()).thenReturn(new Date(notAfter));
+
+        return certificate;
+    }
+
+    private static List<String> names(List<ExpiryIndex.Entry> entries) {
+        List<String> names = new ArrayList<String>();
+
+        for (ExpiryIndex.Entry entry : entries)
+            names.add(entry.getKeyStore() + ":" + entry.getAlias());
+
+        return names;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullKeyStores_whenCreateInvoked_thenExceptionShouldBeThrown() throws Exception {
+        ExpiryIndex.create(null);
+    }
+
+    @Test
+    public void givenKeyStores_whenCreated_thenEntriesShouldBeSortedByNotAfter() {
+        assertEquals(Arrays.asList("a:cert-1", "b:cert-0", "a:cert-0", "a:cert-2"), names(index.getEntries()));
+    }
+
+    @Test
+    public void givenDuration_whenGetExpiringWithinInvoked_thenOnlyCertificatesExpiringInFutureShouldBeReturned() {
+        assertEquals(Arrays.asList("b:cert-0", "a:cert-0"), names(index.getExpiringWithin(30, TimeUnit.DAYS)));
+        assertTrue(index.getExpiringWithin(1, TimeUnit.DAYS).isEmpty());
+    }
+
+    @Test
+    public void givenMaxDuration_whenGetExpiringWithinInvoked_thenAllCertificatesNotExpiredShouldBeReturned() {
+        assertEquals(Arrays.asList("b:cert-0", "a:cert-0", "a:cert-2"),
+                names(index.getExpiringWithin(Long.MAX_VALUE, TimeUnit.DAYS)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNegativeDuration_whenGetExpiringWithinInvoked_thenExceptionShouldBeThrown() {
+        index.getExpiringWithin(-1, TimeUnit.DAYS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullUnit_whenGetExpiringWithinInvoked_thenExceptionShouldBeThrown() {
+        index.getExpiringWithin(1, null);
+    }
+
+    @Test
+    public void givenPeriod_whenGetExpiringBetweenInvoked_thenEndShouldBeExclusive() {
+        List<ExpiryIndex.Entry> entries = index.getExpiringBetween(new Date(now + 5 * DAY), new Date(now + 10 * DAY));
+
+        assertEquals(Collections.singletonList("b:cert-0"), names(entries));
+        assertTrue(index.getExpiringBetween(new Date(now + 10 * DAY), new Date(now)).isEmpty());
+    }
+
+    @Test
+    public void givenDate_whenGetExpiredAtInvoked_thenCertificatesExpiredBeforeShouldBeReturned() {
+        assertEquals(Collections.singletonList("a:cert-1"), names(index.getExpiredAt(new Date(now))));
+        assertEquals(4, index.getExpiredAt(new Date(now + 41 * DAY)).size());
+    }
+
+    @Test
+    public void givenDate_whenGetNextExpiringInvoked_thenFirstValidCertificateShouldBeReturned() {
+        assertEquals("cert-0", index.getNextExpiring(new Date(now)).getAlias());
+        assertEquals("b", index.getNextExpiring(new Date(now)).getKeyStore());
+        assertNull(index.getNextExpiring(new Date(now + 41 * DAY)));
+    }
+
+    @Test
+    public void givenFixtureKeyStore_whenCreated_thenSubjectShouldBeIndexed() throws Exception {
+        ExpiryIndex server = ExpiryIndex.create("server", KEYSTORE_SERVER);
+
+        assertEquals(1, server.size());
+        assertTrue(server.getEntries().get(0).getSubject().startsWith("CN=localhost"));
+    }
+}
@@ -0,0 +1,169 @@
+package com.github.j3t.ssl.utils.expiry;
+
+import com.github.j3t.ssl.utils.metrics.EventRecorder;
+import com.github.j3t.ssl.utils.metrics.MetricNames;
+import com.github.j3t.ssl.utils.metrics.Metrics;
+import com.github.j3t.ssl.utils.metrics.MetricsRecorder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.j3t.ssl.utils.expiry.ExpiryIndexTest.DAY;
+import static com.github.j3t.ssl.utils.expiry.ExpiryIndexTest.keyStore;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ExpiryMonitorTest {
+    private MetricsRecorder recorder;
+    private EventRecorder events;
+    private long now;
+    private ExpiryMonitor monitor;
+
+    @Before
+    public void setUp() throws Exception {
+        recorder = mock(MetricsRecorder.class);
+        events = mock(EventRecorder.class);
+        when(events.isEnabled()).thenReturn(true);
+        Metrics.setRecorder(recorder);
+        Metrics.setEventRecorder(events);
+
+        now = System.currentTimeMillis();
+        monitor = new ExpiryMonitor(ExpiryIndex.create("a", keyStore(now - DAY, now + 10 * DAY, now + 40 * DAY)), 30,
+                TimeUnit.DAYS);
+    }
+
+    @After
+    public void tearDown() {
+        monitor.close();
+        Metrics.setRecorder(null);
+        Metrics.setEventRecorder(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNegativeWarningPeriod_whenCreated_thenExceptionShouldBeThrown() {
+        new ExpiryMonitor(monitor.getIndex(), -1, TimeUnit.DAYS);
+    }
+
+    @Test
+    public void givenNoUnit_whenCreated_thenExceptionShouldNameTheUnit() {
+        try {
+            new ExpiryMonitor(monitor.getIndex(), 30, null);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("unit must not be null!", e.getMessage());
+        }
+    }
+
+    @Test
+    public void givenIndex_whenChecked_thenGaugesShouldBePublished() {
+        monitor.check(now);
+
+        verify(recorder).gauge(MetricNames.CERTIFICATE_EXPIRED, null, 1);
+        verify(recorder).gauge(MetricNames.CERTIFICATE_EXPIRING, null, 1);
+    }
+
+    @Test
+    public void givenNamedMonitor_whenChecked_thenGaugesShouldBePublishedWithTheName() {
+        new ExpiryMonitor("server", monitor.getIndex(), 30, TimeUnit.DAYS).check(now);
+
+        verify(recorder).gauge(MetricNames.CERTIFICATE_EXPIRED, "server", 1);
+        verify(recorder).gauge(MetricNames.CERTIFICATE_EXPIRING, "server", 1);
+    }
+
+    @Test
+    public void givenIndex_whenChecked_thenNextBoundaryShouldBeReturned() {
+        // cert-1 expires when cert-2 enters the warning period
+        assertEquals(now + 10 * DAY + 1, monitor.check(now));
+        assertEquals(now + 10 * DAY + 1, monitor.check(now + 10 * DAY));
+        assertEquals(now + 40 * DAY + 1, monitor.check(now + 10 * DAY + 1));
+        assertEquals(Long.MAX_VALUE, monitor.check(now + 41 * DAY));
+    }
+
+    @Test
+    public void givenFirstCheck_whenChecked_thenEventsShouldBeRecordedForCurrentState() {
+        monitor.check(now);
+
+        verify(events).certificateExpiry("a", "cert-0", "CN=" + (now - DAY), now - DAY, MetricNames.CERTIFICATE_EXPIRED);
+        verify(events).certificateExpiry("a", "cert-1", "CN=" + (now + 10 * DAY), now + 10 * DAY,
+                MetricNames.CERTIFICATE_EXPIRING);
+        verify(events, times(2)).certificateExpiry(anyString(), anyString(), anyString(), anyLong(), anyString());
+    }
+
+    @Test
+    public void givenSecondCheck_whenNoBoundaryCrossed_thenNoEventShouldBeRecorded() {
+        monitor.check(now);
+        reset(events);
+        when(events.isEnabled()).thenReturn(true);
+
+        monitor.check(now + DAY);
+
+        verify(events, never()).certificateExpiry(anyString(), anyString(), anyString(), anyLong(), anyString());
+    }
+
+    @Test
+    public void givenSecondCheck_whenBoundariesCrossed_thenEventsShouldBeRecordedOnce() {
+        monitor.check(now);
+        reset(events);
+        when(events.isEnabled()).thenReturn(true);
+
+        monitor.check(now + 10 * DAY + 1);
+
+        verify(events).certificateExpiry(anyString(), eq("cert-1"), anyString(), anyLong(),
+                eq(MetricNames.CERTIFICATE_EXPIRED));
+        verify(events).certificateExpiry(anyString(), eq("cert-2"), anyString(), anyLong(),
+                eq(MetricNames.CERTIFICATE_EXPIRING));
+        verify(events, times(2)).certificateExpiry(anyString(), anyString(), anyString(), anyLong(), anyString());
+    }
+
+    @Test
+    public void givenStartedMonitor_whenCertificateExpires_thenMonitorShouldWakeUp() throws Exception {
+        final CountDownLatch expired = new CountDownLatch(1);
+        Metrics.setEventRecorder(new EventRecorderAdapter() {
+            @Override
+            public void certificateExpiry(String keyStore, String alias, String subject, long notAfter, String state) {
+                if (MetricNames.CERTIFICATE_EXPIRED.equals(state))
+                    expired.countDown();
+            }
+        });
+
+        long notAfter = System.currentTimeMillis() + 200;
+        monitor.close();
+        monitor = new ExpiryMonitor(ExpiryIndex.create("a", keyStore(notAfter)), 0, TimeUnit.DAYS);
+        monitor.start();
+
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() > notAfter);
+    }
+
+    /**
+     * Enabled recorder, which ignores all but the expiry events.
+     */
+    private abstract static class EventRecorderAdapter implements EventRecorder {
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void keyStoreLoaded(String type, String provider, int entries, long bytes, long nanos) {
+        }
+
+        @Override
+        public void contextBuildPhase(String phase, String protocol, long nanos) {
+        }
+
+        @Override
+        public void trustChecked(int chainLength, String authType, String outcome, long nanos) {
+        }
+
+        @Override
+        public void aliasChosen(String alias, boolean client, boolean strategy, long nanos) {
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.github.j3t.ssl.utils.metrics;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.net.ssl.*;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLEngineResult.Status;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class MetricsTest {
+
+    @After
+    public void tearDown() throws Exception {
+        Metrics.setRecorder(null);
+        Metrics.setEventRecorder(null);
+    }
+
+    @Test
+    public void givenNoRecorder_whenStartInvoked_thenZeroShouldBeReturned() throws Exception {
+        assertFalse(Metrics.isEnabled());
+        assertEquals(0, Metrics.start());
+    }
+
+    @Test
+    public void givenRecorder_whenStopInvoked_thenDurationShouldBeRecorded() throws Exception {
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        Metrics.setRecorder(recorder);
+
+        long start = Metrics.start();
+        long end = Metrics.stop(MetricNames.KEY_ALIAS, start);
+
+        assertTrue(Metrics.isEnabled());
+        assertTrue(end >= start);
+        verify(recorder).record(MetricNames.KEY_ALIAS, end - start);
+    }
+
+    @Test
+    public void givenMeasurementStartedWithoutRecorder_whenStopInvoked_thenNothingShouldBeRecorded() throws Exception {
+        long start = Metrics.start();
+
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        Metrics.setRecorder(recorder);
+
+        assertEquals(0, Metrics.stop(MetricNames.KEY_ALIAS, start));
+        verifyZeroInteractions(recorder);
+    }
+
+    @Test
+    public void givenRecorder_whenSetRecorderWithNullInvoked_thenMetricsShouldBeDisabled() throws Exception {
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        Metrics.setRecorder(recorder);
+        Metrics.setRecorder(null);
+
+        Metrics.increment(MetricNames.HANDSHAKE_FAILURE);
+
+        assertFalse(Metrics.isEnabled());
+        assertNotNull(Metrics.getRecorder());
+        verifyZeroInteractions(recorder);
+    }
+
+    @Test
+    public void givenRecorder_whenStartHandshakeInvoked_thenDurationShouldBeRecorded() throws Exception {
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        SSLSocket socket = mock(SSLSocket.class);
+        Metrics.setRecorder(recorder);
+
+        Metrics.startHandshake(socket);
+
+        verify(socket).startHandshake();
+        verify(recorder).record(eq(MetricNames.HANDSHAKE), anyLong());
+        verifyNoMoreInteractions(recorder);
+    }
+
+    @Test
+    public void givenRecorderAndFailingSocket_whenStartHandshakeInvoked_thenFailureShouldBeCounted() throws Exception {
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        SSLSocket socket = mock(SSLSocket.class);
+        doThrow(new SSLException("handshake failed")).when(socket).startHandshake();
+        Metrics.setRecorder(recorder);
+
+        try {
+            Metrics.startHandshake(socket);
+            fail("SSLException expected");
+        } catch (SSLException e) {
+            verify(recorder).increment(MetricNames.HANDSHAKE_FAILURE);
+            verifyNoMoreInteractions(recorder);
+        }
+    }
+
+    @Test
+    public void givenRecorder_whenRegisteredSocketCompletedHandshake_thenDurationShouldBeRecordedOnce() throws Exception {
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        SSLSocket socket = mock(SSLSocket.class);
+        Metrics.setRecorder(recorder);
+
+        assertSame(socket, Metrics.registerHandshake(socket));
+
+        ArgumentCaptor<HandshakeCompletedListener> listener = ArgumentCaptor.forClass(HandshakeCompletedListener.class);
+        verify(socket).addHandshakeCompletedListener(listener.capture());
+
+        listener.getValue().handshakeCompleted(new HandshakeCompletedEvent(socket, mock(SSLSession.class)));
+
+        verify(socket).removeHandshakeCompletedListener(listener.getValue());
+        verify(recorder).record(eq(MetricNames.HANDSHAKE), anyLong());
+        verifyNoMoreInteractions(recorder);
+    }
+
+    @Test
+    public void givenNoRecorder_whenRegisterHandshakeInvoked_thenNoListenerShouldBeAdded() throws Exception {
+        SSLSocket socket = mock(SSLSocket.class);
+
+        assertSame(socket, Metrics.registerHandshake(socket));
+
+        verifyZeroInteractions(socket);
+    }
+
+    @Test
+    public void givenRecorder_whenHandshakeStatusInvokedUntilFinished_thenDurationShouldBeRecorded() throws Exception {
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        Metrics.setRecorder(recorder);
+
+        assertEquals(0, Metrics.handshakeStatus(result(HandshakeStatus.NOT_HANDSHAKING), 0));
+
+        long start = Metrics.handshakeStatus(result(HandshakeStatus.NEED_UNWRAP), 0);
+
+        assertTrue(start != 0);
+        assertEquals(start, Metrics.handshakeStatus(result(HandshakeStatus.NEED_WRAP), start));
+        verifyZeroInteractions(recorder);
+
+        assertEquals(0, Metrics.handshakeStatus(result(HandshakeStatus.FINISHED), start));
+        verify(recorder).record(eq(MetricNames.HANDSHAKE), anyLong());
+        assertEquals(0, Metrics.handshakeStatus(result(HandshakeStatus.NOT_HANDSHAKING), 0));
+        verifyNoMoreInteractions(recorder);
+    }
+
+    @Test
+    public void givenNoRecorder_whenHandshakeStatusInvoked_thenZeroShouldBeReturned() throws Exception {
+        assertEquals(0, Metrics.handshakeStatus(result(HandshakeStatus.NEED_UNWRAP), 0));
+        assertEquals(0, Metrics.handshakeStatus(result(HandshakeStatus.FINISHED), 0));
+    }
+
+    @Test
+    public void givenDisabledEventRecorder_whenStartInvoked_thenZeroShouldBeReturned() throws Exception {
+        EventRecorder events = mock(EventRecorder.class);
+        Metrics.setEventRecorder(events);
+
+        assertEquals(0, Metrics.start());
+    }
+
+    @Test
+    public void givenEnabledEventRecorder_whenKeyStoreLoaded_thenEventShouldBeRecorded() throws Exception {
+        EventRecorder events = mock(EventRecorder.class);
+        when(events.isEnabled()).thenReturn(true);
+        Metrics.setEventRecorder(events);
+
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        keyStore.load(null, null);
+        Metrics.keyStoreLoaded("JKS", null, keyStore, 42, Metrics.start());
+
+        verify(events).keyStoreLoaded(eq("JKS"), (String) isNull(), eq(0), eq(42L), anyLong());
+    }
+
+    @Test
+    public void givenEnabledEventRecorder_whenKeyStoreLoadFailed_thenEntriesShouldBeMinusOne() throws Exception {
+        EventRecorder events = mock(EventRecorder.class);
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        when(events.isEnabled()).thenReturn(true);
+        Metrics.setEventRecorder(events);
+        Metrics.setRecorder(recorder);
+
+        Metrics.keyStoreLoaded("JKS", "SUN", null, 0, Metrics.start());
+
+        verify(events).keyStoreLoaded(eq("JKS"), eq("SUN"), eq(-1), eq(0L), anyLong());
+        verify(recorder).increment(MetricNames.KEY_STORE_LOAD_FAILURE);
+    }
+
+    @Test
+    public void givenEnabledEventRecorder_whenTrustCheckedAndAliasChosen_thenEventsShouldBeRecorded() throws Exception {
+        EventRecorder events = mock(EventRecorder.class);
+        when(events.isEnabled()).thenReturn(true);
+        Metrics.setEventRecorder(events);
+
+        Metrics.trustChecked(new X509Certificate[2], "RSA", MetricNames.TRUST_CHECK_CACHED, Metrics.start());
+        Metrics.aliasChosen("client", true, false, Metrics.start());
+
+        verify(events).trustChecked(eq(2), eq("RSA"), eq(MetricNames.TRUST_CHECK_CACHED), anyLong());
+        verify(events).aliasChosen(eq("client"), eq(true), eq(false), anyLong());
+    }
+
+    @Test
+    public void givenRecorder_whenContextBuildPhaseInvoked_thenPhaseShouldBeRecorded() throws Exception {
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        Metrics.setRecorder(recorder);
+
+        long start = Metrics.start();
+        long end = Metrics.contextBuildPhase(MetricNames.CONTEXT_BUILD_INIT, "TLSv1.2", start);
+
+        verify(recorder).record(MetricNames.CONTEXT_BUILD_INIT, end - start);
+    }
+
+    private static SSLEngineResult result(HandshakeStatus status) {
+        return new SSLEngineResult(Status.OK, status, 0, 0);
+    }
+}
@@ -0,0 +1,257 @@
+package com.github.j3t.ssl.utils.reload;
+
+import com.github.j3t.ssl.utils.KeyStoreBuilder;
+import com.github.j3t.ssl.utils.KeyStoreHelper;
+import com.github.j3t.ssl.utils.SSLContextBuilder;
+import com.github.j3t.ssl.utils.strategy.TrustManagerStrategy;
+import com.github.j3t.ssl.utils.types.SslProtocol;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.net.ssl.*;
+import java.io.*;
+import java.net.InetAddress;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.j3t.ssl.utils.test.Fixtures.*;
+import static org.junit.Assert.*;
+
+public class SSLContextReloaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File trustStore;
+    private SSLContextReloader reloader;
+
+    @Before
+    public void setUp() throws Exception {
+        trustStore = folder.newFile("trust.jks");
+        copy(CLIENT_TRUST_JKS, trustStore);
+
+        reloader = new SSLContextReloader(
+                SSLContextBuilder.create(),
+                null,
+                KeyStoreBuilder.create().setPath(trustStore.getPath()));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        reloader.close();
+    }
+
+    @Test
+    public void givenUnchangedFile_whenReloadExecuted_thenContextShouldNotBeRebuilt() throws Exception {
+        SSLContext before = reloader.getDelegate();
+
+        assertFalse(reloader.reload());
+        assertSame(before, reloader.getDelegate());
+    }
+
+    @Test
+    public void givenTouchedFileWithSameContent_whenReloadExecuted_thenContextShouldNotBeRebuilt() throws Exception {
+        SSLContext before = reloader.getDelegate();
+        copy(CLIENT_TRUST_JKS, trustStore);
+
+        assertFalse(reloader.reload());
+        assertSame(before, reloader.getDelegate());
+    }
+
+    @Test
+    public void givenChangedFile_whenReloadExecuted_thenContextShouldBeRebuilt() throws Exception {
+        SSLContext before = reloader.getDelegate();
+        copy(SERVER_TRUST_JKS, trustStore);
+
+        assertTrue(reloader.reload());
+        assertNotSame(before, reloader.getDelegate());
+        assertFalse(reloader.reload());
+    }
+
+    @Test
+    public void givenChangedFile_whenReloadExecuted_thenFactoriesShouldBeStable() throws Exception {
+        SSLContext sslContext = reloader.getSSLContext();
+        Object socketFactory = sslContext.getSocketFactory();
+        Object serverSocketFactory = sslContext.getServerSocketFactory();
+        copy(SERVER_TRUST_JKS, trustStore);
+
+        reloader.reload();
+
+        assertSame(sslContext, reloader.getSSLContext());
+        assertSame(socketFactory, sslContext.getSocketFactory());
+        assertSame(serverSocketFactory, sslContext.getServerSocketFactory());
+    }
+
+    @Test
+    public void givenReloadingContext_whenEngineCreated_thenEngineShouldBeUsable() throws Exception {
+        SSLEngine sslEngine = reloader.getSSLContext().createSSLEngine("localhost", 443);
+        sslEngine.setUseClientMode(true);
+        sslEngine.beginHandshake();
+
+        assertEquals("localhost", sslEngine.getPeerHost());
+    }
+
+    @Test
+    public void givenServerSocket_whenKeyStoreReloaded_thenAcceptedConnectionsShouldUseTheNewCertificate()
+            throws Exception {
+        File keyStore = folder.newFile("key.jks");
+        writeIdentity(KEYSTORE_SERVER, "EC\\sEOoY", keyStore);
+
+        SSLContextReloader serverReloader = new SSLContextReloader(
+                SSLContextBuilder.create().setProtocol(SslProtocol.TLSv12).setKeyStorePassword("secret"),
+                KeyStoreBuilder.create().setPath(keyStore.getPath()).setPassword("secret"),
+                null);
+        SSLContext client = SSLContextBuilder.create()
+                .setProtocol(SslProtocol.TLSv12)
+                .setTrustStore(TRUSTSTORE_CLIENT)
+                .setTrustManagerStrategy(new TrustManagerStrategy() {
+                    @Override
+                    public boolean checkTrusted(X509Certificate[] chain, String authType) {
+                        return false;
+                    }
+                })
+                .build();
+
+        SSLServerSocket serverSocket = (SSLServerSocket) serverReloader.getSSLContext().getServerSocketFactory()
+                .createServerSocket(0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            assertEquals(KEYSTORE_SERVER.getCertificate(alias(KEYSTORE_SERVER)), handshake(serverSocket, client,
+                    executor));
+
+            writeIdentity(KEYSTORE_CLIENT, "PtUPmi#o", keyStore);
+            assertTrue(serverReloader.reload());
+
+            assertEquals(KEYSTORE_CLIENT.getCertificate(alias(KEYSTORE_CLIENT)), handshake(serverSocket, client,
+                    executor));
+        } finally {
+            serverSocket.close();
+            executor.shutdownNow();
+            serverReloader.close();
+        }
+    }
+
+    @Test
+    public void givenCorruptFile_whenReloadExecuted_thenCurrentContextShouldStayInUse() throws Exception {
+        SSLContext before = reloader.getDelegate();
+        write(new byte[]{1, 2, 3}, trustStore);
+
+        try {
+            reloader.reload();
+            fail("reload should fail!");
+        } catch (IOException e) {
+            assertSame(before, reloader.getDelegate());
+        }
+
+        copy(SERVER_TRUST_JKS, trustStore);
+        assertTrue(reloader.reload());
+    }
+
+    @Test
+    public void givenStartedReloader_whenFileChanged_thenContextShouldBeRebuiltInBackground() throws Exception {
+        SSLContext before = reloader.getDelegate();
+        reloader.start(10, TimeUnit.MILLISECONDS);
+        copy(SERVER_TRUST_JKS, trustStore);
+
+        for (int i = 0; i < 500 && before == reloader.getDelegate(); i++)
+            Thread.sleep(10);
+
+        assertNotSame(before, reloader.getDelegate());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void givenStartedReloader_whenStartExecuted_thenExceptionShouldBeThrown() throws Exception {
+        reloader.start(1, TimeUnit.MINUTES);
+        reloader.start(1, TimeUnit.MINUTES);
+    }
+
+    private static Certificate handshake(final SSLServerSocket serverSocket, SSLContext client,
+                                         ExecutorService executor) throws Exception {
+        Future<?> server = executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                SSLSocket socket = (SSLSocket) serverSocket.accept();
+
+                try {
+                    socket.startHandshake();
+                    socket.getInputStream().read();
+                } finally {
+                    socket.close();
+                }
+
+                return null;
+            }
+        });
+
+        SSLSocket socket = (SSLSocket) client.getSocketFactory().createSocket(InetAddress.getLoopbackAddress(),
+                serverSocket.getLocalPort());
+
+        try {
+            socket.startHandshake();
+            socket.getOutputStream().write(1);
+            server.get(10, TimeUnit.SECONDS);
+
+            return socket.getSession().getPeerCertificates()[0];
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static String alias(KeyStore keyStore) {
+        return KeyStoreHelper.getAliases(keyStore)[0];
+    }
+
+    private static void writeIdentity(KeyStore source, String password, File target) throws Exception {
+        String alias = alias(source);
+        Key key = source.getKey(alias, password.toCharArray());
+
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry(alias, key, "secret".toCharArray(), source.getCertificateChain(alias));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        keyStore.store(out, "secret".toCharArray());
+        write(out.toByteArray(), target);
+    }
+
+    private static void copy(String source, File target) throws IOException {
+        InputStream in = new FileInputStream(source);
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+
+            write(out.toByteArray(), target);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void write(byte[] content, File target) throws IOException {
+        long lastModified = target.lastModified();
+        OutputStream out = new FileOutputStream(target);
+
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+
+        // file systems with a coarse timestamp resolution wouldn't notice the change otherwise
+        target.setLastModified(lastModified + 2000);
+    }
+}
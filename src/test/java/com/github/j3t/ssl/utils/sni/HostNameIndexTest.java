@@ -0,0 +1,66 @@
+package com.github.j3t.ssl.utils.sni;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HostNameIndexTest {
+    private HostNameIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        index = new HostNameIndex();
+        index.add("www.example.com", "www", "RSA");
+        index.add("*.example.com", "wildcard", "RSA");
+        index.add("*.example.com", "wildcard-ec", "EC");
+        index.add("localhost", "localhost", "DSA");
+    }
+
+    @Test
+    public void findShouldReturnAliasWhenHostNameMatchesExactly() {
+        assertEquals("www", index.find("www.example.com", "RSA"));
+        assertEquals("localhost", index.find("localhost", "DSA"));
+    }
+
+    @Test
+    public void findShouldIgnoreCaseAndTrailingDot() {
+        assertEquals("www", index.find("WWW.Example.COM.", "RSA"));
+    }
+
+    @Test
+    public void findShouldReturnWildcardAliasWhenNoExactMatchExists() {
+        assertEquals("wildcard", index.find("api.example.com", "RSA"));
+        assertEquals("wildcard-ec", index.find("www.example.com", "EC"));
+    }
+
+    @Test
+    public void findShouldNotMatchWildcardWithMoreThanOneLabel() {
+        assertNull(index.find("a.b.example.com", "RSA"));
+        assertNull(index.find("example.com", "RSA"));
+    }
+
+    @Test
+    public void findShouldConsiderKeyType() {
+        assertEquals("wildcard-ec", index.find("api.example.com", "EC_RSA"));
+        assertEquals("www", index.find("www.example.com", "RSASSA-PSS"));
+        assertNull(index.find("localhost", "RSA"));
+        assertEquals("localhost", index.find("localhost", null));
+    }
+
+    @Test
+    public void findShouldReturnNullWhenHostNameIsUnknownOrInvalid() {
+        assertNull(index.find("www.example.org", "RSA"));
+        assertNull(index.find(null, "RSA"));
+        assertNull(index.find("", "RSA"));
+        assertNull(index.find("www..example.com", "RSA"));
+    }
+
+    @Test
+    public void addShouldIgnoreUnsupportedWildcards() {
+        assertFalse(index.add("w*.example.com", "partial", "RSA"));
+        assertFalse(index.add("www.*.com", "inner", "RSA"));
+        assertFalse(index.add("*.com", "tld", "RSA"));
+        assertEquals(4, index.size());
+    }
+}
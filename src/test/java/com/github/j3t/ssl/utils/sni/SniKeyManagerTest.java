@@ -0,0 +1,106 @@
+package com.github.j3t.ssl.utils.sni;
+
+import com.github.j3t.ssl.utils.EnvironmentHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.*;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+
+import static com.github.j3t.ssl.utils.test.Fixtures.KEYSTORE_SERVER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.*;
+
+public class SniKeyManagerTest {
+    private X509ExtendedKeyManager delegate;
+    private SniKeyManager keyManager;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue("Java Version isn't 8 or higher!", EnvironmentHelper.isJava8OrHigher());
+
+        delegate = mock(X509ExtendedKeyManager.class);
+        keyManager = new SniKeyManager(delegate, KEYSTORE_SERVER, null);
+    }
+
+    @Test
+    public void givenKeyStore_whenCreated_thenCommonNameShouldBeIndexed() throws Exception {
+        X509Certificate certificate = (X509Certificate) KEYSTORE_SERVER.getCertificate("server");
+
+        assertEquals(1, keyManager.getIndex().size());
+        assertTrue(SniKeyManager.getHostNames(certificate).contains("localhost"));
+    }
+
+    @Test
+    public void chooseEngineServerAliasShouldReturnAliasOfRequestedHostName() {
+        assertEquals("server", keyManager.chooseEngineServerAlias("DSA", null, engine("localhost")));
+
+        verifyZeroInteractions(delegate);
+    }
+
+    @Test
+    public void chooseServerAliasShouldReturnAliasOfRequestedHostName() {
+        assertEquals("server", keyManager.chooseServerAlias("DSA", null, socket("LOCALHOST")));
+
+        verifyZeroInteractions(delegate);
+    }
+
+    @Test
+    public void chooseEngineServerAliasShouldConsultDelegateWhenHostNameIsUnknown() {
+        SSLEngine engine = engine("www.example.com");
+        keyManager.chooseEngineServerAlias("DSA", null, engine);
+
+        verify(delegate).chooseEngineServerAlias("DSA", null, engine);
+    }
+
+    @Test
+    public void chooseServerAliasShouldConsultDelegateWhenKeyTypeDoesNotMatch() {
+        SSLSocket socket = socket("localhost");
+        keyManager.chooseServerAlias("RSA", null, socket);
+
+        verify(delegate).chooseServerAlias("RSA", null, socket);
+    }
+
+    @Test
+    public void chooseEngineServerAliasShouldReturnDefaultAliasWhenHostNameIsUnknown() throws Exception {
+        keyManager = new SniKeyManager(delegate, KEYSTORE_SERVER, "server");
+
+        assertEquals("server", keyManager.chooseEngineServerAlias("DSA", null, engine("www.example.com")));
+        verifyZeroInteractions(delegate);
+    }
+
+    @Test
+    public void chooseEngineClientAliasShouldConsultDelegate() {
+        SSLEngine engine = engine("localhost");
+        keyManager.chooseEngineClientAlias(new String[]{"DSA"}, null, engine);
+
+        verify(delegate).chooseEngineClientAlias(new String[]{"DSA"}, null, engine);
+    }
+
+    private static SSLEngine engine(String hostName) {
+        SSLSession session = session(hostName);
+        SSLEngine engine = mock(SSLEngine.class);
+        when(engine.getHandshakeSession()).thenReturn(session);
+
+        return engine;
+    }
+
+    private static SSLSocket socket(String hostName) {
+        SSLSession session = session(hostName);
+        SSLSocket socket = mock(SSLSocket.class);
+        when(socket.getHandshakeSession()).thenReturn(session);
+
+        return socket;
+    }
+
+    private static SSLSession session(String hostName) {
+        ExtendedSSLSession session = mock(ExtendedSSLSession.class);
+        when(session.getRequestedServerNames())
+                .thenReturn(Collections.<SNIServerName>singletonList(new SNIHostName(hostName)));
+
+        return session;
+    }
+}
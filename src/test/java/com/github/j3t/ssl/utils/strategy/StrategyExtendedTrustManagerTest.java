@@ -0,0 +1,118 @@
+package com.github.j3t.ssl.utils.strategy;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.net.Socket;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class StrategyExtendedTrustManagerTest {
+    private X509ExtendedTrustManager delegate;
+    private StrategyExtendedTrustManager trustManager;
+    private TrustManagerStrategy strategy;
+    private TrustDecisionCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        delegate = mock(X509ExtendedTrustManager.class);
+        strategy = mock(TrustManagerStrategy.class);
+        cache = new TrustDecisionCache(10, 1, TimeUnit.HOURS);
+        trustManager = new StrategyExtendedTrustManager(delegate, strategy, cache);
+    }
+
+    @Test
+    public void checkServerTrustedWithEngineShouldConsultDelegateWithEngineWhenStrategyReturnedTrue()
+            throws CertificateException {
+        SSLEngine engine = engine("HTTPS", "www.example.com");
+        when(strategy.checkTrusted(null, null)).thenReturn(true);
+        trustManager.checkServerTrusted(null, null, engine);
+
+        verify(delegate).checkServerTrusted(null, null, engine);
+    }
+
+    @Test
+    public void checkClientTrustedWithEngineShouldNotConsultDelegateWhenStrategyReturnedFalse()
+            throws CertificateException {
+        trustManager.checkClientTrusted(null, null, mock(SSLEngine.class));
+
+        verifyZeroInteractions(delegate);
+    }
+
+    @Test
+    public void checkServerTrustedWithSocketShouldConsultDelegateWithSocketWhenStrategyReturnedTrue()
+            throws CertificateException {
+        Socket socket = mock(Socket.class);
+        when(strategy.checkTrusted(null, null)).thenReturn(true);
+        trustManager.checkServerTrusted(null, null, socket);
+
+        verify(delegate).checkServerTrusted(null, null, socket);
+    }
+
+    @Test
+    public void checkClientTrustedWithSocketShouldConsultDelegateWithSocketWhenStrategyReturnedTrue()
+            throws CertificateException {
+        Socket socket = mock(Socket.class);
+        when(strategy.checkTrusted(null, null)).thenReturn(true);
+        trustManager.checkClientTrusted(null, null, socket);
+
+        verify(delegate).checkClientTrusted(null, null, socket);
+    }
+
+    @Test
+    public void checkServerTrustedWithEngineShouldReuseDecisionOnlyForTheSamePeerWhenIdentificationIsEnabled()
+            throws Exception {
+        X509Certificate[] chain = TrustDecisionCacheTest.chain(1, 1);
+        SSLEngine engine = engine("HTTPS", "www.example.com");
+        SSLEngine otherEngine = engine("HTTPS", "www.example.org");
+        when(strategy.checkTrusted(chain, "RSA")).thenReturn(true);
+
+        trustManager.checkServerTrusted(chain, "RSA", engine);
+        trustManager.checkServerTrusted(chain, "RSA", engine);
+        trustManager.checkServerTrusted(chain, "RSA", otherEngine);
+
+        verify(delegate, times(1)).checkServerTrusted(chain, "RSA", engine);
+        verify(delegate, times(1)).checkServerTrusted(chain, "RSA", otherEngine);
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void checkServerTrustedWithEngineShouldReuseDecisionForAnyPeerWhenIdentificationIsDisabled()
+            throws Exception {
+        X509Certificate[] chain = TrustDecisionCacheTest.chain(1, 1);
+        SSLEngine engine = engine(null, "www.example.com");
+        SSLEngine otherEngine = engine(null, "www.example.org");
+        when(strategy.checkTrusted(chain, "RSA")).thenReturn(true);
+
+        trustManager.checkServerTrusted(chain, "RSA", engine);
+        trustManager.checkServerTrusted(chain, "RSA", otherEngine);
+
+        verify(delegate, times(1)).checkServerTrusted(chain, "RSA", engine);
+        verify(delegate, never()).checkServerTrusted(chain, "RSA", otherEngine);
+    }
+
+    @Test
+    public void getAcceptedIssuersShouldConsultDelegateEveryTime() throws Exception {
+        trustManager.getAcceptedIssuers();
+
+        verify(delegate).getAcceptedIssuers();
+    }
+
+    private static SSLEngine engine(String endpointIdentificationAlgorithm, String peerHost) {
+        SSLParameters parameters = new SSLParameters();
+        parameters.setEndpointIdentificationAlgorithm(endpointIdentificationAlgorithm);
+
+        SSLEngine engine = mock(SSLEngine.class);
+        when(engine.getSSLParameters()).thenReturn(parameters);
+        when(engine.getPeerHost()).thenReturn(peerHost);
+
+        return engine;
+    }
+}
@@ -1,10 +1,18 @@
 package com.github.j3t.ssl.utils.strategy;
 
+import com.github.j3t.ssl.utils.metrics.MetricNames;
+import com.github.j3t.ssl.utils.metrics.Metrics;
+import com.github.j3t.ssl.utils.metrics.MetricsRecorder;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
 import javax.net.ssl.X509KeyManager;
 
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 public class StrategyKeyManagerTest {
@@ -77,4 +85,54 @@ public class StrategyKeyManagerTest {
         verify(delegate).getServerAliases(null, null);
     }
 
+    @Test
+    public void chooseEngineClientAliasShouldConsultExtendedDelegateWhenStrategyReturnedNull() {
+        X509ExtendedKeyManager extendedDelegate = mock(X509ExtendedKeyManager.class);
+        SSLEngine engine = mock(SSLEngine.class);
+        new StrategyKeyManager(extendedDelegate, strategy).chooseEngineClientAlias(null, null, engine);
+
+        verify(extendedDelegate).chooseEngineClientAlias(null, null, engine);
+    }
+
+    @Test
+    public void chooseEngineServerAliasShouldConsultExtendedDelegateWhenStrategyReturnedNull() {
+        X509ExtendedKeyManager extendedDelegate = mock(X509ExtendedKeyManager.class);
+        SSLEngine engine = mock(SSLEngine.class);
+        new StrategyKeyManager(extendedDelegate, strategy).chooseEngineServerAlias(null, null, engine);
+
+        verify(extendedDelegate).chooseEngineServerAlias(null, null, engine);
+    }
+
+    @Test
+    public void chooseEngineServerAliasShouldConsultDelegateWithoutEngineWhenDelegateIsNotExtended() {
+        keyManager.chooseEngineServerAlias(null, null, mock(SSLEngine.class));
+
+        verify(delegate).chooseServerAlias(null, null, null);
+    }
+
+    @Test
+    public void chooseEngineClientAliasShouldNotConsultDelegateWhenStrategyReturnedNotNull() {
+        when(strategy.chooseAlias()).thenReturn("client");
+
+        assertEquals("client", keyManager.chooseEngineClientAlias(null, null, null));
+        verifyZeroInteractions(delegate);
+    }
+
+    @Test
+    public void chooseServerAliasShouldRecordMetricsWhenRecorderIsSet() {
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        Metrics.setRecorder(recorder);
+
+        try {
+            keyManager.chooseServerAlias(null, null, null);
+            when(strategy.chooseAlias()).thenReturn("server");
+            keyManager.chooseServerAlias(null, null, null);
+
+            verify(recorder).increment(MetricNames.KEY_ALIAS_NOT_FOUND);
+            verify(recorder).increment(MetricNames.KEY_ALIAS_STRATEGY);
+            verify(recorder, times(2)).record(eq(MetricNames.KEY_ALIAS), anyLong());
+        } finally {
+            Metrics.setRecorder(null);
+        }
+    }
 }
@@ -1,11 +1,20 @@
 package com.github.j3t.ssl.utils.strategy;
 
+import com.github.j3t.ssl.utils.metrics.MetricNames;
+import com.github.j3t.ssl.utils.metrics.Metrics;
+import com.github.j3t.ssl.utils.metrics.MetricsRecorder;
 import org.junit.Before;
 import org.junit.Test;
 
 import javax.net.ssl.X509TrustManager;
 import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 public class StrategyTrustManagerTest {
@@ -56,4 +65,84 @@ public class StrategyTrustManagerTest {
 
         verify(delegate).getAcceptedIssuers();
     }
+
+    @Test
+    public void checkServerTrustedShouldNotConsultDelegateWhenChainWasTrustedBefore() throws Exception {
+        TrustDecisionCache cache = new TrustDecisionCache(10, 1, TimeUnit.HOURS);
+        keyManager = new StrategyTrustManager(delegate, strategy, cache);
+        X509Certificate[] chain = TrustDecisionCacheTest.chain(1, 1);
+        when(strategy.checkTrusted(chain, "RSA")).thenReturn(true);
+
+        keyManager.checkServerTrusted(chain, "RSA");
+        keyManager.checkServerTrusted(chain, "RSA");
+
+        verify(delegate, times(1)).checkServerTrusted(chain, "RSA");
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void checkServerTrustedShouldConsultDelegateWhenChainWasTrustedByOtherTrustManager() throws Exception {
+        TrustDecisionCache cache = new TrustDecisionCache(10, 1, TimeUnit.HOURS);
+        X509TrustManager otherDelegate = mock(X509TrustManager.class);
+        X509Certificate[] chain = TrustDecisionCacheTest.chain(1, 1);
+        when(strategy.checkTrusted(chain, "RSA")).thenReturn(true);
+        doThrow(new CertificateException()).when(delegate).checkServerTrusted(chain, "RSA");
+
+        new StrategyTrustManager(otherDelegate, strategy, cache).checkServerTrusted(chain, "RSA");
+
+        try {
+            new StrategyTrustManager(delegate, strategy, cache).checkServerTrusted(chain, "RSA");
+            fail("chain should be rejected!");
+        } catch (CertificateException e) {
+            // expected
+        }
+
+        verify(delegate).checkServerTrusted(chain, "RSA");
+    }
+
+    @Test
+    public void checkClientTrustedShouldConsultDelegateAgainWhenChainWasRejectedBefore() throws Exception {
+        TrustDecisionCache cache = new TrustDecisionCache(10, 1, TimeUnit.HOURS);
+        keyManager = new StrategyTrustManager(delegate, strategy, cache);
+        X509Certificate[] chain = TrustDecisionCacheTest.chain(1, 1);
+        when(strategy.checkTrusted(chain, "RSA")).thenReturn(true);
+        doThrow(new CertificateException()).when(delegate).checkClientTrusted(chain, "RSA");
+
+        for (int i = 0; i < 2; i++)
+            try {
+                keyManager.checkClientTrusted(chain, "RSA");
+                fail("chain should be rejected!");
+            } catch (CertificateException e) {
+                // expected
+            }
+
+        verify(delegate, times(2)).checkClientTrusted(chain, "RSA");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void checkClientTrustedShouldRecordMetricsWhenRecorderIsSet() throws Exception {
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        Metrics.setRecorder(recorder);
+        X509Certificate[] chain = TrustDecisionCacheTest.chain(1, 1);
+        doThrow(new CertificateException()).when(delegate).checkClientTrusted(chain, "RSA");
+
+        try {
+            keyManager.checkClientTrusted(chain, "RSA");
+            when(strategy.checkTrusted(chain, "RSA")).thenReturn(true);
+
+            try {
+                keyManager.checkClientTrusted(chain, "RSA");
+                fail("chain should be rejected!");
+            } catch (CertificateException e) {
+                // expected
+            }
+
+            verify(recorder).increment(MetricNames.TRUST_CHECK_SKIPPED);
+            verify(recorder).increment(MetricNames.TRUST_CHECK_REJECTED);
+            verify(recorder, times(2)).record(eq(MetricNames.TRUST_CHECK), anyLong());
+        } finally {
+            Metrics.setRecorder(null);
+        }
+    }
 }
@@ -0,0 +1,141 @@
+package com.github.j3t.ssl.utils.strategy;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.X509TrustManager;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TrustDecisionCacheTest {
+    private static final String SCOPE = "scope";
+
+    private TrustDecisionCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new TrustDecisionCache(2, 1, TimeUnit.HOURS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenMaximumSizeZero_whenCacheCreated_thenExceptionShouldBeThrown() {
+        new TrustDecisionCache(0, 1, TimeUnit.HOURS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNegativeTimeToLive_whenCacheCreated_thenExceptionShouldBeThrown() {
+        new TrustDecisionCache(1, -1, TimeUnit.HOURS);
+    }
+
+    @Test
+    public void givenUnknownChain_whenIsTrustedExecuted_thenFalseShouldBeReturned() throws Exception {
+        assertFalse(cache.isTrusted(key(chain(1, 1), "RSA")));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0d, cache.getHitRatio(), 0d);
+    }
+
+    @Test
+    public void givenTrustedChain_whenIsTrustedExecuted_thenTrueShouldBeReturned() throws Exception {
+        X509Certificate[] chain = chain(1, 1);
+        cache.trusted(key(chain, "RSA"), chain);
+
+        assertTrue(cache.isTrusted(key(chain(1, 1), "RSA")));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1d, cache.getHitRatio(), 0d);
+    }
+
+    @Test
+    public void givenTrustedChain_whenIsTrustedExecutedWithOtherAuthTypeOrSide_thenFalseShouldBeReturned()
+            throws Exception {
+        X509Certificate[] chain = chain(1, 1);
+        cache.trusted(key(chain, "RSA"), chain);
+
+        assertFalse(cache.isTrusted(key(chain, "EC")));
+        assertFalse(cache.isTrusted(TrustDecisionCache.createKey(SCOPE, 0, chain, "RSA", true)));
+    }
+
+    @Test
+    public void givenTrustedChainWithExpiredCertificate_whenIsTrustedExecuted_thenFalseShouldBeReturned()
+            throws Exception {
+        X509Certificate[] chain = chain(1, -1);
+        cache.trusted(key(chain, "RSA"), chain);
+
+        assertFalse(cache.isTrusted(key(chain, "RSA")));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void givenTrustedChainAndTimeToLiveExceeded_whenRemoveExpiredExecuted_thenDecisionShouldBeRemoved()
+            throws Exception {
+        cache = new TrustDecisionCache(2, 0, TimeUnit.MILLISECONDS);
+        X509Certificate[] chain = chain(1, 1);
+        cache.trusted(key(chain, "RSA"), chain);
+
+        cache.removeExpired();
+
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getExpirationCount());
+    }
+
+    @Test
+    public void givenFullCache_whenNewDecisionStored_thenLeastRecentlyUsedDecisionShouldBeEvicted() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            X509Certificate[] chain = chain(i, 1);
+            cache.trusted(key(chain, "RSA"), chain);
+        }
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertFalse(cache.isTrusted(key(chain(1, 1), "RSA")));
+        assertTrue(cache.isTrusted(key(chain(3, 1), "RSA")));
+    }
+
+    @Test
+    public void givenEmptyChain_whenCreateKeyExecuted_thenNullShouldBeReturned() throws Exception {
+        assertNull(TrustDecisionCache.createKey(SCOPE, 0, new X509Certificate[0], "RSA", false));
+        assertNull(TrustDecisionCache.createKey(SCOPE, 0, null, "RSA", false));
+    }
+
+    @Test
+    public void givenTrustedChain_whenIsTrustedExecutedWithOtherScope_thenFalseShouldBeReturned() throws Exception {
+        X509Certificate[] chain = chain(1, 1);
+        cache.trusted(key(chain, "RSA"), chain);
+
+        assertFalse(cache.isTrusted(TrustDecisionCache.createKey("other", 0, chain, "RSA", false)));
+    }
+
+    @Test
+    public void givenTrustedChain_whenIsTrustedExecutedWithOtherVersion_thenFalseShouldBeReturned() throws Exception {
+        X509Certificate[] chain = chain(1, 1);
+        cache.trusted(key(chain, "RSA"), chain);
+
+        assertFalse(cache.isTrusted(TrustDecisionCache.createKey(SCOPE, 1, chain, "RSA", false)));
+    }
+
+    @Test
+    public void givenTrustManagers_whenGetScopeExecuted_thenScopeShouldIdentifyTheInstance() {
+        X509TrustManager trustManager = mock(X509TrustManager.class);
+
+        assertEquals(TrustDecisionCache.getScope(trustManager), TrustDecisionCache.getScope(trustManager));
+        assertNotEquals(TrustDecisionCache.getScope(trustManager),
+                TrustDecisionCache.getScope(mock(X509TrustManager.class)));
+    }
+
+    private static String key(X509Certificate[] chain, String authType) throws Exception {
+        return TrustDecisionCache.createKey(SCOPE, 0, chain, authType, false);
+    }
+
+    static X509Certificate[] chain(int id, int validDays) throws Exception {
+        X509Certificate certificate = mock(X509Certificate.class);
+        when(certificate.getEncoded()).thenReturn(new byte[]{(byte) id});
+        when(certificate.getNotAfter()).thenReturn(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(validDays)));
+
+        return new X509Certificate[]{certificate};
+    }
+}
@@ -18,6 +18,9 @@ public interface Fixtures {
     String CLIENT_P12 = SSLContextBuilderIT.class.getResource("/certs/client.p12").getFile();
     String EMPTY_JKS = SSLContextBuilderIT.class.getResource("/certs/empty.jks").getFile();
     String MULTI_JKS = SSLContextBuilderIT.class.getResource("/certs/multi.jks").getFile();
+    String BUNDLE_PEM = SSLContextBuilderIT.class.getResource("/certs/bundle.pem").getFile();
+    String PEM_DIRECTORY = SSLContextBuilderIT.class.getResource("/certs/pem").getFile();
+    String IDENTITY_DIRECTORY = SSLContextBuilderIT.class.getResource("/certs/identity").getFile();
 
     /**
      * The client JKS key store fixture (Password: 'PtUPmi#o').<br>
@@ -0,0 +1,114 @@
+package com.github.j3t.ssl.utils.trust;
+
+import com.github.j3t.ssl.utils.SSLContextBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedTrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+import static com.github.j3t.ssl.utils.test.Fixtures.KEYSTORE_CLIENT;
+import static com.github.j3t.ssl.utils.test.Fixtures.KEYSTORE_SERVER;
+import static com.github.j3t.ssl.utils.test.Fixtures.TRUSTSTORE_CLIENT;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class CompositeTrustManagerTest {
+    private X509Certificate[] chain;
+    private X509TrustManager custom;
+    private X509ExtendedTrustManager fallback;
+    private CompositeTrustManager trustManager;
+
+    @Before
+    public void setUp() throws Exception {
+        chain = new X509Certificate[]{(X509Certificate) KEYSTORE_SERVER.getCertificate("server")};
+        custom = mock(X509TrustManager.class);
+        fallback = mock(X509ExtendedTrustManager.class);
+        trustManager = new CompositeTrustManager(custom, fallback);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullFallback_whenCreated_thenExceptionShouldBeThrown() {
+        new CompositeTrustManager(custom, null);
+    }
+
+    @Test
+    public void givenChainTrustedByCustomTrustManager_whenChecked_thenFallbackShouldNotBeConsulted()
+            throws Exception {
+        trustManager.checkServerTrusted(chain, "RSA");
+
+        verify(custom).checkServerTrusted(chain, "RSA");
+        verifyZeroInteractions(fallback);
+    }
+
+    @Test
+    public void givenChainNotTrustedByCustomTrustManager_whenChecked_thenFallbackShouldBeConsulted()
+            throws Exception {
+        SSLEngine engine = mock(SSLEngine.class);
+        doThrow(new CertificateException()).when(custom).checkClientTrusted(chain, "RSA");
+
+        trustManager.checkClientTrusted(chain, "RSA", engine);
+
+        verify(fallback).checkClientTrusted(chain, "RSA", engine);
+    }
+
+    @Test(expected = CertificateException.class)
+    public void givenChainTrustedByNone_whenChecked_thenExceptionShouldBeThrown() throws Exception {
+        doThrow(new CertificateException()).when(custom).checkServerTrusted(chain, "RSA");
+        doThrow(new CertificateException()).when(fallback).checkServerTrusted(chain, "RSA");
+
+        trustManager.checkServerTrusted(chain, "RSA");
+    }
+
+    @Test
+    public void givenTwoTrustManagers_whenAcceptedIssuersRequested_thenIssuersShouldBeMergedOnce() {
+        X509Certificate client = (X509Certificate) getCertificate("client");
+        when(custom.getAcceptedIssuers()).thenReturn(new X509Certificate[]{chain[0]});
+        when(fallback.getAcceptedIssuers()).thenReturn(new X509Certificate[]{client, chain[0]});
+
+        assertArrayEquals(new X509Certificate[]{chain[0], client}, trustManager.getAcceptedIssuers());
+        assertArrayEquals(new X509Certificate[]{chain[0], client}, trustManager.getAcceptedIssuers());
+        verify(custom, times(1)).getAcceptedIssuers();
+        verify(fallback, times(1)).getAcceptedIssuers();
+    }
+
+    @Test
+    public void givenDefaultTrustManager_whenRequestedTwice_thenSameInstanceShouldBeReturned() throws Exception {
+        X509TrustManager defaultTrustManager = CompositeTrustManager.getDefaultTrustManager();
+
+        assertSame(defaultTrustManager, CompositeTrustManager.getDefaultTrustManager());
+        assertTrue(defaultTrustManager.getAcceptedIssuers().length > 0);
+    }
+
+    @Test
+    public void givenBuilderWithDefaultTrust_whenTrustManagersCreated_thenJvmAndCustomIssuersShouldBeAccepted()
+            throws Exception {
+        X509TrustManager composite = new SSLContextBuilder() {
+            {
+                setTrustStore(TRUSTSTORE_CLIENT);
+                setDefaultTrust(true);
+            }
+
+            X509TrustManager trustManager() throws Exception {
+                return (X509TrustManager) createTrustManagers()[0];
+            }
+        }.trustManager();
+
+        int defaultIssuers = CompositeTrustManager.getDefaultTrustManager().getAcceptedIssuers().length;
+
+        assertTrue(composite instanceof CompositeTrustManager);
+        assertTrue(composite.getAcceptedIssuers().length > defaultIssuers);
+        composite.checkServerTrusted(chain, "RSA");
+    }
+
+    private static Object getCertificate(String alias) {
+        try {
+            return KEYSTORE_CLIENT.getCertificate(alias);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
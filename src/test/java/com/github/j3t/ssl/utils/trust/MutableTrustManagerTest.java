@@ -0,0 +1,202 @@
+package com.github.j3t.ssl.utils.trust;
+
+import com.github.j3t.ssl.utils.KeyStoreHelper;
+import com.github.j3t.ssl.utils.PemKeyStoreBuilder;
+import com.github.j3t.ssl.utils.SSLContextBuilder;
+import com.github.j3t.ssl.utils.strategy.TrustDecisionCache;
+import com.github.j3t.ssl.utils.types.SslProtocol;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.j3t.ssl.utils.test.Fixtures.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MutableTrustManagerTest {
+    private X509Certificate server;
+    private X509Certificate client;
+    private MutableTrustManager trustManager;
+
+    @Before
+    public void setUp() throws Exception {
+        server = (X509Certificate) KEYSTORE_SERVER.getCertificate("server");
+        client = (X509Certificate) KEYSTORE_CLIENT.getCertificate("client");
+        trustManager = new MutableTrustManager();
+    }
+
+    @Test(expected = CertificateException.class)
+    public void givenNoTrustAnchors_whenChecked_thenExceptionShouldBeThrown() throws Exception {
+        trustManager.checkServerTrusted(new X509Certificate[]{server}, "DSA");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullAnchor_whenAdded_thenExceptionShouldBeThrown() {
+        trustManager.addTrustAnchor(null);
+    }
+
+    @Test
+    public void givenAddedAnchor_whenChecked_thenChainShouldBeTrusted() throws Exception {
+        assertTrue(trustManager.addTrustAnchor(server));
+        assertFalse(trustManager.addTrustAnchor(server));
+
+        trustManager.checkServerTrusted(new X509Certificate[]{server}, "DSA");
+
+        assertEquals(1, trustManager.size());
+        assertArrayEquals(new X509Certificate[]{server}, trustManager.getAcceptedIssuers());
+    }
+
+    @Test
+    public void givenRemovedAnchor_whenChecked_thenExceptionShouldBeThrown() throws Exception {
+        trustManager.addTrustAnchors(Arrays.asList(server, client));
+
+        assertTrue(trustManager.removeTrustAnchor(server));
+        assertFalse(trustManager.removeTrustAnchor(server));
+        assertFalse(trustManager.containsTrustAnchor(server));
+
+        try {
+            trustManager.checkServerTrusted(new X509Certificate[]{server}, "DSA");
+            fail("chain shouldn't be trusted anymore!");
+        } catch (CertificateException e) {
+            assertEquals(1, trustManager.size());
+        }
+    }
+
+    @Test
+    public void givenTrustStore_whenCreated_thenCertificatesShouldBeAnchors() throws Exception {
+        trustManager = MutableTrustManager.create(TRUSTSTORE_CLIENT);
+
+        assertEquals(KeyStoreHelper.getAliases(TRUSTSTORE_CLIENT).length, trustManager.size());
+        assertTrue(trustManager.containsTrustAnchor(server));
+    }
+
+    @Test
+    public void givenCompositeTrustManager_whenAnchorAdded_thenAcceptedIssuersShouldBeUpdated() {
+        X509TrustManager fallback = mock(X509TrustManager.class);
+        when(fallback.getAcceptedIssuers()).thenReturn(new X509Certificate[]{client});
+        CompositeTrustManager composite = new CompositeTrustManager(trustManager, fallback);
+
+        assertArrayEquals(new X509Certificate[]{client}, composite.getAcceptedIssuers());
+
+        trustManager.addTrustAnchor(server);
+
+        assertArrayEquals(new X509Certificate[]{server, client}, composite.getAcceptedIssuers());
+    }
+
+    @Test
+    public void givenExistingContext_whenAnchorAdded_thenNextHandshakeShouldSeeTheAnchor() throws Exception {
+        SSLContext serverContext = SSLContextBuilder.create()
+                .setKeyStore(KEYSTORE_SERVER)
+                .setKeyStorePassword("EC\\sEOoY")
+                .setProtocol(SslProtocol.TLSv12)
+                .build();
+        SSLContext clientContext = SSLContextBuilder.create()
+                .setMutableTrustManager(trustManager)
+                .setProtocol(SslProtocol.TLSv12)
+                .build();
+
+        assertFalse(connect(serverContext, clientContext));
+
+        trustManager.addTrustAnchor(server);
+
+        assertTrue(connect(serverContext, clientContext));
+    }
+
+    @Test
+    public void givenTrustDecisionCache_whenAnchorRemovedAfterTrustedHandshake_thenNextHandshakeShouldFail()
+            throws Exception {
+        // the certificates of the decision must not be expired, otherwise the decision isn't reused anyway
+        KeyStore keyStore = PemKeyStoreBuilder.create()
+                .addKeyEntry("ec", IDENTITY_DIRECTORY + "/ec-key.pem", IDENTITY_DIRECTORY + "/ec-chain.pem")
+                .setPassword("secret".toCharArray())
+                .build();
+        X509Certificate ca = (X509Certificate) keyStore.getCertificateChain("ec")[1];
+        TrustDecisionCache cache = new TrustDecisionCache(10, 1, TimeUnit.HOURS);
+        trustManager.addTrustAnchors(Arrays.asList(ca, client));
+        SSLContext serverContext = SSLContextBuilder.create()
+                .setKeyStore(keyStore)
+                .setKeyStorePassword("secret")
+                .setProtocol(SslProtocol.TLSv12)
+                .build();
+        SSLContext clientContext = SSLContextBuilder.create()
+                .setMutableTrustManager(trustManager)
+                .setTrustDecisionCache(cache)
+                .setProtocol(SslProtocol.TLSv12)
+                .build();
+
+        assertTrue(connect(serverContext, clientContext));
+        assertTrue(connect(serverContext, clientContext));
+        assertEquals(1, cache.getHitCount());
+
+        trustManager.removeTrustAnchor(ca);
+
+        assertFalse(connect(serverContext, clientContext));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void givenCompositeTrustManager_whenAnchorAdded_thenVersionShouldChange() {
+        CompositeTrustManager composite = new CompositeTrustManager(trustManager, mock(X509TrustManager.class));
+        long version = composite.getVersion();
+
+        trustManager.addTrustAnchor(server);
+
+        assertEquals(1, trustManager.getVersion());
+        assertEquals(version + 1, composite.getVersion());
+        assertEquals(0, new CompositeTrustManager(mock(X509TrustManager.class), mock(X509TrustManager.class))
+                .getVersion());
+    }
+
+    private static boolean connect(SSLContext serverContext, SSLContext clientContext) throws Exception {
+        final SSLServerSocket serverSocket =
+                (SSLServerSocket) serverContext.getServerSocketFactory().createServerSocket(0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    SSLSocket socket = (SSLSocket) serverSocket.accept();
+
+                    try {
+                        socket.startHandshake();
+                        socket.getOutputStream().write(1);
+                    } finally {
+                        socket.close();
+                    }
+
+                    return null;
+                }
+            });
+
+            SSLSocket socket = (SSLSocket) clientContext.getSocketFactory()
+                    .createSocket("localhost", serverSocket.getLocalPort());
+
+            try {
+                return socket.getInputStream().read() == 1;
+            } catch (SSLException e) {
+                return false;
+            } finally {
+                socket.close();
+            }
+        } finally {
+            serverSocket.close();
+            executor.shutdownNow();
+        }
+    }
+}
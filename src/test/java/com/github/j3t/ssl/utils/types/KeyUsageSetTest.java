@@ -0,0 +1,62 @@
+package com.github.j3t.ssl.utils.types;
+
+import org.junit.Test;
+
+import static com.github.j3t.ssl.utils.types.KeyUsage.*;
+import static org.junit.Assert.*;
+
+public class KeyUsageSetTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNullKeyUsage_whenOfInvoked_thenExceptionShouldBeThrown() {
+        KeyUsageSet.of(DIGITAL_SIGNATURE, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenUnknownBit_whenValueOfInvoked_thenExceptionShouldBeThrown() {
+        KeyUsageSet.valueOf(1 << KeyUsage.values().length);
+    }
+
+    @Test
+    public void givenSameKeyUsages_whenOfInvoked_thenSameSetShouldBeReturned() {
+        assertSame(KeyUsageSet.of(KEY_CERT_SIGN, C_RL_SIGN), KeyUsageSet.of(C_RL_SIGN, KEY_CERT_SIGN));
+        assertSame(KeyUsageSet.of(KEY_CERT_SIGN, C_RL_SIGN), KeyUsageSet.EMPTY.with(C_RL_SIGN).with(KEY_CERT_SIGN));
+        assertSame(KeyUsageSet.EMPTY, KeyUsageSet.of());
+    }
+
+    @Test
+    public void givenKeyUsageExtension_whenValueOfInvoked_thenBitsShouldMatchOrdinals() {
+        KeyUsageSet set = KeyUsageSet.valueOf(new boolean[]{true, false, false, false, false, true, false, false, false});
+
+        assertEquals(1 << DIGITAL_SIGNATURE.ordinal() | 1 << KEY_CERT_SIGN.ordinal(), set.getMask());
+        assertSame(KeyUsageSet.EMPTY, KeyUsageSet.valueOf((boolean[]) null));
+    }
+
+    @Test
+    public void givenSet_whenContainsAllInvoked_thenAllKeyUsagesMustBePresent() {
+        KeyUsageSet set = KeyUsageSet.of(DIGITAL_SIGNATURE, KEY_ENCIPHERMENT);
+
+        assertTrue(set.containsAll(KeyUsageSet.of(DIGITAL_SIGNATURE)));
+        assertTrue(set.containsAll(KeyUsageSet.EMPTY));
+        assertFalse(set.containsAll(KeyUsageSet.of(DIGITAL_SIGNATURE, KEY_AGREEMENT)));
+    }
+
+    @Test
+    public void givenSet_whenContainsAnyInvoked_thenOneKeyUsageMustBePresent() {
+        KeyUsageSet set = KeyUsageSet.of(DIGITAL_SIGNATURE, KEY_ENCIPHERMENT);
+
+        assertTrue(set.containsAny(KeyUsageSet.of(DIGITAL_SIGNATURE, KEY_AGREEMENT)));
+        assertFalse(set.containsAny(KeyUsageSet.of(KEY_AGREEMENT)));
+        assertFalse(set.containsAny(KeyUsageSet.EMPTY));
+    }
+
+    @Test
+    public void givenSet_whenToArrayInvoked_thenKeyUsagesShouldBeInDeclarationOrder() {
+        KeyUsageSet set = KeyUsageSet.of(DECIPHER_ONLY, NON_REPUDIATION);
+
+        assertArrayEquals(new KeyUsage[]{NON_REPUDIATION, DECIPHER_ONLY}, set.toArray());
+        assertEquals(2, set.size());
+        assertEquals("[NON_REPUDIATION, DECIPHER_ONLY]", set.toString());
+        assertEquals(KeyUsage.values().length, KeyUsageSet.ALL.size());
+    }
+}